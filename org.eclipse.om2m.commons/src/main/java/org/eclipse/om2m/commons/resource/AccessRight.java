@@ -33,7 +33,9 @@ package org.eclipse.om2m.commons.resource;
 import javax.persistence.CascadeType;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -83,6 +85,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 @Entity(name=DBEntities.ACCESSRIGHT_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class AccessRight extends Resource {
 
     @XmlSchemaType(name = "dateTime")
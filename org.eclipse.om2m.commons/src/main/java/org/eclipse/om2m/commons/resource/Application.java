@@ -31,7 +31,9 @@ package org.eclipse.om2m.commons.resource;
 import javax.persistence.CascadeType;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -80,6 +82,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
  *
  */
 @Entity(name = DBEntities.APPLICATION_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 public class Application extends Resource {
@@ -30,6 +30,8 @@
 package org.eclipse.om2m.commons.resource;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -74,6 +76,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 @Entity(name=DBEntities.APPLICATION_ANNC_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class ApplicationAnnc extends Resource {
 
     @XmlElement(required = true)
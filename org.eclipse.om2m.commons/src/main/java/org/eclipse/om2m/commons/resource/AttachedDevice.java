@@ -30,6 +30,8 @@
 package org.eclipse.om2m.commons.resource;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -70,6 +72,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 @Entity(name=DBEntities.ATTACHED_DEVICE_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class AttachedDevice extends Resource {
     @XmlSchemaType(name = "dateTime")
     protected String creationTime;
@@ -33,6 +33,7 @@ import java.util.Arrays;
 
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
+import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -66,7 +67,9 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 @Embeddable
 public class Base64Binary {
 
+    /** Not persisted with the embedding contentInstance, see {@link ContentInstancePayload} */
     @XmlValue
+    @Transient
     protected byte[] value;
     @XmlAttribute(name = "contentType", namespace = "http://www.w3.org/2005/05/xmlmime")
     @Column(name="contentTypeBase64Binary")
@@ -30,8 +30,10 @@ package org.eclipse.om2m.commons.resource;
 
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -85,6 +87,7 @@ import javax.xml.bind.annotation.XmlSeeAlso;
 @XmlSeeAlso({ LocationContainer.class })
 @XmlRootElement
 @Entity(name=DBEntities.CONTAINER_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 @Inheritance(strategy=InheritanceType.TABLE_PER_CLASS)
 public class Container extends Resource {
 
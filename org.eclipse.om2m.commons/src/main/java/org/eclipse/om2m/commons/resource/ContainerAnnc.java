@@ -30,6 +30,8 @@
 package org.eclipse.om2m.commons.resource;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -69,6 +71,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 @Entity(name=DBEntities.CONTAINER_ANNC_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class ContainerAnnc extends Resource {
 
     @XmlElement(required = true)
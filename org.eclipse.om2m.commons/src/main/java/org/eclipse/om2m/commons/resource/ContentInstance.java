@@ -31,6 +31,8 @@ package org.eclipse.om2m.commons.resource;
 
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -73,6 +75,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 @Entity(name=DBEntities.CONTENT_INSTANCE_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri, creationTimeMillis"), @Index(columnList = "parentUri, lastModifiedTimeMillis"), @Index(columnList = "resourceType")})
 public class ContentInstance extends Resource {
 
     @XmlSchemaType(name = "dateTime")
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.resource;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+
+/**
+ * Payload of a {@link ContentInstance}, i.e. the bytes of its {@link Base64Binary} content.
+ * It is stored apart from the contentInstance (uri of the contentInstance followed by
+ * {@link Refs#CONTENT_REF}) so that the contentInstances are listed without their payloads,
+ * and it is loaded only when the content is returned. It is not kept in the shared cache.
+ */
+@Entity(name=DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY)
+public class ContentInstancePayload {
+
+    @Id
+    protected String uri;
+    @Lob
+    @Column(name="payload")
+    protected byte[] value;
+
+    /**
+     * ContentInstancePayload Constructor
+     */
+    public ContentInstancePayload() {
+    }
+
+    /**
+     * ContentInstancePayload Constructor
+     * @param contentInstanceUri - The uri of the contentInstance
+     * @param value - The bytes of the content
+     */
+    public ContentInstancePayload(String contentInstanceUri, byte[] value) {
+        this.uri = contentInstanceUri + Refs.CONTENT_REF;
+        this.value = value;
+    }
+
+    /**
+     * Gets the uri of the payload, i.e. the uri of its contentInstance followed by {@link Refs#CONTENT_REF}.
+     *
+     * @return
+     *     possible object is
+     *     {@link String }
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Gets the uri of the contentInstance of the payload.
+     *
+     * @return
+     *     possible object is
+     *     {@link String }
+     */
+    public String getContentInstanceUri() {
+        return uri.substring(0, uri.length() - Refs.CONTENT_REF.length());
+    }
+
+    /**
+     * Gets the bytes of the content.
+     *
+     * @return
+     *     possible object is
+     *     byte[]
+     */
+    public byte[] getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the bytes of the content.
+     *
+     * @param value
+     *     allowed object is
+     *     byte[]
+     */
+    public void setValue(byte[] value) {
+        this.value = value;
+    }
+
+}
@@ -51,6 +51,8 @@ public final class DBEntities {
 	public static final String CONTAINER_ANNC_ENTITY = "CONTAINERANNC";
 	/** Name used for the persisted {@link ContentInstance} entity */
 	public static final String CONTENT_INSTANCE_ENTITY = "CONTENTINSTANCE";
+	/** Name used for the persisted {@link ContentInstancePayload} entity */
+	public static final String CONTENT_INSTANCE_PAYLOAD_ENTITY = "CONTENTINSTANCEPAYLOAD";
 	/** Name used for the persisted {@link ContentInstances} entity */
 	public static final String CONTENT_INSTANCES_ENTITY = "CONTENTINSTANCES";
 	/** Name used for the persisted {@link ExecInstance} entity */
@@ -107,4 +109,120 @@ public final class DBEntities {
 		SCL_BASE_ENTITY,
 		SUBSCRIPTION_ENTITY
 	} ;
+
+	/** List of entities storing the payload of another resource, they are not discovered */
+	public static final String[] PAYLOAD_ENTITY_LIST = {
+		CONTENT_INSTANCE_PAYLOAD_ENTITY
+	} ;
+
+	/** List of entities owning cascaded relations (permissions, aPoCPaths, channelData), their
+	 *  descendants are removed one by one instead of with a set-based statement */
+	public static final String[] CASCADING_ENTITY_LIST = {
+		ACCESSRIGHT_ENTITY,
+		APPLICATION_ENTITY,
+		NOTIFICATION_CHANNEL_ENTITY
+	} ;
+
+	/** List of entities that are referenced by id and uri in their parent collection */
+	public static final String[] REFERENCED_ENTITY_LIST = {
+		ACCESSRIGHT_ENTITY,
+		ACCESSRIGHT_ANNC_ENTITY,
+		APPLICATION_ENTITY,
+		APPLICATION_ANNC_ENTITY,
+		ATTACHED_DEVICE_ENTITY,
+		CONTAINER_ENTITY,
+		CONTAINER_ANNC_ENTITY,
+		EXEC_INSTANCE_ENTITY,
+		GROUP_ENTITY,
+		GROUP_ANNC_ENTITY,
+		LOCATION_CONTAINER_ENTITY,
+		LOCATION_CONTAINER_ANNC_ENTITY,
+		M2MPOC_ENTITY,
+		MGMTOBJ_ENTITY,
+		MGMTCMD_ENTITY,
+		NOTIFICATION_CHANNEL_ENTITY,
+		SCL_ENTITY,
+		SUBSCRIPTION_ENTITY
+	} ;
+
+	/** List of the configuration entities read by most of the requests, kept in the shared cache
+	 *  with the entities they embed */
+	public static final String[] CACHED_ENTITY_LIST = {
+		ACCESSRIGHT_ENTITY,
+		APOCPATHS_ENTITY,
+		APPLICATION_ENTITY,
+		CONTAINER_ENTITY,
+		LOCATION_CONTAINER_ENTITY,
+		PERMISSION_LIST_TYPE_ENTITY,
+		SCL_BASE_ENTITY
+	} ;
+
+	/** List of the entities that are not kept in the shared cache, so that they do not evict 
+	 *  the configuration entities */
+	public static final String[] UNCACHED_ENTITY_LIST = {
+		CONTENT_INSTANCE_ENTITY,
+		CONTENT_INSTANCE_PAYLOAD_ENTITY
+	} ;
+
+	/** List of entities that are ordered by creation time */
+	public static final String[] TIME_ORDERED_ENTITY_LIST = {
+		CONTENT_INSTANCE_ENTITY
+	} ;
+
+	// Named queries registered for the entities of ENTITY_LIST
+	/** Named query selecting the direct children of a parent uri (parameter parentUri) */
+	public static final String FIND_BY_PARENT_QUERY = "findByParent";
+	/** Named query selecting the direct children of a parent uri with a given type (parameters parentUri, resourceType) */
+	public static final String FIND_BY_PARENT_AND_TYPE_QUERY = "findByParentAndType";
+	/** Named query selecting a resource and all its descendants (parameters uri, uriPrefix) */
+	public static final String FIND_SUBTREE_QUERY = "findSubtree";
+	/** Named query selecting all the resources of the entity */
+	public static final String FIND_ALL_QUERY = "findAll";
+	/** Named query selecting the uris of a resource and its descendants after a uri, in uri order (parameters uri, uriPrefix, after) */
+	public static final String FIND_SUBTREE_URIS_QUERY = "findSubtreeUris";
+	/** Named query selecting the uris of all the resources of the entity after a uri, in uri order (parameter after) */
+	public static final String FIND_URIS_QUERY = "findUris";
+	/** Named query selecting all the descendants of a resource (parameter uriPrefix) */
+	public static final String FIND_DESCENDANTS_QUERY = "findDescendants";
+	/** Named query deleting all the descendants of a resource (parameter uriPrefix) */
+	public static final String DELETE_DESCENDANTS_QUERY = "deleteDescendants";
+	/** Named query deleting a list of resources (parameter uris) */
+	public static final String DELETE_BY_URI_QUERY = "deleteByUri";
+	// Named queries registered for the entities of REFERENCED_ENTITY_LIST
+	/** Named query selecting only the id and uri of the direct children of a parent uri (parameter parentUri) */
+	public static final String FIND_REFERENCES_BY_PARENT_QUERY = "findReferencesByParent";
+	/** Named query selecting only the id and uri of the direct children of a parent uri with a given type (parameters parentUri, resourceType) */
+	public static final String FIND_REFERENCES_BY_PARENT_AND_TYPE_QUERY = "findReferencesByParentAndType";
+	// Named queries registered for the entities of TIME_ORDERED_ENTITY_LIST
+	/** Named query selecting the direct children of a parent uri, oldest first (parameter parentUri) */
+	public static final String FIND_BY_PARENT_ORDER_BY_CREATION_TIME_QUERY = "findByParentOrderByCreationTime";
+	/** Named query selecting the direct children of a parent uri, newest first (parameter parentUri) */
+	public static final String FIND_BY_PARENT_ORDER_BY_CREATION_TIME_DESC_QUERY = "findByParentOrderByCreationTimeDesc";
+	/** Named query selecting the direct children of a parent uri in creation time, modification time and size ranges, oldest first (parameters parentUri and the range bounds) */
+	public static final String FIND_BY_PARENT_IN_RANGES_QUERY = "findByParentInRanges";
+
+	/**
+	 * Returns the name under which a named query is registered for an entity.
+	 * @param entityName - name of the persisted entity
+	 * @param queryName - name of the query
+	 * @return the registered name of the query
+	 */
+	public static String getQueryName(String entityName, String queryName){
+		return entityName + "." + queryName;
+	}
+
+	/**
+	 * Returns the attribute holding the id of a referenced entity.
+	 * @param entityName - name of the persisted entity
+	 * @return the name of the id attribute
+	 */
+	public static String getIdAttribute(String entityName){
+		if (APPLICATION_ENTITY.equals(entityName)){
+			return "appId";
+		}
+		if (SCL_ENTITY.equals(entityName)){
+			return "sclId";
+		}
+		return "id";
+	}
 }
@@ -54,6 +54,7 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element ref="{http://uri.etsi.org/m2m}matchSize" minOccurs="0"/>
  *         &lt;element ref="{http://uri.etsi.org/m2m}truncated" minOccurs="0"/>
  *         &lt;element ref="{http://uri.etsi.org/m2m}discoveryURI" minOccurs="0"/>
+ *         &lt;element name="continuationToken" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -66,7 +67,8 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "Discovery", propOrder = {
         "matchSize",
         "truncated",
-        "discoveryURI"
+        "discoveryURI",
+        "continuationToken"
 })
 @XmlRootElement
 public class Discovery extends Resource{
@@ -74,6 +76,7 @@ public class Discovery extends Resource{
     protected Long matchSize;
     protected Boolean truncated;
     protected AnyURIList discoveryURI;
+    protected String continuationToken;
 
     /**
      * Gets the value of the matchSize property.
@@ -150,8 +153,33 @@ public class Discovery extends Resource{
         this.discoveryURI = value;
     }
 
+    /**
+     * Gets the value of the continuationToken property, set when the discovery
+     * is truncated to retrieve the next uris.
+     *
+     * @return
+     *     possible object is
+     *     {@link String }
+     *
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Sets the value of the continuationToken property.
+     *
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *
+     */
+    public void setContinuationToken(String value) {
+        this.continuationToken = value;
+    }
+
     public String toString() {
         return "Discovery [matchSize=" + matchSize + ", truncated=" + truncated
-                + ", discoveryURI=" + discoveryURI + "]";
+                + ", discoveryURI=" + discoveryURI + ", continuationToken=" + continuationToken + "]";
     }
 }
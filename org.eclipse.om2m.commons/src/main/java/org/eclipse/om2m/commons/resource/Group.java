@@ -33,7 +33,9 @@ import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -77,6 +79,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
  *
  */
 @Entity(name=DBEntities.GROUP_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlRootElement
 public class Group extends Resource {
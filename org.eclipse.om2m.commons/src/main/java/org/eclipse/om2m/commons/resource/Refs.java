@@ -37,6 +37,8 @@ public final class Refs {
 	public static final String CONTAINERS_REF = "/containers";
 	/** Reference to {@link ContentInstances} */
 	public static final String CONTENTINSTANCES_REF = "/contentInstances";
+	/** Reference to the {@link Content} of a {@link ContentInstance} */
+	public static final String CONTENT_REF = "/content";
 	/** Reference to {@link Discovery} */
 	public static final String DISCOVERY_REF = "/discovery";
 	/** Reference to {@link ExecInstances} */
@@ -45,6 +47,8 @@ public final class Refs {
 	public static final String GROUPS_REF = "/groups";
 	/** Reference to {@link M2MPocs} */
 	public static final String M2MPOCS_REF = "/m2mPocs";
+	/** Reference to the metrics of the SCL */
+	public static final String METRICS_REF = "/metrics";
 	/** Reference to {@link MembersContentResponses} */
 	public static final String MEMBERSCONTENT_REF = "/membersContent";
 	/** Reference to {@link MgmtObjs} */
@@ -28,16 +28,28 @@ package org.eclipse.om2m.commons.resource;
 import javax.persistence.Embedded;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.eclipse.om2m.commons.utils.DateConverter;
+
 @MappedSuperclass
 public abstract class Resource {
-	
+
 	@Id
     protected String uri;
 	@Embedded
     protected SearchStrings searchStrings;
     protected String accessRightID;
+    /** Uri of the direct parent, persisted and indexed to list children by equality */
+    protected String parentUri;
+    /** Simple name of the resource class, persisted and indexed */
+    protected String resourceType;
+    /** creationTime in milliseconds since the epoch, persisted for the time-ordered queries */
+    protected Long creationTimeMillis;
+    /** lastModifiedTime in milliseconds since the epoch, persisted for the time-range queries */
+    protected Long lastModifiedTimeMillis;
 
 	/**
      * Gets the value of the property uri.
@@ -109,4 +121,93 @@ public abstract class Resource {
         this.searchStrings = value;
     }
     
+
+    /**
+     * Gets the uri of the direct parent of the resource (the uri without its
+     * last segment). It is null for a root resource.
+     *
+     * @return
+     *     possible object is
+     *     {@link String }
+     *
+     */
+    @XmlTransient
+    public String getParentUri() {
+        return parentUri;
+    }
+
+    /**
+     * Gets the type of the resource, i.e. the simple name of its class.
+     *
+     * @return
+     *     possible object is
+     *     {@link String }
+     *
+     */
+    @XmlTransient
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    /**
+     * Gets the creationTime of the resource in milliseconds since the epoch.
+     *
+     * @return
+     *     possible object is
+     *     {@link Long }, null if the resource has no creationTime
+     *
+     */
+    @XmlTransient
+    public Long getCreationTimeMillis() {
+        return creationTimeMillis;
+    }
+
+    /**
+     * Gets the lastModifiedTime of the resource in milliseconds since the epoch.
+     *
+     * @return
+     *     possible object is
+     *     {@link Long }, null if the resource has no lastModifiedTime
+     *
+     */
+    @XmlTransient
+    public Long getLastModifiedTimeMillis() {
+        return lastModifiedTimeMillis;
+    }
+
+    /**
+     * Computes the persisted parentUri, resourceType, creationTimeMillis and
+     * lastModifiedTimeMillis attributes from the uri, the class and the times of 
+     * the resource. Called before each insert or update.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateIndexedAttributes() {
+        if (uri != null) {
+            int index = uri.lastIndexOf('/');
+            parentUri = index < 0 ? null : uri.substring(0, index);
+        }
+        resourceType = getClass().getSimpleName();
+        creationTimeMillis = DateConverter.toMillis(getCreationTime());
+        lastModifiedTimeMillis = DateConverter.toMillis(getLastModifiedTime());
+    }
+
+    /**
+     * Gets the creationTime of the resource, overridden by the resources having one.
+     *
+     * @return the xsd:dateTime value, null if the resource has none
+     */
+    protected String getCreationTime() {
+        return null;
+    }
+
+    /**
+     * Gets the lastModifiedTime of the resource, overridden by the resources having one.
+     *
+     * @return the xsd:dateTime value, null if the resource has none
+     */
+    protected String getLastModifiedTime() {
+        return null;
+    }
+
 }
@@ -32,7 +32,9 @@ import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -91,6 +93,7 @@ import javax.xml.bind.annotation.XmlSchemaType;
 @XmlRootElement
 @XmlAccessorType(XmlAccessType.FIELD)
 @Entity(name=DBEntities.SCL_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class Scl extends Resource {
 
 	@Lob
@@ -33,6 +33,8 @@ import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -79,6 +81,7 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "Subscription")
 @XmlRootElement
 @Entity(name=DBEntities.SUBSCRIPTION_ENTITY)
+@Table(indexes = {@Index(columnList = "parentUri"), @Index(columnList = "resourceType")})
 public class Subscription extends Resource {
 
     @XmlSchemaType(name = "dateTime")
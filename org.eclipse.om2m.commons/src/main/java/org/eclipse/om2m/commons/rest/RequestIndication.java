@@ -22,6 +22,8 @@ package org.eclipse.om2m.commons.rest;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.namespace.QName;
+
 import org.eclipse.om2m.commons.resource.Notify;
 import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.utils.XmlMapper;
@@ -49,6 +51,10 @@ public class RequestIndication {
     private String requestingEntity;
     /** Request parameters */
     private Map<String, List<String>> parameters;
+    /** Name of the root element of the representation, read once when it is first needed */
+    private QName rootElement;
+    /** True if the root element of the current representation has been read */
+    private boolean rootElementRead;
 
     /**
      * RequestIndication default Constructor.
@@ -155,6 +161,7 @@ public class RequestIndication {
      */
     public void setRepresentation(String representation) {
         this.representation = representation;
+        this.rootElementRead = false;
     }
 
     /**
@@ -162,7 +169,7 @@ public class RequestIndication {
      * @param resource
      */
     public void setRepresentation(Resource resource) {
-        this.representation = XmlMapper.getInstance().objectToXml(resource);
+        setRepresentation(XmlMapper.getInstance().objectToXml(resource));
     }
 
     /**
@@ -170,7 +177,31 @@ public class RequestIndication {
      * @param notify
      */
     public void setRepresentation(Notify notify) {
-        this.representation = XmlMapper.getInstance().objectToXml(notify);
+        setRepresentation(XmlMapper.getInstance().objectToXml(notify));
+    }
+
+    /**
+     * Gets the name of the root element of the representation. Only the start of the 
+     * representation is read, once, then the name is kept with the request.
+     * @return qualified name of the root element, null if the representation is empty or not XML
+     */
+    public QName getRootElement() {
+        if (!rootElementRead) {
+            rootElement = XmlMapper.getInstance().getRootElement(representation);
+            rootElementRead = true;
+        }
+        return rootElement;
+    }
+
+    /**
+     * Checks the name of the root element of the representation.
+     * @param namespace - namespace uri of the expected root element
+     * @param localName - local name of the expected root element
+     * @return true if the representation is XML with this root element
+     */
+    public boolean hasRootElement(String namespace, String localName) {
+        QName name = getRootElement();
+        return name != null && name.getLocalPart().equals(localName) && name.getNamespaceURI().equals(namespace);
     }
 
     /**
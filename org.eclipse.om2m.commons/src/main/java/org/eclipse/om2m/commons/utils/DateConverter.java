@@ -40,6 +40,15 @@ import org.apache.commons.logging.LogFactory;
 public class DateConverter {
     /** Logger */
     private static Log LOGGER = LogFactory.getLog(DateConverter.class);
+    /** Factory parsing the xsd:dateTime values, created once */
+    private static DatatypeFactory datatypeFactory;
+    static {
+        try {
+            datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            LOGGER.error("DatatypeFactory creation error",e);
+        }
+    }
 
     /**
      * Converts java.util.Date to javax.xml.datatype.XMLGregorianCalendar
@@ -58,4 +67,20 @@ public class DateConverter {
         }
         return xmlGregorianCalendar;
     }
+
+    /**
+     * Converts a xsd:dateTime value to milliseconds since the epoch
+     * @param dateTime - The value to convert
+     * @return the milliseconds, null if the value is null or cannot be parsed
+     */
+    public static Long toMillis(String dateTime) {
+        if (dateTime == null || datatypeFactory == null) {
+            return null;
+        }
+        try {
+            return datatypeFactory.newXMLGregorianCalendar(dateTime).toGregorianCalendar().getTimeInMillis();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
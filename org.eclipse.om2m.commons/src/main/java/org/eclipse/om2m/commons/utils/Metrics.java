@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the counters and of the latency histograms of the SCL, indexed by name.
+ * The names are dot-separated, e.g. request.ContainerController.RETRIEVE, status.STATUS_OK
+ * or phase.accessCheck. The counters and histograms are created on first use and kept
+ * for the life of the SCL, so the names must come from a bounded set.
+ * It satisfies the singleton pattern.
+ */
+public final class Metrics {
+
+    /** Metrics Singleton */
+    private static Metrics metrics = new Metrics();
+
+    /** Counters indexed by name */
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+    /** Latency histograms indexed by name */
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private Metrics() {
+    }
+
+    /** Gets Metrics instance*/
+    public static Metrics getInstance() {
+        return metrics;
+    }
+
+    /**
+     * Gets a counter, created if needed. The frequently incremented counters should be kept
+     * by the caller instead of being looked up each time.
+     * @param name - name of the counter
+     * @return the counter
+     */
+    public AtomicLong getCounter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            AtomicLong previous = counters.putIfAbsent(name, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Gets a latency histogram, created if needed. The frequently recorded histograms should be
+     * kept by the caller instead of being looked up each time.
+     * @param name - name of the histogram
+     * @return the histogram
+     */
+    public LatencyHistogram getHistogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            LatencyHistogram previous = histograms.putIfAbsent(name, histogram);
+            if (previous != null) {
+                histogram = previous;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Increments a counter.
+     * @param name - name of the counter
+     */
+    public void increment(String name) {
+        getCounter(name).incrementAndGet();
+    }
+
+    /**
+     * Records a latency in a histogram.
+     * @param name - name of the histogram
+     * @param nanos - latency in nanoseconds
+     */
+    public void record(String name, long nanos) {
+        getHistogram(name).record(nanos);
+    }
+
+    /**
+     * Returns the values of the counters.
+     * @return values of the counters sorted by name
+     */
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> values = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            values.put(counter.getKey(), counter.getValue().get());
+        }
+        return values;
+    }
+
+    /**
+     * Returns the latency histograms.
+     * @return histograms sorted by name
+     */
+    public SortedMap<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<String, LatencyHistogram>(histograms);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Read-only JMX view of the {@link Metrics}: one attribute per counter, and for each latency
+ * histogram the attributes name.count, then name.mean, name.p50, name.p90, name.p99, name.p999
+ * and name.max in microseconds. The attributes are listed again each time the MBean info is read,
+ * so the metrics created after the registration are exposed too.
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    /** Percentiles of the histograms, with their attribute suffixes */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    /** Exposed metrics */
+    private final Metrics metrics;
+
+    /**
+     * MetricsMBean Constructor.
+     * @param metrics - exposed metrics
+     */
+    public MetricsMBean(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the values of the counters and the summaries of the histograms.
+     * @return values indexed by attribute name, the latencies in microseconds
+     */
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new LinkedHashMap<String, Long>(metrics.getCounters());
+        for (Map.Entry<String, LatencyHistogram> entry : metrics.getHistograms().entrySet()) {
+            values.putAll(summarize(entry.getKey(), entry.getValue()));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the summary of a histogram.
+     * @param name - name of the histogram
+     * @param histogram - latency histogram
+     * @return count, mean, percentiles and max indexed by attribute name, the latencies in microseconds
+     */
+    public static Map<String, Long> summarize(String name, LatencyHistogram histogram) {
+        Map<String, Long> summary = new LinkedHashMap<String, Long>();
+        summary.put(name + ".count", histogram.getCount());
+        summary.put(name + ".mean", toMicros(histogram.getMean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            summary.put(name + "." + PERCENTILE_NAMES[i], toMicros(histogram.getValueAtPercentile(PERCENTILES[i])));
+        }
+        summary.put(name + ".max", toMicros(histogram.getMax()));
+        return summary;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = metrics.getCounters().get(attribute);
+        if (value == null) {
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram histogram = dot < 0 ? null : metrics.getHistograms().get(attribute.substring(0, dot));
+            value = histogram == null ? null : summarize(attribute.substring(0, dot), histogram).get(attribute);
+        }
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Long> values = getValues();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            if (values.containsKey(attribute)) {
+                list.add(new Attribute(attribute, values.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (String name : getValues().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "OM2M SCL metrics, latencies in microseconds",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null,
+                new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+}
@@ -27,6 +27,11 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -47,6 +52,12 @@ public class XmlMapper {
     private JAXBContext ctx;
     /** Resource package name used for JAXBContext instantiation*/
     private String resourcePackage = "org.eclipse.om2m.commons.resource";
+    /** Factory of the StAX readers peeking the root element of the representations */
+    private XMLInputFactory inputFactory;
+    /** Latencies of the marshalling */
+    private final LatencyHistogram marshalLatency = Metrics.getInstance().getHistogram("phase.jaxb.marshal");
+    /** Latencies of the unmarshalling */
+    private final LatencyHistogram unmarshalLatency = Metrics.getInstance().getHistogram("phase.jaxb.unmarshal");
 
     /** Constructor.
      * Creates new Instance of JAXBContext based on package.
@@ -57,6 +68,9 @@ public class XmlMapper {
         } catch (JAXBException e) {
             LOGGER.error("Create JAXBContext error!", e);
         }
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
     }
 
     /** Gets XmlMapper instance*/
@@ -70,6 +84,7 @@ public class XmlMapper {
      * @return resource XML representation
      */
     public String objectToXml(Object object) {
+        long start = System.nanoTime();
         try {
             Marshaller marshaller = ctx.createMarshaller();
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
@@ -79,6 +94,8 @@ public class XmlMapper {
             return outputStream.toString();
         } catch (JAXBException e) {
             LOGGER.error("JAXB marshalling error!", e);
+        } finally {
+            marshalLatency.record(System.nanoTime() - start);
         }
         return null;
     }
@@ -89,13 +106,55 @@ public class XmlMapper {
      * @return resource Java object
      */
     public Object xmlToObject(String representation) {
+        long start = System.nanoTime();
         StringReader stringReader = new StringReader(representation);
         try {
             Unmarshaller unmarshaller = ctx.createUnmarshaller();
             return unmarshaller.unmarshal(stringReader);
         } catch (JAXBException e) {
             LOGGER.debug("JAXB unmarshalling error!",e);
-        } 
+        } finally {
+            unmarshalLatency.record(System.nanoTime() - start);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the name of the root element of a representation, without parsing the rest of it.
+     * @param representation - resource XML representation
+     * @return qualified name of the root element, null if the representation is not XML
+     */
+    public QName getRootElement(String representation) {
+        if (representation == null) {
+            return null;
+        }
+        // Skips the payloads that cannot be XML without creating a reader
+        int start = 0;
+        while (start < representation.length() && Character.isWhitespace(representation.charAt(start))) {
+            start++;
+        }
+        if (start == representation.length() || representation.charAt(start) != '<') {
+            return null;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(new StringReader(representation));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    return reader.getName();
+                }
+            }
+        } catch (XMLStreamException e) {
+            LOGGER.debug("StAX root element error!", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    LOGGER.debug("StAX reader close error!", e);
+                }
+            }
+        }
         return null;
     }
 }
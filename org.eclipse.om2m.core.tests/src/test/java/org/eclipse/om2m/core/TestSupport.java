@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core;
+
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.router.Router;
+
+/**
+ * SCL shared by the tests of the core. It is started once for all the test classes,
+ * which run in the same JVM on the same in-memory database.
+ */
+public final class TestSupport {
+
+	/** Router of the requests */
+	private static final Router ROUTER = new Router();
+
+	/** True once the SCL is started */
+	private static boolean started;
+
+	private TestSupport(){
+	}
+
+	/**
+	 * Starts the SCL, once.
+	 */
+	public static synchronized void startScl(){
+		if (!started){
+			Activator.initScl();
+			started = true;
+		}
+	}
+
+	/**
+	 * Sends a request as the admin.
+	 * @param method - The method of the request
+	 * @param targetID - The uri of the target resource
+	 * @param representation - The representation of the request, null if none
+	 * @return the response
+	 */
+	public static ResponseConfirm request(String method, String targetID, String representation){
+		return ROUTER.doRequest(new RequestIndication(method, targetID, Constants.ADMIN_REQUESTING_ENTITY, representation));
+	}
+}
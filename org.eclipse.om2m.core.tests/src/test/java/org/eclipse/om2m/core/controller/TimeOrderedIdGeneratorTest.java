@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import static org.eclipse.om2m.core.TestSupport.request;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.core.TestSupport;
+import org.eclipse.om2m.core.constants.Constants;
+import org.junit.Test;
+
+/**
+ * Ids of the {@link TimeOrderedIdGenerator}: order, sequence rollover, clock going backwards,
+ * and the check of the generated ids against the stored resources.
+ */
+public class TimeOrderedIdGeneratorTest {
+
+    /** A time after the origin of the timestamps */
+    private static final long TIME = 1500000000000L;
+
+    @Test
+    public void idsIncreaseAsStrings() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        String previous = generator.generateId("CI_", "");
+        for (int i = 0; i < 100000; i++) {
+            String id = generator.generateId("CI_", "");
+            assertEquals(id, "CI_".length() + 19, id.length());
+            assertTrue(previous + " " + id, id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void exhaustedSequenceRollsOverToTheNextMillisecond() {
+        FixedClockGenerator generator = new FixedClockGenerator(5);
+        long first = generator.nextValue();
+        for (long sequence = 1; sequence <= TimeOrderedIdGenerator.MAX_SEQUENCE; sequence++) {
+            long value = generator.nextValue();
+            assertEquals(timestamp(first), timestamp(value));
+            assertEquals(sequence, sequence(value));
+        }
+        long value = generator.nextValue();
+        assertEquals(timestamp(first) + 1, timestamp(value));
+        assertEquals(0, sequence(value));
+        assertEquals(5, node(value));
+        // The clock catching up with the borrowed millisecond continues its sequence
+        generator.time++;
+        assertEquals(value + 1, generator.nextValue());
+    }
+
+    @Test
+    public void clockGoingBackwardsKeepsTheIdsIncreasing() {
+        FixedClockGenerator generator = new FixedClockGenerator(5);
+        long previous = generator.nextValue();
+        generator.time -= 1000;
+        for (int i = 0; i < 10; i++) {
+            long value = generator.nextValue();
+            assertTrue(value > previous);
+            assertEquals(5, node(value));
+            previous = value;
+        }
+    }
+
+    @Test
+    public void nodesGenerateDifferentIds() {
+        assertFalse(new FixedClockGenerator(1).generateId("CI_", "").equals(new FixedClockGenerator(2).generateId("CI_", "")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nodeIdIsBounded() {
+        new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    @Test
+    public void generatedIdOfAStoredResourceIsSkipped() {
+        TestSupport.startScl();
+        String applicationsUri = Constants.SCL_ID + Refs.APPLICATIONS_REF;
+        assertEquals(StatusCode.STATUS_CREATED, request("CREATE", applicationsUri,
+                "<om2m:application xmlns:om2m=\"http://uri.etsi.org/m2m\" appId=\"ids\"/>").getStatusCode());
+        String containersUri = applicationsUri + "/ids" + Refs.CONTAINERS_REF;
+        // A previous run, with the same clock, stored a container with the first id
+        String stored = new FixedClockGenerator(5).generateId("CONT_", "");
+        assertEquals(StatusCode.STATUS_CREATED, request("CREATE", containersUri,
+                "<om2m:container xmlns:om2m=\"http://uri.etsi.org/m2m\" om2m:id=\"" + stored + "\"/>").getStatusCode());
+
+        FixedClockGenerator generator = new FixedClockGenerator(5);
+        String id = Controller.generateId(generator, "CONT_", "", containersUri);
+        assertFalse(stored.equals(id));
+        assertTrue(id.compareTo(stored) > 0);
+    }
+
+    private static long timestamp(long value) {
+        return value >>> (TimeOrderedIdGenerator.NODE_BITS + TimeOrderedIdGenerator.SEQUENCE_BITS);
+    }
+
+    private static long node(long value) {
+        return (value >>> TimeOrderedIdGenerator.SEQUENCE_BITS) & TimeOrderedIdGenerator.MAX_NODE_ID;
+    }
+
+    private static long sequence(long value) {
+        return value & TimeOrderedIdGenerator.MAX_SEQUENCE;
+    }
+
+    /**
+     * Generator whose clock only moves when the test changes it.
+     */
+    private static final class FixedClockGenerator extends TimeOrderedIdGenerator {
+
+        /** Current time in milliseconds */
+        long time = TIME;
+
+        FixedClockGenerator(int nodeId) {
+            super(nodeId);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return time;
+        }
+    }
+}
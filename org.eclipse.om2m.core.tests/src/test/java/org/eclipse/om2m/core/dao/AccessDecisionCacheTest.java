@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.om2m.commons.resource.AccessRight;
+import org.eclipse.om2m.commons.resource.HolderRefListType;
+import org.eclipse.om2m.commons.resource.PermissionFlagListType;
+import org.eclipse.om2m.commons.resource.PermissionFlagType;
+import org.eclipse.om2m.commons.resource.PermissionHolderType;
+import org.eclipse.om2m.commons.resource.PermissionListType;
+import org.eclipse.om2m.commons.resource.PermissionType;
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.core.TestSupport;
+import org.eclipse.om2m.core.constants.Constants;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Decisions of the {@link AccessDecisionCache}, compared with the permission scan it replaces.
+ */
+public class AccessDecisionCacheTest {
+
+	/** Requesting entities, with case variants of the holders */
+	private static final String[] REQUESTING_ENTITIES = {
+		"admin:admin", "ADMIN:ADMIN", "Admin:Admin", "app1", "APP1", "app2", "\u0130nstall", "install", "unknown", "", null
+	};
+
+	/** Methods, with case variants of the flags */
+	private static final String[] METHODS = {
+		"READ", "read", "Read", "WRITE", "wr\u0131te", "wr\u0130te", "DISCOVER", "DELETE", "CREATE", "create", "EXECUTE", "", null
+	};
+
+	private static final AccessDecisionCache CACHE = AccessDecisionCache.getInstance();
+
+	@BeforeClass
+	public static void setUp(){
+		TestSupport.startScl();
+	}
+
+	@Test
+	public void selfPermissionsFoldTheCase(){
+		PermissionListType permissions = permissions(
+				permission(new String[]{"Admin:Admin"}, PermissionFlagType.READ));
+		assertNull(CACHE.checkSelfPermissions(permissions, "admin:ADMIN", "read"));
+		assertNull(CACHE.checkSelfPermissions(permissions, "ADMIN:admin", "Read"));
+	}
+
+	@Test
+	public void firstPermissionOfTheHolderWins(){
+		PermissionListType permissions = permissions(
+				permission(new String[]{"app1"}, PermissionFlagType.READ),
+				permission(new String[]{"APP1"}, PermissionFlagType.WRITE));
+		assertNull(CACHE.checkSelfPermissions(permissions, "App1", "READ"));
+		assertEquals(StatusCode.STATUS_PERMISSION_DENIED, CACHE.checkSelfPermissions(permissions, "App1", "WRITE").getStatusCode());
+	}
+
+	@Test
+	public void unknownHolderIsNotFoundAndMissingFlagIsDenied(){
+		PermissionListType permissions = permissions(
+				permission(new String[]{"app1"}, PermissionFlagType.READ));
+		assertEquals(StatusCode.STATUS_NOT_FOUND, CACHE.checkSelfPermissions(permissions, "app2", "READ").getStatusCode());
+		assertEquals(StatusCode.STATUS_PERMISSION_DENIED, CACHE.checkSelfPermissions(permissions, "app1", "DELETE").getStatusCode());
+		assertEquals(StatusCode.STATUS_NOT_FOUND, CACHE.checkAccessRight(Constants.SCL_ID + Refs.ACCESSRIGHTS_REF + "/missing", "app1", "READ").getStatusCode());
+	}
+
+	@Test
+	public void decisionsMatchThePermissionScan(){
+		PermissionListType permissions = permissions(
+				permission(new String[]{"admin:admin", "app1"}, PermissionFlagType.READ, PermissionFlagType.WRITE),
+				permission(new String[]{"App1", "app2"}, PermissionFlagType.DELETE),
+				permission(new String[]{"install"}, PermissionFlagType.CREATE, PermissionFlagType.DISCOVER),
+				permission(new String[]{}, PermissionFlagType.READ));
+		String accessRightID = createAccessRight("scan", permissions);
+		// Twice, to check the cached decisions
+		for (int pass = 0; pass < 2; pass++){
+			for (String requestingEntity : REQUESTING_ENTITIES){
+				for (String method : METHODS){
+					String message = requestingEntity + " " + method;
+					assertEquals(message, scan(permissions, requestingEntity, method),
+							status(CACHE.checkSelfPermissions(permissions, requestingEntity, method)));
+					assertEquals(message, scan(permissions, requestingEntity, method),
+							status(CACHE.checkAccessRight(accessRightID, requestingEntity, method)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void updatedAccessRightIsInvalidated(){
+		String accessRightID = createAccessRight("updated", permissions(
+				permission(new String[]{"app1"}, PermissionFlagType.READ)));
+		assertNull(CACHE.checkAccessRight(accessRightID, "app1", "READ"));
+
+		DBEntityManager em = DBAccess.createEntityManager();
+		em.getTransaction().begin();
+		AccessRight accessRight = DAOFactory.getAccessRightDAO().find(accessRightID, em);
+		accessRight.setPermissions(permissions(permission(new String[]{"app1"}, PermissionFlagType.WRITE)));
+		DAOFactory.getAccessRightDAO().update(accessRight, em);
+		em.getTransaction().commit();
+		em.close();
+
+		assertEquals(StatusCode.STATUS_PERMISSION_DENIED, CACHE.checkAccessRight(accessRightID, "app1", "READ").getStatusCode());
+		assertNull(CACHE.checkAccessRight(accessRightID, "app1", "WRITE"));
+	}
+
+	@Test
+	public void leastRecentlyUsedDecisionsAreEvicted(){
+		int size = Constants.ACCESS_DECISION_CACHE_SIZE;
+		CACHE.clear();
+		String accessRightID = createAccessRight("evicted", permissions(
+				permission(new String[]{"app1"}, PermissionFlagType.READ)));
+		for (int i = 0; i < 2 * size; i++){
+			assertEquals(StatusCode.STATUS_NOT_FOUND, CACHE.checkAccessRight(accessRightID, "entity" + i, "READ").getStatusCode());
+			// app1 stays the most recently used decision
+			assertNull(CACHE.checkAccessRight(accessRightID, "app1", "READ"));
+		}
+		assertEquals(size, CACHE.getStatistics().get("decisions").intValue());
+
+		for (int i = 0; i < size + 10; i++){
+			CACHE.checkAccessRight(Constants.SCL_ID + Refs.ACCESSRIGHTS_REF + "/missing" + i, "app1", "READ");
+		}
+		assertEquals(size, CACHE.getStatistics().get("accessRights").intValue());
+		assertNull(CACHE.checkAccessRight(accessRightID, "app1", "READ"));
+	}
+
+	/**
+	 * Decision of the permission scan of the previous versions: the first permission
+	 * holding the requesting entity, ignoring the case, is the only one checked.
+	 * @return the status code of the error, null if the access is granted
+	 */
+	private static StatusCode scan(PermissionListType permissions, String requestingEntity, String method){
+		for (PermissionType permission : permissions.getPermission()){
+			for (String holder : permission.getPermissionHolders().getHolderRefs().getHolderRef()){
+				if (holder.equalsIgnoreCase(requestingEntity)){
+					for (PermissionFlagType flag : permission.getPermissionFlags().getFlag()){
+						if (flag.toString().equalsIgnoreCase(method)){
+							return null;
+						}
+					}
+					return StatusCode.STATUS_PERMISSION_DENIED;
+				}
+			}
+		}
+		return StatusCode.STATUS_NOT_FOUND;
+	}
+
+	private static StatusCode status(ResponseConfirm response){
+		return response == null ? null : response.getStatusCode();
+	}
+
+	/**
+	 * Persists an accessRight under the sclBase.
+	 * @param id - The id of the accessRight
+	 * @param permissions - The permissions of the accessRight
+	 * @return the uri of the accessRight
+	 */
+	private static String createAccessRight(String id, PermissionListType permissions){
+		AccessRight accessRight = new AccessRight();
+		accessRight.setId(id);
+		accessRight.setUri(Constants.SCL_ID + Refs.ACCESSRIGHTS_REF + "/" + id);
+		accessRight.setPermissions(permissions);
+		accessRight.setSelfPermissions(permissions);
+		DBEntityManager em = DBAccess.createEntityManager();
+		em.getTransaction().begin();
+		DAOFactory.getAccessRightDAO().create(accessRight, em);
+		em.getTransaction().commit();
+		em.close();
+		return accessRight.getUri();
+	}
+
+	private static PermissionListType permissions(PermissionType... permissions){
+		PermissionListType list = new PermissionListType();
+		for (PermissionType permission : permissions){
+			list.getPermission().add(permission);
+		}
+		return list;
+	}
+
+	private static PermissionType permission(String[] holders, PermissionFlagType... flags){
+		PermissionType permission = new PermissionType();
+		permission.setPermissionHolders(new PermissionHolderType());
+		permission.getPermissionHolders().setHolderRefs(new HolderRefListType());
+		for (String holder : holders){
+			permission.getPermissionHolders().getHolderRefs().getHolderRef().add(holder);
+		}
+		permission.setPermissionFlags(new PermissionFlagListType());
+		for (PermissionFlagType flag : flags){
+			permission.getPermissionFlags().getFlag().add(flag);
+		}
+		return permission;
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Base64Binary;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.core.TestSupport;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Segment store of the contentInstances: appends, lookups, retention, and the appends
+ * of the {@link ContentInstanceSegmentDAO} made at commit.
+ */
+public class ContentInstanceStoreTest {
+
+	/** Store under test */
+	private static final ContentInstanceStore STORE = ContentInstanceStore.getInstance();
+
+	@BeforeClass
+	public static void setUp(){
+		TestSupport.startScl();
+		STORE.init();
+	}
+
+	@Test
+	public void appendedContentInstancesAreFound(){
+		String parentUri = "nscl/applications/store/containers/append/contentInstances";
+		for (int i = 0; i < 3; i++){
+			STORE.append(contentInstance(parentUri, "ci" + i));
+		}
+		ContentInstance found = STORE.find(parentUri + "/ci1", false);
+		assertNotNull(found);
+		assertArrayEquals("ci1".getBytes(), found.getContent().getValue());
+		assertNull(STORE.find(parentUri + "/ci1", true).getContent().getValue());
+		assertEquals(parentUri + "/ci2", STORE.findFirst(parentUri, true, false).getUri());
+		assertEquals(parentUri + "/ci0", STORE.findFirst(parentUri, false, false).getUri());
+		assertEquals(3, STORE.findAll(parentUri).size());
+		assertNull(STORE.find(parentUri + "/ci3", false));
+	}
+
+	@Test
+	public void retentionDeletesTheOldestContentInstances(){
+		String parentUri = "nscl/applications/store/containers/retain/contentInstances";
+		for (int i = 0; i < 30; i++){
+			STORE.append(contentInstance(parentUri, "ci" + i));
+		}
+		assertEquals(20, STORE.retain(parentUri, 10));
+		List<ContentInstance> kept = STORE.findAll(parentUri);
+		assertEquals(10, kept.size());
+		assertEquals(parentUri + "/ci20", STORE.findFirst(parentUri, false, true).getUri());
+		assertEquals(parentUri + "/ci29", STORE.findFirst(parentUri, true, true).getUri());
+		assertNull(STORE.find(parentUri + "/ci19", true));
+		assertEquals(0, STORE.retain(parentUri, 10));
+	}
+
+	@Test
+	public void rolledBackCreationIsNotAppended(){
+		String parentUri = "nscl/applications/store/containers/rollback/contentInstances";
+		ContentInstanceSegmentDAO dao = new ContentInstanceSegmentDAO();
+		DBEntityManager em = DBAccess.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			dao.create(contentInstance(parentUri, "rolledBack"), em);
+			assertNull(STORE.find(parentUri + "/rolledBack", true));
+			em.getTransaction().rollback();
+
+			em.getTransaction().begin();
+			dao.create(contentInstance(parentUri, "committed"), em);
+			assertNull(STORE.find(parentUri + "/committed", true));
+			em.getTransaction().commit();
+		} finally {
+			em.close();
+		}
+		assertNull(STORE.find(parentUri + "/rolledBack", true));
+		assertNotNull(STORE.find(parentUri + "/committed", true));
+		assertEquals(1, STORE.findAll(parentUri).size());
+	}
+
+	/**
+	 * Creates a contentInstance whose content is its id.
+	 * @param parentUri - The uri of the contentInstances collection
+	 * @param id - The id of the contentInstance
+	 * @return the contentInstance
+	 */
+	private static ContentInstance contentInstance(String parentUri, String id){
+		ContentInstance contentInstance = new ContentInstance();
+		contentInstance.setId(id);
+		contentInstance.setUri(parentUri + "/" + id);
+		contentInstance.setCreationTime("2015-01-01T00:00:00.000+01:00");
+		contentInstance.setLastModifiedTime("2015-01-01T00:00:00.000+01:00");
+		Base64Binary content = new Base64Binary();
+		content.setContentType("text/plain");
+		content.setValue(id.getBytes());
+		contentInstance.setContent(content);
+		contentInstance.setContentSize((long) id.length());
+		return contentInstance;
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.eclipse.om2m.core.TestSupport.request;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.core.TestSupport;
+import org.eclipse.om2m.core.constants.Constants;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Concurrent creations of contentInstances through the {@link ContentInstanceWriter},
+ * racing the retention and the deletion of their application.
+ */
+public class ContentInstanceWriterTest {
+
+	/** Number of containers written concurrently */
+	private static final int CONTAINERS = 8;
+
+	/** Number of writing threads per container */
+	private static final int THREADS_PER_CONTAINER = 4;
+
+	/** Number of contentInstances created by each thread */
+	private static final int CREATIONS_PER_THREAD = 50;
+
+	@BeforeClass
+	public static void setUp(){
+		TestSupport.startScl();
+	}
+
+	@Test
+	public void concurrentCreationsKeepTheCountersAccurate() throws InterruptedException {
+		String applicationUri = createApplication("writer");
+		for (int c = 0; c < CONTAINERS; c++){
+			createContainer(applicationUri, "cnt" + c);
+		}
+		final AtomicInteger created = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(CONTAINERS * THREADS_PER_CONTAINER);
+		for (int c = 0; c < CONTAINERS; c++){
+			final String collectionUri = applicationUri + Refs.CONTAINERS_REF + "/cnt" + c + Refs.CONTENTINSTANCES_REF;
+			for (int t = 0; t < THREADS_PER_CONTAINER; t++){
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < CREATIONS_PER_THREAD; i++){
+							if (request("CREATE", collectionUri, "<obj val=\"" + i + "\"/>").getStatusCode() == StatusCode.STATUS_CREATED){
+								created.incrementAndGet();
+							}
+						}
+					}
+				});
+			}
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(40, TimeUnit.SECONDS));
+		assertEquals(CONTAINERS * THREADS_PER_CONTAINER * CREATIONS_PER_THREAD, created.get());
+
+		DBEntityManager em = DBAccess.createEntityManager();
+		try {
+			for (int c = 0; c < CONTAINERS; c++){
+				String collectionUri = applicationUri + Refs.CONTAINERS_REF + "/cnt" + c + Refs.CONTENTINSTANCES_REF;
+				ContentInstances contentInstances = em.find(ContentInstances.class, collectionUri);
+				List<ContentInstance> stored = DBUtil.findByParent(em, DBEntities.CONTENT_INSTANCE_ENTITY, collectionUri);
+				assertEquals(stored.size(), contentInstances.getCurrentNrOfInstances().longValue());
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	@Test
+	public void applicationDeletionLeavesNoContentInstance() throws InterruptedException {
+		final String applicationUri = createApplication("deleted");
+		for (int c = 0; c < CONTAINERS; c++){
+			createContainer(applicationUri, "cnt" + c);
+		}
+		final AtomicBoolean deleted = new AtomicBoolean();
+		final AtomicInteger created = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(CONTAINERS * THREADS_PER_CONTAINER);
+		for (int c = 0; c < CONTAINERS; c++){
+			final String collectionUri = applicationUri + Refs.CONTAINERS_REF + "/cnt" + c + Refs.CONTENTINSTANCES_REF;
+			for (int t = 0; t < THREADS_PER_CONTAINER; t++){
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						while (!deleted.get()){
+							if (request("CREATE", collectionUri, "<obj/>").getStatusCode() == StatusCode.STATUS_CREATED){
+								created.incrementAndGet();
+							}
+						}
+					}
+				});
+			}
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while (created.get() < CONTAINERS * THREADS_PER_CONTAINER * 10 && System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+		assertEquals(StatusCode.STATUS_OK, request("DELETE", applicationUri, null).getStatusCode());
+		deleted.set(true);
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(40, TimeUnit.SECONDS));
+
+		DBEntityManager em = DBAccess.createEntityManager();
+		try {
+			List<ContentInstance> orphans = DBUtil.findSubtree(em, DBEntities.CONTENT_INSTANCE_ENTITY, applicationUri);
+			assertEquals(0, orphans.size());
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Creates an application under the sclBase.
+	 * @param appId - The id of the application
+	 * @return the uri of the application
+	 */
+	private static String createApplication(String appId){
+		String applicationsUri = Constants.SCL_ID + Refs.APPLICATIONS_REF;
+		assertEquals(StatusCode.STATUS_CREATED, request("CREATE", applicationsUri,
+				"<om2m:application xmlns:om2m=\"http://uri.etsi.org/m2m\" appId=\"" + appId + "\"/>").getStatusCode());
+		return applicationsUri + "/" + appId;
+	}
+
+	/**
+	 * Creates a container, its oldest contentInstances are deleted by the retention.
+	 * @param applicationUri - The uri of the parent application
+	 * @param id - The id of the container
+	 */
+	private static void createContainer(String applicationUri, String id){
+		assertEquals(StatusCode.STATUS_CREATED, request("CREATE", applicationUri + Refs.CONTAINERS_REF,
+				"<om2m:container xmlns:om2m=\"http://uri.etsi.org/m2m\" om2m:id=\"" + id + "\"/>").getStatusCode());
+	}
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.RollbackException;
+
+import org.eclipse.om2m.commons.resource.APoCPath;
+import org.eclipse.om2m.commons.resource.APoCPaths;
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstancePayload;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Transactions of the {@link MemoryStorageEngine}: copies, rollback, subtree deletion,
+ * concurrent updates and snapshots. The resources are stored under a root of their own.
+ */
+public class MemoryStorageEngineTest {
+
+	/** Root of the resources of the tests */
+	private static final String ROOT = "memoryTest";
+
+	private static final MemoryStorageEngine ENGINE = new MemoryStorageEngine();
+
+	@BeforeClass
+	public static void setUp(){
+		ENGINE.init();
+	}
+
+	@Test
+	public void managedResourcesAreDeepCopies(){
+		Container container = container("copied", "tag");
+		commitPersist(container);
+		// Changing the persisted instance after the commit does not change the stored one
+		container.setMaxNrOfInstances(1L);
+		container.getSearchStrings().getSearchString().add("changed");
+
+		DBEntityManager em = ENGINE.createEntityManager();
+		Container found = em.find(Container.class, container.getUri());
+		assertNotSame(container, found);
+		assertEquals(Long.valueOf(10), found.getMaxNrOfInstances());
+		assertEquals(1, found.getSearchStrings().getSearchString().size());
+		assertSame(found, em.find(Container.class, container.getUri()));
+		// Changing the managed instance is not seen by the other entity managers
+		found.getSearchStrings().getSearchString().add("uncommitted");
+		DBEntityManager other = ENGINE.createEntityManager();
+		assertEquals(1, other.find(Container.class, container.getUri()).getSearchStrings().getSearchString().size());
+		other.close();
+		em.close();
+	}
+
+	@Test
+	public void rolledBackChangesAreDiscarded(){
+		Container container = container("rolledBack", "tag");
+		commitPersist(container);
+
+		DBEntityManager em = ENGINE.createEntityManager();
+		em.getTransaction().begin();
+		em.find(Container.class, container.getUri()).setMaxNrOfInstances(1L);
+		em.persist(container("created", null));
+		em.persist(new ContentInstancePayload(container.getUri() + "/ci", new byte[]{1}));
+		em.getTransaction().rollback();
+		em.close();
+
+		em = ENGINE.createEntityManager();
+		assertEquals(Long.valueOf(10), em.find(Container.class, container.getUri()).getMaxNrOfInstances());
+		assertNull(em.find(Container.class, uri("created")));
+		assertNull(em.find(ContentInstancePayload.class, container.getUri() + "/ci" + Refs.CONTENT_REF));
+		em.close();
+	}
+
+	@Test
+	public void deletedSubtreeKeepsTheRootAndTheSiblings(){
+		commitPersist(container("tree", null));
+		commitPersist(container("tree/child", null));
+		commitPersist(container("tree/child/grandChild", null));
+		commitPersist(container("tree0", null));
+		commitPersist(container("treeSibling", null));
+		DBEntityManager em = ENGINE.createEntityManager();
+		em.getTransaction().begin();
+		em.persist(new ContentInstancePayload(uri("tree/child"), new byte[]{1}));
+		em.getTransaction().commit();
+
+		em.getTransaction().begin();
+		assertEquals(2, ENGINE.deleteDescendants(em, uri("tree")));
+		assertNull(em.find(Container.class, uri("tree/child")));
+		DBEntityManager other = ENGINE.createEntityManager();
+		assertNotNull(other.find(Container.class, uri("tree/child")));
+		other.close();
+		em.getTransaction().commit();
+		em.close();
+
+		em = ENGINE.createEntityManager();
+		assertNotNull(em.find(Container.class, uri("tree")));
+		assertNull(em.find(Container.class, uri("tree/child")));
+		assertNull(em.find(Container.class, uri("tree/child/grandChild")));
+		assertNull(em.find(ContentInstancePayload.class, uri("tree/child") + Refs.CONTENT_REF));
+		assertNotNull(em.find(Container.class, uri("tree0")));
+		assertNotNull(em.find(Container.class, uri("treeSibling")));
+		List<Container> subtree = ENGINE.findSubtree(em, DBEntities.CONTAINER_ENTITY, uri("tree"));
+		assertEquals(1, subtree.size());
+		em.close();
+	}
+
+	@Test
+	public void concurrentUpdateIsRolledBack(){
+		Container container = container("updated", null);
+		commitPersist(container);
+		DBEntityManager first = ENGINE.createEntityManager();
+		DBEntityManager second = ENGINE.createEntityManager();
+		first.getTransaction().begin();
+		second.getTransaction().begin();
+		first.find(Container.class, container.getUri()).setMaxNrOfInstances(1L);
+		second.find(Container.class, container.getUri()).setMaxNrOfInstances(2L);
+		first.getTransaction().commit();
+		try {
+			second.getTransaction().commit();
+			fail("The second update overwrote the first one");
+		} catch (RollbackException e){
+			// Expected
+		}
+		first.close();
+		second.close();
+
+		DBEntityManager em = ENGINE.createEntityManager();
+		assertEquals(Long.valueOf(1), em.find(Container.class, container.getUri()).getMaxNrOfInstances());
+		// The successive commits of an entity manager do not conflict with each other
+		em.getTransaction().begin();
+		em.find(Container.class, container.getUri()).setMaxNrOfInstances(3L);
+		em.getTransaction().commit();
+		em.getTransaction().begin();
+		em.find(Container.class, container.getUri()).setMaxNrOfInstances(4L);
+		em.getTransaction().commit();
+		em.close();
+	}
+
+	@Test
+	public void existingResourceIsNotCreatedAgain(){
+		commitPersist(container("existing", null));
+		try {
+			commitPersist(container("existing", null));
+			fail("The resource was created twice");
+		} catch (RollbackException e){
+			// Expected
+		}
+	}
+
+	@Test
+	public void snapshotKeepsTheResourcesAndThePayloads() throws IOException {
+		Application application = new Application();
+		application.setUri(uri("snapshot"));
+		application.setAppId("snapshot");
+		application.setAPoCPaths(new APoCPaths());
+		application.getAPoCPaths().getAPoCPath().add(new APoCPath("/path"));
+		application.setSearchStrings(new SearchStrings());
+		application.getSearchStrings().getSearchString().add("tag");
+		application.updateIndexedAttributes();
+		Container container = container("snapshot/container", "tag");
+		container.updateIndexedAttributes();
+		ContentInstancePayload payload = new ContentInstancePayload(uri("snapshot/ci"), new byte[]{1, 2, 3});
+
+		List<Object> written = new ArrayList<Object>();
+		written.add(application);
+		written.add(container);
+		written.add(payload);
+		File file = File.createTempFile("memory", ".snapshot");
+		try {
+			MemorySnapshot.write(file, written);
+			List<Object> read = MemorySnapshot.read(file);
+			assertEquals(written.size(), read.size());
+			for (int i = 0; i < written.size(); i++){
+				assertNotSame(written.get(i), read.get(i));
+				assertTrue(read.get(i).toString(), EntityCopier.equals(written.get(i), read.get(i)));
+			}
+			assertEquals("/path", ((Application) read.get(0)).getAPoCPaths().getAPoCPath().get(0).getPath());
+			assertArrayEquals(new byte[]{1, 2, 3}, ((ContentInstancePayload) read.get(2)).getValue());
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static String uri(String path){
+		return ROOT + "/" + path;
+	}
+
+	private static Container container(String path, String searchString){
+		Container container = new Container();
+		container.setUri(uri(path));
+		container.setId(path.substring(path.lastIndexOf('/') + 1));
+		container.setMaxNrOfInstances(10L);
+		if (searchString != null){
+			container.setSearchStrings(new SearchStrings());
+			container.getSearchStrings().getSearchString().add(searchString);
+		}
+		return container;
+	}
+
+	private static void commitPersist(Object entity){
+		DBEntityManager em = ENGINE.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			em.persist(entity);
+			em.getTransaction().commit();
+		} finally {
+			em.close();
+		}
+	}
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.controller.APocController;
+import org.eclipse.om2m.core.controller.AccessRightAnncController;
+import org.eclipse.om2m.core.controller.AccessRightController;
+import org.eclipse.om2m.core.controller.AccessRightsController;
+import org.eclipse.om2m.core.controller.ApplicationAnncController;
+import org.eclipse.om2m.core.controller.ApplicationController;
+import org.eclipse.om2m.core.controller.ApplicationsController;
+import org.eclipse.om2m.core.controller.AttachedDeviceController;
+import org.eclipse.om2m.core.controller.AttachedDevicesController;
+import org.eclipse.om2m.core.controller.ContainerAnncController;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ContainersController;
+import org.eclipse.om2m.core.controller.ContentController;
+import org.eclipse.om2m.core.controller.ContentInstanceController;
+import org.eclipse.om2m.core.controller.ContentInstancesController;
+import org.eclipse.om2m.core.controller.DiscoveryController;
+import org.eclipse.om2m.core.controller.ExecInstanceController;
+import org.eclipse.om2m.core.controller.ExecInstancesController;
+import org.eclipse.om2m.core.controller.GroupAnncController;
+import org.eclipse.om2m.core.controller.GroupController;
+import org.eclipse.om2m.core.controller.GroupsController;
+import org.eclipse.om2m.core.controller.LocationContainerAnncController;
+import org.eclipse.om2m.core.controller.LocationContainerController;
+import org.eclipse.om2m.core.controller.M2MPocController;
+import org.eclipse.om2m.core.controller.M2MPocsController;
+import org.eclipse.om2m.core.controller.MembersContentController;
+import org.eclipse.om2m.core.controller.MetricsController;
+import org.eclipse.om2m.core.controller.MgmtCmdController;
+import org.eclipse.om2m.core.controller.MgmtObjController;
+import org.eclipse.om2m.core.controller.MgmtObjsController;
+import org.eclipse.om2m.core.controller.NotificationChannelController;
+import org.eclipse.om2m.core.controller.NotificationChannelsController;
+import org.eclipse.om2m.core.controller.ParametersController;
+import org.eclipse.om2m.core.controller.SclBaseController;
+import org.eclipse.om2m.core.controller.SclController;
+import org.eclipse.om2m.core.controller.SclsController;
+import org.eclipse.om2m.core.controller.SubscriptionController;
+import org.eclipse.om2m.core.controller.SubscriptionsController;
+import org.eclipse.om2m.core.dao.DAO;
+import org.eclipse.om2m.core.dao.DAOFactory;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link Dispatcher} resolves the same controllers, DAOs, parent resources
+ * and retargeting decisions as the cascade of {@link Patterns} it replaced, over handwritten
+ * and generated uris.
+ */
+public class DispatcherTest {
+
+    /** Segments of the generated uris: collection names, ids, reserved prefixes and suffixes */
+    private static final String[] SEGMENTS = {"scls", "gscl", "applications", "app1", "app1Annc", "containers", "c1", "cAnnc",
+        "cLoc", "cLocAnnc", "containerX", "contentInstances", "ci1", "latest", "oldest", "content", "subscriptions", "s1",
+        "accessRights", "AR1", "ARAnnc", "groups", "g1", "gAnnc", "membersContent", "discovery", "metrics", "mgmtObjs",
+        "oObj", "oCmd", "parameters", "execInstances", "attachedDevices", "d1", "notificationChannels", "nc1", "m2mPocs",
+        "p1", "scl", "x_1", "sclBase"};
+
+    /** Children of the segments, followed by most of the generated uris to reach the deep resources */
+    private static final Map<String, String[]> CHILDREN = new HashMap<String, String[]>();
+
+    static {
+        CHILDREN.put(Constants.SCL_ID, new String[] {"scls", "applications", "containers", "accessRights", "groups", "subscriptions",
+            "discovery", "metrics"});
+        CHILDREN.put("scls", new String[] {"gscl", "mgmtObjs", "subscriptions"});
+        CHILDREN.put("gscl", new String[] {"applications", "containers", "accessRights", "groups", "attachedDevices", "mgmtObjs",
+            "notificationChannels", "m2mPocs", "subscriptions"});
+        CHILDREN.put("applications", new String[] {"app1", "app1Annc", "mgmtObjs", "subscriptions"});
+        CHILDREN.put("app1", new String[] {"containers", "accessRights", "groups", "notificationChannels", "subscriptions", "x_1"});
+        CHILDREN.put("app1Annc", new String[] {"containers", "accessRights", "groups"});
+        CHILDREN.put("containers", new String[] {"c1", "cAnnc", "cLoc", "cLocAnnc", "containerX", "subscriptions"});
+        CHILDREN.put("c1", new String[] {"contentInstances", "subscriptions"});
+        CHILDREN.put("cLoc", new String[] {"contentInstances", "subscriptions"});
+        CHILDREN.put("contentInstances", new String[] {"ci1", "latest", "oldest", "subscriptions"});
+        CHILDREN.put("ci1", new String[] {"content"});
+        CHILDREN.put("latest", new String[] {"content"});
+        CHILDREN.put("accessRights", new String[] {"AR1", "ARAnnc", "subscriptions"});
+        CHILDREN.put("AR1", new String[] {"subscriptions"});
+        CHILDREN.put("groups", new String[] {"g1", "gAnnc", "subscriptions"});
+        CHILDREN.put("g1", new String[] {"membersContent", "subscriptions"});
+        CHILDREN.put("attachedDevices", new String[] {"d1", "subscriptions"});
+        CHILDREN.put("d1", new String[] {"mgmtObjs", "subscriptions"});
+        CHILDREN.put("mgmtObjs", new String[] {"oObj", "oCmd", "subscriptions"});
+        CHILDREN.put("oObj", new String[] {"parameters", "subscriptions"});
+        CHILDREN.put("oCmd", new String[] {"execInstances"});
+        CHILDREN.put("notificationChannels", new String[] {"nc1"});
+        CHILDREN.put("m2mPocs", new String[] {"p1"});
+        CHILDREN.put("subscriptions", new String[] {"s1"});
+    }
+
+    /** First segments of the generated uris, the sclBase id or another SCL */
+    private static final String[] ROOTS = {Constants.SCL_ID, Constants.SCL_ID, Constants.SCL_ID, "gscl", Constants.SCL_ID + "x"};
+
+    /** Representations of the created resources, plain or announced */
+    private static final String[] REPRESENTATIONS = {"application", "applicationAnnc", "containerAnnc", "accessRightAnnc", "groupAnnc"};
+
+    /** Number of generated uris */
+    private static final int GENERATED_URIS = 10000;
+
+    @Test
+    public void handwrittenUris() {
+        String scl = Constants.SCL_ID;
+        String[] uris = {scl, scl + "/", scl + "//applications", scl + "/applications/app1", scl + "/applications/app1Annc",
+            scl + "/applications/app1/ipu/x/y", scl + "/applications/app1/containers/c1/contentInstances/latest/content",
+            scl + "/applications/app1/containers/cLoc", scl + "/applications/app1/containers/cLocAnnc",
+            scl + "/applications/app1/containers/containerX", scl + "/scls/gscl/applications/app1/containers/c1/subscriptions/s1",
+            scl + "/scls/gscl/attachedDevices/d1/mgmtObjs/oObj", scl + "/scls/gscl/mgmtObjs/oCmd", scl + "/groups/g1/membersContent",
+            scl + "/discovery?searchString=ResourceType/Container", scl + "/metrics", "gscl/applications", scl + "x/applications", ""};
+        for (String uri : uris) {
+            assertEquivalent(uri);
+        }
+    }
+
+    @Test
+    public void generatedUris() {
+        Random random = new Random(42);
+        for (int i = 0; i < GENERATED_URIS; i++) {
+            String segment = ROOTS[random.nextInt(ROOTS.length)];
+            StringBuilder uri = new StringBuilder(segment);
+            int depth = random.nextInt(9);
+            for (int k = 0; k < depth; k++) {
+                String[] children = CHILDREN.get(segment);
+                if (children != null && random.nextInt(5) != 0) {
+                    segment = children[random.nextInt(children.length)];
+                } else {
+                    segment = SEGMENTS[random.nextInt(SEGMENTS.length)];
+                }
+                uri.append(random.nextInt(20) == 0 ? "//" : "/").append(segment);
+            }
+            if (random.nextInt(10) == 0) {
+                uri.append('/');
+            }
+            assertEquivalent(uri.toString());
+        }
+    }
+
+    /**
+     * Compares the resolutions of a uri by the dispatcher and by the patterns.
+     * @param uri - Request uri
+     */
+    private static void assertEquivalent(String uri) {
+        assertEquals(uri, Patterns.match(Patterns.RETARGETING_PATTERN, uri), Dispatcher.isRetargeting(uri));
+        assertEquals(uri, classOf(patternDAO(uri)), classOf(Dispatcher.getDAO(uri)));
+        assertEquals(uri, patternParentResource(uri), Dispatcher.getParentResource(uri));
+        for (String method : new String[] {Constants.METHOD_RETREIVE, Constants.METHOD_DELETE}) {
+            assertEquals(method + " " + uri, patternController(uri, method, null), classOf(Dispatcher.getController(uri, method, null)));
+        }
+        for (String root : REPRESENTATIONS) {
+            String representation = "<om2m:" + root + " xmlns:om2m=\"" + Constants.M2M_NAMESPACE + "\"/>";
+            RequestIndication requestIndication = new RequestIndication(Constants.METHOD_CREATE, uri, Constants.ADMIN_REQUESTING_ENTITY, representation);
+            assertEquals(representation + " " + uri, patternController(uri, Constants.METHOD_CREATE, representation),
+                    classOf(Dispatcher.getController(uri, Constants.METHOD_CREATE, requestIndication)));
+        }
+    }
+
+    private static Class<?> classOf(Object object) {
+        return object == null ? null : object.getClass();
+    }
+
+    /**
+     * Finds the resource controller of a request with the patterns.
+     * @param uri - Generic request uri
+     * @param method - Generic request method
+     * @param representation - Resource representation
+     * @return The class of the matched resource controller otherwise null
+     */
+    private static Class<?> patternController(String uri, String method, String representation) {
+        if(Patterns.match(Patterns.SCL_BASE_PATTERN,uri)){
+            return SclBaseController.class;
+        }
+
+        if(Patterns.match(Patterns.SCLS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return SclsController.class;
+        }
+        if(Patterns.match(Patterns.SCL_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)|| (Patterns.match(Patterns.SCLS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE))){
+            return SclController.class;
+        }
+        if(Patterns.match(Patterns.APPLICATIONS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return ApplicationsController.class;
+        }
+        // In some cases it is required to know the resource name to detemine the required resource controller.
+        // This is the reason why resource representation is added as parameter for some methods.
+        if(Patterns.match(Patterns.APPLICATION_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.APPLICATIONS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":applicationAnnc"))){
+            return ApplicationController.class;
+        }
+        if(Patterns.match(Patterns.APPLICATION_ANNC_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.APPLICATIONS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":applicationAnnc"))){
+            return ApplicationAnncController.class;
+        }
+        if(Patterns.match(Patterns.IPU_PATTERN,uri)){
+            // will forward to a RestClientController or IPUController;
+            return APocController.class;
+        }
+        if(Patterns.match(Patterns.CONTAINERS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return ContainersController.class;
+        }
+        if(Patterns.match(Patterns.CONTAINER_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)|| (Patterns.match(Patterns.CONTAINERS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":containerAnnc"))){
+            return ContainerController.class;
+        }
+        if(Patterns.match(Patterns.CONTAINER_ANNC_PATTERN,uri)&& !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.CONTAINERS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":containerAnnc"))){
+            return ContainerAnncController.class;
+        }
+        if(Patterns.match(Patterns.LOCATION_CONTAINER_PATTERN,uri)){
+            return LocationContainerController.class;
+        }
+        if(Patterns.match(Patterns.LOCATION_CONTAINER_ANNC_PATTERN,uri)){
+            return LocationContainerAnncController.class;
+        }
+        if(Patterns.match(Patterns.CONTENT_INSTANCES_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return ContentInstancesController.class;
+        }
+        if(Patterns.match(Patterns.CONTENT_INSTANCE_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)|| (Patterns.match(Patterns.CONTENT_INSTANCES_PATTERN,uri) && method.equals(Constants.METHOD_CREATE))){
+            return ContentInstanceController.class;
+        }
+        if(Patterns.match(Patterns.CONTENT_PATTERN,uri)){
+            return ContentController.class;
+        }
+        if(Patterns.match(Patterns.SUBSCRIPTIONS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return SubscriptionsController.class;
+        }
+        if(Patterns.match(Patterns.SUBSCRIPTION_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)|| (Patterns.match(Patterns.SUBSCRIPTIONS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE))){
+            return SubscriptionController.class;
+        }
+        if(Patterns.match(Patterns.ACCESS_RIGHTS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return AccessRightsController.class;
+        }
+        if(Patterns.match(Patterns.ACCESS_RIGHT_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.ACCESS_RIGHTS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":accessRightAnnc"))){
+            return AccessRightController.class;
+        }
+        if(Patterns.match(Patterns.ACCESS_RIGHT_ANNC_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.ACCESS_RIGHTS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":accessRightAnnc"))){
+            return AccessRightAnncController.class;
+        }
+        if(Patterns.match(Patterns.GROUPS_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE)){
+            return GroupsController.class;
+        }
+        if(Patterns.match(Patterns.GROUP_PATTERN,uri)&& !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.GROUPS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":groupAnnc"))){
+            return GroupController.class;
+        }
+        if(Patterns.match(Patterns.GROUP_ANNC_PATTERN,uri) && !method.equals(Constants.METHOD_CREATE) || (Patterns.match(Patterns.GROUPS_PATTERN,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":groupAnnc"))){
+            return GroupAnncController.class;
+        }
+        if(Patterns.match(Patterns.MEMBERS_CONTENT_PATTERN,uri)){
+            return MembersContentController.class;
+        }
+        if(Patterns.match(Patterns.DISCOVERY_PATTERN,uri)){
+            return DiscoveryController.class;
+        }
+        if(Patterns.match(Patterns.METRICS_PATTERN,uri)){
+            return MetricsController.class;
+        }
+        if(Patterns.match(Patterns.MGMT_OBJS_PATTERN,uri)){
+            return MgmtObjsController.class;
+        }
+        if(Patterns.match(Patterns.MGMT_OBJ_PATTERN,uri)){
+            return MgmtObjController.class;
+        }
+        if(Patterns.match(Patterns.PARAMETERS_PATTERN,uri)){
+            return ParametersController.class;
+        }
+        if(Patterns.match(Patterns.PARAMETER_PATTERN,uri)){
+            return null;
+        }
+        if(Patterns.match(Patterns.MGMT_CMD_PATTERN,uri)){
+            return MgmtCmdController.class;
+        }
+        if(Patterns.match(Patterns.EXEC_INSTANCES_PATTERN,uri)){
+            return ExecInstancesController.class;
+        }
+        if(Patterns.match(Patterns.EXEC_INSTANCE_PATTERN,uri)){
+            return ExecInstanceController.class;
+        }
+        if(Patterns.match(Patterns.ATTACHED_DEVICES_PATTERN,uri)){
+            return AttachedDevicesController.class;
+        }
+        if(Patterns.match(Patterns.ATTACHED_DEVICE_PATTERN,uri)){
+            return AttachedDeviceController.class;
+        }
+        if(Patterns.match(Patterns.NOTIFICATION_CHANNELS_PATTERN,uri)){
+            return NotificationChannelsController.class;
+        }
+        if(Patterns.match(Patterns.NOTIFICATION_CHANNEL_PATTERN,uri)){
+            return NotificationChannelController.class;
+        }
+        if(Patterns.match(Patterns.M2M_POCS_PATTERN,uri)){
+            return M2MPocsController.class;
+        }
+        if(Patterns.match(Patterns.M2M_POC_PATTERN,uri)){
+            return M2MPocController.class;
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the DAO of the resource of a uri with the patterns.
+     * @param uri - Resource uri
+     * @return The DAO of the resource otherwise null
+     */
+    @SuppressWarnings("rawtypes")
+    private static DAO patternDAO(String uri) {
+
+        if(Patterns.match(Patterns.SCL_BASE_PATTERN,uri)){
+            return DAOFactory.getSclBaseDAO();
+        }
+        if(Patterns.match(Patterns.SCL_PATTERN,uri)){
+            return DAOFactory.getSclDAO();
+        }
+        if(Patterns.match(Patterns.APPLICATION_PATTERN,uri)){
+            return DAOFactory.getApplicationDAO();
+        }
+        if(Patterns.match(Patterns.APPLICATION_ANNC_PATTERN,uri)){
+            return DAOFactory.getApplicationAnncDAO();
+        }
+        if(Patterns.match(Patterns.CONTAINER_PATTERN,uri)){
+            return DAOFactory.getContainerDAO();
+        }
+        if(Patterns.match(Patterns.CONTAINER_ANNC_PATTERN,uri)){
+            return DAOFactory.getContainerAnncDAO();
+        }
+        if(Patterns.match(Patterns.LOCATION_CONTAINER_PATTERN,uri)){
+            return DAOFactory.getLocationContainerDAO();
+        }
+        if(Patterns.match(Patterns.LOCATION_CONTAINER_ANNC_PATTERN,uri)){
+            return DAOFactory.getLocationContainerAnncDAO();
+        }
+        if(Patterns.match(Patterns.CONTENT_INSTANCE_PATTERN,uri) ){
+            return DAOFactory.getContentInstanceDAO();
+        }
+        if(Patterns.match(Patterns.SUBSCRIPTION_PATTERN,uri)){
+            return DAOFactory.getSubscriptionDAO();
+        }
+        if(Patterns.match(Patterns.ACCESS_RIGHT_PATTERN,uri) ){
+            return DAOFactory.getAccessRightDAO();
+        }
+        if(Patterns.match(Patterns.ACCESS_RIGHT_ANNC_PATTERN,uri)){
+            return DAOFactory.getAccessRightAnncDAO();
+        }
+        if(Patterns.match(Patterns.GROUP_PATTERN,uri)){
+            return DAOFactory.getGroupDAO();
+        }
+        if(Patterns.match(Patterns.GROUP_ANNC_PATTERN,uri)){
+            return DAOFactory.getGroupAnncDAO();
+        }
+        if(Patterns.match(Patterns.MGMT_OBJ_PATTERN,uri)){
+            return DAOFactory.getMgmtObjDAO();
+        }
+        if(Patterns.match(Patterns.PARAMETER_PATTERN,uri)){
+            return null;
+        }
+        if(Patterns.match(Patterns.MGMT_CMD_PATTERN,uri)){
+            return DAOFactory.getMgmtCmdDAO();
+        }
+        if(Patterns.match(Patterns.EXEC_INSTANCE_PATTERN,uri)){
+            return DAOFactory.getExecInstanceDAO();
+        }
+        if(Patterns.match(Patterns.ATTACHED_DEVICE_PATTERN,uri)){
+            return DAOFactory.getAttachedDeviceDAO();
+        }
+        if(Patterns.match(Patterns.NOTIFICATION_CHANNEL_PATTERN,uri)){
+            return DAOFactory.getNotificationChannelDAO();
+        }
+        if(Patterns.match(Patterns.M2M_POC_PATTERN,uri)){
+            return DAOFactory.getM2MPocDAO();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the nearest parent of a uri having a DAO with the patterns.
+     * @param uri - Resource or collection uri
+     * @return The uri of the nearest parent resource otherwise null
+     */
+    private static String patternParentResource(String uri) {
+        String[] tabID = uri.split("/");
+        while (tabID.length > 1) {
+            uri = uri.substring(0, uri.lastIndexOf("/" + tabID[tabID.length - 1]));
+            if (patternDAO(uri) != null) {
+                return uri;
+            }
+            tabID = uri.split("/");
+        }
+        return null;
+    }
+}
@@ -21,9 +21,10 @@
  ******************************************************************************/
 package org.eclipse.om2m.core;
 
+import java.lang.management.ManagementFactory;
 import java.util.Date;
 
-import javax.persistence.EntityManager;
+import javax.management.ObjectName;
 
 import org.eclipse.om2m.commons.obix.io.ObixMapper;
 import org.apache.commons.logging.Log;
@@ -47,12 +48,17 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
+import org.eclipse.om2m.commons.utils.Metrics;
+import org.eclipse.om2m.commons.utils.MetricsMBean;
 import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.controller.InterworkingProxyController;
+import org.eclipse.om2m.core.dao.ContentInstanceRetention;
+import org.eclipse.om2m.core.dao.ContentInstanceWriter;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.router.Router;
 import org.eclipse.om2m.core.service.SclService;
 import org.eclipse.om2m.ipu.service.IpuService;
@@ -78,6 +84,8 @@ public class Activator implements BundleActivator {
     private ServiceTracker<Object, Object> ipuServiceTracker;
     /** Rest Client service tracker */
     private ServiceTracker<Object, Object> restClientServiceTracker;
+    /** JMX name of the SCL metrics */
+    private static final String METRICS_MBEAN_NAME = "org.eclipse.om2m:type=Metrics";
 
     public void start(BundleContext bundleContext) throws Exception {
         // Initiate Scl
@@ -94,6 +102,14 @@ public class Activator implements BundleActivator {
         bundleContext.registerService(SclService.class.getName(), new Router(), null);
         LOGGER.info("SclService is registered.");
 
+        // Expose the metrics through JMX
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(Metrics.getInstance()), new ObjectName(METRICS_MBEAN_NAME));
+            LOGGER.info("Metrics MBean is registered [ name = " + METRICS_MBEAN_NAME + " ]");
+        } catch (Exception e) {
+            LOGGER.warn("Metrics MBean is not registered", e);
+        }
+
         // Track the Ipu service
         ipuServiceTracker = new ServiceTracker<Object, Object>(bundleContext, IpuService.class.getName(), null) {
             public void removedService(ServiceReference<Object> reference, Object service) {
@@ -143,7 +159,17 @@ public class Activator implements BundleActivator {
 
     public void stop(BundleContext bundleContext) throws Exception {
         LOGGER.info("Stopping SCL");
+        ContentInstanceRetention.getInstance().stop();
+        ContentInstanceWriter.getInstance().stop();
         DBAccess.getInstance().close();
+        try {
+            ObjectName name = new ObjectName(METRICS_MBEAN_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Metrics MBean is not unregistered", e);
+        }
     }
 
     private static void discoverResources() {
@@ -162,6 +188,8 @@ public class Activator implements BundleActivator {
         // Init JPA DBAccess
         LOGGER.info("Init JPA DB Access");
         DBAccess.getInstance().init();
+        ContentInstanceWriter.getInstance().start();
+        ContentInstanceRetention.getInstance().start();
 
         // Create SclBase resource
         LOGGER.info("Create SclBase resource");
@@ -195,7 +223,7 @@ public class Activator implements BundleActivator {
         searchStrings.getSearchString().add(Constants.SEARCH_STRING_RES_ID + Constants.SCL_ID);
         sclBase.setSearchStrings(searchStrings);
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         if (DAOFactory.getSclBaseDAO().find(sclBase.getUri(), em) == null){
             DAOFactory.getSclBaseDAO().create(sclBase, em);
@@ -263,13 +291,11 @@ public class Activator implements BundleActivator {
                     }
                 }
                 // Create an NSCL Scl resource
-                EntityManager em = DBAccess.createEntityManager();
+                DBEntityManager em = DBAccess.createEntityManager();
                 em.getTransaction().begin();
                 Scl findScl = DAOFactory.getSclDAO().find(Constants.SCL_ID+"/scls/"+Constants.NSCL_ID, em);
                 em.close();
                 if( findScl == null){
-                    Router.readWriteLock.readLock().lock();
-
                     LOGGER.info("Create NSCL registration on GSCL");
                     Scl nscl = new Scl();
                     nscl.setUri(Constants.SCL_ID + "" + Refs.SCLS_REF+"/" + Constants.NSCL_ID);
@@ -309,7 +335,6 @@ public class Activator implements BundleActivator {
                     em.close();
 
                     LOGGER.info("NSCL is successfully registred on GSCL");
-                    Router.readWriteLock.readLock().unlock();
                 }
             }
         }.start();
@@ -400,7 +425,7 @@ public class Activator implements BundleActivator {
         accessRight.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         accessRight.setCreationTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         if (DAOFactory.getAccessRightDAO().find(accessRight.getUri(), em) == null){
             DAOFactory.getAccessRightDAO().create(accessRight, em);
@@ -22,8 +22,6 @@ package org.eclipse.om2m.core.announcer;
 import java.util.ArrayList;
 import java.util.HashSet;
 
-import javax.persistence.EntityManager;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
@@ -42,6 +40,7 @@ import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  *Announces/De-Announces resources for which the announcement attribute is activated for each Creation/Delete.
@@ -144,8 +143,7 @@ public class Announcer {
             for (int i=uniqueReferencesList.size()-1; i>=0; i--) {
                 final String hostingScl = uniqueReferencesList.get(i);
                 final String hostingSclURI = Constants.SCL_ID+Refs.SCLS_REF+"/"+hostingScl;
-                EntityManager em = DBAccess.createEntityManager();
-                em.getTransaction().begin();
+                DBEntityManager em = DBAccess.createEntityManager();
                 final Scl scl = DAOFactory.getSclDAO().find(hostingSclURI, em);
                 em.close();
 
@@ -243,8 +241,7 @@ public class Announcer {
             for (int i = uniqueReferencesList.size() - 1; i >= 0; i--) {
                 final String hostingScl = uniqueReferencesList.get(i);
                 final String hostingSclURI = Constants.SCL_ID+Refs.SCLS_REF+"/"+hostingScl;
-                EntityManager em = DBAccess.createEntityManager();
-                em.getTransaction().begin();
+                DBEntityManager em = DBAccess.createEntityManager();
                 final Scl scl = DAOFactory.getSclDAO().find(hostingSclURI, em);
                 em.close();
 
@@ -35,6 +35,13 @@ public class Constants {
     public static final String SCL_TYPE = System.getProperty("org.eclipse.om2m.sclType","NSCL");
     /** SclBase id. */
     public static final String SCL_ID = System.getProperty("org.eclipse.om2m.sclBaseId","nscl");
+    /** Generator of the resource ids: time (time-ordered ids) or random (aleatory 9-digit ids) */
+    public static final String ID_GENERATOR = System.getProperty("org.eclipse.om2m.idGenerator","time");
+    /** Node id of the SCL in the time-ordered ids (0 to 1023), unique per SCL. Derived from the SclBase id if it is not set, which may collide. */
+    public static final int NODE_ID = Integer.parseInt(System.getProperty("org.eclipse.om2m.nodeId",
+            String.valueOf((SCL_ID.hashCode() & Integer.MAX_VALUE) % 1024)));
+    /** Namespace of the resource representations. */
+    public static final String M2M_NAMESPACE = "http://uri.etsi.org/m2m";
    
     /** Default admin access right profile */
     public static final String ADMIN_PROFILE_ID = "AR_ADMIN";
@@ -48,6 +55,24 @@ public class Constants {
     public static final long EXPIRATION_TIME = 999999999;
     /** Default ContentInstances collection maximum number of instance. */
     public static final Long MAX_NBR_OF_INSTANCES = Long.valueOf(System.getProperty("org.eclipse.om2m.maxNrOfInstances","10"));
+    /** Maximum number of contentInstances created in one transaction, 1 commits each contentInstance on its own. */
+    public static final int CONTENT_INSTANCE_BATCH_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.contentInstanceBatchSize","200"));
+    /** Maximum time in milliseconds a contentInstance creation waits for other creations to be committed with. */
+    public static final long CONTENT_INSTANCE_BATCH_DELAY = Long.parseLong(System.getProperty("org.eclipse.om2m.contentInstanceBatchDelay","5"));
+    /** Number of threads committing the created contentInstances, each one commits the contentInstances of its own collections */
+    public static final int CONTENT_INSTANCE_WRITER_THREADS = Integer.parseInt(System.getProperty("org.eclipse.om2m.contentInstanceWriterThreads",String.valueOf(Runtime.getRuntime().availableProcessors())));
+    /** Number of striped locks serializing the writers of the same resource subtree */
+    public static final int RESOURCE_LOCK_STRIPES = Integer.parseInt(System.getProperty("org.eclipse.om2m.resourceLockStripes","256"));
+    /** Period in seconds between two sweeps of the contentInstances exceeding maxInstanceAge (or any other limit), 0 disables the sweeps */
+    public static final long CONTENT_INSTANCE_RETENTION_PERIOD = Long.parseLong(System.getProperty("org.eclipse.om2m.contentInstanceRetentionPeriod","60"));
+    /** Maximum number of expired contentInstances deleted in one transaction */
+    public static final int CONTENT_INSTANCE_RETENTION_BATCH_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.contentInstanceRetentionBatchSize","500"));
+    /** Storage of the contentInstances: db (storage engine of the resources) or segment (append-only segment files per collection) */
+    public static final String CONTENT_INSTANCE_STORE = System.getProperty("org.eclipse.om2m.contentInstanceStore","db");
+    /** Directory of the contentInstance segment files */
+    public static final String CONTENT_INSTANCE_STORE_DIR = System.getProperty("org.eclipse.om2m.contentInstanceStoreDir","./data/contentInstances");
+    /** Size in bytes of a contentInstance segment file */
+    public static final int CONTENT_INSTANCE_SEGMENT_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.contentInstanceSegmentSize","1048576"));
     //SclBase communication properties
     /** SclBase default communication protocol. */
     public static final String SCL_DEFAULT_PROTOCOL = System.getProperty("org.eclipse.om2m.sclBaseProtocol.default","http");
@@ -75,8 +100,18 @@ public class Constants {
     public static final String NSCL_CONTEXT = System.getProperty("org.eclipse.om2m.remoteNsclContext","/om2m");
 
     //DB parameters
+    /** Storage engine of the resources: jpa (relational database) or memory (in-memory sorted maps) */
+    public static final String DB_ENGINE = System.getProperty("org.eclipse.om2m.dbEngine","jpa");
+    /** File of the snapshots of the memory storage engine */
+    public static final String DB_SNAPSHOT_FILE = System.getProperty("org.eclipse.om2m.dbSnapshotFile","./data/database.snapshot");
+    /** Period in seconds between two snapshots of the memory storage engine, 0 disables the snapshots */
+    public static final long DB_SNAPSHOT_PERIOD = Long.parseLong(System.getProperty("org.eclipse.om2m.dbSnapshotPeriod","0"));
     /** Boolean specifying if the database should be reset */
     public static final boolean DB_RESET = Boolean.valueOf(System.getProperty("org.eclipse.om2m.dbReset","true"));
+    /** Boolean specifying if sub-resources are deleted with set-based statements per table instead of one by one */
+    public static final boolean DB_BULK_DELETE = Boolean.valueOf(System.getProperty("org.eclipse.om2m.dbBulkDelete","true"));
+    /** Boolean specifying if the contentInstance payloads of the previous versions are copied to their own table at startup (H2 only) */
+    public static final boolean DB_MIGRATE_CONTENT_INSTANCE_PAYLOADS = Boolean.valueOf(System.getProperty("org.eclipse.om2m.dbMigrateContentInstancePayloads","false"));
     /** URL of the database (file, memory, server...)*/
 	public static final String DB_URL = System.getProperty("org.eclipse.om2m.dbUrl", "jdbc:h2:./data/database");
 	/** JDBC Driver used for the database */
@@ -85,6 +120,18 @@ public class Constants {
 	public static final String DB_USER = System.getProperty("org.eclipse.om2m.dbUser", "om2m");
 	/** User password for the database */
 	public static final String DB_PASSWORD = System.getProperty("org.eclipse.om2m.dbPassword", "om2m");
+	/** Minimum number of pooled JDBC connections (read and write pools) */
+	public static final int DB_POOL_MIN = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbPoolMin", "4"));
+	/** Maximum number of pooled JDBC connections (read and write pools) */
+	public static final int DB_POOL_MAX = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbPoolMax", "32"));
+	/** Number of prepared statements cached per connection, 0 disables the statement cache */
+	public static final int DB_STATEMENT_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbStatementCacheSize", "100"));
+	/** JDBC batch writing mode (JDBC, Buffered or None) */
+	public static final String DB_BATCH_WRITING = System.getProperty("org.eclipse.om2m.dbBatchWriting", "JDBC");
+	/** Maximum number of statements sent in one JDBC batch */
+	public static final int DB_BATCH_WRITING_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbBatchWritingSize", "100"));
+	/** Number of most recently used resources of each configuration entity kept in the shared cache, 0 disables the cache */
+	public static final int DB_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbCacheSize", "1000"));
 	/** Name of the persistence unit in persistence.xml file */
 	public static final String PERSISTENCE_UNIT_NAME = "om2mdb";
 
@@ -111,12 +158,18 @@ public class Constants {
     public static final String AR_DELETE = "DELETE";
     /** Discover Access Right method name. */
     public static final String AR_DISCOVER = "DISCOVER";
+    /** Maximum number of compiled accessRights, and of cached decisions per accessRight */
+    public static final int ACCESS_DECISION_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.accessDecisionCacheSize","1024"));
 
     //SearchStrings prefixes
     /** Search String resource type prefix. */
     public static final String SEARCH_STRING_RES_TYPE = "ResourceType/";
     /** Search String resource id prefix. */
     public static final String SEARCH_STRING_RES_ID = "ResourceID/";
+
+    //Discovery parameters
+    /** Maximum number of uris returned by one discovery, the next ones are retrieved with the continuation token */
+    public static final int DISCOVERY_PAGE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.discoveryPageSize","1000"));
    
     // Regular expressions
     /** Regular expression for ID of resources */
@@ -21,14 +21,13 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /** allows the choice of the controller based on the aPoC of the application**/
 public class APocController extends Controller{
@@ -38,7 +37,7 @@ public class APocController extends Controller{
         String sclId = requestIndication.getTargetID().split("/")[0];
         String applicationId = requestIndication.getTargetID().split("/")[2];
         String applicationUri = sclId+"/applications/"+applicationId;
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
         em.close();
@@ -62,7 +61,7 @@ public class APocController extends Controller{
         String applicationId = requestIndication.getTargetID().split("/")[2];
         String applicationUri = sclId+"/applications/"+applicationId;
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
         em.close();
@@ -85,7 +84,7 @@ public class APocController extends Controller{
         String sclId = requestIndication.getTargetID().split("/")[0];
         String applicationId = requestIndication.getTargetID().split("/")[2];
         String applicationUri = sclId+"/applications/"+applicationId;
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
         em.close();
@@ -107,7 +106,7 @@ public class APocController extends Controller{
         String sclId = requestIndication.getTargetID().split("/")[0];
         String applicationId = requestIndication.getTargetID().split("/")[2];
         String applicationUri = sclId+"/applications/"+applicationId;
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
         em.close();
@@ -128,7 +127,7 @@ public class APocController extends Controller{
         String sclId = requestIndication.getTargetID().split("/")[0];
         String applicationId = requestIndication.getTargetID().split("/")[2];
         String applicationUri = sclId+"/applications/"+applicationId;
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
         em.close();
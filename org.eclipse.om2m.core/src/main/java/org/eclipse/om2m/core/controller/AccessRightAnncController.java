@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -32,6 +30,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -60,7 +59,7 @@ public class AccessRightAnncController extends Controller {
         // Id:              (createReq O) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
 
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
@@ -96,7 +95,7 @@ public class AccessRightAnncController extends Controller {
         }
         // Generate the id it it does not exist
         if (accessRightAnnc.getId() == null || accessRightAnnc.getId().isEmpty()) {
-            accessRightAnnc.setId(generateId("AR_","Annc"));
+            accessRightAnnc.setId(generateId("AR_","Annc",requestIndication.getTargetID()));
         }
         // SearchStrings Attribute is mandatory
         if (accessRightAnnc.getSearchStrings() == null) {
@@ -154,7 +153,7 @@ public class AccessRightAnncController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         AccessRightAnnc accessRightAnnc = DAOFactory.getAccessRightAnncDAO().find(requestIndication.getTargetID(), em);
@@ -189,7 +188,7 @@ public class AccessRightAnncController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         AccessRightAnnc accessRightAnnc = DAOFactory.getAccessRightAnncDAO().find(requestIndication.getTargetID(), em);
@@ -275,7 +274,7 @@ public class AccessRightAnncController extends Controller {
     public ResponseConfirm doDelete(RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         AccessRightAnnc accessRightAnnc = DAOFactory.getAccessRightAnncDAO().find(requestIndication.getTargetID(), em);
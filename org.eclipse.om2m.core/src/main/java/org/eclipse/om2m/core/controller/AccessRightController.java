@@ -23,8 +23,6 @@ package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRight;
 import org.eclipse.om2m.commons.resource.AnnounceTo;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
@@ -38,6 +36,7 @@ import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -71,7 +70,7 @@ public class AccessRightController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
@@ -119,7 +118,7 @@ public class AccessRightController extends Controller {
         }
         // Generate the Id if does not exist
         if (accessRight.getId() == null || accessRight.getId().isEmpty()) {
-            accessRight.setId(generateId("AR_",""));
+            accessRight.setId(generateId("AR_","",requestIndication.getTargetID()));
         }
         // Check ExpirationTime
         if (accessRight.getExpirationTime() != null && !checkExpirationTime(accessRight.getExpirationTime())) {
@@ -209,7 +208,7 @@ public class AccessRightController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         AccessRight accessRight = DAOFactory.getAccessRightDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -248,7 +247,7 @@ public class AccessRightController extends Controller {
         // id:                      (updateReq NP) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         AccessRight accessRight = DAOFactory.getAccessRightDAO().find(requestIndication.getTargetID(), em);
 
@@ -355,7 +354,7 @@ public class AccessRightController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         AccessRight accessRight = DAOFactory.getAccessRightDAO().find(requestIndication.getTargetID(), em);
 
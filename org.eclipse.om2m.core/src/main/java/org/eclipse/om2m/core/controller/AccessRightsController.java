@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -32,6 +30,7 @@ import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -79,7 +78,7 @@ public class AccessRightsController extends Controller {
         // lastModifiedTime:            (response M)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         String accessRightID = getAccessRightId(requestIndication.getTargetID(), em);
         
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ApplicationAnnc;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
@@ -33,6 +31,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -65,7 +64,7 @@ public class ApplicationAnncController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
@@ -108,7 +107,7 @@ public class ApplicationAnncController extends Controller {
         }
         // Generate the id it it does not exist
         if (applicationAnnc.getId() == null || applicationAnnc.getId().isEmpty()) {
-            applicationAnnc.setId(generateId("APP_","Annc"));
+            applicationAnnc.setId(generateId("APP_","Annc",requestIndication.getTargetID()));
         }
         // SearchStrings Attribute is mandatory
         if (applicationAnnc.getSearchStrings() == null) {
@@ -187,7 +186,7 @@ public class ApplicationAnncController extends Controller {
         // Id:                      (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         ApplicationAnnc applicationAnnc = DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -225,7 +224,7 @@ public class ApplicationAnncController extends Controller {
         // Id:                      (updateReq NP) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         ApplicationAnnc applicationAnnc = DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID(), em);
@@ -331,7 +330,7 @@ public class ApplicationAnncController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         ApplicationAnnc applicationAnnc = DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID(), em);
 
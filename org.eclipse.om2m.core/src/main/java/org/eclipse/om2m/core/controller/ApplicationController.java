@@ -22,8 +22,9 @@
 package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
-import javax.persistence.EntityManager;
 import javax.persistence.RollbackException;
 
 import org.eclipse.om2m.commons.resource.AnnounceTo;
@@ -39,6 +40,8 @@ import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+import org.eclipse.om2m.core.dao.ResourceLocks;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -78,7 +81,7 @@ public class ApplicationController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         String accessRightID = getAccessRightId(requestIndication.getTargetID(), em);
@@ -124,7 +127,7 @@ public class ApplicationController extends Controller {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ApplicationId Conflit"));
         }
         if (application.getAppId() == null || application.getAppId().isEmpty()) {
-            application.setAppId(generateId("APP_",""));
+            application.setAppId(generateId("APP_","",requestIndication.getTargetID()));
         } 
         // Check ExpirationTime
         if (application.getExpirationTime() != null && !checkExpirationTime(application.getExpirationTime())) {
@@ -253,7 +256,7 @@ public class ApplicationController extends Controller {
         // locRequester:                    (response O)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application = DAOFactory.getApplicationDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -302,7 +305,7 @@ public class ApplicationController extends Controller {
         // locRequester:                    (updateReq O)  (response O)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application = DAOFactory.getApplicationDAO().find(requestIndication.getTargetID(), em);
 
@@ -441,7 +444,7 @@ public class ApplicationController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Application application = DAOFactory.getApplicationDAO().find(requestIndication.getTargetID(), em);
 
@@ -465,9 +468,14 @@ public class ApplicationController extends Controller {
         // Notify the subscribers
         Notifier.notify(StatusCode.STATUS_DELETED, application);
 
-        // Delete
-        DAOFactory.getApplicationDAO().delete(application, em);
-        em.getTransaction().commit();
+        // Delete, the contentInstances being committed in its containers are deleted too
+        List<Lock> acquired = ResourceLocks.getInstance().lockSubtrees();
+        try {
+            DAOFactory.getApplicationDAO().delete(application, em);
+            em.getTransaction().commit();
+        } finally {
+            ResourceLocks.getInstance().unlock(acquired);
+        }
         em.close();
         // Response
         return new ResponseConfirm(StatusCode.STATUS_OK);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ContainerAnnc;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -32,6 +30,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -60,7 +59,7 @@ public class ContainerAnncController extends Controller {
         // Id:              (createReq O) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();        
 
         String accessRightID = getAccessRightId(requestIndication.getTargetID(), em);
@@ -100,7 +99,7 @@ public class ContainerAnncController extends Controller {
         }
         // Generate the id if it does not exist
         if (containerAnnc.getId() == null || containerAnnc.getId().isEmpty()) {
-            containerAnnc.setId(generateId("CONT_","Annc"));
+            containerAnnc.setId(generateId("CONT_","Annc",requestIndication.getTargetID()));
         }
         // SearchStrings Attribute is Mandatory
         if (containerAnnc.getSearchStrings() == null) {
@@ -157,7 +156,7 @@ public class ContainerAnncController extends Controller {
         // Id:              (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         ContainerAnnc containerAnnc = DAOFactory.getContainerAnncDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -189,7 +188,7 @@ public class ContainerAnncController extends Controller {
         // Id:              (updateReq NP) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         ContainerAnnc containerAnnc = DAOFactory.getContainerAnncDAO().find(requestIndication.getTargetID(), em);
 
@@ -274,7 +273,7 @@ public class ContainerAnncController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         ContainerAnnc containerAnnc = DAOFactory.getContainerAnncDAO().find(requestIndication.getTargetID(), em);
 
@@ -22,8 +22,8 @@
 package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
-
-import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 import org.eclipse.om2m.commons.resource.AnnounceTo;
 import org.eclipse.om2m.commons.resource.Container;
@@ -38,6 +38,8 @@ import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+import org.eclipse.om2m.core.dao.ResourceLocks;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -78,7 +80,7 @@ public class ContainerController extends Controller {
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
 
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		
 		String accessRightID = getAccessRightId(requestIndication.getTargetID(), em);
@@ -155,7 +157,7 @@ public class ContainerController extends Controller {
 		if (container.getId() == null
 				|| container.getId().isEmpty()
 				|| DAOFactory.getContainerDAO().find(requestIndication.getTargetID() + "/" + container.getId(), em) != null) {
-			container.setId(generateId("CONT_", ""));
+			container.setId(generateId("CONT_", "", requestIndication.getTargetID()));
 		}
 		// Set URI
 		container.setUri(requestIndication.getTargetID() + "/"
@@ -243,7 +245,7 @@ public class ContainerController extends Controller {
 		// maxInstanceAge: (response M*)
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		
 		Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID(), em);
@@ -294,7 +296,7 @@ public class ContainerController extends Controller {
 		// maxInstanceAge: (updateReq O) (response M*)
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		
 		Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID(), em);
@@ -441,7 +443,7 @@ public class ContainerController extends Controller {
 	public ResponseConfirm doDelete(RequestIndication requestIndication) {
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		
 		Container container = DAOFactory.getContainerDAO().find(
@@ -472,10 +474,14 @@ public class ContainerController extends Controller {
 		// Notify the subscribers
 		Notifier.notify(StatusCode.STATUS_DELETED, container);
 
-		// Delete
-		DAOFactory.getContainerDAO().delete(container, em);
-		
-		em.getTransaction().commit();
+		// Delete, the contentInstances being committed in the collection are deleted too
+		List<Lock> acquired = ResourceLocks.getInstance().lock(container.getUri() + Refs.CONTENTINSTANCES_REF);
+		try {
+			DAOFactory.getContainerDAO().delete(container, em);
+			em.getTransaction().commit();
+		} finally {
+			ResourceLocks.getInstance().unlock(acquired);
+		}
 		em.close();
 		// Response
 		return new ResponseConfirm(StatusCode.STATUS_OK);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.Content;
 import org.eclipse.om2m.commons.resource.ContentInstance;
@@ -35,6 +33,7 @@ import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -73,11 +72,11 @@ public class ContentController extends Controller {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Bad URI: "+requestIndication.getTargetID())) ;
         }
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         // Check contentInstances existence
         String contentInstancesURI = new String(requestIndication.getTargetID().split(Refs.CONTENTINSTANCES_REF+"/")[0]+Refs.CONTENTINSTANCES_REF);
-        ContentInstances contentInstances = DAOFactory.getContentInstancesDAO().find(contentInstancesURI, em);
+        ContentInstances contentInstances = DAOFactory.getContentInstancesDAO().find(contentInstancesURI, true, em);
         if (contentInstances == null) {
         	em.close();
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,contentInstancesURI+" does not exist")) ;
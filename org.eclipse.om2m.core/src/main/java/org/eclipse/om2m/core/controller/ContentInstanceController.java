@@ -23,12 +23,9 @@ package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Base64Binary;
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.ContentInstance;
-import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -37,10 +34,12 @@ import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
 import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.ContentInstanceRetention;
+import org.eclipse.om2m.core.dao.ContentInstanceWriter;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
-import org.eclipse.om2m.core.router.Router;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -70,19 +69,20 @@ public class ContentInstanceController extends Controller {
 		// delayTolerance:      (createReq O)  (response O)
 		// content:             (createReq M)  (response M)
 		
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		ContentInstance contentInstance = new ContentInstance();
-		ContentInstances contentInstances = DAOFactory.getContentInstancesDAO().find(requestIndication.getTargetID(), em);
+		ContentInstance contentInstance = null;
+		// The contentInstances collection exists with its container, the existence of the 
+		// collection itself is checked when the contentInstance is stored
+		Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split(Refs.CONTENTINSTANCES_REF)[0], em);
 
 		// Check Resource Parent Existence
-		if (contentInstances == null) {
+		if (container == null) {
 			em.close();
 			return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,requestIndication.getTargetID()+" does not exist")) ;
 		}
 		// Check AccessRight
-		Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split(Refs.CONTENTINSTANCES_REF)[0], em);
 		errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_CREATE);
 		if (errorResponse != null) {
 			em.close();
@@ -93,12 +93,15 @@ public class ContentInstanceController extends Controller {
 			em.close();
 			return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
 		}
-		// Create a Content if its a direct content Creation with contentInstance
-		try{
-			contentInstance = (ContentInstance) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
-		} catch (ClassCastException e){
-			LOGGER.debug("ClassCastException : Incorrect resource type in JAXB unmarshalling.",e);
-			contentInstance = null ; 
+		// Create a Content if its a direct content Creation with contentInstance, 
+		// the other payloads are stored as they are without being unmarshalled
+		if (requestIndication.hasRootElement(Constants.M2M_NAMESPACE, "contentInstance")) {
+			try{
+				contentInstance = (ContentInstance) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
+			} catch (ClassCastException e){
+				LOGGER.debug("ClassCastException : Incorrect resource type in JAXB unmarshalling.",e);
+				contentInstance = null ; 
+			}
 		}
 		if (contentInstance == null){
 			contentInstance = new ContentInstance() ; 
@@ -139,10 +142,12 @@ public class ContentInstanceController extends Controller {
 			em.close();
 			return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Id should match the following regexpr: " + Constants.ID_REGEXPR));
 		}
-		// Check uniqueness and Set id if it is not available
+		// Check uniqueness and Set id if it is not available, the contentInstances are not in the resource tree
 		if (contentInstance.getId() == null || contentInstance.getId().isEmpty()
-				|| DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID()+"/"+contentInstance.getId(), em) != null) {
-			contentInstance.setId(generateId("CI_",""));
+				|| DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID()+"/"+contentInstance.getId(), true, em) != null) {
+			do {
+				contentInstance.setId(generateId("CI_",""));
+			} while (DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID()+"/"+contentInstance.getId(), true, em) != null);
 		}
 		// Set URI
 		contentInstance.setUri(requestIndication.getTargetID()+ "/" +contentInstance.getId());
@@ -160,33 +165,22 @@ public class ContentInstanceController extends Controller {
 		// Set LastModifiedTime
 		contentInstance.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
 
+		em.close();
+
+		//Store contentInstance, it is committed together with the concurrent creations
+		Long currentNrOfInstances = ContentInstanceWriter.getInstance().write(contentInstance);
+		if (currentNrOfInstances == null) {
+			return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,requestIndication.getTargetID()+" does not exist")) ;
+		}
+
 		// Notify the subscribers
 		Notifier.notify(StatusCode.STATUS_CREATED, contentInstance);
 
-		//Store contentInstance
-		DAOFactory.getContentInstanceDAO().create(contentInstance, em);
-		contentInstances.setCurrentNrOfInstances(contentInstances.getCurrentNrOfInstances() + 1);
-		contentInstances.setCurrentByteSize(contentInstances.getCurrentByteSize() + contentInstance.getContentSize());
-		DAOFactory.getContentInstancesDAO().update(contentInstances, em);
-		// delete the oldest contentInstance if the CurrentNrOfInstances reaches MaxNrOfInstances
-		if (contentInstances.getCurrentNrOfInstances() > container.getMaxNrOfInstances()-1) {
-			final String oldestCI = requestIndication.getTargetID()+"/oldest";
-			new Thread(){
-				public void run(){
-					Router.readWriteLock.readLock().lock();
-					EntityManager em = DBAccess.createEntityManager();
-					em.getTransaction().begin();
-					ContentInstance contentInstanceOldest = DAOFactory.getContentInstanceDAO().find(oldestCI, em);
-					//Delete the oldest contentInstance
-					DAOFactory.getContentInstanceDAO().delete(contentInstanceOldest,em);
-					em.getTransaction().commit();
-					em.close();
-					Router.readWriteLock.readLock().unlock();
-				}
-			}.start();
+		// Delete the oldest contentInstances if the container limits are exceeded
+		if (currentNrOfInstances > container.getMaxNrOfInstances() || container.getMaxByteSize() != null) {
+			ContentInstanceRetention.getInstance().request(requestIndication.getTargetID(),
+					Math.max(0, currentNrOfInstances - container.getMaxNrOfInstances()));
 		}
-		em.getTransaction().commit();
-		em.close();
 
 		// Response
 		return new ResponseConfirm(StatusCode.STATUS_CREATED, contentInstance);
@@ -212,7 +206,7 @@ public class ContentInstanceController extends Controller {
 		ResponseConfirm errorResponse = new ResponseConfirm();
 
 		// Check AccessRight
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split(Refs.CONTENTINSTANCES_REF)[0], em);
 		errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_READ);
@@ -222,7 +216,7 @@ public class ContentInstanceController extends Controller {
 		}
 
 		// Check contentInstance existence
-		ContentInstance contentInstance = DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID(), em);
+		ContentInstance contentInstance = DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID(), isMetaDataOnly(requestIndication), em);
 		em.close();
 		if (contentInstance == null) {
 			return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,requestIndication.getTargetID()+" does not exist")) ;
@@ -261,7 +255,7 @@ public class ContentInstanceController extends Controller {
 	public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		ContentInstance contentInstance = DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID(), em);
 
@@ -282,10 +276,10 @@ public class ContentInstanceController extends Controller {
 		// Notify the subscribers
 		Notifier.notify(StatusCode.STATUS_DELETED, contentInstance);
 
-		// Delete
-		DAOFactory.getContentInstanceDAO().delete(contentInstance,em);
-		em.getTransaction().commit();
 		em.close();
+
+		// Delete, the counters of the collection are decremented
+		ContentInstanceWriter.getInstance().delete(contentInstance.getUri());
 		
 		// Response
 		return new ResponseConfirm(StatusCode.STATUS_OK);
@@ -21,19 +21,24 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstanceFilterCriteriaType;
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.DateConverter;
 import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -47,6 +52,13 @@ import org.eclipse.om2m.core.dao.DBAccess;
 
 public class ContentInstancesController extends Controller {
 
+    /** Retrieve parameters selecting a page or a subset of the contentInstanceCollection */
+    private static final String[] FILTER_PARAMETERS = {"creator", "createdSince", "createdUntil", "ifModifiedSince", "ifUnmodifiedSince",
+        "sizeFrom", "sizeUntil", "contentType", "searchString", "ifMatch", "ifNoneMatch", "attributeAccessor", "offset", "limit"};
+
+    /** Integer retrieve parameters, in the order of their parsing */
+    private static final String[] NUMBER_PARAMETERS = {"sizeFrom", "sizeUntil", "offset", "limit"};
+
     /**
      * Creates {@link ContentInstances} resource. It is not allowed Through the API.
      * @param requestIndication - The generic request to handle.
@@ -84,10 +96,63 @@ public class ContentInstancesController extends Controller {
         // currentNrOfInstances:        (response M*)
         // currentByteSize:             (response M*)
 
+        // Filter criteria and page of the contentInstanceCollection
+        ContentInstanceFilterCriteriaType filterCriteria = null;
+        int offset = 0;
+        int limit = 0;
+        Map<String, List<String>> parameters = requestIndication.getParameters();
+        if (parameters != null) {
+            for (String name : FILTER_PARAMETERS) {
+                if (getParameter(parameters, name) != null) {
+                    filterCriteria = new ContentInstanceFilterCriteriaType();
+                    break;
+                }
+            }
+        }
+        if (filterCriteria != null) {
+            if (getParameter(parameters, "creator") != null || getParameter(parameters, "attributeAccessor") != null) {
+                return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_IMPLEMENTED,"creator and attributeAccessor filters are not supported"));
+            }
+            // Set the time criteria
+            filterCriteria.setCreatedSince(getParameter(parameters, "createdSince"));
+            filterCriteria.setCreatedUntil(getParameter(parameters, "createdUntil"));
+            filterCriteria.setIfModifiedSince(getParameter(parameters, "ifModifiedSince"));
+            filterCriteria.setIfUnmodifiedSince(getParameter(parameters, "ifUnmodifiedSince"));
+            for (String date : new String[] {filterCriteria.getCreatedSince(), filterCriteria.getCreatedUntil(),
+                    filterCriteria.getIfModifiedSince(), filterCriteria.getIfUnmodifiedSince()}) {
+                if (date != null && DateConverter.toMillis(date) == null) {
+                    return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,date+" is not a valid dateTime")) ;
+                }
+            }
+            // Set the size criteria and the page
+            Integer[] numbers = new Integer[NUMBER_PARAMETERS.length];
+            for (int i = 0; i < NUMBER_PARAMETERS.length; i++) {
+                String value = getParameter(parameters, NUMBER_PARAMETERS[i]);
+                if (value != null) {
+                    if (!value.matches("\\d{1,9}")) {
+                        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,NUMBER_PARAMETERS[i]+" Must be a positive Integer")) ;
+                    }
+                    numbers[i] = Integer.parseInt(value);
+                }
+            }
+            filterCriteria.setSizeFrom(numbers[0]);
+            filterCriteria.setSizeUntil(numbers[1]);
+            offset = numbers[2] == null ? 0 : numbers[2];
+            limit = numbers[3] == null ? 0 : numbers[3];
+            // Set the contentTypes and searchStrings
+            addParameters(parameters, "contentType", filterCriteria.getContentType());
+            addParameters(parameters, "searchString", filterCriteria.getSearchString());
+            addParameters(parameters, "ifMatch", filterCriteria.getIfMatch());
+            addParameters(parameters, "ifNoneMatch", filterCriteria.getIfNoneMatch());
+            filterCriteria.setMetaDataOnly(isMetaDataOnly(requestIndication));
+        }
+
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
-        ContentInstances contentInstances =  DAOFactory.getContentInstancesDAO().find(requestIndication.getTargetID(), em);
+        ContentInstances contentInstances = filterCriteria == null
+                ? DAOFactory.getContentInstancesDAO().find(requestIndication.getTargetID(), isMetaDataOnly(requestIndication), em)
+                : DAOFactory.getContentInstancesDAO().find(requestIndication.getTargetID(), filterCriteria, offset, limit, em);
 
         // Check the resource existence
         if (contentInstances == null) {
@@ -111,6 +176,30 @@ public class ContentInstancesController extends Controller {
 
     }
 
+    /**
+     * Returns the first value of a request parameter.
+     * @param parameters - The request parameters
+     * @param name - The parameter name
+     * @return the first value otherwise null
+     */
+    private static String getParameter(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Adds the non null values of a request parameter to a list.
+     * @param parameters - The request parameters
+     * @param name - The parameter name
+     * @param list - The list to fill
+     */
+    private static void addParameters(Map<String, List<String>> parameters, String name, List<String> list) {
+        if (parameters.get(name) != null) {
+            list.addAll(parameters.get(name));
+            list.removeAll(Collections.singleton(null));
+        }
+    }
+
     /**
      * Updates {@link ContentInstances} resource. It is not allowed Through the API.
      * @param requestIndication - The generic request to handle.
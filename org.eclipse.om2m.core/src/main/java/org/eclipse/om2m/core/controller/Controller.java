@@ -21,27 +21,21 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import java.security.SecureRandom;
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.eclipse.om2m.commons.resource.AccessRight;
-import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.PermissionListType;
-import org.eclipse.om2m.commons.resource.PermissionType;
 import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.SearchStrings;
-import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
 import org.eclipse.om2m.core.constants.Constants;
-import org.eclipse.om2m.core.dao.DAO;
+import org.eclipse.om2m.core.dao.AccessDecisionCache;
 import org.eclipse.om2m.core.dao.DAOFactory;
-import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+import org.eclipse.om2m.core.dao.ResourceTree;
 import org.eclipse.om2m.core.router.Patterns;
 
 /**
@@ -57,6 +51,9 @@ public abstract class Controller {
     /** Logger */
     protected static Log LOGGER = LogFactory.getLog(Controller.class);
 
+    /** Generator of the resource ids */
+    private static final IdGenerator ID_GENERATOR = createIdGenerator();
+
     /**
      * Abstract Create method to handle generic REST request.
      * @param requestIndication - The generic request to handle.
@@ -95,28 +92,32 @@ public abstract class Controller {
     /**
      * Gets the accessRight from the parent. 
      * @param targetId
-     * @param em EntityManager to use for DB Transaction
+     * @param em DBEntityManager to use for DB Transaction
      * @return
      */
-    public String getAccessRightId(String targetId, EntityManager em){
-    	// Looks for the parent
-        Resource parent = DAOFactory.getResourceDAO().find(targetId, em);
-        String[] tabID = targetId.split("/");
-        boolean stop = !(parent == null) ; 
-        while (!stop && tabID.length > 1){
-        	String toRemove = tabID[tabID.length-1];
-        	targetId = targetId.split("/" + toRemove)[0];
-        	@SuppressWarnings("rawtypes")
-			DAO dao = Patterns.getDAO(targetId);
-        	// If the DAO is null it means the parent is a collection
-        	if (dao == null){
-        		tabID = targetId.split("/");        		
-        	} else {
-        		parent = DAOFactory.getResourceDAO().find(targetId, em);
-        		stop = true ;
-        	}
-        }
-        return parent.getAccessRightID();
+    public String getAccessRightId(String targetId, DBEntityManager em){
+    	// The committed resources are resolved from the resource tree without database access
+    	ResourceTree tree = ResourceTree.getInstance();
+    	if (tree.exists(targetId)){
+    		return tree.getAccessRightID(targetId);
+    	}
+    	// The resources which are not indexed or not committed are read from the database
+    	if (Patterns.getDAO(targetId) != null){
+    		Resource resource = DAOFactory.getResourceDAO().find(targetId, em);
+    		if (resource != null){
+    			return resource.getAccessRightID();
+    		}
+    	}
+    	// Looks for the parent, the resource tree holds its current accessRightID
+    	String parentUri = Patterns.getParentResource(targetId);
+    	if (parentUri == null){
+    		return null;
+    	}
+    	if (tree.exists(parentUri)){
+    		return tree.getAccessRightID(parentUri);
+    	}
+    	Resource parent = DAOFactory.getResourceDAO().find(parentUri, em);
+    	return parent == null ? null : parent.getAccessRightID();
     }
 
 
@@ -128,56 +129,8 @@ public abstract class Controller {
      * @return error with a specific status code if the requesting Entity or the method does not exist otherwise null
      */
     public ResponseConfirm checkAccessRight(String accessRightID, String requestingEntity, String method) {
-        boolean holderFound = false;
-        boolean flagFound = false;
-        EntityManager em = DBAccess.createEntityManager();
-        em.getTransaction().begin();
-        AccessRight accessRightFound = DAOFactory.getAccessRightDAO().find(accessRightID, em);
-        em.close();
-        // Check Resource accessRight existence not found
-        if (accessRightFound == null) {
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,"AccessRight for this resource is not found"));
-        }
-        // Check permissions if the accessRight is found
-        if (accessRightFound != null) {
-            // Get Permissions List
-            PermissionListType permissions = accessRightFound.getPermissions();
-            for (int j=0; j<permissions.getPermission().size(); j++) {
-                holderFound = false;
-                PermissionType permission = permissions.getPermission().get(j);
-                // Specific Holder
-                String holder;
-                String flag;
-                // Holders in a permission
-                for (int i=0; i<permission.getPermissionHolders().getHolderRefs().getHolderRef().size(); i++) {
-                    holder = permission.getPermissionHolders().getHolderRefs().getHolderRef().get(i);
-                    if (holder.equalsIgnoreCase(requestingEntity)) {
-                        holderFound = true;
-                        break;
-                    }
-                }
-                if (holderFound) {
-                    for (int k=0; k<permission.getPermissionFlags().getFlag().size(); k++) {
-                        flag = permission.getPermissionFlags().getFlag().get(k).toString();
-                        if (flag.equalsIgnoreCase(method)) {
-                            flagFound = true;
-                            break;
-                        }
-                    }
-                    // The holder exists just in one permission of all permissions
-                    break;
-                }
-            }
-        }
-        // returns STATUS_NOT_FOUND error if the holder is not found
-        if (!holderFound) {
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,"Requesting Entity ["+requestingEntity+"] does not exist in permissions"));
-        }
-        // returns STATUS_PERMISSION_DENIED error if the holder is found but the flag is not.
-        if (!flagFound) {
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_PERMISSION_DENIED,method+" Method does not exist in permissions"));
-        }
-        return null;
+        // The accessRight is compiled once into a decision table, see AccessDecisionCache
+        return AccessDecisionCache.getInstance().checkAccessRight(accessRightID, requestingEntity, method);
     }
 
     /**
@@ -188,43 +141,7 @@ public abstract class Controller {
      * @return error with a specific status code if the requesting Entity or the method does not exist otherwise null
      */
     public ResponseConfirm checkSelfPermissions(PermissionListType selfPermissions, String requestingEntity, String method) {
-        boolean holderFound = false;
-        boolean flagFound = false;
-        for (int j=0; j<selfPermissions.getPermission().size(); j++) {
-            holderFound = false;
-            PermissionType selfPermission = selfPermissions.getPermission().get(j);
-            // Specific Holder
-            String holder;
-            String flag;
-            // Holders in a permission
-            for (int i=0; i<selfPermission.getPermissionHolders().getHolderRefs().getHolderRef().size(); i++) {
-                holder = selfPermission.getPermissionHolders().getHolderRefs().getHolderRef().get(i);
-                if (holder.equalsIgnoreCase(requestingEntity)) {
-                    holderFound = true;
-                    break;
-                }
-            }
-            if (holderFound) {
-                for (int k=0; k<selfPermission.getPermissionFlags().getFlag().size(); k++) {
-                    flag = selfPermission.getPermissionFlags().getFlag().get(k).toString();
-                    if (flag.equalsIgnoreCase(method)) {
-                        flagFound = true;
-                        break;
-                    }
-                }
-                // The holder exists just in one permission of all permissions
-                break;
-            }
-        }
-        // returns STATUS_NOT_FOUND error if the holder is not found
-        if (!holderFound) {
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,"Requesting Entity ["+requestingEntity+"] does not exist in permissions")) ;
-        }
-        // returns STATUS_PERMISSION_DENIED error if the holder is found but the flag is not.
-        if (!flagFound) {
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_PERMISSION_DENIED,method+" Method does not exist in permissions")) ;
-        }
-        return null;
+        return AccessDecisionCache.getInstance().checkSelfPermissions(selfPermissions, requestingEntity, method);
     }
 
     /**
@@ -290,14 +207,69 @@ public abstract class Controller {
     }
 
     /**
-     * Generates an aleatory ID based on SecureRandom library
+     * Checks if only the metadata of the resources is requested, through the 
+     * <code>metaDataOnly=true</code> parameter, so the contentInstance payloads are not read.
+     * @param requestIndication - The generic request
+     * @return true if the payloads are not requested
+     */
+    protected static boolean isMetaDataOnly(RequestIndication requestIndication) {
+        return requestIndication.getParameters() != null && requestIndication.getParameters().get("metaDataOnly") != null
+                && "true".equals(requestIndication.getParameters().get("metaDataOnly").get(0));
+    }
+
+    /**
+     * Generates a unique ID with the {@link IdGenerator} selected by {@link Constants#ID_GENERATOR}
      * @param prefix - prefix of the resource ID
      * @param postfix - postfix of the resource ID
      * @return generated resource ID
      */
     public static String generateId(String prefix, String postfix) {
-        SecureRandom secureRandom = new SecureRandom();
-        return prefix+String.valueOf(secureRandom.nextInt(999999999))+postfix;
+        return ID_GENERATOR.generateId(prefix, postfix);
+    }
+
+    /**
+     * Generates an ID that no indexed resource of a collection has, checked in the {@link ResourceTree}.
+     * @param prefix - prefix of the resource ID
+     * @param postfix - postfix of the resource ID
+     * @param collectionUri - uri of the collection of the resource
+     * @return generated resource ID
+     */
+    public static String generateId(String prefix, String postfix, String collectionUri) {
+        return generateId(ID_GENERATOR, prefix, postfix, collectionUri);
+    }
+
+    /**
+     * Generates IDs until one is not used by an indexed resource of a collection.
+     * @param generator - generator of the IDs
+     * @param prefix - prefix of the resource ID
+     * @param postfix - postfix of the resource ID
+     * @param collectionUri - uri of the collection of the resource
+     * @return generated resource ID
+     */
+    static String generateId(IdGenerator generator, String prefix, String postfix, String collectionUri) {
+        String id = generator.generateId(prefix, postfix);
+        while (ResourceTree.getInstance().exists(collectionUri + "/" + id)) {
+            id = generator.generateId(prefix, postfix);
+        }
+        return id;
+    }
+
+    /**
+     * Creates the {@link IdGenerator} selected by {@link Constants#ID_GENERATOR}
+     * @return the time-ordered generator by default, the random generator if selected
+     */
+    private static IdGenerator createIdGenerator() {
+        if ("random".equalsIgnoreCase(Constants.ID_GENERATOR)) {
+            return new RandomIdGenerator();
+        }
+        if (!"time".equalsIgnoreCase(Constants.ID_GENERATOR)) {
+            LOGGER.warn("Unknown id generator " + Constants.ID_GENERATOR + ", using time");
+        }
+        if (System.getProperty("org.eclipse.om2m.nodeId") == null) {
+            LOGGER.warn("org.eclipse.om2m.nodeId is not set, the node id " + Constants.NODE_ID 
+                    + " is derived from the sclBaseId and may be the one of another SCL");
+        }
+        return new TimeOrderedIdGenerator(Constants.NODE_ID);
     }
 
     /**
@@ -21,23 +21,25 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
+import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.Discovery;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.FilterCriteriaType;
-import org.eclipse.om2m.commons.resource.Resource;
-import org.eclipse.om2m.commons.resource.Resources;
 import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+import org.eclipse.om2m.core.dao.SearchStringIndex;
 
 /**
  * Implements discovery method to perform a discovery of resources.
@@ -49,6 +51,10 @@ import org.eclipse.om2m.core.dao.DBAccess;
  */
 
 public class DiscoveryController extends Controller {
+    /** Latencies of the discoveries through the searchString index */
+    private static final LatencyHistogram INDEX_LATENCY = Metrics.getInstance().getHistogram("phase.discovery.index");
+    /** Latencies of the discoveries scanning the stored uris */
+    private static final LatencyHistogram SCAN_LATENCY = Metrics.getInstance().getHistogram("phase.discovery.scan");
 
     /**
      * Creates {@link Discovery} resource. It is not allowed Through the API.
@@ -75,7 +81,7 @@ public class DiscoveryController extends Controller {
         ResponseConfirm errorResponse = new ResponseConfirm();
 
         // Check AccessRight
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         SclBase sclBase = DAOFactory.getSclBaseDAO().find(Constants.SCL_ID, em);
         em.close();
@@ -89,6 +95,7 @@ public class DiscoveryController extends Controller {
         FilterCriteriaType filterCriteriaType = new FilterCriteriaType();
         String searchPrefix = "";
         int maxSize = -1;
+        String continuationToken = null;
 
         if (requestIndication.getParameters() != null) {
             // Set searchPrefix
@@ -111,9 +118,16 @@ public class DiscoveryController extends Controller {
                 filterCriteriaType.getIfMatch().addAll(requestIndication.getParameters().get("searchString"));
                 filterCriteriaType.getIfMatch().removeAll(Collections.singleton(null));
             }
+            // Set continuationToken
+            if (requestIndication.getParameters().get("continuationToken") != null && requestIndication.getParameters().get("continuationToken").get(0) != null) {
+                continuationToken = requestIndication.getParameters().get("continuationToken").get(0);
+                if (!isValidContinuationToken(continuationToken)) {
+                    return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Invalid continuationToken")) ;
+                }
+            }
         }
         // Response
-        return new ResponseConfirm(StatusCode.STATUS_OK, discover(searchPrefix, maxSize, filterCriteriaType));
+        return new ResponseConfirm(StatusCode.STATUS_OK, discover(searchPrefix, maxSize, filterCriteriaType, continuationToken));
 
 
     }
@@ -148,6 +162,20 @@ public class DiscoveryController extends Controller {
         return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,requestIndication.getMethod()+" Method is not allowed"));
     }
 
+    /**
+     * Checks the format of a continuation token.
+     * @param continuationToken - token returned by a previous discovery
+     * @return true if the token names a discovered entity, or no entity for the searchStrings
+     */
+    private static boolean isValidContinuationToken(String continuationToken) {
+        int separator = continuationToken.indexOf(':');
+        if (separator < 0) {
+            return false;
+        }
+        String entityName = continuationToken.substring(0, separator);
+        return entityName.isEmpty() || Arrays.asList(DBEntities.ENTITY_LIST).contains(entityName);
+    }
+
     /**
      * discover method allows to discover resource depending on the parameters.
      * @param searchPrefix
@@ -156,54 +184,76 @@ public class DiscoveryController extends Controller {
      * @return discovery object
      */
     public static Discovery discover (String searchPrefix, int maxSize, FilterCriteriaType filterCriteriaType) {
+        return discover(searchPrefix, maxSize, filterCriteriaType, null);
+    }
+
+    /**
+     * discover method allows to discover resource depending on the parameters, from the 
+     * continuation token of a previous truncated discovery. At most {@link Constants#DISCOVERY_PAGE_SIZE}
+     * uris are retrieved, the limit is applied by the queries.
+     * @param searchPrefix
+     * @param maxSize
+     * @param filterCriteriaType
+     * @param continuationToken - token returned by the previous discovery, null for the first one
+     * @return discovery object, with the continuation token of the next uris if it is truncated
+     */
+    public static Discovery discover (String searchPrefix, int maxSize, FilterCriteriaType filterCriteriaType, String continuationToken) {
         Discovery discovery = new Discovery();
-        long begResourcesDAO = System.currentTimeMillis();
-        // Retrieve all resources
-        EntityManager em = DBAccess.createEntityManager();
-        em.getTransaction().begin();
-        Resources resourcesList = DAOFactory.getResourcesDAO().find(searchPrefix, em);
-        em.close();
-        long endDiscoverJPA = System.currentTimeMillis();
-        LOGGER.debug("***************** Time Resources.find : "+(endDiscoverJPA-begResourcesDAO));
-        List<Resource> resources = resourcesList.getResources();
-        // Research
-        for (int i=0; i<resources.size(); i++) {
-            // if FilterCriteria is not empty
-            if (!filterCriteriaType.getIfMatch().isEmpty()) {
-                // ifMatch To Lower Case
-                for (int k=0; k<filterCriteriaType.getIfMatch().size(); k++) {
-                    filterCriteriaType.getIfMatch().set(k, filterCriteriaType.getIfMatch().get(k).toLowerCase());
-                }
-                if (resources.get(i).getSearchStrings() != null) {
-                    // To lower case
-                    for (int k=0; k<resources.get(i).getSearchStrings().getSearchString().size(); k++) {
-                        resources.get(i).getSearchStrings().getSearchString().set(k, resources.get(i).getSearchStrings().getSearchString().get(k).toLowerCase());
-                    }
-                    // Compare resource searchString with ifMatch
-                    if (resources.get(i).getSearchStrings().getSearchString().containsAll(filterCriteriaType.getIfMatch())) {
-                        //infinity maxSize OR not yet reached
-                        if (maxSize < 0 || discovery.getDiscoveryURI().getReference().size() < maxSize) {
-                            // Add the resource URI to the discovered references list
-                            discovery.getDiscoveryURI().getReference().add(resources.get(i).getUri());
-                        }else {
-                            // Break if the maxSize is reached
-                            discovery.setTruncated(true);
-                            break;
-                        }
+        List<String> references = discovery.getDiscoveryURI().getReference();
+        int pageSize = maxSize < 0 ? Constants.DISCOVERY_PAGE_SIZE : Math.min(maxSize, Constants.DISCOVERY_PAGE_SIZE);
+        // Continuation token: "<entity name>:<last uri>", the entity name is empty with searchStrings
+        String startEntity = null;
+        String after = null;
+        if (continuationToken != null) {
+            int separator = continuationToken.indexOf(':');
+            startEntity = continuationToken.substring(0, separator);
+            after = continuationToken.substring(separator + 1);
+        }
+        String lastEntity = "";
+        if (!filterCriteriaType.getIfMatch().isEmpty()) {
+            // Intersects the uris of the searchStrings in the index
+            long begIndex = System.nanoTime();
+            List<String> uris = SearchStringIndex.getInstance().find(searchPrefix, filterCriteriaType.getIfMatch(), after, pageSize + 1);
+            INDEX_LATENCY.record(System.nanoTime() - begIndex);
+            if (uris.size() <= pageSize) {
+                references.addAll(uris);
+            } else {
+                references.addAll(uris.subList(0, pageSize));
+                discovery.setTruncated(true);
+            }
+        } else {
+            long begResourcesDAO = System.nanoTime();
+            // Retrieve the uris entity by entity, one more than the page to detect the truncation
+            DBEntityManager em = DBAccess.createEntityManager();
+            em.getTransaction().begin();
+            boolean started = startEntity == null;
+            for (String entityName : DBEntities.ENTITY_LIST) {
+                if (!started) {
+                    if (!entityName.equals(startEntity)) {
+                        continue;
                     }
+                    started = true;
+                } else {
+                    after = null;
                 }
-            }else {
-                // Empty FilterCriteria
-                // infinity maxSize OR not yet reached
-                if (maxSize<0 || discovery.getDiscoveryURI().getReference().size() < maxSize) {
-                    // Add the resource URI to the discovered references list
-                    discovery.getDiscoveryURI().getReference().add(resources.get(i).getUri());
-                }else{
-                    // Break if the maxSize is reached
+                List<String> uris = DAOFactory.getResourcesDAO().findUris(searchPrefix, entityName, after, pageSize + 1 - references.size(), em);
+                if (references.size() + uris.size() > pageSize) {
                     discovery.setTruncated(true);
+                    uris = uris.subList(0, pageSize - references.size());
+                }
+                if (!uris.isEmpty()) {
+                    references.addAll(uris);
+                    lastEntity = entityName;
+                }
+                if (discovery.isTruncated() != null) {
                     break;
                 }
             }
+            em.close();
+            SCAN_LATENCY.record(System.nanoTime() - begResourcesDAO);
+        }
+        if (discovery.isTruncated() != null && !references.isEmpty()) {
+            discovery.setContinuationToken(lastEntity + ":" + references.get(references.size() - 1));
         }
         // Set discovery matchSize
         discovery.setMatchSize((long)discovery.getDiscoveryURI().getReference().size());
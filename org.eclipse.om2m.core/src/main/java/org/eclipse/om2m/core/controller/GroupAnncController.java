@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.GroupAnnc;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -32,6 +30,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -60,7 +59,7 @@ public class GroupAnncController extends Controller {
         // Id:              (createReq O)  (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
         
@@ -100,7 +99,7 @@ public class GroupAnncController extends Controller {
         }
         // Generate the id it it does not exist
         if (groupAnnc.getId() == null || groupAnnc.getId().isEmpty()) {
-            groupAnnc.setId(generateId("GRP_","Annc"));
+            groupAnnc.setId(generateId("GRP_","Annc",requestIndication.getTargetID()));
         }
         // SearchStrings Attribute is mandatory
         if (groupAnnc.getSearchStrings() == null) {
@@ -154,7 +153,7 @@ public class GroupAnncController extends Controller {
         // Id:              (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         GroupAnnc groupAnnc = DAOFactory.getGroupAnncDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -185,7 +184,7 @@ public class GroupAnncController extends Controller {
         // Id:              (updateReq NP)  (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         GroupAnnc groupAnnc = DAOFactory.getGroupAnncDAO().find(requestIndication.getTargetID(), em);
 
@@ -269,7 +268,7 @@ public class GroupAnncController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         GroupAnnc groupAnnc = DAOFactory.getGroupAnncDAO().find(requestIndication.getTargetID(), em);
 
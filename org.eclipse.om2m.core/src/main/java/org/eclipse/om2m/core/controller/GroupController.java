@@ -23,8 +23,6 @@ package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AnnounceTo;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Group;
@@ -38,6 +36,7 @@ import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -74,7 +73,7 @@ public class GroupController extends Controller {
         // id:                      (createReq O)  (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
         
@@ -113,7 +112,7 @@ public class GroupController extends Controller {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"GroupId Conflit")) ;
         }
         if (group.getId() == null || group.getId().isEmpty()) {
-            group.setId(generateId("GRP_",""));
+            group.setId(generateId("GRP_","",requestIndication.getTargetID()));
         }
         // memberType is Mandatory
         if (group.getMemberType() == null) {
@@ -241,7 +240,7 @@ public class GroupController extends Controller {
         // id:                      (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Group group = DAOFactory.getGroupDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -284,7 +283,7 @@ public class GroupController extends Controller {
         // id:                      (updateReq NP) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Group group = DAOFactory.getGroupDAO().find(requestIndication.getTargetID(), em);
 
@@ -424,7 +423,7 @@ public class GroupController extends Controller {
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Group group = DAOFactory.getGroupDAO().find(requestIndication.getTargetID(), em);
 
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+/**
+ * Generator of the ids of the created resources, when the issuer does not provide one.
+ * The generator is selected at startup from the org.eclipse.om2m.idGenerator property,
+ * see {@link Controller#generateId(String, String)}.
+ */
+public interface IdGenerator {
+
+    /**
+     * Generates a new resource id. The generated ids must not repeat within a run, they 
+     * are still checked against the stored resources, which a previous run may have created.
+     * @param prefix - prefix of the resource ID
+     * @param postfix - postfix of the resource ID
+     * @return generated resource ID, matching {@link org.eclipse.om2m.core.constants.Constants#ID_REGEXPR}
+     */
+    String generateId(String prefix, String postfix);
+}
@@ -24,8 +24,6 @@ package org.eclipse.om2m.core.controller;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.APoCPath;
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
@@ -36,6 +34,7 @@ import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.ipu.service.IpuService;
 
 /**
@@ -72,7 +71,7 @@ public class InterworkingProxyController extends Controller {
         String path = requestIndication.getTargetID().split("/")[3];
         String applicationUri = sclId+Refs.APPLICATIONS_REF+"/"+applicationId;
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         // Check ApplicationResource Existence
         Application application = DAOFactory.getApplicationDAO().find(applicationUri, em);
@@ -118,7 +117,7 @@ public class InterworkingProxyController extends Controller {
         String path = requestIndication.getTargetID().split("/")[3];
         String applicationUri = sclId+Refs.APPLICATIONS_REF+"/"+applicationId;
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         // Check ApplicationResource Existence
         Application application= DAOFactory.getApplicationDAO().find(applicationUri, em);
@@ -164,7 +163,7 @@ public class InterworkingProxyController extends Controller {
         String path = requestIndication.getTargetID().split("/")[3];
         String applicationUri = sclId+Refs.APPLICATIONS_REF+"/"+applicationId;
         
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         // Check ApplicationResource Existence
@@ -211,7 +210,7 @@ public class InterworkingProxyController extends Controller {
         String path = requestIndication.getTargetID().split("/")[3];
         String applicationUri = sclId+Refs.APPLICATIONS_REF+"/"+applicationId;
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         // Check ApplicationResource Existence
@@ -258,7 +257,7 @@ public class InterworkingProxyController extends Controller {
         String path = requestIndication.getTargetID().split("/")[3];
         String applicationUri = sclId+Refs.APPLICATIONS_REF+"/"+applicationId;
 
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         
         // Check ApplicationResource Existence
@@ -25,8 +25,6 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Base64Binary;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Group;
@@ -39,6 +37,7 @@ import org.eclipse.om2m.commons.utils.DateConverter;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.router.Router;
 
 /**
@@ -61,7 +60,7 @@ public class MembersContentController extends Controller {
     public ResponseConfirm fanOutRequestIndication (RequestIndication requestIndication) {
 
         String groupUri = requestIndication.getTargetID().split("/membersContent")[0];
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Group group = DAOFactory.getGroupDAO().find(groupUri, em);
         em.close();
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ * 		conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ * 		conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import java.util.Map;
+
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
+import org.eclipse.om2m.commons.utils.MetricsMBean;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+
+/**
+ * Exposes the {@link Metrics} of the SCL as a read-only resource below the sclBase: the counters,
+ * then for each latency histogram its count, mean, percentiles and max in microseconds.
+ * The requesting entity needs the READ permission of the sclBase.
+ */
+public class MetricsController extends Controller {
+
+    /**
+     * Creates the metrics resource. It is not allowed Through the API.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doCreate (RequestIndication requestIndication) {
+
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,requestIndication.getMethod()+" Method is not allowed"));
+    }
+
+    /**
+     * Retrieves the metrics resource.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doRetrieve (RequestIndication requestIndication) {
+
+        // Check AccessRight
+        DBEntityManager em = DBAccess.createEntityManager();
+        String accessRightID = getAccessRightId(Constants.SCL_ID, em);
+        em.close();
+        ResponseConfirm errorResponse = checkAccessRight(accessRightID, requestIndication.getRequestingEntity(), Constants.AR_READ);
+        if (errorResponse != null) {
+            return errorResponse;
+        }
+
+        Metrics metrics = Metrics.getInstance();
+        StringBuilder representation = new StringBuilder();
+        representation.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        representation.append("<om2m:metrics xmlns:om2m=\"").append(Constants.M2M_NAMESPACE).append("\">\n");
+        for (Map.Entry<String, Long> counter : metrics.getCounters().entrySet()) {
+            representation.append("    <om2m:counter name=\"").append(escape(counter.getKey())).append("\">")
+                .append(counter.getValue()).append("</om2m:counter>\n");
+        }
+        for (Map.Entry<String, LatencyHistogram> histogram : metrics.getHistograms().entrySet()) {
+            String name = histogram.getKey();
+            representation.append("    <om2m:histogram name=\"").append(escape(name)).append("\" unit=\"us\"");
+            for (Map.Entry<String, Long> value : MetricsMBean.summarize(name, histogram.getValue()).entrySet()) {
+                representation.append(' ').append(value.getKey().substring(name.length() + 1)).append("=\"")
+                    .append(value.getValue()).append('"');
+            }
+            representation.append("/>\n");
+        }
+        representation.append("</om2m:metrics>\n");
+        // Response
+        return new ResponseConfirm(StatusCode.STATUS_OK, representation.toString());
+    }
+
+    /**
+     * Updates the metrics resource. It is not allowed Through the API.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doUpdate (RequestIndication requestIndication) {
+
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,requestIndication.getMethod()+" Method is not allowed"));
+    }
+
+    /**
+     * Deletes the metrics resource. It is not allowed Through the API.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doDelete (RequestIndication requestIndication) {
+
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,requestIndication.getMethod()+" Method is not allowed"));
+    }
+
+    /**
+     * Executes the metrics resource. It is not allowed Through the API.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doExecute (RequestIndication requestIndication) {
+
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,requestIndication.getMethod()+" Method is not allowed"));
+    }
+
+    /**
+     * Escapes a metric name for an XML attribute.
+     */
+    private static String escape(String name) {
+        return name.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+}
@@ -22,8 +22,6 @@
 
 package org.eclipse.om2m.core.controller;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
@@ -34,6 +32,7 @@ import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.redirector.Redirector;
 
 public class NotifyController extends Controller{
@@ -43,7 +42,7 @@ public class NotifyController extends Controller{
         String sclId = requestIndication.getTargetID().split("/")[0];
         if(Constants.SCL_ID.equals(sclId)){
                 String appId = requestIndication.getTargetID().split("/")[0];
-                EntityManager em = DBAccess.createEntityManager();
+                DBEntityManager em = DBAccess.createEntityManager();
                 em.getTransaction().begin();
                 Application application = DAOFactory.getApplicationDAO().find(Constants.SCL_ID+Refs.APPLICATIONS_REF+"/"+appId, em);
                 em.close();
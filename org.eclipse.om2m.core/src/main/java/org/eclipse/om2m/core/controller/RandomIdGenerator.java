@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import java.security.SecureRandom;
+
+/**
+ * {@link IdGenerator} generating aleatory 9-digit ids based on the SecureRandom library.
+ * The ids are not ordered and may collide with existing ones.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    /** Shared random number generator, seeded once */
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Override
+    public String generateId(String prefix, String postfix) {
+        return prefix+String.valueOf(secureRandom.nextInt(999999999))+postfix;
+    }
+}
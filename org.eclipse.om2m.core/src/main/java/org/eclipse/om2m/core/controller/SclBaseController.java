@@ -23,8 +23,6 @@ package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.SclBase;
@@ -36,6 +34,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -95,7 +94,7 @@ public class SclBaseController extends Controller {
         // aPocHandling:            (response O)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         SclBase sclBase = DAOFactory.getSclBaseDAO().find(requestIndication.getTargetID(), em);
         em.close();
@@ -141,7 +140,7 @@ public class SclBaseController extends Controller {
         // aPocHandling:            (updateReq O)  (response O)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         SclBase sclBase = DAOFactory.getSclBaseDAO().find(requestIndication.getTargetID(), em);
 
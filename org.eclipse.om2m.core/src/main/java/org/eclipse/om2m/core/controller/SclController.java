@@ -22,8 +22,8 @@
 package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
-
-import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.OnlineStatus;
@@ -37,6 +37,8 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
+import org.eclipse.om2m.core.dao.ResourceLocks;
 import org.eclipse.om2m.core.notifier.Notifier;
 
 /**
@@ -85,7 +87,7 @@ public class SclController extends Controller {
 		// aPocHandling:                    (createReq NP) (response O)
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 
 		// Check AccessRight
@@ -301,7 +303,7 @@ public class SclController extends Controller {
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
 		
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		Scl scl = DAOFactory.getSclDAO().find(requestIndication.getTargetID(), em);
 		em.close();
@@ -364,7 +366,7 @@ public class SclController extends Controller {
 		// aPocHandling:                    (updateReq NP) (response O)
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		Scl scl = DAOFactory.getSclDAO().find(requestIndication.getTargetID(), em);
 
@@ -558,7 +560,7 @@ public class SclController extends Controller {
 	public ResponseConfirm doDelete (RequestIndication requestIndication) {
 
 		ResponseConfirm errorResponse = new ResponseConfirm();
-		EntityManager em = DBAccess.createEntityManager();
+		DBEntityManager em = DBAccess.createEntityManager();
 		em.getTransaction().begin();
 		Scl scl = DAOFactory.getSclDAO().find(requestIndication.getTargetID(), em);
 
@@ -576,9 +578,14 @@ public class SclController extends Controller {
 
 		// Notify the subscribers
 		Notifier.notify(StatusCode.STATUS_DELETED, scl);
-		//Delete
-		DAOFactory.getSclDAO().delete(scl,em);
-		em.getTransaction().commit();
+		//Delete, the contentInstances being committed in its containers are deleted too
+		List<Lock> acquired = ResourceLocks.getInstance().lockSubtrees();
+		try {
+			DAOFactory.getSclDAO().delete(scl,em);
+			em.getTransaction().commit();
+		} finally {
+			ResourceLocks.getInstance().unlock(acquired);
+		}
 		em.close();
 		// Response
 		return new ResponseConfirm(StatusCode.STATUS_OK);
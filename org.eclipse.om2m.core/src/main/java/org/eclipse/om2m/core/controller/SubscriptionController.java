@@ -23,8 +23,6 @@ package org.eclipse.om2m.core.controller;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.StatusCode;
@@ -38,6 +36,7 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -72,7 +71,7 @@ public class SubscriptionController extends Controller {
 
         ResponseConfirm errorResponse = new ResponseConfirm();
 //        Subscriptions subscriptions = DAOFactory.getSubscriptionsDAO().lazyFind(requestIndication.getTargetID());
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         String accessRightID = this.getAccessRightId(requestIndication.getTargetID(), em);
         
@@ -145,7 +144,7 @@ public class SubscriptionController extends Controller {
         }
         // Generates an ID if not set
         if (subscription.getId() == null || subscription.getId().isEmpty()) {
-            subscription.setId(generateId("SUB_",""));
+            subscription.setId(generateId("SUB_","",requestIndication.getTargetID()));
         }
         // Set URI
         subscription.setUri(requestIndication.getTargetID()+ "/" +subscription.getId());
@@ -187,7 +186,7 @@ public class SubscriptionController extends Controller {
         // Id:                              (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Subscription subscription = DAOFactory.getSubscriptionDAO().find(requestIndication.getTargetID(), em);
 
@@ -227,7 +226,7 @@ public class SubscriptionController extends Controller {
         // Id:                              (updateReq NP) (response M*)
 
         ResponseConfirm errorResponse = new ResponseConfirm();
-        EntityManager em = DBAccess.createEntityManager();
+        DBEntityManager em = DBAccess.createEntityManager();
         em.getTransaction().begin();
         Subscription subscription = DAOFactory.getSubscriptionDAO().find(requestIndication.getTargetID(), em);
 
@@ -328,7 +327,7 @@ public class SubscriptionController extends Controller {
      * @return The generic returned response.
      */
     public ResponseConfirm doDelete (RequestIndication requestIndication) {
-    	EntityManager em = DBAccess.createEntityManager();
+    	DBEntityManager em = DBAccess.createEntityManager();
     	em.getTransaction().begin();
         Subscription subscription = DAOFactory.getSubscriptionDAO().find(requestIndication.getTargetID(), em);
         ResponseConfirm errorResponse = new ResponseConfirm();
@@ -371,7 +370,7 @@ public class SubscriptionController extends Controller {
      * @param contact
      * @return true if contactURI exists otherwise false
      */
-    public boolean checkContactURIExistence (String targetId, String contact, EntityManager em) {
+    public boolean checkContactURIExistence (String targetId, String contact, DBEntityManager em) {
         Subscriptions subscriptions = DAOFactory.getSubscriptionsDAO().find(targetId, em);
 
         for (int i=0; i<subscriptions.getSubscriptionCollection().getNamedReference().size(); i++) {
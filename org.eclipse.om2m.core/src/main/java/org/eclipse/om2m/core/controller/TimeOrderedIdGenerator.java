@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+/**
+ * {@link IdGenerator} generating monotonic, time-ordered and node-aware ids.
+ * <p>
+ * Each id is a 63-bit number made of the milliseconds elapsed since 2015-01-01 (41 bits),
+ * the node id of the SCL (10 bits) and a sequence number within the millisecond (12 bits).
+ * It is written with 19 zero-padded digits, so the ids of a node sort in generation order
+ * as strings and the ids of two nodes with different node ids never collide. If the clock 
+ * goes backwards or more than 4096 ids are generated within a millisecond, the last timestamp 
+ * is reused or advanced so the ids keep increasing.
+ * <p>
+ * The last timestamp is not persisted: if the clock is set back between two runs, an id may
+ * be generated again, so the generated ids are still checked against the stored resources,
+ * see {@link Controller#generateId(String, String, String)}.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    /** Origin of the timestamps, 2015-01-01T00:00:00Z */
+    private static final long EPOCH = 1420070400000L;
+    /** Number of bits of the node id */
+    static final int NODE_BITS = 10;
+    /** Number of bits of the sequence number */
+    static final int SEQUENCE_BITS = 12;
+    /** Highest node id */
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    /** Highest sequence number within a millisecond */
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    /** Number of digits of the generated numbers */
+    private static final int DIGITS = 19;
+
+    /** Node id of the SCL */
+    private final long nodeId;
+    /** Timestamp of the last generated id */
+    private long lastTimestamp = -1;
+    /** Sequence number of the last generated id */
+    private long sequence;
+
+    /**
+     * Creates a generator for a node.
+     * @param nodeId - node id of the SCL, between 0 and {@link #MAX_NODE_ID}
+     */
+    public TimeOrderedIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String generateId(String prefix, String postfix) {
+        String digits = Long.toString(nextValue());
+        StringBuilder id = new StringBuilder(prefix.length() + DIGITS + postfix.length()).append(prefix);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).append(postfix).toString();
+    }
+
+    /**
+     * Returns the next number, greater than all the previous ones.
+     * @return the generated number
+     */
+    synchronized long nextValue() {
+        long timestamp = currentTimeMillis() - EPOCH;
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            // Same millisecond, or the clock went backwards
+            sequence++;
+        } else {
+            // Sequence exhausted: borrows the next millisecond
+            lastTimestamp++;
+            sequence = 0;
+        }
+        return (lastTimestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Returns the current time, the tests override it to control the clock.
+     * @return the current time in milliseconds
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
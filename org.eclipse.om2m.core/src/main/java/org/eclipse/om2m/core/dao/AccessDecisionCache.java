@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.om2m.commons.resource.AccessRight;
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.PermissionFlagType;
+import org.eclipse.om2m.commons.resource.PermissionListType;
+import org.eclipse.om2m.commons.resource.PermissionType;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Cache of the access right decisions. Each {@link AccessRight} is compiled once into
+ * an immutable decision table mapping its case-normalized permission holders to the
+ * bitset of their permission flags, the decisions taken for each requesting entity
+ * (granted or not, with the marshalled error) are then kept in the table, so that an
+ * access right check is a hash lookup.
+ * The tables are indexed by accessRightID and are invalidated by the storage engines
+ * when an accessRight is created, updated or deleted, once the transaction is committed.
+ * The tables and the decisions of each table are bounded by {@link Constants#ACCESS_DECISION_CACHE_SIZE},
+ * the least recently used ones are evicted.
+ * It satisfies the singleton pattern.
+ */
+public final class AccessDecisionCache {
+
+	/** Local instance of the object */
+	private static AccessDecisionCache cache = new AccessDecisionCache();
+
+	/** Bit of each permission flag, indexed by flag name */
+	private static final Map<String, Integer> FLAG_BITS = new HashMap<String, Integer>();
+	static {
+		for (PermissionFlagType flag : PermissionFlagType.values()){
+			FLAG_BITS.put(flag.value(), 1 << flag.ordinal());
+		}
+	}
+
+	/** Latencies of the access right checks */
+	private static final LatencyHistogram LATENCY = Metrics.getInstance().getHistogram("phase.accessCheck");
+
+	/** Decision tables, indexed by accessRightID, used under its lock */
+	private final Map<String, DecisionTable> tables = new LruMap<String, DecisionTable>(Constants.ACCESS_DECISION_CACHE_SIZE);
+
+	/** Number of invalidations, a table compiled across an invalidation is not kept */
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private AccessDecisionCache(){
+	}
+
+	/**
+	 * Gets the instance of the cache.
+	 * @return instance of AccessDecisionCache
+	 */
+	public static AccessDecisionCache getInstance(){
+		return cache;
+	}
+
+	/**
+	 * Checks the Access Right based on accessRightID (Permission)
+	 * @param accessRightID - Id of the accessRight
+	 * @param requestingEntity - requesting entity used by the requester
+	 * @param method - requested method
+	 * @return error with a specific status code if the requesting Entity or the method does not exist otherwise null
+	 */
+	public ResponseConfirm checkAccessRight(String accessRightID, String requestingEntity, String method){
+		long start = System.nanoTime();
+		try {
+			DecisionTable table = null;
+			if (accessRightID != null){
+				synchronized (tables){
+					table = tables.get(accessRightID);
+				}
+			}
+			if (table == null){
+				table = load(accessRightID);
+			}
+			return table.check(requestingEntity, method);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Checks AccessRight based on selfPermission, the permissions are compiled on each call.
+	 * @param selfPermissions - selfPermissions attribute of the accessRight
+	 * @param requestingEntity - requesting entity used by the requester
+	 * @param method - requested method
+	 * @return error with a specific status code if the requesting Entity or the method does not exist otherwise null
+	 */
+	public ResponseConfirm checkSelfPermissions(PermissionListType selfPermissions, String requestingEntity, String method){
+		long start = System.nanoTime();
+		try {
+			return new DecisionTable(selfPermissions == null ? new PermissionListType() : selfPermissions, 0).check(requestingEntity, method);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Invalidates the decisions of an accessRight.
+	 * @param uri uri of the created, updated or deleted resource
+	 */
+	void invalidate(String uri){
+		invalidations.incrementAndGet();
+		if (uri != null){
+			synchronized (tables){
+				tables.remove(uri);
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the decisions of the accessRights below a resource, not the resource itself.
+	 * @param uri uri of the root of the deleted subtree
+	 */
+	void invalidateDescendants(String uri){
+		invalidations.incrementAndGet();
+		String prefix = uri + "/";
+		synchronized (tables){
+			Iterator<String> accessRightIDs = tables.keySet().iterator();
+			while (accessRightIDs.hasNext()){
+				if (accessRightIDs.next().startsWith(prefix)){
+					accessRightIDs.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all the decision tables.
+	 */
+	void clear(){
+		invalidations.incrementAndGet();
+		synchronized (tables){
+			tables.clear();
+		}
+	}
+
+	/**
+	 * Returns the statistics of the cache.
+	 * @return numbers of decision tables and of cached decisions
+	 */
+	public Map<String, Integer> getStatistics(){
+		int decisions = 0;
+		List<DecisionTable> cached;
+		synchronized (tables){
+			cached = new ArrayList<DecisionTable>(tables.values());
+		}
+		for (DecisionTable table : cached){
+			synchronized (table.decisions){
+				decisions += table.decisions.size();
+			}
+		}
+		Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+		statistics.put("accessRights", cached.size());
+		statistics.put("decisions", decisions);
+		return statistics;
+	}
+
+	/**
+	 * Compiles the decision table of an accessRight, and keeps it unless it may hold
+	 * uncommitted changes or an invalidation happened while it was read. An invalidation
+	 * counted after the check removes the table under the same lock.
+	 * @param accessRightID - Id of the accessRight
+	 * @return the decision table, denying everything if the accessRight is not found
+	 */
+	private DecisionTable load(String accessRightID){
+		long version = invalidations.get();
+		DBEntityManager em = DBAccess.createEntityManager();
+		AccessRight accessRight;
+		boolean committed;
+		try {
+			accessRight = DAOFactory.getAccessRightDAO().find(accessRightID, em);
+			committed = !UnitOfWork.isCurrentTransactionActive();
+		} finally {
+			em.close();
+		}
+		PermissionListType permissions = null;
+		if (accessRight != null){
+			permissions = accessRight.getPermissions() == null ? new PermissionListType() : accessRight.getPermissions();
+		}
+		DecisionTable table = new DecisionTable(permissions, Constants.ACCESS_DECISION_CACHE_SIZE);
+		if (committed && accessRightID != null){
+			synchronized (tables){
+				if (invalidations.get() == version){
+					tables.put(accessRightID, table);
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the bit of a permission flag.
+	 * @param method - requested method, compared ignoring the case
+	 * @return the bit of the flag, 0 if it is not a permission flag
+	 */
+	private static int getFlagBit(String method){
+		if (method == null){
+			return 0;
+		}
+		Integer bit = FLAG_BITS.get(method);
+		if (bit != null){
+			return bit;
+		}
+		for (PermissionFlagType flag : PermissionFlagType.values()){
+			if (flag.value().equalsIgnoreCase(method)){
+				return FLAG_BITS.get(flag.value());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Normalizes a permission holder with the case folding of {@link String#equalsIgnoreCase(String)}.
+	 * @param holder permission holder or requesting entity
+	 * @return the normalized holder
+	 */
+	private static String normalize(String holder){
+		char[] chars = holder.toCharArray();
+		for (int i = 0; i < chars.length; i++){
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Builds an error response from its status code and its message.
+	 */
+	private static ResponseConfirm error(StatusCode statusCode, String message){
+		return new ResponseConfirm(new ErrorInfo(statusCode, message));
+	}
+
+	/**
+	 * Compiled permissions of an accessRight, with the decisions already taken.
+	 */
+	private static final class DecisionTable {
+
+		/** Flag bitset of the holders, indexed by normalized holder, null if the accessRight is not found */
+		private final Map<String, Integer> flagsByHolder;
+
+		/** Decisions of the requesting entities, indexed by requesting entity, used under its lock */
+		private final Map<String, Decision> decisions;
+
+		/** Maximum number of cached decisions */
+		private final int maxDecisions;
+
+		/** Marshalled error returned when the accessRight is not found */
+		private volatile String notFound;
+
+		/**
+		 * Compiles a permission list, a holder only gets the flags of the first permission
+		 * holding it.
+		 * @param permissions permissions of the accessRight, null if it is not found
+		 * @param maxDecisions maximum number of decisions to cache
+		 */
+		DecisionTable(PermissionListType permissions, int maxDecisions){
+			this.maxDecisions = maxDecisions;
+			this.decisions = new LruMap<String, Decision>(maxDecisions);
+			if (permissions == null){
+				flagsByHolder = null;
+				return;
+			}
+			Map<String, Integer> flags = new HashMap<String, Integer>();
+			for (PermissionType permission : permissions.getPermission()){
+				if (permission.getPermissionHolders() == null || permission.getPermissionHolders().getHolderRefs() == null){
+					continue;
+				}
+				int bits = 0;
+				if (permission.getPermissionFlags() != null){
+					for (PermissionFlagType flag : permission.getPermissionFlags().getFlag()){
+						if (flag != null){
+							bits |= 1 << flag.ordinal();
+						}
+					}
+				}
+				for (String holder : permission.getPermissionHolders().getHolderRefs().getHolderRef()){
+					if (holder != null){
+						String normalized = normalize(holder);
+						if (!flags.containsKey(normalized)){
+							flags.put(normalized, bits);
+						}
+					}
+				}
+			}
+			flagsByHolder = Collections.unmodifiableMap(flags);
+		}
+
+		/**
+		 * Takes the decision for a requesting entity and a method.
+		 * @return error with a specific status code if the requesting Entity or the method does not exist otherwise null
+		 */
+		ResponseConfirm check(String requestingEntity, String method){
+			// Check Resource accessRight existence not found
+			if (flagsByHolder == null){
+				String representation = notFound;
+				if (representation == null){
+					ResponseConfirm response = error(StatusCode.STATUS_NOT_FOUND, "AccessRight for this resource is not found");
+					notFound = response.getRepresentation();
+					return response;
+				}
+				return new ResponseConfirm(StatusCode.STATUS_NOT_FOUND, representation);
+			}
+			Decision decision = null;
+			if (requestingEntity != null && maxDecisions > 0){
+				synchronized (decisions){
+					decision = decisions.get(requestingEntity);
+				}
+			}
+			if (decision == null){
+				Integer flags = requestingEntity == null ? null : flagsByHolder.get(normalize(requestingEntity));
+				decision = new Decision(flags == null ? -1 : flags);
+				if (requestingEntity != null && maxDecisions > 0){
+					synchronized (decisions){
+						decisions.put(requestingEntity, decision);
+					}
+				}
+			}
+			// returns STATUS_NOT_FOUND error if the holder is not found
+			if (decision.flags < 0){
+				String representation = decision.holderNotFound;
+				if (representation == null){
+					ResponseConfirm response = error(StatusCode.STATUS_NOT_FOUND, "Requesting Entity ["+requestingEntity+"] does not exist in permissions");
+					decision.holderNotFound = response.getRepresentation();
+					return response;
+				}
+				return new ResponseConfirm(StatusCode.STATUS_NOT_FOUND, representation);
+			}
+			int bit = getFlagBit(method);
+			if ((decision.flags & bit) != 0){
+				return null;
+			}
+			// returns STATUS_PERMISSION_DENIED error if the holder is found but the flag is not.
+			// The marshalled error is only kept for the exact flag names, as it holds the method
+			PermissionFlagType flag = bit == 0 || !FLAG_BITS.containsKey(method) ? null : PermissionFlagType.valueOf(method);
+			String representation = flag == null ? null : decision.denied[flag.ordinal()];
+			if (representation == null){
+				ResponseConfirm response = error(StatusCode.STATUS_PERMISSION_DENIED, method+" Method does not exist in permissions");
+				if (flag != null){
+					decision.denied[flag.ordinal()] = response.getRepresentation();
+				}
+				return response;
+			}
+			return new ResponseConfirm(StatusCode.STATUS_PERMISSION_DENIED, representation);
+		}
+
+	}
+
+	/**
+	 * Access-ordered map evicting its least recently used entry beyond a maximum size. 
+	 * It is not thread-safe, even its reads reorder the entries.
+	 */
+	private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Maximum number of entries */
+		private final int maxSize;
+
+		LruMap(int maxSize){
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest){
+			return size() > maxSize;
+		}
+
+	}
+
+	/**
+	 * Decision for one requesting entity: its flags and the marshalled errors returned to it.
+	 * The errors are immutable strings, they are published without synchronization.
+	 */
+	private static final class Decision {
+
+		/** Flag bitset of the requesting entity, -1 if it is not a holder */
+		private final int flags;
+
+		/** Marshalled error returned when the requesting entity is not a holder */
+		private volatile String holderNotFound;
+
+		/** Marshalled errors returned when a flag is missing, indexed by flag ordinal */
+		private final String[] denied = new String[PermissionFlagType.values().length];
+
+		Decision(int flags){
+			this.flags = flags;
+		}
+
+	}
+
+}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 
 /**
@@ -42,7 +40,7 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
      * @param uri - uri of the {@link AccessRightAnnc} resource to retrieve
      * @return The requested {@link AccessRightAnnc} resource otherwise null
      */
-    public AccessRightAnnc find(String uri, EntityManager em) {
+    public AccessRightAnnc find(String uri, DBEntityManager em) {
     	AccessRightAnnc result = em.find(AccessRightAnnc.class, uri);    	
         // Return null if the resource is not found
         return result;
@@ -52,7 +50,7 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
      * Deletes the {@link AccessRightAnnc} resource from the DataBase without validating the transaction
      * @param resource - The {@link AccessRightAnnc} resource to delete
      */
-    public void delete (AccessRightAnnc resource, EntityManager em) {
+    public void delete (AccessRightAnnc resource, DBEntityManager em) {
         // Delete the resource
     	em.remove(resource);
     }
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRight;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
@@ -48,11 +46,11 @@ public class AccessRightDAO extends DAO<AccessRight> {
 	 *            - uri of the {@link AccessRight} resource to retrieve
 	 * @return The requested {@link AccessRight} resource otherwise null
 	 */
-	public AccessRight find(String uri, EntityManager em) {
+	public AccessRight find(String uri, DBEntityManager em) {
 		if (uri == null){
 			return null;
 		}
-		AccessRight result = em.find(AccessRight.class, uri);
+		AccessRight result = DBUtil.find(em, AccessRight.class, uri);
 		// Return null if the resource is not found
 		return result;
 	}
@@ -65,7 +63,7 @@ public class AccessRightDAO extends DAO<AccessRight> {
 	 * @param resource
 	 *            - The {@link AccessRight} resource to delete
 	 */
-	public void delete(AccessRight resource, EntityManager em) {
+	public void delete(AccessRight resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
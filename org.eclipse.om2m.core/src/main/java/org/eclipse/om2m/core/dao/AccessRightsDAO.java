@@ -23,13 +23,10 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRight;
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.DBEntities;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -54,7 +51,7 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 	 *            - The {@link AccessRights} collection resource to create
 	 */
 	@Override
-	public void create(AccessRights resource, EntityManager em) {
+	public void create(AccessRights resource, DBEntityManager em) {
 		//NOT IMPLEMENTED
 	}
 
@@ -67,7 +64,7 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 	 * @return The requested {@link AccessRights} collection resource otherwise
 	 *         null
 	 */
-	public AccessRights find(String uri, EntityManager em) {
+	public AccessRights find(String uri, DBEntityManager em) {
 		AccessRights accessRights = new AccessRights();
 		accessRights.setUri(uri);
 
@@ -75,29 +72,11 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 		accessRights.getAccessRightAnncCollection().getNamedReference().clear();
 
 		// Find AccessRight sub-resources and add their references			
-		String q = DBUtil.generateLikeRequest(DBEntities.ACCESSRIGHT_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<AccessRight> arList = query.getResultList();
-		for (AccessRight ar : arList){
-			ReferenceToNamedResource reference = new ReferenceToNamedResource();
-			reference.setId(ar.getId());
-			reference.setValue(ar.getUri());
-			accessRights.getAccessRightCollection().getNamedReference().add(reference);
-		}
+		accessRights.getAccessRightCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.ACCESSRIGHT_ENTITY, uri));
 
 		// Find AccessRightAnnc sub-resources Resources and add their
 		// references
-		String r = DBUtil.generateLikeRequest(DBEntities.ACCESSRIGHT_ANNC_ENTITY, uri);
-		javax.persistence.Query query2 = em.createQuery(r);
-		@SuppressWarnings("unchecked")
-		List<AccessRightAnnc> araList = query2.getResultList();
-		for (AccessRightAnnc ara : araList) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(ara.getId());
-			ref.setValue(ara.getUri());
-			accessRights.getAccessRightAnncCollection().getNamedReference().add(ref);
-		}
+		accessRights.getAccessRightAnncCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.ACCESSRIGHT_ANNC_ENTITY, uri));
 
 		return accessRights;
 	}
@@ -110,7 +89,7 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 	 *            - The {@link AccessRights} the updated resource
 	 */
 	@Override
-	public void update(AccessRights resource, EntityManager em) {
+	public void update(AccessRights resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -120,7 +99,7 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 	 * 
 	 * @Param the {@link AccessRights} collection resource to delete
 	 */
-	public void delete(AccessRights resource, EntityManager em) {
+	public void delete(AccessRights resource, DBEntityManager em) {
 		// Delete sub-resources
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
@@ -128,20 +107,14 @@ public class AccessRightsDAO extends DAO<AccessRights> {
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
 
 		// Delete accessRight sub-resources
-		String q = DBUtil.generateLikeRequest(DBEntities.ACCESSRIGHT_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<AccessRight> arList = query.getResultList();
+		List<AccessRight> arList = DBUtil.findByParent(em, DBEntities.ACCESSRIGHT_ENTITY, resource.getUri());
 		for (AccessRight ar : arList){
 			ar.setSubscriptionsReference(ar.getUri()+Refs.SUBSCRIPTIONS_REF);
 			DAOFactory.getAccessRightDAO().delete(ar, em);
 		}
 
 		// Delete accessRightAnnc sub-resources
-		String r = DBUtil.generateLikeRequest(DBEntities.ACCESSRIGHT_ANNC_ENTITY, resource.getUri());
-		javax.persistence.Query query2 = em.createQuery(r);
-		@SuppressWarnings("unchecked")
-		List<AccessRightAnnc> araList = query2.getResultList();
+		List<AccessRightAnnc> araList = DBUtil.findByParent(em, DBEntities.ACCESSRIGHT_ANNC_ENTITY, resource.getUri());
 		for (AccessRightAnnc ara : araList) {
 			DAOFactory.getAccessRightAnncDAO().delete(ara, em);
 		}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.ApplicationAnnc;
 import org.eclipse.om2m.commons.resource.Containers;
@@ -45,7 +43,7 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
      * @param uri - uri of the {@link ApplicationAnnc} resource to retrieve
      * @return The requested {@link ApplicationAnnc} resource otherwise null
      */
-    public ApplicationAnnc find(String uri, EntityManager em) {
+    public ApplicationAnnc find(String uri, DBEntityManager em) {
         if (uri == null) {
         	return null;
         }
@@ -56,7 +54,7 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
      * Deletes the {@link ApplicationAnnc} resource from the DataBase without validating the transaction
      * @param resource - The {@link ApplicationAnnc} resource to delete
      */
-    public void delete(ApplicationAnnc resource, EntityManager em) {
+    public void delete(ApplicationAnnc resource, DBEntityManager em) {
         // Delete accessRights
     	AccessRights accessRights = new AccessRights();
     	accessRights.setUri(resource.getAccessRightsReference());
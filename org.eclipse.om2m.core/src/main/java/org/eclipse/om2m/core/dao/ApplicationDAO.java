@@ -21,14 +21,13 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.resource.Containers;
 import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
 
 /**
  * Implements CRUD Methods for {@link Application} resource persistence.
@@ -52,11 +51,11 @@ public class ApplicationDAO extends DAO<Application> {
 	 *            - uri of the {@link Application} resource to retrieve
 	 * @return The requested {@link Application} resource otherwise null
 	 */
-	public Application find(String uri, EntityManager em) {
+	public Application find(String uri, DBEntityManager em) {
 		if (uri == null){
 			return null;
 		}
-		return em.find(Application.class, uri);
+		return DBUtil.find(em, Application.class, uri);
 	}
 
 	/**
@@ -66,29 +65,34 @@ public class ApplicationDAO extends DAO<Application> {
 	 * @param resource
 	 *            - The {@link Application} resource to delete
 	 */
-	public void delete(Application resource, EntityManager em) {
-		// Delete accessRights
-		AccessRights accessRights = new AccessRights();
-		accessRights.setUri(resource.getAccessRightsReference());
-		DAOFactory.getAccessRightsDAO().delete(accessRights, em);
-		// Delete containers
-		Containers containers = new Containers();
-		containers.setUri(resource.getContainersReference());
-		DAOFactory.getContainersDAO().delete(containers, em);
-		// Delete groups
-		Groups groups = new Groups();
-		groups.setUri(resource.getGroupsReference());
-		DAOFactory.getGroupsDAO().delete(groups, em);
-		// Delete subscriptions
-		Subscriptions subscriptions = new Subscriptions();
-		subscriptions.setUri(resource.getSubscriptionsReference());
-		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
-		// Delete notificationsChannels
-		NotificationChannels notificationChannels = new NotificationChannels();
-		notificationChannels
-				.setUri(resource.getNotificationChannelsReference());
-		DAOFactory.getNotificationChannelsDAO()
-				.delete(notificationChannels, em);
+	public void delete(Application resource, DBEntityManager em) {
+		if (Constants.DB_BULK_DELETE) {
+			// Delete all the sub-resources with one statement per table
+			DBUtil.deleteDescendants(em, resource.getUri());
+		} else {
+			// Delete accessRights
+			AccessRights accessRights = new AccessRights();
+			accessRights.setUri(resource.getAccessRightsReference());
+			DAOFactory.getAccessRightsDAO().delete(accessRights, em);
+			// Delete containers
+			Containers containers = new Containers();
+			containers.setUri(resource.getContainersReference());
+			DAOFactory.getContainersDAO().delete(containers, em);
+			// Delete groups
+			Groups groups = new Groups();
+			groups.setUri(resource.getGroupsReference());
+			DAOFactory.getGroupsDAO().delete(groups, em);
+			// Delete subscriptions
+			Subscriptions subscriptions = new Subscriptions();
+			subscriptions.setUri(resource.getSubscriptionsReference());
+			DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
+			// Delete notificationsChannels
+			NotificationChannels notificationChannels = new NotificationChannels();
+			notificationChannels
+					.setUri(resource.getNotificationChannelsReference());
+			DAOFactory.getNotificationChannelsDAO()
+					.delete(notificationChannels, em);
+		}
 		// Delete the resource
 		em.remove(resource);
 	}
@@ -23,14 +23,11 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.resource.ApplicationAnnc;
 import org.eclipse.om2m.commons.resource.Applications;
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.MgmtObjs;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -55,7 +52,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 	 *            - The {@link Applications} collection resource to create
 	 */
 	@Override
-	public void create(Applications resource, EntityManager em) {
+	public void create(Applications resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -68,7 +65,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 	 * @return The requested {@link Applications} collection resource otherwise
 	 *         null
 	 */
-	public Applications find(String uri, EntityManager em) {
+	public Applications find(String uri, DBEntityManager em) {
 		Applications applications = new Applications();
 		applications.setUri(uri);
 
@@ -76,32 +73,10 @@ public class ApplicationsDAO extends DAO<Applications> {
 		applications.getApplicationAnncCollection().getNamedReference().clear();
 
 		// Find Application sub-resources and add their references
-		String q = DBUtil.generateLikeRequest(DBEntities.APPLICATION_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Application> result = query.getResultList();
-
-		for (Application a : result) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(a.getAppId());
-			ref.setValue(a.getUri());
-			applications.getApplicationCollection().getNamedReference()
-			.add(ref);
-		}
+		applications.getApplicationCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.APPLICATION_ENTITY, uri));
 
 		// Find ApplicationAnnc sub-resources and add their references
-		String q2 = DBUtil.generateLikeRequest(DBEntities.APPLICATION_ANNC_ENTITY, uri);
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<ApplicationAnnc> resultAppAnnc = query2.getResultList();
-
-		for (ApplicationAnnc a : resultAppAnnc) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(a.getId());
-			ref.setValue(a.getUri());
-			applications.getApplicationAnncCollection().getNamedReference()
-			.add(ref);
-		}
+		applications.getApplicationAnncCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.APPLICATION_ANNC_ENTITY, uri));
 		return applications;
 	}
 
@@ -113,7 +88,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 	 *            - The {@link Applications} the updated resource
 	 */
 	@Override
-	public void update(Applications resource, EntityManager em) {
+	public void update(Applications resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -123,7 +98,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 	 * 
 	 * @Param the {@link Applications} collection resource to delete
 	 */
-	public void delete(Applications resource, EntityManager em) {
+	public void delete(Applications resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
@@ -136,10 +111,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 		DAOFactory.getMgmtObjsDAO().delete(mgmtObjs,em);
 
 		// Delete application sub-resources
-		String q = DBUtil.generateLikeRequest(DBEntities.APPLICATION_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Application> result = query.getResultList();
+		List<Application> result = DBUtil.findByParent(em, DBEntities.APPLICATION_ENTITY, resource.getUri());
 		for (Application a : result) {
 			a.setContainersReference(a.getUri() + Refs.CONTAINERS_REF);
 			a.setGroupsReference(a.getUri() + Refs.GROUPS_REF);
@@ -150,10 +122,7 @@ public class ApplicationsDAO extends DAO<Applications> {
 		}
 
 		// Delete applicationAnnc sub-resources
-		String q2 = DBUtil.generateLikeRequest(DBEntities.APPLICATION_ANNC_ENTITY, resource.getUri());
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<ApplicationAnnc> resultAppAnnc = query2.getResultList();
+		List<ApplicationAnnc> resultAppAnnc = DBUtil.findByParent(em, DBEntities.APPLICATION_ANNC_ENTITY, resource.getUri());
 		for (ApplicationAnnc a : resultAppAnnc) {
 			a.setContainersReference(a.getUri() + Refs.CONTAINERS_REF);
 			a.setGroupsReference(a.getUri() + Refs.GROUPS_REF);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AttachedDevice;
 import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.Subscriptions;
@@ -43,7 +41,7 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
      * @param uri - uri of the {@link AttachedDevice} resource to retrieve
      * @return The requested {@link AttachedDevice} resource otherwise null
      */
-    public AttachedDevice find(String uri, EntityManager em) {
+    public AttachedDevice find(String uri, DBEntityManager em) {
     	if (uri == null){
     		return null;    		
     	}
@@ -56,7 +54,7 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
      * Deletes the {@link AttachedDevice} resource from the DataBase without validating the transaction
      * @param resource - The {@link AttachedDevice} resource to delete
      */
-    public void delete(AttachedDevice resource, EntityManager em) {
+    public void delete(AttachedDevice resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
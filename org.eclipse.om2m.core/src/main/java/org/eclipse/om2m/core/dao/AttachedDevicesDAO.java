@@ -23,12 +23,9 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AttachedDevice;
 import org.eclipse.om2m.commons.resource.AttachedDevices;
 import org.eclipse.om2m.commons.resource.DBEntities;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -53,7 +50,7 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
 	 *            - The {@link AttachedDevices} collection resource to create
 	 */
 	@Override
-	public void create(AttachedDevices resource, EntityManager em) {
+	public void create(AttachedDevices resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -66,22 +63,13 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
 	 * @return The requested {@link AttachedDevices} collection resource
 	 *         otherwise null
 	 */
-	public AttachedDevices find(String uri, EntityManager em) {
+	public AttachedDevices find(String uri, DBEntityManager em) {
 		AttachedDevices attachedDevices = new AttachedDevices();
 		attachedDevices.setUri(uri);
 		attachedDevices.getAttachedDeviceCollection().getNamedReference().clear();
 		
 		// Find AttachedDevice sub-resources and add their references
-		String q = DBUtil.generateLikeRequest(DBEntities.ATTACHED_DEVICE_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<AttachedDevice> result = query.getResultList();
-		for (AttachedDevice ad : result){
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(ad.getId());
-			ref.setValue(ad.getUri());
-			attachedDevices.getAttachedDeviceCollection().getNamedReference().add(ref);
-		}
+		attachedDevices.getAttachedDeviceCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.ATTACHED_DEVICE_ENTITY, uri));
 
 		return attachedDevices;
 	}
@@ -94,7 +82,7 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
 	 *            - The {@link AttachedDevices} the updated resource
 	 */
 	@Override
-	public void update(AttachedDevices resource, EntityManager em) {
+	public void update(AttachedDevices resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -104,17 +92,14 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
 	 * 
 	 * @Param the {@link AttachedDevices} collection resource to delete
 	 */
-	public void delete(AttachedDevices resource, EntityManager em) {
+	public void delete(AttachedDevices resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
 
 		// Delete attachedDevice sub-resources
-		String q = DBUtil.generateLikeRequest(DBEntities.ATTACHED_DEVICE_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<AttachedDevice> result = query.getResultList();
+		List<AttachedDevice> result = DBUtil.findByParent(em, DBEntities.ATTACHED_DEVICE_ENTITY, resource.getUri());
 		for (AttachedDevice ad : result){
 			ad.setMgmtObjsReference(ad.getUri()+Refs.MGMTOBJS_REF);
 			ad.setSubscriptionsReference(ad.getUri()+Refs.SUBSCRIPTIONS_REF);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ContainerAnnc;
 
 /**
@@ -41,7 +39,7 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
      * @param uri - uri of the {@link ContainerAnnc} resource to retrieve
      * @return The requested {@link ContainerAnnc} resource otherwise null
      */
-    public ContainerAnnc find(String uri, EntityManager em) {
+    public ContainerAnnc find(String uri, DBEntityManager em) {
     	ContainerAnnc resource = em.find(ContainerAnnc.class, uri);
         // Return null if the resource is not found
     	return resource;
@@ -51,7 +49,7 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
      * Deletes the {@link ContainerAnnc} resource from the DataBase without validating the transaction
      * @param resource - The {@link ContainerAnnc} resource to delete
      */
-    public void delete(ContainerAnnc resource, EntityManager em) {
+    public void delete(ContainerAnnc resource, DBEntityManager em) {
         // Delete the resource
     	em.remove(resource);
     }
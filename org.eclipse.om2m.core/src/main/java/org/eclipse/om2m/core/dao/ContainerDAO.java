@@ -21,11 +21,10 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
 
 /**
  * Implements CRUD Methods for {@link Container} resource persistence.
@@ -48,7 +47,7 @@ public class ContainerDAO extends DAO<Container> {
 	 *            - The {@link Container} resource to create
 	 */
 	@Override
-	public void create(Container resource, EntityManager em) {
+	public void create(Container resource, DBEntityManager em) {
 		// Store the created resource
 		em.persist(resource);
 
@@ -70,9 +69,9 @@ public class ContainerDAO extends DAO<Container> {
 	 *            - uri of the {@link Container} resource to retrieve
 	 * @return The requested {@link Container} resource otherwise null
 	 */
-	public Container find(String uri, EntityManager em) {
+	public Container find(String uri, DBEntityManager em) {
 		Container container;
-		container = em.find(Container.class, uri);
+		container = DBUtil.find(em, Container.class, uri);
 		// Return null if the resource is not found
 		return container;
 	}
@@ -84,16 +83,21 @@ public class ContainerDAO extends DAO<Container> {
 	 * @param resource
 	 *            - The {@link Container} resource to delete
 	 */
-	public void delete(Container resource, EntityManager em) {
-		// delete subscriptions
-		// Delete subscriptions
-		Subscriptions subscriptions = new Subscriptions();
-		subscriptions.setUri(resource.getSubscriptionsReference());
-		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
-		// delete contentInstances
-		DAOFactory.getContentInstancesDAO().delete(
-				DAOFactory.getContentInstancesDAO().find(
-						resource.getContentInstancesReference(), em), em);
+	public void delete(Container resource, DBEntityManager em) {
+		if (Constants.DB_BULK_DELETE) {
+			// Delete all the sub-resources with one statement per table
+			DBUtil.deleteDescendants(em, resource.getUri());
+		} else {
+			// delete subscriptions
+			// Delete subscriptions
+			Subscriptions subscriptions = new Subscriptions();
+			subscriptions.setUri(resource.getSubscriptionsReference());
+			DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
+			// delete contentInstances
+			DAOFactory.getContentInstancesDAO().delete(
+					DAOFactory.getContentInstancesDAO().find(
+							resource.getContentInstancesReference(), true, em), em);
+		}
 		// Delete the resource
 		em.remove(resource);
 	}
@@ -23,15 +23,12 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.ContainerAnnc;
 import org.eclipse.om2m.commons.resource.Containers;
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.LocationContainer;
 import org.eclipse.om2m.commons.resource.LocationContainerAnnc;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -56,7 +53,7 @@ public class ContainersDAO extends DAO<Containers> {
 	 *            - The {@link Containers} collection resource to create
 	 */
 	@Override
-	public void create(Containers resource, EntityManager em) {
+	public void create(Containers resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -69,7 +66,7 @@ public class ContainersDAO extends DAO<Containers> {
 	 * @return The requested {@link Containers} collection resource otherwise
 	 *         null
 	 */
-	public Containers find(String uri, EntityManager em) {
+	public Containers find(String uri, DBEntityManager em) {
 		Containers containers = new Containers();
 		containers.setUri(uri);
 
@@ -80,53 +77,16 @@ public class ContainersDAO extends DAO<Containers> {
 		containers.getLocationContainerAnncCollection().getNamedReference().clear();
 
 		// Find Container sub-resources and add their references
-		String q = DBUtil.generateLikeRequest(DBEntities.CONTAINER_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Container> result = query.getResultList();
-
-		for (Container c : result) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(c.getId());
-			ref.setValue(c.getUri());
-			containers.getContainerCollection().getNamedReference().add(ref);
-		}
+		containers.getContainerCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.CONTAINER_ENTITY, uri, Container.class.getSimpleName()));
 
 		// Find ContainerAnnc sub-resources and add their references
-		String q2 = DBUtil.generateLikeRequest(DBEntities.CONTAINER_ANNC_ENTITY, uri);
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<ContainerAnnc> result2 = query2.getResultList();
-		for (ContainerAnnc ca : result2) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(ca.getId());
-			ref.setValue(ca.getUri());
-			containers.getContainerAnncCollection().getNamedReference().add(ref);
-		}
+		containers.getContainerAnncCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.CONTAINER_ANNC_ENTITY, uri));
 
 		// Find LocationContainer sub-resources and add their references
-		String q3 = DBUtil.generateLikeRequest(DBEntities.LOCATION_CONTAINER_ENTITY, uri);
-		javax.persistence.Query query3 = em.createQuery(q3);
-		@SuppressWarnings("unchecked")
-		List<LocationContainer> result3 = query3.getResultList();
-		for (LocationContainer lc : result3) {
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(lc.getId());
-			ref.setValue(lc.getUri());
-			containers.getLocationContainerCollection().getNamedReference().add(ref);
-		}
+		containers.getLocationContainerCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.LOCATION_CONTAINER_ENTITY, uri));
 
 		// Find LocationContainerAnnc sub-resources and add their references
-		String q4 = DBUtil.generateLikeRequest(DBEntities.LOCATION_CONTAINER_ANNC_ENTITY, uri);
-		javax.persistence.Query query4 = em.createQuery(q4);
-		@SuppressWarnings("unchecked")
-		List<LocationContainerAnnc> result4 = query4.getResultList();
-		for (LocationContainerAnnc lca : result4){
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(lca.getId());
-			ref.setValue(lca.getUri());
-			containers.getLocationContainerAnncCollection().getNamedReference().add(ref);
-		}
+		containers.getLocationContainerAnncCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.LOCATION_CONTAINER_ANNC_ENTITY, uri));
 
 		return containers;
 	}
@@ -139,7 +99,7 @@ public class ContainersDAO extends DAO<Containers> {
 	 *            - The {@link Containers} the updated resource
 	 */
 	@Override
-	public void update(Containers resource, EntityManager em) {
+	public void update(Containers resource, DBEntityManager em) {
 		// NOT IMPLEMENTED
 	}
 
@@ -149,17 +109,14 @@ public class ContainersDAO extends DAO<Containers> {
 	 * 
 	 * @Param the {@link Containers} collection resource to delete
 	 */
-	public void delete(Containers resource, EntityManager em) {
+	public void delete(Containers resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
 
 		// Delete Container sub-resources
-		String q = DBUtil.generateLikeRequest(DBEntities.CONTAINER_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Container> result = query.getResultList();
+		List<Container> result = DBUtil.findByParent(em, DBEntities.CONTAINER_ENTITY, resource.getUri(), Container.class.getSimpleName());
 
 		for (Container c : result) {
 			c.setContentInstancesReference(c.getUri() + Refs.CONTENTINSTANCES_REF);
@@ -168,19 +125,13 @@ public class ContainersDAO extends DAO<Containers> {
 		}
 
 		// Delete ContainerAnnc sub-resources
-		String q2 = DBUtil.generateLikeRequest(DBEntities.CONTAINER_ANNC_ENTITY, resource.getUri());
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<ContainerAnnc> result2 = query2.getResultList();
+		List<ContainerAnnc> result2 = DBUtil.findByParent(em, DBEntities.CONTAINER_ANNC_ENTITY, resource.getUri());
 		for (ContainerAnnc ca : result2) {
 			DAOFactory.getContainerAnncDAO().delete(ca, em);
 		}
 
 		// Delete locationContainer sub-resources
-		String q3 = DBUtil.generateLikeRequest(DBEntities.LOCATION_CONTAINER_ENTITY, resource.getUri());
-		javax.persistence.Query query3 = em.createQuery(q3);
-		@SuppressWarnings("unchecked")
-		List<LocationContainer> result3 = query3.getResultList();
+		List<LocationContainer> result3 = DBUtil.findByParent(em, DBEntities.LOCATION_CONTAINER_ENTITY, resource.getUri());
 		for (LocationContainer lc : result3) {
 			lc.setContentInstancesReference(lc.getUri() + Refs.CONTENTINSTANCES_REF);
 			lc.setSubscriptionsReference(lc.getUri() + Refs.SUBSCRIPTIONS_REF);
@@ -188,10 +139,7 @@ public class ContainersDAO extends DAO<Containers> {
 		}
 
 		// Delete locationContainerAnnc sub-resources
-		String q4 = DBUtil.generateLikeRequest(DBEntities.LOCATION_CONTAINER_ANNC_ENTITY, resource.getUri());
-		javax.persistence.Query query4 = em.createQuery(q4);
-		@SuppressWarnings("unchecked")
-		List<LocationContainerAnnc> result4 = query4.getResultList();
+		List<LocationContainerAnnc> result4 = DBUtil.findByParent(em, DBEntities.LOCATION_CONTAINER_ANNC_ENTITY, resource.getUri());
 		for (LocationContainerAnnc lca : result4){
 			DAOFactory.getLocationContainerAnncDAO().delete(lca, em);
 		}
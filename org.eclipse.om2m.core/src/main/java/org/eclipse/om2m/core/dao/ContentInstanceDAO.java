@@ -21,15 +21,21 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import javax.persistence.EntityManager;
-
+import org.eclipse.om2m.commons.resource.Base64Binary;
 import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstancePayload;
 import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.Refs;
 
 /**
  * Implements CRUD Methods for {@link ContentInstance} resource persistence.
+ * The content bytes are persisted apart in a {@link ContentInstancePayload}, 
+ * read only when the content is requested.
  *
  * @author <ul>
  *         <li>Yessine Feki < yfeki@laas.fr > < yessine.feki@ieee.org ></li>
@@ -39,48 +45,120 @@ import org.eclipse.om2m.commons.resource.DBEntities;
  */
 public class ContentInstanceDAO extends DAO<ContentInstance> {
 
+    /**
+     * Persists the {@link ContentInstance} resource and its payload
+     * @param resource - The {@link ContentInstance} resource to create
+     */
+    @Override
+    public void create(ContentInstance resource, DBEntityManager em) {
+        em.persist(resource);
+        if (resource.getContent() != null && resource.getContent().getValue() != null) {
+            em.persist(new ContentInstancePayload(resource.getUri(), resource.getContent().getValue()));
+        }
+    }
+
     /**
      * Retrieves the {@link ContentInstance} resource from the Database based on its uri
      * @param uri - uri of the {@link ContentInstance} resource to retrieve
      * @return The requested {@link ContentInstance} resource otherwise null
      */
-    public ContentInstance find(String uri, EntityManager em) {
+    public ContentInstance find(String uri, DBEntityManager em) {
+        return find(uri, false, em);
+    }
+
+    /**
+     * Retrieves the {@link ContentInstance} resource from the Database based on its uri
+     * @param uri - uri of the {@link ContentInstance} resource to retrieve (latest and oldest are accepted)
+     * @param metaDataOnly - true to retrieve the resource without reading its payload
+     * @return The requested {@link ContentInstance} resource otherwise null
+     */
+    public ContentInstance find(String uri, boolean metaDataOnly, DBEntityManager em) {
         // Create the query based on the uri constraint
         ContentInstance contentInstance = null ;
         if("latest".equals(uri.split("contentInstances/")[1])){
         	String uriToLoad = uri.replaceAll("/latest/*", "");
-        	String q = DBUtil.generateLikeRequestOrderByCreationTime(DBEntities.CONTENT_INSTANCE_ENTITY, uriToLoad);
-        	javax.persistence.Query queryJPA = em.createQuery(q);
-        	@SuppressWarnings("unchecked")
-    		List<ContentInstance> result = queryJPA.getResultList();
-
-            if (!result.isEmpty()) {
-            	return result.get(result.size()-1);
-            }
-
+        	contentInstance = DBUtil.findFirstByParentOrderByCreationTime(em, DBEntities.CONTENT_INSTANCE_ENTITY, uriToLoad, true);
         }else if ("oldest".equals(uri.split("contentInstances/")[1])){
         	String uriToLoad = uri.replaceAll("/oldest/*", "");
-        	String q = DBUtil.generateLikeRequestOrderByCreationTime(DBEntities.CONTENT_INSTANCE_ENTITY, uriToLoad);
-        	javax.persistence.Query queryJPA = em.createQuery(q);
-        	@SuppressWarnings("unchecked")
-    		List<ContentInstance> result = queryJPA.getResultList();
-
-            if (!result.isEmpty()) {
-            	return result.get(0);
-            }
+        	contentInstance = DBUtil.findFirstByParentOrderByCreationTime(em, DBEntities.CONTENT_INSTANCE_ENTITY, uriToLoad, false);
         }else {
         	contentInstance = em.find(ContentInstance.class, uri);
         }
+        if (contentInstance != null && !metaDataOnly) {
+            ContentInstancePayload payload = em.find(ContentInstancePayload.class, contentInstance.getUri() + Refs.CONTENT_REF);
+            setPayload(contentInstance, payload == null ? null : payload.getValue());
+        }
         // Return null if the resource is not found
         return contentInstance;
     }
 
+    /**
+     * Reads the payloads of contentInstances of the same collection with one query.
+     * @param collectionUri - uri of the contentInstances collection
+     * @param contentInstances - The {@link ContentInstance} resources retrieved without their payloads
+     */
+    public void loadPayloads(String collectionUri, List<ContentInstance> contentInstances, DBEntityManager em) {
+        if (contentInstances.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> values = new HashMap<String, byte[]>();
+        List<ContentInstancePayload> payloads = DBUtil.findSubtree(em, DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY, collectionUri);
+        for (ContentInstancePayload payload : payloads) {
+            values.put(payload.getContentInstanceUri(), payload.getValue());
+        }
+        for (ContentInstance contentInstance : contentInstances) {
+            setPayload(contentInstance, values.get(contentInstance.getUri()));
+        }
+    }
+
+    /**
+     * Reads the payloads of a page of contentInstances, by primary key, without reading
+     * the payloads of the rest of their collection.
+     * @param contentInstances - The {@link ContentInstance} resources retrieved without their payloads
+     */
+    public void loadPayloads(List<ContentInstance> contentInstances, DBEntityManager em) {
+        for (ContentInstance contentInstance : contentInstances) {
+            ContentInstancePayload payload = em.find(ContentInstancePayload.class, contentInstance.getUri() + Refs.CONTENT_REF);
+            setPayload(contentInstance, payload == null ? null : payload.getValue());
+        }
+    }
+
     /**
      * Deletes the {@link ContentInstance} resource from the DataBase without validating the transaction
      * @param resource - The {@link ContentInstance} resource to delete
      */
-    public void delete(ContentInstance resource, EntityManager em){
+    public void delete(ContentInstance resource, DBEntityManager em){
         // Delete the resource
         em.remove(resource);
+        List<String> payloads = new ArrayList<String>();
+        payloads.add(resource.getUri() + Refs.CONTENT_REF);
+        DBUtil.deleteByUri(em, DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY, payloads);
+    }
+
+    /**
+     * Deletes {@link ContentInstance} resources and their payloads with one statement each, 
+     * without loading them and without validating the transaction
+     * @param uris - The uris of the {@link ContentInstance} resources to delete
+     * @return the number of deleted resources
+     */
+    public int delete(List<String> uris, DBEntityManager em){
+        List<String> payloads = new ArrayList<String>(uris.size());
+        for (String uri : uris) {
+            payloads.add(uri + Refs.CONTENT_REF);
+        }
+        DBUtil.deleteByUri(em, DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY, payloads);
+        return DBUtil.deleteByUri(em, DBEntities.CONTENT_INSTANCE_ENTITY, uris);
+    }
+
+    /**
+     * Sets the payload of a contentInstance retrieved without it.
+     * @param contentInstance - The {@link ContentInstance} resource
+     * @param value - The payload
+     */
+    private static void setPayload(ContentInstance contentInstance, byte[] value) {
+        if (contentInstance.getContent() == null) {
+            contentInstance.setContent(new Base64Binary());
+        }
+        contentInstance.getContent().setValue(value);
     }
 }
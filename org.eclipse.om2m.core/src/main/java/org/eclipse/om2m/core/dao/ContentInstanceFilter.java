@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstanceFilterCriteriaType;
+import org.eclipse.om2m.commons.utils.DateConverter;
+
+/**
+ * Filter of the {@link ContentInstance} resources of a collection, built from a
+ * {@link ContentInstanceFilterCriteriaType}.
+ * <p>
+ * The time and size criteria are the indexed predicates: the dates are converted once
+ * to epoch milliseconds, so the storage engines compare them with the creationTimeMillis,
+ * lastModifiedTimeMillis and contentSize columns. The contentTypes and searchStrings are
+ * not columns: they are the residual predicates, checked on the selected contentInstances.
+ * All the comparisons of strings are case insensitive.
+ */
+public final class ContentInstanceFilter {
+
+	/** Lowest creation time in milliseconds, inclusive */
+	private final Long createdSince;
+
+	/** Highest creation time in milliseconds, inclusive */
+	private final Long createdUntil;
+
+	/** Modification time in milliseconds after which the contentInstances are selected */
+	private final Long modifiedSince;
+
+	/** Highest modification time in milliseconds, inclusive */
+	private final Long unmodifiedSince;
+
+	/** Lowest content size, inclusive */
+	private final Long sizeFrom;
+
+	/** Highest content size, inclusive */
+	private final Long sizeUntil;
+
+	/** Lower-cased contentTypes, one of them is required */
+	private final Set<String> contentTypes = new LinkedHashSet<String>();
+
+	/** Lower-cased searchStrings, all of them are required */
+	private final Set<String> searchStrings = new LinkedHashSet<String>();
+
+	/** Lower-cased searchStrings, none of them is allowed */
+	private final Set<String> excludedSearchStrings = new LinkedHashSet<String>();
+
+	/**
+	 * Creates the filter of a criteria, the dates which cannot be parsed are ignored.
+	 * @param criteria filter criteria, null to select all the contentInstances
+	 */
+	public ContentInstanceFilter(ContentInstanceFilterCriteriaType criteria){
+		if (criteria == null){
+			criteria = new ContentInstanceFilterCriteriaType();
+		}
+		createdSince = DateConverter.toMillis(criteria.getCreatedSince());
+		createdUntil = DateConverter.toMillis(criteria.getCreatedUntil());
+		modifiedSince = DateConverter.toMillis(criteria.getIfModifiedSince());
+		unmodifiedSince = DateConverter.toMillis(criteria.getIfUnmodifiedSince());
+		sizeFrom = criteria.getSizeFrom() == null ? null : Long.valueOf(criteria.getSizeFrom());
+		sizeUntil = criteria.getSizeUntil() == null ? null : Long.valueOf(criteria.getSizeUntil());
+		addLowerCase(contentTypes, criteria.getContentType());
+		addLowerCase(searchStrings, criteria.getSearchString());
+		addLowerCase(searchStrings, criteria.getIfMatch());
+		addLowerCase(excludedSearchStrings, criteria.getIfNoneMatch());
+	}
+
+	Long getCreatedSince(){
+		return createdSince;
+	}
+
+	Long getCreatedUntil(){
+		return createdUntil;
+	}
+
+	Long getModifiedSince(){
+		return modifiedSince;
+	}
+
+	Long getUnmodifiedSince(){
+		return unmodifiedSince;
+	}
+
+	Long getSizeFrom(){
+		return sizeFrom;
+	}
+
+	Long getSizeUntil(){
+		return sizeUntil;
+	}
+
+	/**
+	 * Checks if the filter has predicates which are not columns of the storage.
+	 * @return true if the contentTypes or the searchStrings are filtered
+	 */
+	boolean hasResidualPredicates(){
+		return !contentTypes.isEmpty() || !searchStrings.isEmpty() || !excludedSearchStrings.isEmpty();
+	}
+
+	/**
+	 * Checks all the predicates of the filter on a contentInstance.
+	 * @param contentInstance contentInstance to check
+	 * @return true if the contentInstance is selected
+	 */
+	boolean matches(ContentInstance contentInstance){
+		return isBetween(contentInstance.getCreationTimeMillis(), createdSince, createdUntil)
+				&& (modifiedSince == null || (contentInstance.getLastModifiedTimeMillis() != null && contentInstance.getLastModifiedTimeMillis() > modifiedSince))
+				&& isBetween(contentInstance.getLastModifiedTimeMillis(), null, unmodifiedSince)
+				&& isBetween(contentInstance.getContentSize(), sizeFrom, sizeUntil)
+				&& matchesResidualPredicates(contentInstance);
+	}
+
+	/**
+	 * Checks the contentTypes and the searchStrings of a contentInstance.
+	 * @param contentInstance contentInstance to check
+	 * @return true if the contentInstance is selected
+	 */
+	boolean matchesResidualPredicates(ContentInstance contentInstance){
+		if (!contentTypes.isEmpty()){
+			Set<String> types = new LinkedHashSet<String>();
+			if (contentInstance.getContentTypes() != null){
+				addLowerCase(types, contentInstance.getContentTypes().getContentType());
+			}
+			types.retainAll(contentTypes);
+			if (types.isEmpty()){
+				return false;
+			}
+		}
+		if (!searchStrings.isEmpty() || !excludedSearchStrings.isEmpty()){
+			Set<String> strings = new LinkedHashSet<String>();
+			if (contentInstance.getSearchStrings() != null){
+				addLowerCase(strings, contentInstance.getSearchStrings().getSearchString());
+			}
+			if (!strings.containsAll(searchStrings)){
+				return false;
+			}
+			for (String excluded : excludedSearchStrings){
+				if (strings.contains(excluded)){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Selects a page of the contentInstances matching the filter.
+	 * @param candidates ordered contentInstances
+	 * @param firstResult number of matching contentInstances to skip
+	 * @param maxResults maximum number of contentInstances to select, no limit if lower than 1
+	 * @return the selected contentInstances, in the order of the candidates
+	 */
+	<T> List<T> select(List<T> candidates, int firstResult, int maxResults){
+		List<T> result = new ArrayList<T>();
+		int skipped = 0;
+		for (T candidate : candidates){
+			if (maxResults > 0 && result.size() >= maxResults){
+				break;
+			}
+			if (matches((ContentInstance) candidate)){
+				if (skipped < firstResult){
+					skipped++;
+				} else {
+					result.add(candidate);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if a value is between two bounds, a missing value is only selected without bounds.
+	 */
+	private static boolean isBetween(Long value, Long from, Long until){
+		if (value == null){
+			return from == null && until == null;
+		}
+		return (from == null || value >= from) && (until == null || value <= until);
+	}
+
+	/**
+	 * Adds the lower-cased non null values of a list to a set.
+	 */
+	private static void addLowerCase(Set<String> set, List<String> values){
+		if (values != null){
+			for (String value : values){
+				if (value != null){
+					set.add(value.toLowerCase());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Retention of the {@link ContentInstance} resources: deletes the oldest contentInstances
+ * of a collection while its container limits are exceeded (maxNrOfInstances, maxByteSize,
+ * and maxInstanceAge in seconds).
+ * <p>
+ * A collection is trimmed when a creation exceeds its limits, and all the collections are
+ * swept every {@link Constants#CONTENT_INSTANCE_RETENTION_PERIOD} seconds for the expired
+ * instances. The expired contentInstances are deleted by batches of
+ * {@link Constants#CONTENT_INSTANCE_RETENTION_BATCH_SIZE}, each batch with one delete
+ * statement and the update of the collection counters in one transaction, under the
+ * {@link ResourceLocks} lock of the collection like the commits of the {@link ContentInstanceWriter}.
+ * It satisfies the singleton pattern.
+ */
+public class ContentInstanceRetention {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(ContentInstanceRetention.class);
+
+	/** Local instance of the object */
+	private static ContentInstanceRetention retention = new ContentInstanceRetention();
+
+	/** Collections waiting to be trimmed, with their known number of exceeding instances */
+	private final Map<String, Long> backlog = new ConcurrentHashMap<String, Long>();
+
+	/** Number of deleted contentInstances */
+	private final AtomicLong deletedInstances = new AtomicLong();
+
+	/** Size of the deleted contentInstances */
+	private final AtomicLong deletedBytes = new AtomicLong();
+
+	/** Number of sweeps of all the collections */
+	private final AtomicLong sweeps = new AtomicLong();
+
+	/** Thread trimming the collections, null if the retention is stopped */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Private constructor.
+	 */
+	private ContentInstanceRetention(){
+	}
+
+	/**
+	 * Gets the instance of the retention.
+	 * @return instance of ContentInstanceRetention
+	 */
+	public static ContentInstanceRetention getInstance(){
+		return retention;
+	}
+
+	/**
+	 * Starts the retention thread and schedules the sweeps.
+	 */
+	public synchronized void start(){
+		if (scheduler != null){
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ContentInstanceRetention");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		if (Constants.CONTENT_INSTANCE_RETENTION_PERIOD > 0){
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					sweep();
+				}
+			}, Constants.CONTENT_INSTANCE_RETENTION_PERIOD, Constants.CONTENT_INSTANCE_RETENTION_PERIOD, TimeUnit.SECONDS);
+		}
+		LOGGER.info("ContentInstance retention started (period: " + Constants.CONTENT_INSTANCE_RETENTION_PERIOD
+				+ "s, batch size: " + Constants.CONTENT_INSTANCE_RETENTION_BATCH_SIZE + ")");
+	}
+
+	/**
+	 * Stops the retention thread once the pending collections are trimmed.
+	 * The thread is not interrupted, so that no transaction is interrupted.
+	 */
+	public void stop(){
+		ScheduledExecutorService stopped;
+		synchronized (this) {
+			stopped = scheduler;
+			scheduler = null;
+		}
+		if (stopped != null){
+			stopped.shutdown();
+			try {
+				stopped.awaitTermination(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			LOGGER.info("ContentInstance retention stopped: " + getStatistics());
+		}
+	}
+
+	/**
+	 * Requests the trimming of a collection whose limits are exceeded.
+	 * Requests of an already pending collection are merged.
+	 * @param collectionUri - uri of the {@link ContentInstances} collection
+	 * @param exceeding - known number of instances exceeding the limits, 0 if unknown
+	 */
+	public void request(final String collectionUri, long exceeding){
+		if (backlog.put(collectionUri, exceeding) != null){
+			return;
+		}
+		synchronized (this) {
+			if (scheduler != null){
+				scheduler.execute(new Runnable() {
+					@Override
+					public void run() {
+						trim(collectionUri);
+					}
+				});
+				return;
+			}
+		}
+		// Not started: trimmed by the caller
+		trim(collectionUri);
+	}
+
+	/**
+	 * Returns the number of contentInstances known to exceed the limits of their collection
+	 * and waiting to be deleted.
+	 * @return the retention backlog
+	 */
+	public long getBacklog(){
+		long pending = 0;
+		for (Long exceeding : backlog.values()){
+			pending += exceeding;
+		}
+		return pending;
+	}
+
+	/**
+	 * Returns the statistics of the retention: pending collections and instances, deleted
+	 * instances and bytes, and number of sweeps.
+	 * @return statistics of the retention
+	 */
+	public Map<String, Long> getStatistics(){
+		Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+		statistics.put("pendingCollections", (long) backlog.size());
+		statistics.put("pendingInstances", getBacklog());
+		statistics.put("deletedInstances", deletedInstances.get());
+		statistics.put("deletedBytes", deletedBytes.get());
+		statistics.put("sweeps", sweeps.get());
+		return statistics;
+	}
+
+	/**
+	 * Requests the trimming of all the collections.
+	 */
+	void sweep(){
+		List<String> collections = new ArrayList<String>();
+		DBEntityManager em = DBAccess.createEntityManager();
+		try {
+			List<ContentInstances> result = DBUtil.findSubtree(em, DBEntities.CONTENT_INSTANCES_ENTITY, "");
+			for (ContentInstances contentInstances : result){
+				collections.add(contentInstances.getUri());
+			}
+		} finally {
+			em.close();
+		}
+		for (String collectionUri : collections){
+			request(collectionUri, 0);
+		}
+		sweeps.incrementAndGet();
+		long pending = getBacklog();
+		if (pending > 0){
+			LOGGER.info("ContentInstance retention backlog: " + pending + " instances in " + backlog.size() + " collections");
+		}
+	}
+
+	/**
+	 * Deletes the expired contentInstances of a collection batch by batch.
+	 * @param collectionUri - uri of the {@link ContentInstances} collection
+	 */
+	void trim(String collectionUri){
+		backlog.remove(collectionUri);
+		try {
+			int deleted;
+			do {
+				deleted = trimBatch(collectionUri);
+			} while (deleted >= Constants.CONTENT_INSTANCE_RETENTION_BATCH_SIZE);
+		} catch (RuntimeException e) {
+			LOGGER.error("Error deleting the expired contentInstances of " + collectionUri, e);
+		}
+	}
+
+	/**
+	 * Deletes one batch of expired contentInstances and updates the collection counters
+	 * in one transaction.
+	 * @param collectionUri - uri of the {@link ContentInstances} collection
+	 * @return the number of deleted contentInstances
+	 */
+	private int trimBatch(String collectionUri){
+		List<Lock> acquired = ResourceLocks.getInstance().lock(collectionUri);
+		try {
+			DBEntityManager em = DBAccess.createEntityManager();
+			try {
+				em.getTransaction().begin();
+				ContentInstances contentInstances = em.find(ContentInstances.class, collectionUri);
+				Container container = DBUtil.find(em, Container.class, collectionUri.substring(0, collectionUri.length() - Refs.CONTENTINSTANCES_REF.length()));
+				if (contentInstances == null || container == null){
+					return 0;
+				}
+				long instances = contentInstances.getCurrentNrOfInstances();
+				long bytes = contentInstances.getCurrentByteSize();
+				long maxInstances = container.getMaxNrOfInstances() == null ? Long.MAX_VALUE : container.getMaxNrOfInstances();
+				long maxBytes = container.getMaxByteSize() == null ? Long.MAX_VALUE : container.getMaxByteSize();
+				long oldestTime = container.getMaxInstanceAge() == null ? Long.MIN_VALUE
+						: System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(container.getMaxInstanceAge());
+				if (instances <= maxInstances && bytes <= maxBytes && oldestTime == Long.MIN_VALUE){
+					return 0;
+				}
+
+				List<ContentInstance> oldest = DBUtil.findByParentOrderByCreationTime(em, DBEntities.CONTENT_INSTANCE_ENTITY,
+						collectionUri, Constants.CONTENT_INSTANCE_RETENTION_BATCH_SIZE);
+				List<String> expired = new ArrayList<String>();
+				long expiredBytes = 0;
+				for (ContentInstance contentInstance : oldest){
+					long size = contentInstance.getContentSize() == null ? 0 : contentInstance.getContentSize();
+					if (instances - expired.size() <= maxInstances && bytes - expiredBytes <= maxBytes
+							&& getCreationTime(contentInstance) >= oldestTime){
+						break;
+					}
+					expired.add(contentInstance.getUri());
+					expiredBytes += size;
+				}
+				if (expired.isEmpty()){
+					return 0;
+				}
+				DAOFactory.getContentInstanceDAO().delete(expired, em);
+				ContentInstanceWriter.decrement(contentInstances, expired.size(), expiredBytes);
+				em.getTransaction().commit();
+				deletedInstances.addAndGet(expired.size());
+				deletedBytes.addAndGet(expiredBytes);
+				return expired.size();
+			} finally {
+				if (em.getTransaction().isActive()){
+					em.getTransaction().rollback();
+				}
+				em.close();
+			}
+		} finally {
+			ResourceLocks.getInstance().unlock(acquired);
+		}
+	}
+
+	/**
+	 * Returns the creation time of a contentInstance.
+	 * @param contentInstance - The {@link ContentInstance}
+	 * @return the creation time in milliseconds, Long.MAX_VALUE if it cannot be parsed
+	 */
+	private long getCreationTime(ContentInstance contentInstance){
+		Long creationTime = contentInstance.getCreationTimeMillis();
+		return creationTime == null ? Long.MAX_VALUE : creationTime;
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+
+/**
+ * Implements CRUD Methods for {@link ContentInstance} resource persistence in the
+ * {@link ContentInstanceStore}. The contentInstances are appended once the transaction
+ * of the DBEntityManager is committed, so a rolled back creation leaves no record, 
+ * and they are deleted immediately, outside of the transaction.
+ * The content bytes are kept in the records and skipped when only the metadata is read.
+ */
+public class ContentInstanceSegmentDAO extends ContentInstanceDAO {
+
+    /**
+     * Appends the {@link ContentInstance} resource to the segments of its collection
+     * once the transaction is committed
+     * @param resource - The {@link ContentInstance} resource to create
+     */
+    @Override
+    public void create(final ContentInstance resource, DBEntityManager em) {
+        resource.updateIndexedAttributes();
+        DBAccess.getStorageEngine().afterCommit(em, new Runnable() {
+            @Override
+            public void run() {
+                ContentInstanceStore.getInstance().append(resource);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the {@link ContentInstance} resource from the segments based on its uri
+     * @param uri - uri of the {@link ContentInstance} resource to retrieve (latest and oldest are accepted)
+     * @param metaDataOnly - true to retrieve the resource without reading its content bytes
+     * @return The requested {@link ContentInstance} resource otherwise null
+     */
+    @Override
+    public ContentInstance find(String uri, boolean metaDataOnly, DBEntityManager em) {
+        String id = uri.split("contentInstances/")[1];
+        if ("latest".equals(id)) {
+            return ContentInstanceStore.getInstance().findFirst(uri.replaceAll("/latest/*", ""), true, metaDataOnly);
+        } else if ("oldest".equals(id)) {
+            return ContentInstanceStore.getInstance().findFirst(uri.replaceAll("/oldest/*", ""), false, metaDataOnly);
+        }
+        return ContentInstanceStore.getInstance().find(uri, metaDataOnly);
+    }
+
+    /**
+     * Reads the content bytes of contentInstances retrieved without them.
+     * @param collectionUri - uri of the contentInstances collection
+     * @param contentInstances - The {@link ContentInstance} resources retrieved without their content bytes
+     */
+    @Override
+    public void loadPayloads(String collectionUri, List<ContentInstance> contentInstances, DBEntityManager em) {
+        for (ContentInstance contentInstance : contentInstances) {
+            ContentInstance full = ContentInstanceStore.getInstance().find(contentInstance.getUri(), false);
+            if (full != null) {
+                contentInstance.setContent(full.getContent());
+            }
+        }
+    }
+
+    /**
+     * Reads the content bytes of a page of contentInstances retrieved without them.
+     * @param contentInstances - The {@link ContentInstance} resources retrieved without their content bytes
+     */
+    @Override
+    public void loadPayloads(List<ContentInstance> contentInstances, DBEntityManager em) {
+        loadPayloads(null, contentInstances, em);
+    }
+
+    /**
+     * ContentInstances are not modified once created.
+     */
+    @Override
+    public void update(ContentInstance resource, DBEntityManager em) {
+        // NOT ALLOWED
+    }
+
+    /**
+     * Deletes the {@link ContentInstance} resource from the segments
+     * @param resource - The {@link ContentInstance} resource to delete
+     */
+    @Override
+    public void delete(ContentInstance resource, DBEntityManager em) {
+        ContentInstanceStore.getInstance().delete(resource.getUri());
+    }
+
+    /**
+     * Deletes {@link ContentInstance} resources from the segments
+     * @param uris - The uris of the {@link ContentInstance} resources to delete
+     * @return the number of deleted resources
+     */
+    @Override
+    public int delete(List<String> uris, DBEntityManager em) {
+        int deleted = 0;
+        for (String uri : uris) {
+            if (ContentInstanceStore.getInstance().delete(uri)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,1070 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Base64Binary;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentTypes;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Append-only store of the {@link ContentInstance} resources, used instead of the
+ * database when {@link Constants#CONTENT_INSTANCE_STORE} is "segment".
+ * <p>
+ * ContentInstances are immutable and each container keeps a bounded history of them,
+ * so each contentInstances collection has its own directory of segment files that
+ * are only appended to. A segment is a preallocated file of
+ * {@link Constants#CONTENT_INSTANCE_SEGMENT_SIZE} bytes, memory-mapped for writes and
+ * reads, containing records [length][contentInstance]; a zero length marks the end of
+ * the written records. The records are indexed in memory by sequence number, so
+ * latest, oldest and uri lookups are offset lookups.
+ * <p>
+ * Deleted records are marked in a tombstone file, and a segment is deleted as a whole
+ * once all its records are deleted: retention of the oldest contentInstances
+ * truncates the history segment by segment.
+ * <p>
+ * Writes are immediate and are not part of the transaction of the caller, the
+ * {@link ContentInstanceSegmentDAO} appends the created contentInstances once their
+ * transaction is committed. The mapped segments are forced to disk by {@link #sync()}, otherwise by the operating
+ * system.
+ * It satisfies the singleton pattern.
+ */
+public class ContentInstanceStore {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(ContentInstanceStore.class);
+
+	/** Local instance of the object */
+	private static ContentInstanceStore store = new ContentInstanceStore();
+
+	/** Extension of the segment files, named by the sequence number of their first record */
+	private static final String SEGMENT_EXTENSION = ".seg";
+
+	/** Name of the tombstone file of a collection */
+	private static final String TOMBSTONES_FILE = "tombstones";
+
+	/** Version of the record format */
+	private static final byte RECORD_VERSION = 1;
+
+	/** Histories indexed by contentInstances collection uri */
+	private final ConcurrentSkipListMap<String, History> histories = new ConcurrentSkipListMap<String, History>();
+
+	/** Root directory of the store */
+	private File directory;
+
+	/**
+	 * Private constructor.
+	 */
+	private ContentInstanceStore(){
+	}
+
+	/**
+	 * Gets the instance of the store.
+	 * @return instance of ContentInstanceStore
+	 */
+	public static ContentInstanceStore getInstance(){
+		return store;
+	}
+
+	/**
+	 * Checks if the contentInstances are stored in segments instead of the database.
+	 * @return true if the segment store is used
+	 */
+	public static boolean isEnabled(){
+		return "segment".equalsIgnoreCase(Constants.CONTENT_INSTANCE_STORE);
+	}
+
+	/**
+	 * Opens the store and loads the index of the stored segments. The store is
+	 * emptied if the database is reset.
+	 */
+	public void init(){
+		directory = new File(Constants.CONTENT_INSTANCE_STORE_DIR);
+		if (Constants.DB_RESET){
+			deleteDirectory(directory);
+		}
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null){
+			for (File file : files){
+				if (file.isDirectory()){
+					try {
+						History history = new History(URLDecoder.decode(file.getName(), "UTF-8"), file);
+						history.load();
+						histories.put(history.parentUri, history);
+					} catch (IOException e){
+						LOGGER.error("Error loading the contentInstances of " + file, e);
+					}
+				}
+			}
+		}
+		LOGGER.info("ContentInstance store initialized in " + directory + ": " + getStatistics());
+	}
+
+	/**
+	 * Forces the segments to disk and closes the store.
+	 */
+	public void close(){
+		sync();
+		for (History history : histories.values()){
+			history.close();
+		}
+		histories.clear();
+	}
+
+	/**
+	 * Forces the written records and tombstones to disk.
+	 */
+	public void sync(){
+		for (History history : histories.values()){
+			history.sync();
+		}
+	}
+
+	/**
+	 * Appends a contentInstance to the history of its collection. A contentInstance
+	 * with the same uri is replaced.
+	 * @param contentInstance contentInstance to store, its uri must be set
+	 */
+	public void append(ContentInstance contentInstance){
+		String parentUri = getParentUri(contentInstance.getUri());
+		History history = histories.get(parentUri);
+		if (history == null){
+			try {
+				History created = new History(parentUri, new File(directory, URLEncoder.encode(parentUri, "UTF-8")));
+				history = histories.putIfAbsent(parentUri, created);
+				if (history == null){
+					history = created;
+				}
+			} catch (UnsupportedEncodingException e){
+				throw new IllegalStateException(e);
+			}
+		}
+		try {
+			history.append(contentInstance);
+			SearchStringIndex.getInstance().put(contentInstance.getUri(), contentInstance.getSearchStrings());
+		} catch (IOException e){
+			throw new IllegalStateException("Error storing " + contentInstance.getUri(), e);
+		}
+	}
+
+	/**
+	 * Retrieves a contentInstance.
+	 * @param uri uri of the contentInstance
+	 * @param metaDataOnly true to skip the content bytes
+	 * @return the contentInstance otherwise null
+	 */
+	public ContentInstance find(String uri, boolean metaDataOnly){
+		History history = histories.get(getParentUri(uri));
+		return history == null ? null : history.find(uri, metaDataOnly);
+	}
+
+	/**
+	 * Retrieves the newest or the oldest contentInstance of a collection.
+	 * @param parentUri uri of the contentInstances collection
+	 * @param newest true for the newest, false for the oldest
+	 * @param metaDataOnly true to skip the content bytes
+	 * @return the contentInstance otherwise null
+	 */
+	public ContentInstance findFirst(String parentUri, boolean newest, boolean metaDataOnly){
+		History history = histories.get(parentUri);
+		return history == null ? null : history.findFirst(newest, metaDataOnly);
+	}
+
+	/**
+	 * Retrieves the contentInstances of a collection ordered by creation, 
+	 * without their content bytes.
+	 * @param parentUri uri of the contentInstances collection
+	 * @return the contentInstances, oldest first
+	 */
+	public List<ContentInstance> findAll(String parentUri){
+		return findAll(parentUri, 0);
+	}
+
+	/**
+	 * Retrieves the oldest contentInstances of a collection ordered by creation, 
+	 * without their content bytes.
+	 * @param parentUri uri of the contentInstances collection
+	 * @param maxResults maximum number of contentInstances, lower than 1 for all
+	 * @return the contentInstances, oldest first
+	 */
+	public List<ContentInstance> findAll(String parentUri, int maxResults){
+		History history = histories.get(parentUri);
+		return history == null ? new ArrayList<ContentInstance>() : history.findAll(maxResults);
+	}
+
+	/**
+	 * Retrieves a page of the contentInstances of a collection matching a filter, ordered
+	 * by creation, without their content bytes.
+	 * @param parentUri uri of the contentInstances collection
+	 * @param filter filter of the contentInstances
+	 * @param firstResult number of matching contentInstances to skip
+	 * @param maxResults maximum number of contentInstances, lower than 1 for all
+	 * @return the contentInstances, oldest first
+	 */
+	public List<ContentInstance> findAll(String parentUri, ContentInstanceFilter filter, int firstResult, int maxResults){
+		History history = histories.get(parentUri);
+		return history == null ? new ArrayList<ContentInstance>() : history.findAll(filter, firstResult, maxResults);
+	}
+
+	/**
+	 * Retrieves the contentInstances stored under a uri, without their content bytes.
+	 * @param uri root uri of the subtree, empty for all the contentInstances
+	 * @return the contentInstances
+	 */
+	public List<ContentInstance> findSubtree(String uri){
+		List<ContentInstance> result = new ArrayList<ContentInstance>();
+		for (History history : getHistories(uri)){
+			result.addAll(history.findAll(0));
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieves the uris of the collections holding stored contentInstances.
+	 * @return the uris of the contentInstances collections
+	 */
+	public List<String> getCollectionUris(){
+		return new ArrayList<String>(histories.keySet());
+	}
+
+	/**
+	 * Retrieves in uri order the uris of the contentInstances stored under a uri.
+	 * @param uri root uri of the subtree, empty for all the contentInstances
+	 * @param after uri after which the uris are retrieved, null to start from the first one
+	 * @param maxResults maximum number of uris to retrieve
+	 * @return the sorted uris
+	 */
+	public List<String> findSubtreeUris(String uri, String after, int maxResults){
+		// Keeps the lowest uris only, whatever the number of stored contentInstances
+		TreeSet<String> result = new TreeSet<String>();
+		for (History history : getHistories(uri)){
+			history.collectUris(after, maxResults, result);
+		}
+		return new ArrayList<String>(result);
+	}
+
+	/**
+	 * Deletes a contentInstance.
+	 * @param uri uri of the contentInstance
+	 * @return true if the contentInstance was deleted
+	 */
+	public boolean delete(String uri){
+		History history = histories.get(getParentUri(uri));
+		try {
+			if (history != null && history.delete(uri)){
+				SearchStringIndex.getInstance().remove(uri);
+				return true;
+			}
+			return false;
+		} catch (IOException e){
+			throw new IllegalStateException("Error deleting " + uri, e);
+		}
+	}
+
+	/**
+	 * Deletes the oldest contentInstances of a collection exceeding a number of instances.
+	 * @param parentUri uri of the contentInstances collection
+	 * @param maxNrOfInstances number of contentInstances to keep
+	 * @return the number of deleted contentInstances
+	 */
+	public int retain(String parentUri, long maxNrOfInstances){
+		History history = histories.get(parentUri);
+		try {
+			return history == null ? 0 : history.retain(maxNrOfInstances);
+		} catch (IOException e){
+			throw new IllegalStateException("Error deleting the contentInstances of " + parentUri, e);
+		}
+	}
+
+	/**
+	 * Deletes all the contentInstances stored under a uri (not the uri itself).
+	 * @param uri root uri of the subtree
+	 * @return the number of deleted contentInstances
+	 */
+	public int deleteDescendants(String uri){
+		int deleted = 0;
+		for (History history : getHistories(uri)){
+			if (!history.parentUri.equals(uri)){
+				histories.remove(history.parentUri);
+				deleted += history.destroy();
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Returns the statistics of the store: number of collections, segments,
+	 * stored contentInstances and mapped bytes.
+	 * @return statistics of the store
+	 */
+	public Map<String, Integer> getStatistics(){
+		int segments = 0;
+		int instances = 0;
+		long bytes = 0;
+		for (History history : histories.values()){
+			synchronized (history){
+				segments += history.segments.size();
+				instances += history.sequences.size();
+				for (Segment segment : history.segments){
+					bytes += segment.buffer.capacity();
+				}
+			}
+		}
+		Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+		statistics.put("collections", histories.size());
+		statistics.put("segments", segments);
+		statistics.put("contentInstances", instances);
+		statistics.put("mappedKB", (int) (bytes / 1024));
+		return statistics;
+	}
+
+	/**
+	 * Returns the histories of the collections located under a uri (range of the uri order).
+	 * @param uri root uri, empty for all
+	 * @return the histories
+	 */
+	private List<History> getHistories(String uri){
+		if (uri == null || uri.isEmpty()){
+			return new ArrayList<History>(histories.values());
+		}
+		List<History> result = new ArrayList<History>();
+		History history = histories.get(uri);
+		if (history != null){
+			result.add(history);
+		}
+		result.addAll(histories.subMap(uri + "/", uri + "0").values());
+		return result;
+	}
+
+	/**
+	 * Returns the uri of the collection of a contentInstance.
+	 * @param uri uri of the contentInstance
+	 * @return the uri without its last segment
+	 */
+	private static String getParentUri(String uri){
+		int index = uri.lastIndexOf('/');
+		return index < 0 ? "" : uri.substring(0, index);
+	}
+
+	/**
+	 * Deletes a directory and its files.
+	 * @param dir directory to delete
+	 */
+	private static void deleteDirectory(File dir){
+		File[] files = dir.listFiles();
+		if (files != null){
+			for (File file : files){
+				if (file.isDirectory()){
+					deleteDirectory(file);
+				} else if (!file.delete()){
+					LOGGER.warn("Cannot delete " + file);
+				}
+			}
+		}
+		dir.delete();
+	}
+
+	/**
+	 * Append-only history of the contentInstances of one collection.
+	 */
+	private static final class History {
+
+		/** Uri of the contentInstances collection */
+		private final String parentUri;
+
+		/** Directory of the segments */
+		private final File dir;
+
+		/** Segments ordered by sequence number */
+		private final List<Segment> segments = new ArrayList<Segment>();
+
+		/** Sequence number of the stored contentInstances indexed by uri */
+		private final Map<String, Long> sequences = new HashMap<String, Long>();
+
+		/** Sequence number of the next record */
+		private long nextSequence;
+
+		/** Tombstone file, opened on the first deletion */
+		private FileOutputStream tombstones;
+
+		/**
+		 * Creates the history of a collection.
+		 * @param parentUri uri of the contentInstances collection
+		 * @param dir directory of the segments
+		 */
+		History(String parentUri, File dir){
+			this.parentUri = parentUri;
+			this.dir = dir;
+		}
+
+		/**
+		 * Loads the segments and the tombstones of the directory.
+		 * @throws IOException if a segment cannot be read
+		 */
+		synchronized void load() throws IOException {
+			File[] files = dir.listFiles();
+			if (files == null){
+				return;
+			}
+			List<Long> bases = new ArrayList<Long>();
+			for (File file : files){
+				if (file.getName().endsWith(SEGMENT_EXTENSION)){
+					bases.add(Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_EXTENSION.length())));
+				}
+			}
+			long[] sorted = new long[bases.size()];
+			for (int i = 0; i < sorted.length; i++){
+				sorted[i] = bases.get(i);
+			}
+			Arrays.sort(sorted);
+			// A record replaced by a newer one with the same uri is dead, even if its
+			// tombstone was not written
+			List<Long> deleted = new ArrayList<Long>();
+			for (long base : sorted){
+				Segment segment = Segment.open(segmentFile(base), base);
+				segments.add(segment);
+				for (int i = 0; i < segment.count; i++){
+					Long replaced = sequences.put(decode(segment.read(i), true).getUri(), segment.base + i);
+					if (replaced != null){
+						Segment replacedSegment = getSegment(replaced);
+						replacedSegment.kill((int) (replaced - replacedSegment.base));
+						deleted.add(replaced);
+					}
+				}
+				nextSequence = segment.base + segment.count;
+			}
+			// Apply the tombstones of the remaining segments, then rewrite them. The tombstone of
+			// a replaced record leaves the uri mapped to the record replacing it.
+			File file = new File(dir, TOMBSTONES_FILE);
+			if (file.exists()){
+				DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(new java.io.FileInputStream(file)));
+				try {
+					for (long i = file.length() / 8; i > 0; i--){
+						long sequence = in.readLong();
+						Segment segment = getSegment(sequence);
+						if (segment != null && !segment.dead.get((int) (sequence - segment.base))){
+							String uri = decode(segment.read((int) (sequence - segment.base)), true).getUri();
+							if (Long.valueOf(sequence).equals(sequences.get(uri))){
+								sequences.remove(uri);
+							}
+							segment.kill((int) (sequence - segment.base));
+							deleted.add(sequence);
+						}
+					}
+				} finally {
+					in.close();
+				}
+			}
+			dropDeadSegments();
+			file.delete();
+			for (Long sequence : deleted){
+				if (getSegment(sequence) != null){
+					writeTombstone(sequence);
+				}
+			}
+		}
+
+		/**
+		 * Appends a record at the end of the last segment, or in a new segment.
+		 * @param contentInstance contentInstance to append
+		 * @throws IOException if the segment cannot be written
+		 */
+		synchronized void append(ContentInstance contentInstance) throws IOException {
+			byte[] record = encode(contentInstance);
+			Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+			if (segment == null || !segment.fits(record.length)){
+				dir.mkdirs();
+				int capacity = Math.max(Constants.CONTENT_INSTANCE_SEGMENT_SIZE, record.length + 8);
+				segment = Segment.create(segmentFile(nextSequence), nextSequence, capacity);
+				segments.add(segment);
+			}
+			segment.append(record);
+			Long replaced = sequences.put(contentInstance.getUri(), nextSequence);
+			nextSequence++;
+			if (replaced != null){
+				kill(replaced);
+			}
+		}
+
+		/**
+		 * Reads a contentInstance.
+		 * @param uri uri of the contentInstance
+		 * @param metaDataOnly true to skip the content bytes
+		 * @return the contentInstance otherwise null
+		 */
+		synchronized ContentInstance find(String uri, boolean metaDataOnly){
+			Long sequence = sequences.get(uri);
+			if (sequence == null){
+				return null;
+			}
+			Segment segment = getSegment(sequence);
+			return decode(segment.read((int) (sequence - segment.base)), metaDataOnly);
+		}
+
+		/**
+		 * Reads the newest or the oldest live record.
+		 * @param newest true for the newest, false for the oldest
+		 * @param metaDataOnly true to skip the content bytes
+		 * @return the contentInstance otherwise null
+		 */
+		synchronized ContentInstance findFirst(boolean newest, boolean metaDataOnly){
+			for (int s = 0; s < segments.size(); s++){
+				Segment segment = segments.get(newest ? segments.size() - 1 - s : s);
+				int index = newest ? segment.dead.previousClearBit(segment.count - 1) : segment.dead.nextClearBit(0);
+				if (index >= 0 && index < segment.count){
+					return decode(segment.read(index), metaDataOnly);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Reads the oldest live records.
+		 * @param maxResults maximum number of records, lower than 1 for all
+		 * @return the contentInstances, oldest first
+		 */
+		synchronized List<ContentInstance> findAll(int maxResults){
+			int size = maxResults < 1 ? sequences.size() : Math.min(maxResults, sequences.size());
+			List<ContentInstance> result = new ArrayList<ContentInstance>(size);
+			for (Segment segment : segments){
+				for (int i = segment.dead.nextClearBit(0); i < segment.count && result.size() < size; i = segment.dead.nextClearBit(i + 1)){
+					result.add(decode(segment.read(i), true));
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Reads a page of the live records matching a filter, the scan stops once the page is full.
+		 * @param filter filter of the records
+		 * @param firstResult number of matching records to skip
+		 * @param maxResults maximum number of records, lower than 1 for all
+		 * @return the contentInstances, oldest first
+		 */
+		synchronized List<ContentInstance> findAll(ContentInstanceFilter filter, int firstResult, int maxResults){
+			List<ContentInstance> result = new ArrayList<ContentInstance>();
+			int skipped = 0;
+			for (Segment segment : segments){
+				for (int i = segment.dead.nextClearBit(0); i < segment.count && (maxResults < 1 || result.size() < maxResults);
+						i = segment.dead.nextClearBit(i + 1)){
+					ContentInstance contentInstance = decode(segment.read(i), true);
+					if (filter.matches(contentInstance)){
+						if (skipped < firstResult){
+							skipped++;
+						} else {
+							result.add(contentInstance);
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Deletes a record.
+		 * @param uri uri of the contentInstance
+		 * @return true if the contentInstance was deleted
+		 * @throws IOException if the tombstone cannot be written
+		 */
+		synchronized boolean delete(String uri) throws IOException {
+			Long sequence = sequences.remove(uri);
+			if (sequence == null){
+				return false;
+			}
+			kill(sequence);
+			dropDeadSegments();
+			return true;
+		}
+
+		/**
+		 * Adds the lowest uris of the stored records after a uri to a sorted set.
+		 * @param after uri after which the uris are added, null to start from the first one
+		 * @param maxResults maximum size of the set, its highest uris are dropped
+		 * @param result sorted set of uris
+		 */
+		synchronized void collectUris(String after, int maxResults, TreeSet<String> result){
+			for (String uri : sequences.keySet()){
+				if (after == null || uri.compareTo(after) > 0){
+					result.add(uri);
+					if (result.size() > maxResults){
+						result.pollLast();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Deletes the oldest records exceeding a number of instances.
+		 * @param maxNrOfInstances number of records to keep
+		 * @return the number of deleted records
+		 * @throws IOException if the tombstones cannot be written
+		 */
+		synchronized int retain(long maxNrOfInstances) throws IOException {
+			int deleted = 0;
+			for (Segment segment : segments){
+				if (sequences.size() <= maxNrOfInstances){
+					break;
+				}
+				for (int i = segment.dead.nextClearBit(0); i < segment.count && sequences.size() > maxNrOfInstances;
+						i = segment.dead.nextClearBit(i + 1)){
+					String uri = decode(segment.read(i), true).getUri();
+					sequences.remove(uri);
+					SearchStringIndex.getInstance().remove(uri);
+					kill(segment.base + i);
+					deleted++;
+				}
+			}
+			dropDeadSegments();
+			return deleted;
+		}
+
+		/**
+		 * Deletes the whole history.
+		 * @return the number of deleted records
+		 */
+		synchronized int destroy(){
+			int deleted = sequences.size();
+			for (String uri : sequences.keySet()){
+				SearchStringIndex.getInstance().remove(uri);
+			}
+			close();
+			segments.clear();
+			sequences.clear();
+			deleteDirectory(dir);
+			return deleted;
+		}
+
+		/**
+		 * Forces the segments and tombstones to disk.
+		 */
+		synchronized void sync(){
+			for (Segment segment : segments){
+				segment.buffer.force();
+			}
+			if (tombstones != null){
+				try {
+					tombstones.getFD().sync();
+				} catch (IOException e){
+					LOGGER.error("Error syncing the tombstones of " + parentUri, e);
+				}
+			}
+		}
+
+		/**
+		 * Closes the tombstone file. The segments are unmapped when they are garbage collected.
+		 */
+		synchronized void close(){
+			if (tombstones != null){
+				try {
+					tombstones.close();
+				} catch (IOException e){
+					LOGGER.error("Error closing the tombstones of " + parentUri, e);
+				}
+				tombstones = null;
+			}
+		}
+
+		/**
+		 * Marks a record as deleted and writes its tombstone.
+		 * @param sequence sequence number of the record
+		 * @throws IOException if the tombstone cannot be written
+		 */
+		private void kill(long sequence) throws IOException {
+			Segment segment = getSegment(sequence);
+			if (segment != null){
+				segment.kill((int) (sequence - segment.base));
+				writeTombstone(sequence);
+			}
+		}
+
+		/**
+		 * Appends a tombstone.
+		 * @param sequence sequence number of the deleted record
+		 * @throws IOException if the tombstone cannot be written
+		 */
+		private void writeTombstone(long sequence) throws IOException {
+			if (tombstones == null){
+				tombstones = new FileOutputStream(new File(dir, TOMBSTONES_FILE), true);
+			}
+			tombstones.write(ByteBuffer.allocate(8).putLong(sequence).array());
+		}
+
+		/**
+		 * Deletes the segments whose records are all deleted, except the last one
+		 * which is still written.
+		 */
+		private void dropDeadSegments(){
+			for (int i = segments.size() - 2; i >= 0; i--){
+				Segment segment = segments.get(i);
+				if (segment.isDead()){
+					segments.remove(i);
+					if (!segment.file.delete()){
+						LOGGER.warn("Cannot delete " + segment.file);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the segment containing a sequence number.
+		 * @param sequence sequence number
+		 * @return the segment otherwise null
+		 */
+		private Segment getSegment(long sequence){
+			int low = 0;
+			int high = segments.size() - 1;
+			while (low <= high){
+				int middle = (low + high) >>> 1;
+				Segment segment = segments.get(middle);
+				if (sequence < segment.base){
+					high = middle - 1;
+				} else if (sequence >= segment.base + segment.count){
+					low = middle + 1;
+				} else {
+					return segment;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the file of a segment.
+		 * @param base sequence number of the first record of the segment
+		 * @return the segment file
+		 */
+		private File segmentFile(long base){
+			return new File(dir, String.format("%020d", base) + SEGMENT_EXTENSION);
+		}
+	}
+
+	/**
+	 * Memory-mapped segment file of records [length][contentInstance].
+	 */
+	private static final class Segment {
+
+		/** Segment file */
+		private final File file;
+
+		/** Sequence number of the first record */
+		private final long base;
+
+		/** Mapping of the whole file */
+		private final MappedByteBuffer buffer;
+
+		/** Offsets of the records */
+		private int[] offsets = new int[64];
+
+		/** Number of records */
+		private int count;
+
+		/** Deleted records */
+		private final BitSet dead = new BitSet();
+
+		/** Offset of the next record */
+		private int position;
+
+		private Segment(File file, long base, MappedByteBuffer buffer){
+			this.file = file;
+			this.base = base;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Creates a preallocated segment file.
+		 * @param file segment file
+		 * @param base sequence number of the first record
+		 * @param capacity size of the file
+		 * @return the segment
+		 * @throws IOException if the file cannot be created
+		 */
+		static Segment create(File file, long base, int capacity) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(capacity);
+				return new Segment(file, base, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+			} finally {
+				// The mapping remains valid once the channel is closed
+				raf.close();
+			}
+		}
+
+		/**
+		 * Opens an existing segment file and indexes its records.
+		 * @param file segment file
+		 * @param base sequence number of the first record
+		 * @return the segment
+		 * @throws IOException if the file cannot be read
+		 */
+		static Segment open(File file, long base) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			Segment segment;
+			try {
+				segment = new Segment(file, base, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+			} finally {
+				raf.close();
+			}
+			while (segment.position + 4 <= segment.buffer.capacity()){
+				int length = segment.buffer.getInt(segment.position);
+				if (length <= 0 || segment.position + 4 + length > segment.buffer.capacity()){
+					break;
+				}
+				segment.index(segment.position);
+				segment.position += 4 + length;
+			}
+			return segment;
+		}
+
+		/**
+		 * Checks if a record can be appended.
+		 * @param length length of the record
+		 * @return true if the record and the end marker fit in the segment
+		 */
+		boolean fits(int length){
+			return position + 4 + length + 4 <= buffer.capacity();
+		}
+
+		/**
+		 * Appends a record. The length is written after the data, so that an
+		 * interrupted write leaves the end marker.
+		 * @param record record to append
+		 */
+		void append(byte[] record){
+			ByteBuffer target = buffer.duplicate();
+			target.position(position + 4);
+			target.put(record);
+			buffer.putInt(position, record.length);
+			index(position);
+			position += 4 + record.length;
+		}
+
+		/**
+		 * Returns a view of a record, its bytes are not copied.
+		 * @param index index of the record in the segment
+		 * @return the record
+		 */
+		ByteBuffer read(int index){
+			int offset = offsets[index];
+			ByteBuffer record = buffer.duplicate();
+			record.limit(offset + 4 + buffer.getInt(offset));
+			record.position(offset + 4);
+			return record;
+		}
+
+		/**
+		 * Marks a record as deleted.
+		 * @param index index of the record in the segment
+		 */
+		void kill(int index){
+			dead.set(index);
+		}
+
+		/**
+		 * Checks if all the records are deleted.
+		 * @return true if no record is live
+		 */
+		boolean isDead(){
+			return dead.nextClearBit(0) >= count;
+		}
+
+		/**
+		 * Adds the offset of a record.
+		 * @param offset offset of the record
+		 */
+		private void index(int offset){
+			if (count == offsets.length){
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = offset;
+		}
+	}
+
+	/**
+	 * Encodes a contentInstance.
+	 * @param contentInstance contentInstance to encode
+	 * @return the record
+	 */
+	private static byte[] encode(ContentInstance contentInstance){
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(RECORD_VERSION);
+			writeString(out, contentInstance.getUri());
+			writeString(out, contentInstance.getId());
+			writeString(out, contentInstance.getHref());
+			writeString(out, contentInstance.getAccessRightID());
+			writeString(out, contentInstance.getCreationTime());
+			writeString(out, contentInstance.getLastModifiedTime());
+			writeString(out, contentInstance.getDelayTolerance());
+			out.writeBoolean(contentInstance.getContentSize() != null);
+			if (contentInstance.getContentSize() != null){
+				out.writeLong(contentInstance.getContentSize());
+			}
+			writeStrings(out, contentInstance.getContentTypes() == null ? null : contentInstance.getContentTypes().getContentType());
+			writeStrings(out, contentInstance.getSearchStrings() == null ? null : contentInstance.getSearchStrings().getSearchString());
+			Base64Binary content = contentInstance.getContent();
+			out.writeBoolean(content != null);
+			if (content != null){
+				writeString(out, content.getContentType());
+				out.writeInt(content.getValue() == null ? -1 : content.getValue().length);
+				if (content.getValue() != null){
+					out.write(content.getValue());
+				}
+			}
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Decodes a contentInstance.
+	 * @param record record to decode
+	 * @param metaDataOnly true to skip the content bytes
+	 * @return the contentInstance
+	 */
+	private static ContentInstance decode(ByteBuffer record, boolean metaDataOnly){
+		try {
+			byte version = record.get();
+			if (version != RECORD_VERSION){
+				throw new IOException("Unsupported record version " + version);
+			}
+			ContentInstance contentInstance = new ContentInstance();
+			contentInstance.setUri(readString(record));
+			contentInstance.setId(readString(record));
+			contentInstance.setHref(readString(record));
+			contentInstance.setAccessRightID(readString(record));
+			contentInstance.setCreationTime(readString(record));
+			contentInstance.setLastModifiedTime(readString(record));
+			contentInstance.setDelayTolerance(readString(record));
+			if (record.get() != 0){
+				contentInstance.setContentSize(record.getLong());
+			}
+			List<String> contentTypes = readStrings(record);
+			if (contentTypes != null){
+				contentInstance.setContentTypes(new ContentTypes());
+				contentInstance.getContentTypes().getContentType().addAll(contentTypes);
+			}
+			List<String> searchStrings = readStrings(record);
+			if (searchStrings != null){
+				contentInstance.setSearchStrings(new SearchStrings());
+				contentInstance.getSearchStrings().getSearchString().addAll(searchStrings);
+			}
+			Base64Binary content = null;
+			if (record.get() != 0){
+				content = new Base64Binary();
+				content.setContentType(readString(record));
+				int length = record.getInt();
+				if (length >= 0 && !metaDataOnly){
+					byte[] value = new byte[length];
+					record.get(value);
+					content.setValue(value);
+				}
+			}
+			contentInstance.setContent(content);
+			contentInstance.updateIndexedAttributes();
+			return contentInstance;
+		} catch (IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes a nullable string.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null){
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads a nullable string.
+	 */
+	private static String readString(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+		if (length < 0){
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	/**
+	 * Writes a nullable list of strings.
+	 */
+	private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+		out.writeInt(values == null ? -1 : values.size());
+		if (values != null){
+			for (String value : values){
+				writeString(out, value);
+			}
+		}
+	}
+
+	/**
+	 * Reads a nullable list of strings.
+	 */
+	private static List<String> readStrings(ByteBuffer in) throws IOException {
+		int size = in.getInt();
+		if (size < 0){
+			return null;
+		}
+		List<String> values = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++){
+			values.add(readString(in));
+		}
+		return values;
+	}
+
+}
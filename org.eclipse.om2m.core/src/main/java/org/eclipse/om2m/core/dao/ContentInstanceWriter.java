@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Group-commit writer of the created {@link ContentInstance} resources.
+ * Concurrent creations are queued and stored together with the update of their 
+ * {@link ContentInstances} counters in a single transaction, committed every 
+ * {@link Constants#CONTENT_INSTANCE_BATCH_DELAY} milliseconds or every 
+ * {@link Constants#CONTENT_INSTANCE_BATCH_SIZE} contentInstances. 
+ * Each caller is released once the transaction containing its contentInstance is committed.
+ * The collections are shared between {@link Constants#CONTENT_INSTANCE_WRITER_THREADS} committing
+ * threads, so the creations in unrelated collections are committed in parallel. 
+ * The counters of a collection are only updated under its {@link ResourceLocks} lock, so the
+ * concurrent commits and deletions of the same collection, or of its application or scl, stay accurate.
+ * It satisfies the singleton pattern.
+ */
+public class ContentInstanceWriter {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(ContentInstanceWriter.class);
+
+	/** Local instance of the object */
+	private static ContentInstanceWriter writer = new ContentInstanceWriter();
+
+	/** Marker queued to stop the committing thread */
+	private static final PendingContentInstance STOP = new PendingContentInstance(null);
+
+	/** Threads committing the queued contentInstances, null if the writer is stopped */
+	private Committer[] committers;
+
+	/**
+	 * Private constructor.
+	 */
+	private ContentInstanceWriter(){
+	}
+
+	/**
+	 * Gets the instance of the writer.
+	 * @return instance of ContentInstanceWriter
+	 */
+	public static ContentInstanceWriter getInstance(){
+		return writer;
+	}
+
+	/**
+	 * Starts the threads committing the queued contentInstances. 
+	 * Nothing is started if the batch size is lower than 2.
+	 */
+	public synchronized void start(){
+		if (committers == null && Constants.CONTENT_INSTANCE_BATCH_SIZE > 1){
+			committers = new Committer[Math.max(1, Constants.CONTENT_INSTANCE_WRITER_THREADS)];
+			for (int i = 0; i < committers.length; i++){
+				committers[i] = new Committer();
+				committers[i].thread = new Thread(committers[i], "ContentInstanceWriter-" + i);
+				committers[i].thread.setDaemon(true);
+				committers[i].thread.start();
+			}
+			LOGGER.info("ContentInstance writer started (threads: " + committers.length 
+					+ ", batch size: " + Constants.CONTENT_INSTANCE_BATCH_SIZE 
+					+ ", batch delay: " + Constants.CONTENT_INSTANCE_BATCH_DELAY + "ms)");
+		}
+	}
+
+	/**
+	 * Stops the committing threads once the queued contentInstances are committed.
+	 * The following creations are committed on their own.
+	 */
+	public void stop(){
+		Committer[] stopped;
+		synchronized (this) {
+			stopped = committers;
+			committers = null;
+			if (stopped != null){
+				for (Committer committer : stopped){
+					committer.queue.add(STOP);
+				}
+			}
+		}
+		if (stopped != null){
+			try {
+				for (Committer committer : stopped){
+					committer.thread.join();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Stores a new {@link ContentInstance} and increments the counters of its 
+	 * {@link ContentInstances} collection. If the writer is started, the contentInstance
+	 * is committed with the other pending creations, otherwise it is committed on its own.
+	 * @param contentInstance - The {@link ContentInstance} to store, with its uri set
+	 * @return The current number of instances of the collection after the creation, 
+	 * or null if the collection does not exist anymore
+	 * @throws PersistenceException if the transaction containing the contentInstance failed
+	 */
+	public Long write(ContentInstance contentInstance){
+		PendingContentInstance pending = new PendingContentInstance(contentInstance);
+		Committer[] current;
+		synchronized (this) {
+			current = committers;
+			if (current != null){
+				// The contentInstances of a collection are always committed by the same thread
+				int hash = pending.collectionUri.hashCode();
+				current[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % current.length].queue.add(pending);
+			}
+		}
+		if (current == null){
+			commit(Collections.singletonList(pending));
+		}
+		return pending.await();
+	}
+
+	/**
+	 * Deletes a {@link ContentInstance} and decrements the counters of its
+	 * {@link ContentInstances} collection in one transaction.
+	 * @param uri - uri of the {@link ContentInstance} to delete (latest and oldest are accepted)
+	 * @return true if the contentInstance was deleted, false if it does not exist
+	 */
+	public boolean delete(String uri){
+		List<Lock> acquired = ResourceLocks.getInstance().lock(uri.substring(0, uri.lastIndexOf('/')));
+		try {
+			DBEntityManager em = DBAccess.createEntityManager();
+			try {
+				em.getTransaction().begin();
+				ContentInstance contentInstance = DAOFactory.getContentInstanceDAO().find(uri, true, em);
+				if (contentInstance == null){
+					return false;
+				}
+				DAOFactory.getContentInstanceDAO().delete(contentInstance, em);
+				ContentInstances contentInstances = em.find(ContentInstances.class, contentInstance.getParentUri());
+				if (contentInstances != null){
+					decrement(contentInstances, 1, contentInstance.getContentSize());
+				}
+				em.getTransaction().commit();
+				return true;
+			} finally {
+				if (em.getTransaction().isActive()){
+					em.getTransaction().rollback();
+				}
+				em.close();
+			}
+		} finally {
+			ResourceLocks.getInstance().unlock(acquired);
+		}
+	}
+
+	/**
+	 * Decrements the counters of a collection after the deletion of contentInstances.
+	 * @param contentInstances - The managed collection
+	 * @param instances - The number of deleted contentInstances
+	 * @param bytes - The size of the deleted contentInstances
+	 */
+	static void decrement(ContentInstances contentInstances, long instances, Long bytes){
+		contentInstances.setCurrentNrOfInstances(Math.max(0, contentInstances.getCurrentNrOfInstances() - instances));
+		if (bytes != null){
+			contentInstances.setCurrentByteSize(Math.max(0, contentInstances.getCurrentByteSize() - bytes));
+		}
+	}
+
+	/**
+	 * Commits a batch. If its transaction fails, each contentInstance is retried 
+	 * in its own transaction so that only the faulty creations are rejected.
+	 * @param batch - The contentInstances to commit
+	 */
+	private void commitBatch(List<PendingContentInstance> batch){
+		try {
+			commit(batch);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Batch of " + batch.size() + " contentInstances failed, committing them one by one", e);
+			for (PendingContentInstance pending : batch){
+				try {
+					commit(Collections.singletonList(pending));
+				} catch (RuntimeException e1) {
+					pending.fail(e1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores the contentInstances and updates their collections in one transaction, 
+	 * then releases their callers.
+	 * @param batch - The contentInstances to commit
+	 */
+	private void commit(List<PendingContentInstance> batch){
+		Set<String> collectionUris = new LinkedHashSet<String>();
+		for (PendingContentInstance pending : batch){
+			collectionUris.add(pending.collectionUri);
+		}
+		List<Lock> acquired = ResourceLocks.getInstance().lock(collectionUris);
+		try {
+			store(batch);
+		} finally {
+			ResourceLocks.getInstance().unlock(acquired);
+		}
+		for (PendingContentInstance pending : batch){
+			pending.complete();
+		}
+	}
+
+	/**
+	 * Stores the contentInstances and updates their collections in one transaction.
+	 * @param batch - The contentInstances to store
+	 */
+	private void store(List<PendingContentInstance> batch){
+		Map<String, ContentInstances> collections = new HashMap<String, ContentInstances>();
+		DBEntityManager em = DBAccess.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			for (PendingContentInstance pending : batch){
+				ContentInstance contentInstance = pending.contentInstance;
+				String collectionUri = pending.collectionUri;
+				ContentInstances contentInstances = collections.get(collectionUri);
+				if (contentInstances == null){
+					contentInstances = em.find(ContentInstances.class, collectionUri);
+					if (contentInstances == null){
+						pending.currentNrOfInstances = null;
+						continue;
+					}
+					collections.put(collectionUri, contentInstances);
+				}
+				DAOFactory.getContentInstanceDAO().create(contentInstance, em);
+				// The managed collection is written once at commit
+				contentInstances.setCurrentNrOfInstances(contentInstances.getCurrentNrOfInstances() + 1);
+				contentInstances.setCurrentByteSize(contentInstances.getCurrentByteSize() + contentInstance.getContentSize());
+				pending.currentNrOfInstances = contentInstances.getCurrentNrOfInstances();
+			}
+			em.getTransaction().commit();
+		} finally {
+			if (em.getTransaction().isActive()){
+				em.getTransaction().rollback();
+			}
+			em.close();
+		}
+	}
+
+	/**
+	 * Thread committing the contentInstances of a share of the collections.
+	 */
+	private class Committer implements Runnable {
+		/** ContentInstances waiting to be committed */
+		private final BlockingQueue<PendingContentInstance> queue = new LinkedBlockingQueue<PendingContentInstance>();
+		/** Committing thread */
+		private Thread thread;
+
+		/**
+		 * Commits the queued contentInstances by batches until the writer is stopped.
+		 */
+		@Override
+		public void run(){
+			List<PendingContentInstance> batch = new ArrayList<PendingContentInstance>();
+			boolean stopping = false;
+			while (!stopping){
+				try {
+					PendingContentInstance first = queue.take();
+					if (first == STOP){
+						break;
+					}
+					batch.add(first);
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.CONTENT_INSTANCE_BATCH_DELAY);
+					while (batch.size() < Constants.CONTENT_INSTANCE_BATCH_SIZE){
+						PendingContentInstance pending = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+						if (pending == null){
+							break;
+						}
+						if (pending == STOP){
+							stopping = true;
+							break;
+						}
+						batch.add(pending);
+					}
+				} catch (InterruptedException e) {
+					LOGGER.warn("ContentInstance writer interrupted, committing the current batch");
+				}
+				if (!batch.isEmpty()){
+					commitBatch(batch);
+					batch.clear();
+				}
+			}
+			LOGGER.info(thread.getName() + " stopped");
+		}
+	}
+
+	/**
+	 * ContentInstance waiting for the commit of its batch.
+	 */
+	private static class PendingContentInstance {
+		/** ContentInstance to store */
+		private final ContentInstance contentInstance;
+		/** Uri of the collection of the contentInstance */
+		private final String collectionUri;
+		/** Released when the batch is committed or failed */
+		private final CountDownLatch done = new CountDownLatch(1);
+		/** Number of instances of the collection after the creation */
+		private Long currentNrOfInstances;
+		/** Failure of the transaction */
+		private RuntimeException error;
+
+		private PendingContentInstance(ContentInstance contentInstance){
+			this.contentInstance = contentInstance;
+			this.collectionUri = contentInstance == null ? null 
+					: contentInstance.getUri().substring(0, contentInstance.getUri().lastIndexOf('/'));
+		}
+
+		private void complete(){
+			done.countDown();
+		}
+
+		private void fail(RuntimeException error){
+			this.error = error;
+			done.countDown();
+		}
+
+		/**
+		 * Waits for the commit of the batch.
+		 * @return The current number of instances of the collection, null if the collection does not exist
+		 */
+		private Long await(){
+			boolean interrupted = false;
+			while (done.getCount() > 0){
+				try {
+					done.await();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted){
+				Thread.currentThread().interrupt();
+			}
+			if (error != null){
+				throw error;
+			}
+			return currentNrOfInstances;
+		}
+	}
+}
@@ -21,11 +21,11 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstanceFilterCriteriaType;
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.Subscriptions;
@@ -46,16 +46,26 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
      * @param uri - uri of the {@link ContentInstances} collection resource
      * @return The requested {@link ContentInstances} collection resource otherwise null
      */
-    public ContentInstances find(String uri, EntityManager em){
+    public ContentInstances find(String uri, DBEntityManager em){
+        return find(uri, false, em);
+    }
+
+    /**
+     * Retrieves the {@link ContentInstances} collection resource based on its uri with sub-resources references
+     * @param uri - uri of the {@link ContentInstances} collection resource
+     * @param metaDataOnly - true to retrieve the contentInstances without reading their payloads
+     * @return The requested {@link ContentInstances} collection resource otherwise null
+     */
+    public ContentInstances find(String uri, boolean metaDataOnly, DBEntityManager em){
     	ContentInstances contentInstances = em.find(ContentInstances.class, uri) ; 
         
     	if(contentInstances != null){
         	contentInstances.getContentInstanceCollection().getContentInstance().clear();
 
-        	String q = DBUtil.generateLikeRequestOrderByCreationTime(DBEntities.CONTENT_INSTANCE_ENTITY, uri);
-        	javax.persistence.Query query = em.createQuery(q);
-        	@SuppressWarnings("unchecked")
-			List<ContentInstance> result = query.getResultList();
+        	List<ContentInstance> result = DBUtil.findByParentOrderByCreationTime(em, DBEntities.CONTENT_INSTANCE_ENTITY, uri);
+        	if (!metaDataOnly){
+        		DAOFactory.getContentInstanceDAO().loadPayloads(uri, result, em);
+        	}
         	
         	for (ContentInstance contentInstance : result){
         		contentInstances.getContentInstanceCollection().getContentInstance().add(contentInstance);
@@ -65,24 +75,48 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
         
     }
 
+    /**
+     * Retrieves the {@link ContentInstances} collection resource based on its uri with a page
+     * of the sub-resources matching a filter criteria, the time and size criteria and the page
+     * are evaluated by the storage.
+     * @param uri - uri of the {@link ContentInstances} collection resource
+     * @param filterCriteria - filter criteria of the contentInstances, its metaDataOnly flag skips the payloads
+     * @param offset - number of matching contentInstances to skip
+     * @param limit - maximum number of contentInstances to retrieve, no limit if lower than 1
+     * @return The requested {@link ContentInstances} collection resource otherwise null
+     */
+    public ContentInstances find(String uri, ContentInstanceFilterCriteriaType filterCriteria, int offset, int limit, DBEntityManager em){
+        ContentInstances contentInstances = em.find(ContentInstances.class, uri) ;
+
+        if(contentInstances != null){
+            contentInstances.getContentInstanceCollection().getContentInstance().clear();
+
+            List<ContentInstance> result = DBUtil.findByParentOrderByCreationTime(em, DBEntities.CONTENT_INSTANCE_ENTITY, uri,
+                    new ContentInstanceFilter(filterCriteria), offset, limit);
+            if (!Boolean.TRUE.equals(filterCriteria.isMetaDataOnly())){
+                DAOFactory.getContentInstanceDAO().loadPayloads(result, em);
+            }
+            contentInstances.getContentInstanceCollection().getContentInstance().addAll(result);
+        }
+        return contentInstances;
+    }
+
     /**
      * Deletes the {@link ContentInstances} collection resource from the DataBase without validating the transaction
      * @Param the {@link ContentInstances} collection resource to delete
      */
-    public void delete(ContentInstances resource, EntityManager em){
+    public void delete(ContentInstances resource, DBEntityManager em){
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
         // Delete contentInstance sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.CONTENT_INSTANCE_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<ContentInstance> result = query.getResultList();
-
+    	List<ContentInstance> result = DBUtil.findByParent(em, DBEntities.CONTENT_INSTANCE_ENTITY, resource.getUri());
+    	List<String> uris = new ArrayList<String>(result.size());
         for (ContentInstance contentInstance : result) {
-            DAOFactory.getContentInstanceDAO().delete(contentInstance, em);
+            uris.add(contentInstance.getUri());
         }
+        DAOFactory.getContentInstanceDAO().delete(uris, em);
 
         // Delete the resource
         em.remove(resource);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -52,9 +50,9 @@ public abstract class DAO<T> {
 	 * @param resource
 	 *            - The resource to create
 	 * @param em
-	 *            - EntityManager used for the transaction
+	 *            - DBEntityManager used for the transaction
 	 */
-	public void create(T resource, EntityManager em){
+	public void create(T resource, DBEntityManager em){
 		// for more complex operations, override this method
 		em.persist(resource);
 	}
@@ -66,10 +64,10 @@ public abstract class DAO<T> {
 	 * @param uri
 	 *            - The uri of the resource to find
 	 * @param em
-	 *            - EntityManager used for the transaction
+	 *            - DBEntityManager used for the transaction
 	 * @return The resource if it is found otherwise null
 	 */
-	public abstract T find(String uri, EntityManager em);
+	public abstract T find(String uri, DBEntityManager em);
 
 	/**
 	 * Generic update method: Update the resource in database.
@@ -77,9 +75,9 @@ public abstract class DAO<T> {
 	 * @param resource
 	 *            - The updated resource.
 	 * @param em
-	 *            - EntityManager used for the transaction
+	 *            - DBEntityManager used for the transaction
 	 */
-	public void update(T resource, EntityManager em) {
+	public void update(T resource, DBEntityManager em) {
 		// for more complex operations, override this method
 		em.flush();
 	}
@@ -94,5 +92,5 @@ public abstract class DAO<T> {
 	 *            - The entity manager to use
 	 * 
 	 */
-	public abstract void delete(T resource, EntityManager em);
+	public abstract void delete(T resource, DBEntityManager em);
 }
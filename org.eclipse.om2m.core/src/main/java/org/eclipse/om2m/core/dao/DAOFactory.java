@@ -48,7 +48,6 @@ import org.eclipse.om2m.commons.resource.NotificationChannel;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.resource.Parameters;
 import org.eclipse.om2m.commons.resource.Resource;
-import org.eclipse.om2m.commons.resource.Resources;
 import org.eclipse.om2m.commons.resource.Scl;
 import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.Scls;
@@ -70,6 +69,80 @@ import org.eclipse.om2m.commons.resource.Subscriptions;
 
 
 public class DAOFactory {
+
+	// The DAOs are stateless, one instance of each is shared
+	/** Instance of the {@link SclBaseDAO} */
+	private static final SclBaseDAO SCL_BASE_DAO = new SclBaseDAO();
+	/** Instance of the {@link SclsDAO} */
+	private static final SclsDAO SCLS_DAO = new SclsDAO();
+	/** Instance of the {@link SclDAO} */
+	private static final SclDAO SCL_DAO = new SclDAO();
+	/** Instance of the {@link ApplicationDAO} */
+	private static final ApplicationDAO APPLICATION_DAO = new ApplicationDAO();
+	/** Instance of the {@link ApplicationsDAO} */
+	private static final ApplicationsDAO APPLICATIONS_DAO = new ApplicationsDAO();
+	/** Instance of the {@link SubscriptionsDAO} */
+	private static final SubscriptionsDAO SUBSCRIPTIONS_DAO = new SubscriptionsDAO();
+	/** Instance of the {@link AccessRightsDAO} */
+	private static final AccessRightsDAO ACCESS_RIGHTS_DAO = new AccessRightsDAO();
+	/** Instance of the {@link GroupsDAO} */
+	private static final GroupsDAO GROUPS_DAO = new GroupsDAO();
+	/** Instance of the {@link ContainersDAO} */
+	private static final ContainersDAO CONTAINERS_DAO = new ContainersDAO();
+	/** Instance of the {@link MgmtObjsDAO} */
+	private static final MgmtObjsDAO MGMT_OBJS_DAO = new MgmtObjsDAO();
+	/** Instance of the {@link NotificationChannelsDAO} */
+	private static final NotificationChannelsDAO NOTIFICATION_CHANNELS_DAO = new NotificationChannelsDAO();
+	/** Instance of the {@link ContentInstancesDAO} */
+	private static final ContentInstancesDAO CONTENT_INSTANCES_DAO = new ContentInstancesDAO();
+	/** Instance of the {@link ContentInstanceDAO} */
+	private static final ContentInstanceDAO CONTENT_INSTANCE_DAO = new ContentInstanceDAO();
+	/** Instance of the {@link ContentInstanceSegmentDAO} */
+	private static final ContentInstanceSegmentDAO CONTENT_INSTANCE_SEGMENT_DAO = new ContentInstanceSegmentDAO();
+	/** Instance of the {@link AttachedDevicesDAO} */
+	private static final AttachedDevicesDAO ATTACHED_DEVICES_DAO = new AttachedDevicesDAO();
+	/** Instance of the {@link AccessRightDAO} */
+	private static final AccessRightDAO ACCESS_RIGHT_DAO = new AccessRightDAO();
+	/** Instance of the {@link SubscriptionDAO} */
+	private static final SubscriptionDAO SUBSCRIPTION_DAO = new SubscriptionDAO();
+	/** Instance of the {@link GroupDAO} */
+	private static final GroupDAO GROUP_DAO = new GroupDAO();
+	/** Instance of the {@link AttachedDeviceDAO} */
+	private static final AttachedDeviceDAO ATTACHED_DEVICE_DAO = new AttachedDeviceDAO();
+	/** Instance of the {@link ApplicationAnncDAO} */
+	private static final ApplicationAnncDAO APPLICATION_ANNC_DAO = new ApplicationAnncDAO();
+	/** Instance of the {@link ContainerDAO} */
+	private static final ContainerDAO CONTAINER_DAO = new ContainerDAO();
+	/** Instance of the {@link AccessRightAnncDAO} */
+	private static final AccessRightAnncDAO ACCESS_RIGHT_ANNC_DAO = new AccessRightAnncDAO();
+	/** Instance of the {@link LocationContainerAnncDAO} */
+	private static final LocationContainerAnncDAO LOCATION_CONTAINER_ANNC_DAO = new LocationContainerAnncDAO();
+	/** Instance of the {@link LocationContainerDAO} */
+	private static final LocationContainerDAO LOCATION_CONTAINER_DAO = new LocationContainerDAO();
+	/** Instance of the {@link MgmtObjDAO} */
+	private static final MgmtObjDAO MGMT_OBJ_DAO = new MgmtObjDAO();
+	/** Instance of the {@link MgmtCmdDAO} */
+	private static final MgmtCmdDAO MGMT_CMD_DAO = new MgmtCmdDAO();
+	/** Instance of the {@link ExecInstancesDAO} */
+	private static final ExecInstancesDAO EXEC_INSTANCES_DAO = new ExecInstancesDAO();
+	/** Instance of the {@link ExecInstanceDAO} */
+	private static final ExecInstanceDAO EXEC_INSTANCE_DAO = new ExecInstanceDAO();
+	/** Instance of the {@link NotificationChannelDAO} */
+	private static final NotificationChannelDAO NOTIFICATION_CHANNEL_DAO = new NotificationChannelDAO();
+	/** Instance of the {@link M2MPocsDAO} */
+	private static final M2MPocsDAO M2_M_POCS_DAO = new M2MPocsDAO();
+	/** Instance of the {@link M2MPocDAO} */
+	private static final M2MPocDAO M2_M_POC_DAO = new M2MPocDAO();
+	/** Instance of the {@link ContainerAnncDAO} */
+	private static final ContainerAnncDAO CONTAINER_ANNC_DAO = new ContainerAnncDAO();
+	/** Instance of the {@link GroupAnncDAO} */
+	private static final GroupAnncDAO GROUP_ANNC_DAO = new GroupAnncDAO();
+	/** Instance of the {@link ParametersDAO} */
+	private static final ParametersDAO PARAMETERS_DAO = new ParametersDAO();
+	/** Instance of the {@link ResourcesDAO} */
+	private static final ResourcesDAO RESOURCES_DAO = new ResourcesDAO();
+	/** Instance of the {@link ResourceDAO} */
+	private static final ResourceDAO RESOURCE_DAO = new ResourceDAO();
 	
 	private DAOFactory(){
 		//UTILITY CLASS
@@ -80,7 +153,7 @@ public class DAOFactory {
      * @return {@link SclBaseDAO} instance
      */
     public static DAO<SclBase> getSclBaseDAO(){
-        return new SclBaseDAO();
+        return SCL_BASE_DAO;
     }
 
     /**
@@ -88,7 +161,7 @@ public class DAOFactory {
      * @return {@link SclsDAO} instance
      */
     public static DAO<Scls> getSclsDAO(){
-        return new SclsDAO();
+        return SCLS_DAO;
     }
 
     /**
@@ -96,7 +169,7 @@ public class DAOFactory {
      * @return {@link SclDAO} instance
      */
     public static DAO<Scl> getSclDAO(){
-        return new SclDAO();
+        return SCL_DAO;
     }
 
     /**
@@ -104,7 +177,7 @@ public class DAOFactory {
      * @return {@link ApplicationDAO} instance
      */
     public static DAO<Application> getApplicationDAO(){
-        return new ApplicationDAO();
+        return APPLICATION_DAO;
     }
 
     /**
@@ -112,7 +185,7 @@ public class DAOFactory {
      * @return {@link ApplicationsDAO} instance
      */
     public static DAO<Applications> getApplicationsDAO(){
-        return new ApplicationsDAO();
+        return APPLICATIONS_DAO;
     }
 
     /**
@@ -120,7 +193,7 @@ public class DAOFactory {
      * @return {@link SubscriptionsDAO} instance
      */
     public static DAO<Subscriptions> getSubscriptionsDAO() {
-        return new SubscriptionsDAO();
+        return SUBSCRIPTIONS_DAO;
     }
 
     /**
@@ -128,7 +201,7 @@ public class DAOFactory {
      * @return {@link AccessRightsDAO} instance
      */
     public static DAO<AccessRights> getAccessRightsDAO() {
-        return new AccessRightsDAO();
+        return ACCESS_RIGHTS_DAO;
     }
 
     /**
@@ -136,7 +209,7 @@ public class DAOFactory {
      * @return {@link GroupsDAO} instance
      */
     public static DAO<Groups> getGroupsDAO() {
-        return new GroupsDAO();
+        return GROUPS_DAO;
     }
 
     /**
@@ -144,7 +217,7 @@ public class DAOFactory {
      * @return {@link ContainersDAO} instance
      */
     public static DAO<Containers> getContainersDAO() {
-        return new ContainersDAO();
+        return CONTAINERS_DAO;
     }
 
     /**
@@ -152,7 +225,7 @@ public class DAOFactory {
      * @return {@link MgmtObjsDAO} instance
      */
     public static DAO<MgmtObjs> getMgmtObjsDAO() {
-        return new MgmtObjsDAO();
+        return MGMT_OBJS_DAO;
     }
 
     /**
@@ -160,23 +233,27 @@ public class DAOFactory {
      * @return {@link NotificationChannelsDAO} instance
      */
     public static DAO<NotificationChannels> getNotificationChannelsDAO() {
-        return new NotificationChannelsDAO();
+        return NOTIFICATION_CHANNELS_DAO;
     }
 
     /**
      * Returns an instance of the {@link ContentInstancesDAO}
      * @return {@link ContentInstancesDAO} instance
      */
-    public static DAO<ContentInstances> getContentInstancesDAO() {
-        return new ContentInstancesDAO();
+    public static ContentInstancesDAO getContentInstancesDAO() {
+        return CONTENT_INSTANCES_DAO;
     }
 
     /**
-     * Returns an instance of the {@link ContentInstanceDAO}
+     * Returns an instance of the {@link ContentInstanceDAO}, or of the {@link ContentInstanceSegmentDAO}
+     * if the {@link ContentInstanceStore} is enabled
      * @return {@link ContentInstanceDAO} instance
      */
-    public static DAO<ContentInstance> getContentInstanceDAO() {
-        return new ContentInstanceDAO();
+    public static ContentInstanceDAO getContentInstanceDAO() {
+        if (ContentInstanceStore.isEnabled()) {
+            return CONTENT_INSTANCE_SEGMENT_DAO;
+        }
+        return CONTENT_INSTANCE_DAO;
     }
 
     /**
@@ -184,7 +261,7 @@ public class DAOFactory {
      * @return {@link AttachedDevicesDAO} instance
      */
     public static DAO<AttachedDevices> getAttachedDevicesDAO() {
-        return new AttachedDevicesDAO();
+        return ATTACHED_DEVICES_DAO;
     }
 
     /**
@@ -192,7 +269,7 @@ public class DAOFactory {
      * @return {@link AccessRightDAO} instance
      */
     public static DAO<AccessRight> getAccessRightDAO() {
-        return new AccessRightDAO();
+        return ACCESS_RIGHT_DAO;
     }
 
     /**
@@ -200,7 +277,7 @@ public class DAOFactory {
      * @return {@link SubscriptionDAO} instance
      */
     public static DAO<Subscription> getSubscriptionDAO() {
-        return new SubscriptionDAO();
+        return SUBSCRIPTION_DAO;
     }
 
     /**
@@ -208,7 +285,7 @@ public class DAOFactory {
      * @return {@link GroupDAO} instance
      */
     public static DAO<Group> getGroupDAO() {
-        return new GroupDAO();
+        return GROUP_DAO;
     }
 
     /**
@@ -216,7 +293,7 @@ public class DAOFactory {
      * @return {@link AttachedDeviceDAO} instance
      */
     public static DAO<AttachedDevice> getAttachedDeviceDAO() {
-        return new AttachedDeviceDAO();
+        return ATTACHED_DEVICE_DAO;
     }
 
     /**
@@ -224,7 +301,7 @@ public class DAOFactory {
      * @return {@link ApplicationAnncDAO} instance
      */
     public static DAO<ApplicationAnnc> getApplicationAnncDAO() {
-        return new ApplicationAnncDAO();
+        return APPLICATION_ANNC_DAO;
     }
 
     /**
@@ -232,7 +309,7 @@ public class DAOFactory {
      * @return {@link ContainerDAO} instance
      */
     public static DAO<Container> getContainerDAO() {
-        return new ContainerDAO();
+        return CONTAINER_DAO;
     }
 
     /**
@@ -240,7 +317,7 @@ public class DAOFactory {
      * @return {@link AccessRightAnncDAO} instance
      */
     public static DAO<AccessRightAnnc> getAccessRightAnncDAO(){
-        return new AccessRightAnncDAO();
+        return ACCESS_RIGHT_ANNC_DAO;
     }
 
     /**
@@ -248,7 +325,7 @@ public class DAOFactory {
      * @return {@link LocationContainerAnncDAO} instance
      */
     public static DAO<LocationContainerAnnc> getLocationContainerAnncDAO(){
-        return new LocationContainerAnncDAO();
+        return LOCATION_CONTAINER_ANNC_DAO;
     }
 
     /**
@@ -256,7 +333,7 @@ public class DAOFactory {
      * @return {@link LocationContainerDAO} instance
      */
     public static DAO<LocationContainer> getLocationContainerDAO(){
-        return new LocationContainerDAO();
+        return LOCATION_CONTAINER_DAO;
     }
 
     /**
@@ -264,7 +341,7 @@ public class DAOFactory {
      * @return {@link MgmtObjDAO} instance
      */
     public static DAO<MgmtObj> getMgmtObjDAO(){
-        return new MgmtObjDAO();
+        return MGMT_OBJ_DAO;
     }
 
     /**
@@ -272,7 +349,7 @@ public class DAOFactory {
      * @return {@link MgmtCmdDAO} instance
      */
     public static DAO<MgmtCmd> getMgmtCmdDAO(){
-        return new MgmtCmdDAO();
+        return MGMT_CMD_DAO;
     }
 
     /**
@@ -280,7 +357,7 @@ public class DAOFactory {
      * @return {@link ExecInstancesDAO} instance
      */
     public static DAO<ExecInstances> getExecInstancesDAO() {
-        return new ExecInstancesDAO();
+        return EXEC_INSTANCES_DAO;
     }
 
     /**
@@ -288,7 +365,7 @@ public class DAOFactory {
      * @return {@link ExecInstanceDAO} instance
      */
     public static DAO<ExecInstance> getExecInstanceDAO() {
-        return new ExecInstanceDAO();
+        return EXEC_INSTANCE_DAO;
     }
 
     /**
@@ -296,7 +373,7 @@ public class DAOFactory {
      * @return {@link NotificationChannelDAO} instance
      */
     public static DAO<NotificationChannel> getNotificationChannelDAO() {
-        return new NotificationChannelDAO();
+        return NOTIFICATION_CHANNEL_DAO;
     }
 
     /**
@@ -304,7 +381,7 @@ public class DAOFactory {
      * @return {@link M2MPocsDAO} instance
      */
     public static DAO<M2MPocs> getM2MPocsDAO(){
-        return new M2MPocsDAO();
+        return M2_M_POCS_DAO;
     }
 
     /**
@@ -312,7 +389,7 @@ public class DAOFactory {
      * @return {@link M2MPocDAO} instance
      */
     public static DAO<M2MPoc> getM2MPocDAO(){
-        return new M2MPocDAO();
+        return M2_M_POC_DAO;
     }
 
     /**
@@ -320,7 +397,7 @@ public class DAOFactory {
      * @return {@link ContainerAnncDAO} instance
      */
     public static DAO<ContainerAnnc> getContainerAnncDAO(){
-        return new ContainerAnncDAO();
+        return CONTAINER_ANNC_DAO;
     }
 
     /**
@@ -328,7 +405,7 @@ public class DAOFactory {
      * @return {@link GroupAnncDAO} instance
      */
     public static DAO<GroupAnnc> getGroupAnncDAO(){
-        return new GroupAnncDAO();
+        return GROUP_ANNC_DAO;
     }
 
     /**
@@ -336,15 +413,15 @@ public class DAOFactory {
      * @return {@link ParametersDAO} instance
      */
     public static DAO<Parameters> getParametersDAO(){
-        return new ParametersDAO();
+        return PARAMETERS_DAO;
     }
 
     /**
      * Returns an instance of the ResourcesDAO
      * @return {@link ResourcesDAO} instance
      */
-    public static DAO<Resources> getResourcesDAO(){
-        return new ResourcesDAO();
+    public static ResourcesDAO getResourcesDAO(){
+        return RESOURCES_DAO;
     }
 
     /**
@@ -352,6 +429,6 @@ public class DAOFactory {
      * @return {@link ResourceDAO} instance
      */
     public static DAO<Resource> getResourceDAO(){
-        return new ResourceDAO();
+        return RESOURCE_DAO;
     }
 }
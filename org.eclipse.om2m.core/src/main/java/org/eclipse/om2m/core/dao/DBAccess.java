@@ -20,19 +20,17 @@
 
 package org.eclipse.om2m.core.dao;
 
-import java.util.HashMap;
 import java.util.Map;
 
-import javax.persistence.EntityManager;
-import javax.persistence.EntityManagerFactory;
-import javax.persistence.Persistence;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.core.constants.Constants;
-import org.eclipse.persistence.config.PersistenceUnitProperties;
+
 /**
- * Class handling the connection to the database using JPA - EclipseLink. 
+ * Class handling the connection to the storage engine of the resources. 
+ * The engine is selected by {@link Constants#DB_ENGINE}: "jpa" (default) for a 
+ * database using JPA - EclipseLink, "memory" for the {@link MemoryStorageEngine}.
+ * The contentInstances are stored in the {@link ContentInstanceStore} when it is enabled.
  * It satisfies the singleton pattern. 
  * @author <ul>
  *         <li>Francois Aissaoui < aissaoui@laas.fr > </li>
@@ -47,8 +45,8 @@ public class DBAccess {
 	/** Local instance of the object */
 	private static DBAccess dbAccess = new DBAccess();
 	
-	/** EntityManagerFactory connected to the DB */
-	private EntityManagerFactory emf ; 
+	/** Storage engine of the resources */
+	private StorageEngine engine ; 
 	
 	/**
 	 * Private Main constructor initializing the database.
@@ -67,50 +65,69 @@ public class DBAccess {
 	}
 	
 	/**
-	 * Returns an EntityManager to access the database.
+	 * Returns a DBEntityManager to access the database. In a request, it is a handle on 
+	 * the entity manager of the request {@link UnitOfWork}.
 	 * @return Entity Manager 
 	 */
-	public static EntityManager createEntityManager(){
-		return getInstance().emf.createEntityManager();
+	public static DBEntityManager createEntityManager(){
+		DBEntityManager em = UnitOfWork.createEntityManager();
+		return em != null ? em : getInstance().engine.createEntityManager();
+	}
+
+	/**
+	 * Returns the storage engine used by the DAOs.
+	 * @return storage engine
+	 */
+	public static StorageEngine getStorageEngine(){
+		return getInstance().engine;
 	}
 
 	/**
 	 * Closes the connection to the database.
 	 */
 	public void close() {
-		if (emf != null){
-			emf.close();
+		if (engine != null){
+			LOGGER.info("Storage engine statistics: " + getStatistics());
+			LOGGER.info("Resource tree statistics: " + ResourceTree.getInstance().getStatistics());
+			LOGGER.info("SearchString index statistics: " + SearchStringIndex.getInstance().getStatistics());
+			LOGGER.info("Access decision cache statistics: " + AccessDecisionCache.getInstance().getStatistics());
+			engine.close();
+		}
+		if (ContentInstanceStore.isEnabled()){
+			LOGGER.info("ContentInstance store statistics: " + ContentInstanceStore.getInstance().getStatistics());
+			ContentInstanceStore.getInstance().close();
 		}
 	}
 	
 	public void init(){
 		LOGGER.info("Intializing DataBase...");
-		try{			
-			Map<Object,Object> properties = new HashMap<Object, Object>() ; 
-			properties.put(PersistenceUnitProperties.JDBC_DRIVER, Constants.DB_DRIVER);
-			properties.put(PersistenceUnitProperties.JDBC_URL, Constants.DB_URL);
-			properties.put(PersistenceUnitProperties.JDBC_USER, Constants.DB_USER);
-			properties.put(PersistenceUnitProperties.JDBC_PASSWORD, Constants.DB_PASSWORD);
-			
-			if (Constants.DB_RESET){
-				properties.put(PersistenceUnitProperties.DDL_GENERATION, PersistenceUnitProperties.DROP_AND_CREATE);
-			} else {
-				properties.put(PersistenceUnitProperties.DDL_GENERATION, PersistenceUnitProperties.CREATE_OR_EXTEND);
+		if ("memory".equalsIgnoreCase(Constants.DB_ENGINE)){
+			engine = new MemoryStorageEngine();
+		} else {
+			if (!"jpa".equalsIgnoreCase(Constants.DB_ENGINE)){
+				LOGGER.warn("Unknown storage engine " + Constants.DB_ENGINE + ", using jpa");
 			}
-			
-			LOGGER.info("Creating new EntityManagerFactory...");
-			emf = Persistence.createEntityManagerFactory("om2mdb", properties);
-		} catch (Exception e){
-			LOGGER.error("Error in creation of EntityManagerFactory",e);
+			engine = new JpaStorageEngine();
 		}
-		if (emf != null){
-			LOGGER.info("DataBase initialized.");
-			EntityManager em = emf.createEntityManager();
-			em.getTransaction().begin();
-			em.close();
-		} else {
-			LOGGER.error("ERROR initializing Database: EntityManagerFactory is null!");
+		LOGGER.info("Storage engine: " + engine.getClass().getSimpleName());
+		engine = new MeteredStorageEngine(engine);
+		engine.init();
+		ResourceTree.getInstance().load(engine);
+		AccessDecisionCache.getInstance().clear();
+		if (ContentInstanceStore.isEnabled()){
+			ContentInstanceStore.getInstance().init();
 		}
+		SearchStringIndex.getInstance().load(engine);
+		LOGGER.info("DataBase initialized.");
 	}
 	
-}
+	/**
+	 * Returns the statistics of the storage engine (the JDBC connection pools and the 
+	 * shared cache for jpa, the number of stored resources for memory).
+	 * @return statistics of the engine, empty if the database is not initialized
+	 */
+	public Map<String, Integer> getStatistics(){
+		return engine.getStatistics();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+
+/**
+ * Unit of work on the storage, created by the {@link StorageEngine} and used by the DAOs
+ * and the controllers.
+ * <p>
+ * It holds the operations of a persistence context on the resources identified by their 
+ * uri: the resources it hands out are managed, and the persisted, removed and modified 
+ * resources are written in the storage when the transaction is committed. The queries
+ * are made with the {@link StorageEngine} methods, which use the entity manager of the
+ * engine found with {@link #unwrap(Class)}.
+ */
+public interface DBEntityManager {
+
+	/**
+	 * Retrieves a resource by its uri.
+	 * @param entityClass class of the resource
+	 * @param primaryKey uri of the resource
+	 * @return the managed resource, null if it does not exist or is not of the class
+	 */
+	<T> T find(Class<T> entityClass, Object primaryKey);
+
+	/**
+	 * Makes a new resource managed, it is stored when the transaction is committed.
+	 * @param entity resource to store
+	 */
+	void persist(Object entity);
+
+	/**
+	 * Removes a managed resource, it is deleted when the transaction is committed.
+	 * @param entity resource to delete
+	 */
+	void remove(Object entity);
+
+	/**
+	 * Writes the pending changes in the storage without committing them.
+	 */
+	void flush();
+
+	/**
+	 * Detaches all the managed resources, their uncommitted changes are discarded.
+	 */
+	void clear();
+
+	/**
+	 * Returns the transaction of the entity manager.
+	 * @return transaction
+	 */
+	EntityTransaction getTransaction();
+
+	/**
+	 * Checks whether the entity manager is open.
+	 * @return false once it is closed
+	 */
+	boolean isOpen();
+
+	/**
+	 * Closes the entity manager, its uncommitted changes are discarded.
+	 */
+	void close();
+
+	/**
+	 * Returns an object of the specified class behind this entity manager, such as
+	 * the JPA entity manager of the jpa engine.
+	 * @param cls class of the object
+	 * @return the object
+	 * @throws PersistenceException if the entity manager has no object of this class
+	 */
+	<T> T unwrap(Class<T> cls);
+
+}
@@ -22,8 +22,14 @@
 
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+
 /**
  * Provides some utility methods for database management.
+ * The queries are executed by the {@link StorageEngine} selected in {@link DBAccess}.
  * @author <ul>
  *         <li>Francois Aissaoui < aissaoui@laas.fr > </li>
  *         <li>Guillaume Garzone < garzone@laas.fr > </li>       
@@ -35,35 +41,222 @@ public class DBUtil {
 		//UTILITY CLASS
 	}
 
-	/** Initial request with parameters to replace */
-	private static final String LIKE_REQUEST_BASE = "SELECT o FROM :tableName o WHERE o.uri LIKE :uriToLoad";
-	
 	/**
-	 * The method generates a String request for JPA to retrieve objects from a specified 
-	 * table and starting with the specified URI.
+	 * Retrieves the direct children of the specified URI
+	 * from a specified table. It is an equality lookup on the indexed parentUri column.
+	 * @param em DBEntityManager used for the transaction
 	 * @param tableName table to select
-	 * @param uriToLoad starting uri
-	 * @return
+	 * @param parentUri uri of the parent (collection) resource
+	 * @return the children
 	 */
-	protected static String generateLikeRequest(String tableName, String uriToLoad){
-		String request = LIKE_REQUEST_BASE;
-		request = request.replace(":tableName", tableName);
-		request = request.replace(":uriToLoad", "'" + uriToLoad + "%'");
-		return request ; 
+	protected static <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri){
+		if (isSegmentStored(tableName)){
+			return cast(ContentInstanceStore.getInstance().findAll(parentUri));
+		}
+		return DBAccess.getStorageEngine().findByParent(em, tableName, parentUri);
 	}
-	
+
+	/**
+	 * Retrieves the direct children of the specified URI
+	 * from a specified table, restricted to one resource type.
+	 * Useful for polymorphic entities (a container table query also returns locationContainers).
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param resourceType simple class name of the resources to retrieve
+	 * @return the children
+	 */
+	protected static <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		return DBAccess.getStorageEngine().findByParent(em, tableName, parentUri, resourceType);
+	}
+
+	/**
+	 * Retrieves the references (id and uri) of the direct children of the specified URI
+	 * from a specified table. Only the two columns are read, the child entities are
+	 * neither materialized nor cached.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#REFERENCED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @return the references of the children
+	 */
+	protected static List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri){
+		return DBAccess.getStorageEngine().findReferences(em, tableName, parentUri);
+	}
+
+	/**
+	 * Retrieves the references (id and uri) of the direct children of the specified URI
+	 * from a specified table, restricted to one resource type.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#REFERENCED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param resourceType simple class name of the resources to retrieve
+	 * @return the references of the children
+	 */
+	protected static List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		return DBAccess.getStorageEngine().findReferences(em, tableName, parentUri, resourceType);
+	}
+
+	/**
+	 * Retrieves the direct children of the specified URI
+	 * from a specified table, ordered by creation time.  
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @return the ordered children
+	 */
+	protected static <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri){
+		if (isSegmentStored(tableName)){
+			return cast(ContentInstanceStore.getInstance().findAll(parentUri));
+		}
+		return DBAccess.getStorageEngine().findByParentOrderByCreationTime(em, tableName, parentUri, false, 0);
+	}
+
+	/**
+	 * Retrieves the oldest direct children of the specified URI
+	 * from a specified table, ordered by creation time.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param maxResults maximum number of children to retrieve
+	 * @return the ordered children, oldest first
+	 */
+	protected static <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, int maxResults){
+		if (isSegmentStored(tableName)){
+			return cast(ContentInstanceStore.getInstance().findAll(parentUri, maxResults));
+		}
+		return DBAccess.getStorageEngine().findByParentOrderByCreationTime(em, tableName, parentUri, false, maxResults);
+	}
+
+	/**
+	 * Retrieves a page of the direct children of the specified URI
+	 * from a specified table matching a filter, ordered by creation time.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param filter filter of the children
+	 * @param firstResult number of matching children to skip
+	 * @param maxResults maximum number of children to retrieve, no limit if lower than 1
+	 * @return the ordered children, oldest first
+	 */
+	protected static <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri,
+			ContentInstanceFilter filter, int firstResult, int maxResults){
+		if (isSegmentStored(tableName)){
+			return cast(ContentInstanceStore.getInstance().findAll(parentUri, filter, firstResult, maxResults));
+		}
+		return DBAccess.getStorageEngine().findByParentOrderByCreationTime(em, tableName, parentUri, filter, firstResult, maxResults);
+	}
+
+	/**
+	 * Retrieves the first direct child of the specified URI from a specified table 
+	 * by creation time, without fetching the other children.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param newest true to get the newest child, false to get the oldest one
+	 * @return the first child otherwise null
+	 */
+	protected static <T> T findFirstByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, boolean newest){
+		if (isSegmentStored(tableName)){
+			@SuppressWarnings("unchecked")
+			T first = (T) ContentInstanceStore.getInstance().findFirst(parentUri, newest, true);
+			return first;
+		}
+		List<T> result = DBAccess.getStorageEngine().findByParentOrderByCreationTime(em, tableName, parentUri, newest, 1);
+		if (result.isEmpty()){
+			return null;
+		}
+		return result.get(0);
+	}
+
 	/**
-	 * The method generates a String request for JPA to retrieve objects from a specified 
-	 * table and starting with the specified URI.
-	 * This version also orders the results by creation time.  
+	 * Retrieves a resource by its uri, from the shared cache of the storage engine 
+	 * when it holds it.
+	 * @param em DBEntityManager used for the transaction
+	 * @param entityClass class of the resource
+	 * @param uri uri of the resource
+	 * @return the resource otherwise null
+	 */
+	protected static <T> T find(DBEntityManager em, Class<T> entityClass, String uri){
+		return DBAccess.getStorageEngine().find(em, entityClass, uri);
+	}
+
+	/**
+	 * Retrieves the objects of a specified table that are the 
+	 * specified URI or one of its descendants. Unlike a plain prefix match, siblings 
+	 * sharing the same prefix (app1 and app10) are not matched.
+	 * An empty URI selects the whole table.
+	 * @param em DBEntityManager used for the transaction
 	 * @param tableName table to select
-	 * @param uriToLoad starting uri
-	 * @return
+	 * @param uriToLoad root uri of the subtree
+	 * @return the resources of the subtree
 	 */
-	protected static String generateLikeRequestOrderByCreationTime(String tableName, String uriToLoad){
-		String request = generateLikeRequest(tableName, uriToLoad);
-		request += " ORDER BY o.creationTime" ;
-		return request ; 
+	protected static <T> List<T> findSubtree(DBEntityManager em, String tableName, String uriToLoad){
+		if (isSegmentStored(tableName)){
+			return cast(ContentInstanceStore.getInstance().findSubtree(uriToLoad));
+		}
+		return DBAccess.getStorageEngine().findSubtree(em, tableName, uriToLoad);
+	}
+
+	/**
+	 * Retrieves in uri order the uris of the resources of a specified table that are 
+	 * the specified URI or one of its descendants, without loading the resources.
+	 * An empty URI selects the whole table.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param uri root uri of the subtree
+	 * @param after uri after which the uris are retrieved, null to start from the first one
+	 * @param maxResults maximum number of uris to retrieve
+	 * @return the sorted uris
+	 */
+	protected static List<String> findSubtreeUris(DBEntityManager em, String tableName, String uri, String after, int maxResults){
+		if (isSegmentStored(tableName)){
+			return ContentInstanceStore.getInstance().findSubtreeUris(uri, after, maxResults);
+		}
+		return DBAccess.getStorageEngine().findSubtreeUris(em, tableName, uri, after, maxResults);
+	}
+
+	/**
+	 * Deletes all the descendants of the specified URI (not the resource itself) with one 
+	 * set-based DELETE statement per table, instead of loading and removing each sub-resource.
+	 * The deleted entities are not loaded in the persistence context, so the removed 
+	 * sub-resources must not be used afterwards by the caller.
+	 * @param em DBEntityManager used for the transaction
+	 * @param uri uri of the root of the subtree
+	 * @return the number of deleted resources
+	 */
+	protected static int deleteDescendants(DBEntityManager em, String uri){
+		int deleted = DBAccess.getStorageEngine().deleteDescendants(em, uri);
+		if (ContentInstanceStore.isEnabled()){
+			deleted += ContentInstanceStore.getInstance().deleteDescendants(uri);
+		}
+		return deleted;
+	}
+
+	/**
+	 * Deletes a list of resources of a specified table with one statement, 
+	 * without loading them.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table of the resources
+	 * @param uris uris of the resources to delete
+	 * @return the number of deleted resources
+	 */
+	protected static int deleteByUri(DBEntityManager em, String tableName, List<String> uris){
+		return DBAccess.getStorageEngine().deleteByUri(em, tableName, uris);
+	}
+
+	/**
+	 * Checks if the resources of a table are stored in the {@link ContentInstanceStore}
+	 * instead of the storage engine.
+	 * @param tableName table to select
+	 * @return true for the contentInstances when the store is enabled
+	 */
+	static boolean isSegmentStored(String tableName){
+		return DBEntities.CONTENT_INSTANCE_ENTITY.equals(tableName) && ContentInstanceStore.isEnabled();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> cast(List<?> list){
+		return (List<T>) list;
 	}
 	
 }
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.Transient;
+import javax.xml.bind.JAXBElement;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.w3c.dom.Node;
+
+/**
+ * Deep copy and deep comparison of the persisted state of the resources, used by
+ * the {@link MemoryStorageEngine} to isolate the stored resources from the
+ * instances modified by the controllers.
+ * Static, transient and {@link Transient} fields are not part of the persisted
+ * state: they are neither copied nor compared.
+ */
+final class EntityCopier {
+
+	/** Persisted fields per class, including the inherited ones */
+	private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<Class<?>, Field[]>();
+
+	private EntityCopier(){
+		//UTILITY CLASS
+	}
+
+	/**
+	 * Returns a deep copy of the persisted state of an object.
+	 * @param object object to copy
+	 * @return the copy
+	 */
+	static <T> T copy(T object){
+		@SuppressWarnings("unchecked")
+		T copy = (T) copy(object, new IdentityHashMap<Object, Object>());
+		return copy;
+	}
+
+	/**
+	 * Compares the persisted state of two objects.
+	 * @param a first object
+	 * @param b second object
+	 * @return true if the persisted states are equal
+	 */
+	static boolean equals(Object a, Object b){
+		if (a == b){
+			return true;
+		}
+		if (a == null || b == null || a.getClass() != b.getClass()){
+			return false;
+		}
+		if (isImmutable(a) || a instanceof XMLGregorianCalendar){
+			return a.equals(b);
+		}
+		if (a instanceof byte[]){
+			return Arrays.equals((byte[]) a, (byte[]) b);
+		}
+		if (a instanceof Node){
+			return ((Node) a).isEqualNode((Node) b);
+		}
+		if (a instanceof JAXBElement){
+			JAXBElement<?> ea = (JAXBElement<?>) a;
+			JAXBElement<?> eb = (JAXBElement<?>) b;
+			return ea.getName().equals(eb.getName()) && equals(ea.getValue(), eb.getValue());
+		}
+		if (a instanceof Collection){
+			Collection<?> ca = (Collection<?>) a;
+			Collection<?> cb = (Collection<?>) b;
+			if (ca.size() != cb.size()){
+				return false;
+			}
+			Iterator<?> ib = cb.iterator();
+			for (Object ea : ca){
+				if (!equals(ea, ib.next())){
+					return false;
+				}
+			}
+			return true;
+		}
+		try {
+			for (Field field : getFields(a.getClass())){
+				if (!equals(field.get(a), field.get(b))){
+					return false;
+				}
+			}
+		} catch (IllegalAccessException e){
+			throw new IllegalStateException(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Copies an object, the already copied objects are reused to keep shared references.
+	 * @param object object to copy
+	 * @param copies already copied objects
+	 * @return the copy
+	 */
+	private static Object copy(Object object, Map<Object, Object> copies){
+		if (object == null || isImmutable(object)){
+			return object;
+		}
+		Object copy = copies.get(object);
+		if (copy != null){
+			return copy;
+		}
+		if (object instanceof byte[]){
+			copy = ((byte[]) object).clone();
+		} else if (object instanceof XMLGregorianCalendar){
+			copy = ((XMLGregorianCalendar) object).clone();
+		} else if (object instanceof Node){
+			copy = ((Node) object).cloneNode(true);
+		} else if (object instanceof JAXBElement){
+			copy = copyElement((JAXBElement<?>) object, copies);
+		} else if (object instanceof List){
+			List<Object> list = new ArrayList<Object>(((List<?>) object).size());
+			copies.put(object, list);
+			for (Object element : (List<?>) object){
+				list.add(copy(element, copies));
+			}
+			copy = list;
+		} else {
+			copy = copyFields(object, copies);
+		}
+		copies.put(object, copy);
+		return copy;
+	}
+
+	/**
+	 * Copies a JAXB element and its value.
+	 * @param element element to copy
+	 * @param copies already copied objects
+	 * @return the copy
+	 */
+	private static <V> JAXBElement<V> copyElement(JAXBElement<V> element, Map<Object, Object> copies){
+		@SuppressWarnings("unchecked")
+		V value = (V) copy(element.getValue(), copies);
+		JAXBElement<V> copy = new JAXBElement<V>(element.getName(), element.getDeclaredType(), element.getScope(), value);
+		copy.setNil(element.isNil());
+		return copy;
+	}
+
+	/**
+	 * Copies the persisted fields of an object in a new instance of its class.
+	 * @param object object to copy
+	 * @param copies already copied objects
+	 * @return the copy
+	 */
+	private static Object copyFields(Object object, Map<Object, Object> copies){
+		try {
+			Object copy = object.getClass().newInstance();
+			copies.put(object, copy);
+			for (Field field : getFields(object.getClass())){
+				field.set(copy, copy(field.get(object), copies));
+			}
+			return copy;
+		} catch (InstantiationException e){
+			throw new IllegalArgumentException("Cannot copy " + object.getClass(), e);
+		} catch (IllegalAccessException e){
+			throw new IllegalArgumentException("Cannot copy " + object.getClass(), e);
+		}
+	}
+
+	/**
+	 * Checks if a value can be shared between the copies.
+	 * @param object value to check
+	 * @return true if the value is immutable
+	 */
+	private static boolean isImmutable(Object object){
+		return object instanceof String || object instanceof Number || object instanceof Boolean
+				|| object instanceof Character || object instanceof Enum || object instanceof Class
+				|| object instanceof javax.xml.namespace.QName;
+	}
+
+	/**
+	 * Returns the persisted fields of a class and its superclasses.
+	 * @param clazz class of the object
+	 * @return the accessible persisted fields
+	 */
+	static Field[] getFields(Class<?> clazz){
+		Field[] fields = FIELDS.get(clazz);
+		if (fields == null){
+			List<Field> list = new ArrayList<Field>();
+			for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()){
+				for (Field field : c.getDeclaredFields()){
+					int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+							|| field.isAnnotationPresent(Transient.class)){
+						continue;
+					}
+					field.setAccessible(true);
+					list.add(field);
+				}
+			}
+			fields = list.toArray(new Field[list.size()]);
+			FIELDS.put(clazz, fields);
+		}
+		return fields;
+	}
+
+}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ExecInstance;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
@@ -42,7 +40,7 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
      * @param uri - uri of the {@link ExecInstance} resource to retrieve
      * @return The requested {@link ExecInstance} resource otherwise null
      */
-    public ExecInstance find(String uri, EntityManager em){
+    public ExecInstance find(String uri, DBEntityManager em){
     	// Return the resource from the DB
     	return em.find(ExecInstance.class, uri);
     }
@@ -51,7 +49,7 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
      * Deletes the {@link ExecInstance} resource from the DataBase without validating the transaction
      * @param resource - The {@link ExecInstance} resource to delete
      */
-    public void delete(ExecInstance resource, EntityManager em) {
+    public void delete(ExecInstance resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
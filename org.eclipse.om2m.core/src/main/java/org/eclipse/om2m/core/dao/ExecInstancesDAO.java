@@ -23,12 +23,9 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.ExecInstance;
 import org.eclipse.om2m.commons.resource.ExecInstances;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -48,7 +45,7 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
 	 * @param resource - The {@link ExecInstances} collection resource to create
 	 */
 	@Override
-	public void create(ExecInstances resource, EntityManager em) {
+	public void create(ExecInstances resource, DBEntityManager em) {
 		// NOT ALLOWED
 	}
 
@@ -57,23 +54,13 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
 	 * @param uri - uri of the {@link ExecInstances} collection resource
 	 * @return The requested {@link ExecInstances} collection resource otherwise null
 	 */
-	public ExecInstances find(String uri, EntityManager em) {
+	public ExecInstances find(String uri, DBEntityManager em) {
 		ExecInstances execInstances = new ExecInstances();
 		execInstances.setUri(uri);
 
 		execInstances.getExecInstanceCollection().getNamedReference().clear();
 
-		String q = DBUtil.generateLikeRequest(DBEntities.EXEC_INSTANCE_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<ExecInstance> result = query.getResultList();
-
-		for (ExecInstance execInstance : result) {
-			ReferenceToNamedResource reference = new ReferenceToNamedResource();
-			reference.setId(execInstance.getId());
-			reference.setValue(execInstance.getUri());
-			execInstances.getExecInstanceCollection().getNamedReference().add(reference);
-		}
+		execInstances.getExecInstanceCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.EXEC_INSTANCE_ENTITY, uri));
 		return execInstances;
 	}
 
@@ -82,7 +69,7 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
 	 * @param resource - The {@link ExecInstances} the updated resource
 	 */
 	@Override
-	public void update(ExecInstances resource, EntityManager em) {
+	public void update(ExecInstances resource, DBEntityManager em) {
 		// NOT ALLOWED
 	}
 
@@ -90,16 +77,13 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
 	 * Deletes the {@link ExecInstances} collection resource from the DataBase without validating the transaction
 	 * @Param the {@link ExecInstances} collection resource to delete
 	 */
-	public void delete(ExecInstances resource, EntityManager em) {
+	public void delete(ExecInstances resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
 
-		String q = DBUtil.generateLikeRequest(DBEntities.EXEC_INSTANCE_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<ExecInstance> result = query.getResultList();
+		List<ExecInstance> result = DBUtil.findByParent(em, DBEntities.EXEC_INSTANCE_ENTITY, resource.getUri());
 
 		for (ExecInstance execInstance : result) {
 			execInstance.setSubscriptionsReference(execInstance.getUri() + Refs.SUBSCRIPTIONS_REF);
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.GroupAnnc;
 
 /**
@@ -46,7 +44,7 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
 	 *            - uri of the {@link GroupAnnc} resource to retrieve
 	 * @return The requested {@link GroupAnnc} resource otherwise null
 	 */
-	public GroupAnnc find(String uri, EntityManager em) {
+	public GroupAnnc find(String uri, DBEntityManager em) {
 		// Return the resource from the DB
 		return em.find(GroupAnnc.class, uri);
 	}
@@ -58,7 +56,7 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
 	 * @param resource
 	 *            - The {@link GroupAnnc} resource to delete
 	 */
-	public void delete(GroupAnnc resource, EntityManager em) {
+	public void delete(GroupAnnc resource, DBEntityManager em) {
 		// Delete the resource
 		em.remove(resource);
 	}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Group;
 
 /**
@@ -41,7 +39,7 @@ public class GroupDAO extends DAO<Group>{
 	 * @param uri - uri of the {@link Group} resource to retrieve
 	 * @return The requested {@link Group} resource otherwise null
 	 */
-	public Group find(String uri, EntityManager em) {
+	public Group find(String uri, DBEntityManager em) {
 		// Return the object from DB
 		return em.find(Group.class, uri);
 	}
@@ -50,7 +48,7 @@ public class GroupDAO extends DAO<Group>{
 	 * Deletes the {@link Group} resource from the DataBase without validating the transaction
 	 * @param resource - The {@link Group} resource to delete
 	 */
-	public void delete(Group resource, EntityManager em) {
+	public void delete(Group resource, DBEntityManager em) {
 		// Delete the resource
 		em.remove(resource);
 	}
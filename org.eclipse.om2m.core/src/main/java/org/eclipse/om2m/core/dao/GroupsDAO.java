@@ -23,13 +23,10 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.Group;
 import org.eclipse.om2m.commons.resource.GroupAnnc;
 import org.eclipse.om2m.commons.resource.Groups;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -49,7 +46,7 @@ public class GroupsDAO extends DAO<Groups> {
 	 * @param resource - The {@link Groups} collection resource to create
 	 */
 	@Override
-	public void create(Groups resource, EntityManager em) {
+	public void create(Groups resource, DBEntityManager em) {
 		// NOT ALLOWED
 	}
 
@@ -58,7 +55,7 @@ public class GroupsDAO extends DAO<Groups> {
 	 * @param uri - uri of the {@link Groups} collection resource
 	 * @return The requested {@link Groups} collection resource otherwise null
 	 */
-	public Groups find(String uri, EntityManager em) {
+	public Groups find(String uri, DBEntityManager em) {
 		Groups groups = new Groups();
 		groups.setUri(uri);
 
@@ -67,30 +64,10 @@ public class GroupsDAO extends DAO<Groups> {
 		groups.getGroupAnncCollection().getNamedReference().clear();
 
 		//Find Group sub-resources and add their references
-		String q = DBUtil.generateLikeRequest(DBEntities.GROUP_ENTITY, uri);
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Group> result = query.getResultList();
-
-		for (Group g : result){
-			ReferenceToNamedResource ref = new ReferenceToNamedResource();
-			ref.setId(g.getId());
-			ref.setValue(g.getUri());
-			groups.getGroupCollection().getNamedReference().add(ref);
-		}
+		groups.getGroupCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.GROUP_ENTITY, uri));
 
 		//Find GroupAnnc sub-resources and add their references
-		String q2 = DBUtil.generateLikeRequest(DBEntities.GROUP_ANNC_ENTITY, uri);
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<GroupAnnc> result2 = query2.getResultList();
-
-		for (GroupAnnc gac : result2){
-			ReferenceToNamedResource reference = new ReferenceToNamedResource();
-			reference.setId(gac.getId());
-			reference.setValue(gac.getUri());
-			groups.getGroupAnncCollection().getNamedReference().add(reference);
-		}
+		groups.getGroupAnncCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.GROUP_ANNC_ENTITY, uri));
 		return groups;
 	}
 
@@ -99,7 +76,7 @@ public class GroupsDAO extends DAO<Groups> {
 	 * @param resource - The {@link Groups} the updated resource
 	 */
 	@Override
-	public void update(Groups resource, EntityManager em) {
+	public void update(Groups resource, DBEntityManager em) {
 		//NOT IMPLEMENTED
 	}
 
@@ -107,17 +84,14 @@ public class GroupsDAO extends DAO<Groups> {
 	 * Deletes the {@link Groups} collection resource from the DataBase without validating the transaction
 	 * @Param the {@link Groups} collection resource to delete
 	 */
-	public void delete(Groups resource, EntityManager em) {
+	public void delete(Groups resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
 		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
 
 		// Delete group sub-resources
-		String q = DBUtil.generateLikeRequest(DBEntities.GROUP_ENTITY, resource.getUri());
-		javax.persistence.Query query = em.createQuery(q);
-		@SuppressWarnings("unchecked")
-		List<Group> result = query.getResultList();
+		List<Group> result = DBUtil.findByParent(em, DBEntities.GROUP_ENTITY, resource.getUri());
 
 		for (Group g : result){
 			g.setSubscriptionsReference(g.getUri()+Refs.SUBSCRIPTIONS_REF);
@@ -125,10 +99,7 @@ public class GroupsDAO extends DAO<Groups> {
 		}
 
 		// Delete groupAnnc sub-resources
-		String q2 = DBUtil.generateLikeRequest(DBEntities.GROUP_ANNC_ENTITY, resource.getUri());
-		javax.persistence.Query query2 = em.createQuery(q2);
-		@SuppressWarnings("unchecked")
-		List<GroupAnnc> result2 = query2.getResultList();
+		List<GroupAnnc> result2 = DBUtil.findByParent(em, DBEntities.GROUP_ANNC_ENTITY, resource.getUri());
 
 		for (GroupAnnc gac : result2){
 			DAOFactory.getGroupAnncDAO().delete(gac, em);
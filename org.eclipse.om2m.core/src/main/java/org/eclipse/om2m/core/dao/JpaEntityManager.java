@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+/**
+ * Unit of work of the {@link JpaStorageEngine}, delegating to a JPA entity manager.
+ */
+class JpaEntityManager implements DBEntityManager {
+
+	/** JPA entity manager */
+	private final EntityManager entityManager;
+
+	JpaEntityManager(EntityManager entityManager){
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public <T> T find(Class<T> entityClass, Object primaryKey) {
+		return entityManager.find(entityClass, primaryKey);
+	}
+
+	@Override
+	public void persist(Object entity) {
+		entityManager.persist(entity);
+	}
+
+	@Override
+	public void remove(Object entity) {
+		entityManager.remove(entity);
+	}
+
+	@Override
+	public void flush() {
+		entityManager.flush();
+	}
+
+	@Override
+	public void clear() {
+		entityManager.clear();
+	}
+
+	@Override
+	public EntityTransaction getTransaction() {
+		return entityManager.getTransaction();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return entityManager.isOpen();
+	}
+
+	@Override
+	public void close() {
+		entityManager.close();
+	}
+
+	/**
+	 * Returns the JPA entity manager for {@link EntityManager}, otherwise the object
+	 * unwrapped by the JPA entity manager.
+	 */
+	@Override
+	public <T> T unwrap(Class<T> cls) {
+		if (cls.isInstance(this)){
+			return cls.cast(this);
+		}
+		if (cls.isInstance(entityManager)){
+			return cls.cast(entityManager);
+		}
+		return entityManager.unwrap(cls);
+	}
+
+}
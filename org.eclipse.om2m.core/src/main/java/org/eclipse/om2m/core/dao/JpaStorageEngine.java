@@ -0,0 +1,856 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.Query;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstancePayload;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+import org.eclipse.om2m.commons.resource.Refs;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.persistence.config.CacheType;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.eclipse.persistence.descriptors.DescriptorEvent;
+import org.eclipse.persistence.descriptors.DescriptorEventAdapter;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.queries.InMemoryQueryIndirectionPolicy;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.server.ConnectionPool;
+import org.eclipse.persistence.sessions.server.Server;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+/**
+ * Default {@link StorageEngine} storing the resources in a relational database
+ * using JPA - EclipseLink (persistence unit "om2mdb").
+ * Queries are parameterized named queries registered once at initialization.
+ * @author <ul>
+ *         <li>Francois Aissaoui < aissaoui@laas.fr > </li>
+ *         <li>Guillaume Garzone < garzone@laas.fr > </li>
+ *         </ul>
+ */
+public class JpaStorageEngine implements StorageEngine {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(JpaStorageEngine.class);
+
+	/** Request selecting the direct children of a parent */
+	private static final String FIND_BY_PARENT_REQUEST = "SELECT o FROM :tableName o WHERE o.parentUri = :parentUri";
+
+	/** Request selecting the direct children of a parent with a given type */
+	private static final String FIND_BY_PARENT_AND_TYPE_REQUEST = FIND_BY_PARENT_REQUEST + " AND o.resourceType = :resourceType";
+
+	/** Request selecting a resource and all its descendants */
+	private static final String FIND_SUBTREE_REQUEST = "SELECT o FROM :tableName o WHERE o.uri = :uri OR o.uri LIKE :uriPrefix ESCAPE '!'";
+
+	/** Request selecting the uris of a resource and its descendants after a uri */
+	private static final String FIND_SUBTREE_URIS_REQUEST = "SELECT o.uri FROM :tableName o WHERE (o.uri = :uri OR o.uri LIKE :uriPrefix ESCAPE '!') AND o.uri > :after ORDER BY o.uri";
+
+	/** Request selecting all the descendants of a resource */
+	private static final String FIND_DESCENDANTS_REQUEST = "SELECT o FROM :tableName o WHERE o.uri LIKE :uriPrefix ESCAPE '!'";
+
+	/** Request deleting all the descendants of a resource */
+	private static final String DELETE_DESCENDANTS_REQUEST = "DELETE FROM :tableName o WHERE o.uri LIKE :uriPrefix ESCAPE '!'";
+
+	/** Request deleting a list of resources */
+	private static final String DELETE_BY_URI_REQUEST = "DELETE FROM :tableName o WHERE o.uri IN :uris";
+
+	/** Request selecting all the resources of a table */
+	private static final String FIND_ALL_REQUEST = "SELECT o FROM :tableName o";
+
+	/** Request selecting the uris of a table after a uri */
+	private static final String FIND_URIS_REQUEST = "SELECT o.uri FROM :tableName o WHERE o.uri > :after ORDER BY o.uri";
+
+	/** Request selecting only the id and uri of the direct children of a parent */
+	private static final String FIND_REFERENCES_BY_PARENT_REQUEST = "SELECT o.:idAttribute, o.uri FROM :tableName o WHERE o.parentUri = :parentUri";
+
+	/** Request selecting only the id and uri of the direct children of a parent with a given type */
+	private static final String FIND_REFERENCES_BY_PARENT_AND_TYPE_REQUEST = FIND_REFERENCES_BY_PARENT_REQUEST + " AND o.resourceType = :resourceType";
+
+	/** Request selecting the direct children of a parent ordered by creation time */
+	private static final String FIND_BY_PARENT_ORDER_BY_CREATION_TIME_REQUEST = FIND_BY_PARENT_REQUEST + " ORDER BY o.creationTimeMillis";
+
+	/** Request selecting the direct children of a parent ordered by descending creation time */
+	private static final String FIND_BY_PARENT_ORDER_BY_CREATION_TIME_DESC_REQUEST = FIND_BY_PARENT_ORDER_BY_CREATION_TIME_REQUEST + " DESC";
+
+	/** Request selecting the direct children of a parent in time and size ranges, ordered by creation time */
+	private static final String FIND_BY_PARENT_IN_RANGES_REQUEST = FIND_BY_PARENT_REQUEST
+			+ " AND o.creationTimeMillis BETWEEN :createdSince AND :createdUntil"
+			+ " AND o.lastModifiedTimeMillis > :modifiedSince AND o.lastModifiedTimeMillis <= :unmodifiedSince"
+			+ " AND o.contentSize BETWEEN :sizeFrom AND :sizeUntil ORDER BY o.creationTimeMillis, o.uri";
+
+	/** JDBC driver of H2, the only database supported by the migration of the contentInstance payloads */
+	private static final String H2_DRIVER = "org.h2.Driver";
+
+	/** Column of the contentInstance table holding the payloads before they were moved to their own table */
+	private static final String LEGACY_PAYLOAD_COLUMN = "VALUE";
+
+	/** Native request counting the columns of a table with a given name */
+	private static final String COUNT_COLUMNS_REQUEST = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ?1 AND COLUMN_NAME = ?2";
+
+	/** Native request selecting the payloads held by the contentInstance table after a uri, ordered by uri */
+	private static final String FIND_LEGACY_PAYLOADS_REQUEST = "SELECT URI, " + LEGACY_PAYLOAD_COLUMN + " FROM " + DBEntities.CONTENT_INSTANCE_ENTITY
+			+ " WHERE " + LEGACY_PAYLOAD_COLUMN + " IS NOT NULL AND URI > ?1 ORDER BY URI";
+
+	/** Native request counting the payloads held by the contentInstance table that are not copied to the payload table */
+	private static final String COUNT_LEGACY_PAYLOADS_REQUEST = "SELECT COUNT(*) FROM " + DBEntities.CONTENT_INSTANCE_ENTITY + " c WHERE c."
+			+ LEGACY_PAYLOAD_COLUMN + " IS NOT NULL AND NOT EXISTS (SELECT 1 FROM " + DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY
+			+ " p WHERE p.URI = CONCAT(c.URI, '" + Refs.CONTENT_REF + "'))";
+
+	/** Number of resources read at once by the migrations of the previous versions */
+	private static final int MIGRATION_PAGE_SIZE = 1000;
+
+	/** Number of contentInstances read at once when a filter has predicates that are not columns */
+	private static final int FILTER_CHUNK_SIZE = 200;
+
+	/** EntityManagerFactory connected to the DB */
+	private EntityManagerFactory emf ;
+
+	/** Actions to run when the units of work are committed, indexed by unit of work */
+	private final Map<Session, List<Runnable>> commitActions = new ConcurrentHashMap<Session, List<Runnable>>();
+
+	/** Number of resources found in the shared cache */
+	private final AtomicInteger cacheHits = new AtomicInteger();
+
+	/** Number of resources read from the DB */
+	private final AtomicInteger cacheMisses = new AtomicInteger();
+
+	@Override
+	public void init(){
+		try{
+			Map<Object,Object> properties = new HashMap<Object, Object>() ;
+			properties.put(PersistenceUnitProperties.JDBC_DRIVER, Constants.DB_DRIVER);
+			properties.put(PersistenceUnitProperties.JDBC_URL, Constants.DB_URL);
+			properties.put(PersistenceUnitProperties.JDBC_USER, Constants.DB_USER);
+			properties.put(PersistenceUnitProperties.JDBC_PASSWORD, Constants.DB_PASSWORD);
+
+			// Connection pools
+			String defaultPool = PersistenceUnitProperties.CONNECTION_POOL + ServerSession.DEFAULT_POOL + ".";
+			properties.put(defaultPool + PersistenceUnitProperties.CONNECTION_POOL_INITIAL, String.valueOf(Constants.DB_POOL_MIN));
+			properties.put(defaultPool + PersistenceUnitProperties.CONNECTION_POOL_MIN, String.valueOf(Constants.DB_POOL_MIN));
+			properties.put(defaultPool + PersistenceUnitProperties.CONNECTION_POOL_MAX, String.valueOf(Constants.DB_POOL_MAX));
+			properties.put(PersistenceUnitProperties.CONNECTION_POOL_READ + PersistenceUnitProperties.CONNECTION_POOL_INITIAL, String.valueOf(Constants.DB_POOL_MIN));
+			properties.put(PersistenceUnitProperties.CONNECTION_POOL_READ + PersistenceUnitProperties.CONNECTION_POOL_MIN, String.valueOf(Constants.DB_POOL_MIN));
+			properties.put(PersistenceUnitProperties.CONNECTION_POOL_READ + PersistenceUnitProperties.CONNECTION_POOL_MAX, String.valueOf(Constants.DB_POOL_MAX));
+
+			// Prepared statements cache
+			if (Constants.DB_STATEMENT_CACHE_SIZE > 0){
+				properties.put(PersistenceUnitProperties.CACHE_STATEMENTS, "true");
+				properties.put(PersistenceUnitProperties.CACHE_STATEMENTS_SIZE, String.valueOf(Constants.DB_STATEMENT_CACHE_SIZE));
+			} else {
+				properties.put(PersistenceUnitProperties.CACHE_STATEMENTS, "false");
+			}
+
+			// Batch writing
+			properties.put(PersistenceUnitProperties.BATCH_WRITING, Constants.DB_BATCH_WRITING);
+			properties.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, String.valueOf(Constants.DB_BATCH_WRITING_SIZE));
+
+			// Shared cache: the configuration resources are kept in a bounded cache (hard references 
+			// to the most recently used, weak references to the others), the contentInstances 
+			// are not cached so that they do not evict them. Committed changes are merged in the 
+			// cache and bulk deletes invalidate it.
+			// The entities are not cached with the cache type NONE rather than by isolating them 
+			// (shared=false or @Cacheable(false)): with an isolated entity in the unit, EclipseLink
+			// merges the element collections, as the aPoCPaths of an application, empty in the cache.
+			for (String entityName : DBEntities.CACHED_ENTITY_LIST){
+				if (Constants.DB_CACHE_SIZE > 0){
+					properties.put(PersistenceUnitProperties.CACHE_TYPE_ + entityName, CacheType.HardWeak);
+					properties.put(PersistenceUnitProperties.CACHE_SIZE_ + entityName, String.valueOf(Constants.DB_CACHE_SIZE));
+				} else {
+					properties.put(PersistenceUnitProperties.CACHE_TYPE_ + entityName, CacheType.NONE);
+				}
+			}
+			for (String entityName : DBEntities.UNCACHED_ENTITY_LIST){
+				properties.put(PersistenceUnitProperties.CACHE_TYPE_ + entityName, CacheType.NONE);
+			}
+
+			if (Constants.DB_RESET){
+				properties.put(PersistenceUnitProperties.DDL_GENERATION, PersistenceUnitProperties.DROP_AND_CREATE);
+			} else {
+				properties.put(PersistenceUnitProperties.DDL_GENERATION, PersistenceUnitProperties.CREATE_OR_EXTEND);
+			}
+
+			LOGGER.info("Creating new EntityManagerFactory...");
+			emf = Persistence.createEntityManagerFactory("om2mdb", properties);
+		} catch (Exception e){
+			LOGGER.error("Error in creation of EntityManagerFactory",e);
+		}
+		if (emf != null){
+			LOGGER.info("Registering named queries...");
+			registerNamedQueries();
+			registerIndexListeners();
+			EntityManager em = emf.createEntityManager();
+			em.getTransaction().begin();
+			em.close();
+			if (!Constants.DB_RESET){
+				fillIndexedAttributes();
+				if (Constants.DB_MIGRATE_CONTENT_INSTANCE_PAYLOADS){
+					migrateContentInstancePayloads();
+				} else {
+					checkContentInstancePayloads();
+				}
+			}
+		} else {
+			LOGGER.error("ERROR initializing Database: EntityManagerFactory is null!");
+		}
+	}
+
+	@Override
+	public void close() {
+		if (emf != null){
+			emf.close();
+		}
+	}
+
+	@Override
+	public DBEntityManager createEntityManager(){
+		return new JpaEntityManager(emf.createEntityManager());
+	}
+
+	/**
+	 * Registers the parameterized named queries of every persisted entity in the
+	 * EntityManagerFactory. Each request is parsed once here and then reused by the
+	 * DAOs with bound parameters, whatever the requested URI.
+	 */
+	private void registerNamedQueries(){
+		EntityManager em = emf.createEntityManager();
+		for (String entityName : DBEntities.ENTITY_LIST){
+			registerNamedQuery(em, entityName, DBEntities.FIND_BY_PARENT_QUERY, FIND_BY_PARENT_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_BY_PARENT_AND_TYPE_QUERY, FIND_BY_PARENT_AND_TYPE_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_SUBTREE_QUERY, FIND_SUBTREE_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_ALL_QUERY, FIND_ALL_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_SUBTREE_URIS_QUERY, FIND_SUBTREE_URIS_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_URIS_QUERY, FIND_URIS_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.DELETE_DESCENDANTS_QUERY, DELETE_DESCENDANTS_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.DELETE_BY_URI_QUERY, DELETE_BY_URI_REQUEST);
+		}
+		for (String entityName : DBEntities.CASCADING_ENTITY_LIST){
+			registerNamedQuery(em, entityName, DBEntities.FIND_DESCENDANTS_QUERY, FIND_DESCENDANTS_REQUEST);
+		}
+		for (String entityName : DBEntities.PAYLOAD_ENTITY_LIST){
+			registerNamedQuery(em, entityName, DBEntities.FIND_SUBTREE_QUERY, FIND_SUBTREE_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.DELETE_DESCENDANTS_QUERY, DELETE_DESCENDANTS_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.DELETE_BY_URI_QUERY, DELETE_BY_URI_REQUEST);
+		}
+		for (String entityName : DBEntities.REFERENCED_ENTITY_LIST){
+			String idAttribute = DBEntities.getIdAttribute(entityName);
+			registerNamedQuery(em, entityName, DBEntities.FIND_REFERENCES_BY_PARENT_QUERY,
+					FIND_REFERENCES_BY_PARENT_REQUEST.replace(":idAttribute", idAttribute));
+			registerNamedQuery(em, entityName, DBEntities.FIND_REFERENCES_BY_PARENT_AND_TYPE_QUERY,
+					FIND_REFERENCES_BY_PARENT_AND_TYPE_REQUEST.replace(":idAttribute", idAttribute));
+		}
+		for (String entityName : DBEntities.TIME_ORDERED_ENTITY_LIST){
+			registerNamedQuery(em, entityName, DBEntities.FIND_BY_PARENT_ORDER_BY_CREATION_TIME_QUERY, FIND_BY_PARENT_ORDER_BY_CREATION_TIME_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_BY_PARENT_ORDER_BY_CREATION_TIME_DESC_QUERY, FIND_BY_PARENT_ORDER_BY_CREATION_TIME_DESC_REQUEST);
+			registerNamedQuery(em, entityName, DBEntities.FIND_BY_PARENT_IN_RANGES_QUERY, FIND_BY_PARENT_IN_RANGES_REQUEST);
+		}
+		em.close();
+	}
+
+	/**
+	 * Registers one named query of an entity.
+	 * @param em EntityManager used to parse the request
+	 * @param tableName table to select
+	 * @param queryName name of the query
+	 * @param request request with the table name to replace
+	 */
+	private void registerNamedQuery(EntityManager em, String tableName, String queryName, String request){
+		Query query = em.createQuery(request.replace(":tableName", tableName));
+		emf.addNamedQuery(DBEntities.getQueryName(tableName, queryName), query);
+	}
+
+	/**
+	 * Fills the parentUri, resourceType and epoch time columns of the resources persisted
+	 * before these columns existed, so that children lookups and time-ordered queries 
+	 * still find them. The resources are read in uri order by pages, each page is 
+	 * committed in its own transaction.
+	 */
+	@SuppressWarnings("unchecked")
+	private void fillIndexedAttributes(){
+		Server session = JpaHelper.getServerSession(emf);
+		for (String entityName : DBEntities.ENTITY_LIST){
+			String request = "SELECT o FROM " + entityName + " o WHERE (o.resourceType IS NULL";
+			if (session.getDescriptorForAlias(entityName).getMappingForAttributeName("creationTime") != null){
+				request += " OR (o.creationTimeMillis IS NULL AND o.creationTime IS NOT NULL)";
+			}
+			request += ") AND o.uri > :after ORDER BY o.uri";
+			int filled = 0;
+			String after = "";
+			List<Resource> result;
+			do {
+				EntityManager em = emf.createEntityManager();
+				try {
+					em.getTransaction().begin();
+					result = em.createQuery(request)
+							.setParameter("after", after)
+							.setMaxResults(MIGRATION_PAGE_SIZE)
+							.getResultList();
+					for (Resource resource : result){
+						resource.updateIndexedAttributes();
+						after = resource.getUri();
+					}
+					em.getTransaction().commit();
+					filled += result.size();
+				} finally {
+					if (em.getTransaction().isActive()){
+						em.getTransaction().rollback();
+					}
+					em.close();
+				}
+			} while (result.size() == MIGRATION_PAGE_SIZE);
+			if (filled > 0){
+				LOGGER.info("Indexed attributes filled for " + filled + " " + entityName + " resources");
+			}
+		}
+	}
+
+	/**
+	 * Checks that no contentInstance persisted by the previous versions still holds its payload 
+	 * in the VALUE column of the contentInstance table without a copy in the {@link ContentInstancePayload} 
+	 * table, since these contentInstances would be returned without their content. The check only 
+	 * runs on H2, the only database supported by the migration.
+	 * @throws IllegalStateException if payloads are not migrated, to stop the initialization
+	 */
+	private void checkContentInstancePayloads(){
+		if (!H2_DRIVER.equals(Constants.DB_DRIVER) || !hasLegacyPayloadColumn()){
+			return;
+		}
+		EntityManager em = emf.createEntityManager();
+		try {
+			Number legacy = (Number) em.createNativeQuery(COUNT_LEGACY_PAYLOADS_REQUEST).getSingleResult();
+			if (legacy.intValue() > 0){
+				throw new IllegalStateException(legacy + " contentInstance payloads are still in the " + LEGACY_PAYLOAD_COLUMN 
+						+ " column of " + DBEntities.CONTENT_INSTANCE_ENTITY + ", start once with org.eclipse.om2m.dbMigrateContentInstancePayloads=true to migrate them");
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Checks if the contentInstance table still has the VALUE column of the previous versions.
+	 * @return true if the column exists
+	 */
+	private boolean hasLegacyPayloadColumn(){
+		EntityManager em = emf.createEntityManager();
+		try {
+			Number columns = (Number) em.createNativeQuery(COUNT_COLUMNS_REQUEST)
+					.setParameter(1, DBEntities.CONTENT_INSTANCE_ENTITY)
+					.setParameter(2, LEGACY_PAYLOAD_COLUMN)
+					.getSingleResult();
+			return columns.intValue() > 0;
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Copies the payloads of the contentInstances persisted by the previous versions in the VALUE column
+	 * of the contentInstance table to the {@link ContentInstancePayload} table. The migration only runs 
+	 * when it is enabled (dbMigrateContentInstancePayloads) and only on H2. The payloads already copied 
+	 * are skipped and the VALUE column is kept: it can be dropped by hand once the copy is checked.
+	 * The copy is done in one transaction, a failure rolls it back and is thrown to stop the initialization.
+	 */
+	@SuppressWarnings("unchecked")
+	private void migrateContentInstancePayloads(){
+		if (!H2_DRIVER.equals(Constants.DB_DRIVER)){
+			throw new IllegalStateException("The migration of the contentInstance payloads only supports " 
+					+ H2_DRIVER + ", not " + Constants.DB_DRIVER);
+		}
+		if (!hasLegacyPayloadColumn()){
+			LOGGER.info("No contentInstance payload to migrate: " + DBEntities.CONTENT_INSTANCE_ENTITY 
+					+ " has no " + LEGACY_PAYLOAD_COLUMN + " column");
+			return;
+		}
+		EntityManager em = emf.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			int copied = 0;
+			String after = "";
+			List<Object[]> rows;
+			do {
+				rows = em.createNativeQuery(FIND_LEGACY_PAYLOADS_REQUEST)
+						.setParameter(1, after)
+						.setMaxResults(MIGRATION_PAGE_SIZE)
+						.getResultList();
+				for (Object[] row : rows){
+					after = (String) row[0];
+					if (em.find(ContentInstancePayload.class, after + Refs.CONTENT_REF) == null){
+						em.persist(new ContentInstancePayload(after, (byte[]) row[1]));
+						copied++;
+					}
+				}
+				em.flush();
+				em.clear();
+			} while (rows.size() == MIGRATION_PAGE_SIZE);
+			em.getTransaction().commit();
+			LOGGER.info(copied + " contentInstance payloads copied to " + DBEntities.CONTENT_INSTANCE_PAYLOAD_ENTITY 
+					+ ", the " + LEGACY_PAYLOAD_COLUMN + " column of " + DBEntities.CONTENT_INSTANCE_ENTITY + " can now be dropped");
+		} finally {
+			if (em.getTransaction().isActive()){
+				em.getTransaction().rollback();
+			}
+			em.close();
+		}
+	}
+
+	/**
+	 * Primary key lookup, answered by the shared cache without reading the DB when it holds the resource.
+	 */
+	@Override
+	public <T> T find(DBEntityManager em, Class<T> entityClass, String uri){
+		if (emf.getCache().contains(entityClass, uri)){
+			cacheHits.incrementAndGet();
+		} else {
+			cacheMisses.incrementAndGet();
+		}
+		return em.find(entityClass, uri);
+	}
+
+	/**
+	 * Equality lookup on the indexed parentUri column.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri){
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_BY_PARENT_QUERY));
+		query.setParameter("parentUri", parentUri);
+		return query.getResultList();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_BY_PARENT_AND_TYPE_QUERY));
+		query.setParameter("parentUri", parentUri);
+		query.setParameter("resourceType", resourceType);
+		return query.getResultList();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, boolean descending, int maxResults){
+		String queryName = descending ? DBEntities.FIND_BY_PARENT_ORDER_BY_CREATION_TIME_DESC_QUERY : DBEntities.FIND_BY_PARENT_ORDER_BY_CREATION_TIME_QUERY;
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, queryName));
+		query.setParameter("parentUri", parentUri);
+		if (maxResults > 0){
+			query.setMaxResults(maxResults);
+		}
+		return query.getResultList();
+	}
+
+	/**
+	 * Parameterized named query: the ranges are bound with open bounds for the missing
+	 * criteria, so the (parentUri, creationTimeMillis) index is used whatever the filter,
+	 * and the page is pushed down to the database unless residual predicates must be
+	 * checked on the result. In that case the contentInstances are read in chunks until 
+	 * the page is complete.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, ContentInstanceFilter filter, int firstResult, int maxResults){
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_BY_PARENT_IN_RANGES_QUERY));
+		query.setParameter("parentUri", parentUri);
+		query.setParameter("createdSince", bound(filter.getCreatedSince(), Long.MIN_VALUE));
+		query.setParameter("createdUntil", bound(filter.getCreatedUntil(), Long.MAX_VALUE));
+		query.setParameter("modifiedSince", bound(filter.getModifiedSince(), Long.MIN_VALUE));
+		query.setParameter("unmodifiedSince", bound(filter.getUnmodifiedSince(), Long.MAX_VALUE));
+		query.setParameter("sizeFrom", bound(filter.getSizeFrom(), Long.MIN_VALUE));
+		query.setParameter("sizeUntil", bound(filter.getSizeUntil(), Long.MAX_VALUE));
+		if (filter.hasResidualPredicates()){
+			List<T> result = new ArrayList<T>();
+			int skipped = 0;
+			int offset = 0;
+			List<T> chunk;
+			do {
+				query.setFirstResult(offset);
+				query.setMaxResults(FILTER_CHUNK_SIZE);
+				chunk = query.getResultList();
+				offset += chunk.size();
+				for (T candidate : chunk){
+					if (filter.matchesResidualPredicates((ContentInstance) candidate)){
+						if (skipped < firstResult){
+							skipped++;
+						} else {
+							result.add(candidate);
+							if (maxResults > 0 && result.size() >= maxResults){
+								return result;
+							}
+						}
+					}
+				}
+			} while (chunk.size() == FILTER_CHUNK_SIZE);
+			return result;
+		}
+		if (firstResult > 0){
+			query.setFirstResult(firstResult);
+		}
+		if (maxResults > 0){
+			query.setMaxResults(maxResults);
+		}
+		return query.getResultList();
+	}
+
+	/**
+	 * Returns the bound of a range, or an open bound when it is missing.
+	 */
+	private static Long bound(Long value, long open){
+		return value == null ? Long.valueOf(open) : value;
+	}
+
+	/**
+	 * Only the two columns are read, the child entities are neither materialized nor cached.
+	 */
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri){
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_REFERENCES_BY_PARENT_QUERY));
+		query.setParameter("parentUri", parentUri);
+		return toReferences(query);
+	}
+
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_REFERENCES_BY_PARENT_AND_TYPE_QUERY));
+		query.setParameter("parentUri", parentUri);
+		query.setParameter("resourceType", resourceType);
+		return toReferences(query);
+	}
+
+	/**
+	 * Builds the references from the (id, uri) rows of a projection query.
+	 * @param query projection query to execute
+	 * @return the references
+	 */
+	private static List<ReferenceToNamedResource> toReferences(Query query){
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = query.getResultList();
+		List<ReferenceToNamedResource> references = new ArrayList<ReferenceToNamedResource>(rows.size());
+		for (Object[] row : rows){
+			ReferenceToNamedResource reference = new ReferenceToNamedResource();
+			reference.setId((String) row[0]);
+			reference.setValue((String) row[1]);
+			references.add(reference);
+		}
+		return references;
+	}
+
+	/**
+	 * Unlike a plain prefix match, siblings sharing the same prefix (app1 and app10)
+	 * are not matched.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> findSubtree(DBEntityManager em, String tableName, String uri){
+		if (uri == null || uri.isEmpty()){
+			return jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_ALL_QUERY)).getResultList();
+		}
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_SUBTREE_QUERY));
+		query.setParameter("uri", uri);
+		query.setParameter("uriPrefix", escapeLike(uri) + "/%");
+		return query.getResultList();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> findSubtreeUris(DBEntityManager em, String tableName, String uri, String after, int maxResults){
+		Query query;
+		if (uri == null || uri.isEmpty()){
+			query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_URIS_QUERY));
+		} else {
+			query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.FIND_SUBTREE_URIS_QUERY));
+			query.setParameter("uri", uri);
+			query.setParameter("uriPrefix", escapeLike(uri) + "/%");
+		}
+		query.setParameter("after", after == null ? "" : after);
+		query.setMaxResults(maxResults);
+		return query.getResultList();
+	}
+
+	/**
+	 * Only the selected columns are read, the resources are neither materialized nor cached.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Object[]> findAttributes(DBEntityManager em, String tableName, String after, int maxResults, String... attributes){
+		StringBuilder request = new StringBuilder("SELECT o.uri");
+		for (String attribute : attributes){
+			request.append(", o.").append(attribute);
+		}
+		request.append(" FROM ").append(tableName).append(" o WHERE o.uri > :after ORDER BY o.uri");
+		Query query = jpa(em).createQuery(request.toString());
+		query.setParameter("after", after == null ? "" : after);
+		query.setMaxResults(maxResults);
+		return query.getResultList();
+	}
+
+	/**
+	 * Uses one set-based DELETE statement per table, instead of loading and removing
+	 * each sub-resource. The deleted entities are not loaded in the persistence context,
+	 * except the ones owning cascaded relations: a DELETE statement would leave their
+	 * permissions, aPoCPaths or channelData rows behind, so they are removed one by one.
+	 */
+	@Override
+	public int deleteDescendants(DBEntityManager em, final String uri){
+		// The cached sub-resources are invalidated now and again after the commit, 
+		// in case a concurrent request reads them in between
+		invalidateCachedDescendants(uri);
+		afterCommit(JpaHelper.getEntityManager(jpa(em)).getUnitOfWork(), new Runnable(){
+			@Override
+			public void run(){
+				invalidateCachedDescendants(uri);
+				ResourceTree.getInstance().removeDescendants(uri);
+				SearchStringIndex.getInstance().removeDescendants(uri);
+				AccessDecisionCache.getInstance().invalidateDescendants(uri);
+			}
+		});
+		String uriPrefix = escapeLike(uri) + "/%";
+		int deleted = 0;
+		List<String> cascadingEntities = Arrays.asList(DBEntities.CASCADING_ENTITY_LIST);
+		for (String entityName : DBEntities.ENTITY_LIST){
+			if (cascadingEntities.contains(entityName)){
+				Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(entityName, DBEntities.FIND_DESCENDANTS_QUERY));
+				query.setParameter("uriPrefix", uriPrefix);
+				for (Object descendant : query.getResultList()){
+					em.remove(descendant);
+					deleted++;
+				}
+			} else {
+				Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(entityName, DBEntities.DELETE_DESCENDANTS_QUERY));
+				query.setParameter("uriPrefix", uriPrefix);
+				deleted += query.executeUpdate();
+			}
+		}
+		for (String entityName : DBEntities.PAYLOAD_ENTITY_LIST){
+			Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(entityName, DBEntities.DELETE_DESCENDANTS_QUERY));
+			query.setParameter("uriPrefix", uriPrefix);
+			query.executeUpdate();
+		}
+		return deleted;
+	}
+
+	/**
+	 * Registers the listeners updating the {@link ResourceTree}, the {@link SearchStringIndex} and
+	 * the {@link AccessDecisionCache} with the resources inserted, updated and deleted by a unit 
+	 * of work, once it is committed.
+	 */
+	private void registerIndexListeners(){
+		Server session = JpaHelper.getServerSession(emf);
+		DescriptorEventAdapter resourceListener = new DescriptorEventAdapter(){
+			@Override
+			public void postInsert(DescriptorEvent event){
+				put(event);
+			}
+
+			@Override
+			public void postUpdate(DescriptorEvent event){
+				put(event);
+			}
+
+			@Override
+			public void postDelete(DescriptorEvent event){
+				final String uri = ((Resource) event.getObject()).getUri();
+				afterCommit(event.getSession(), new Runnable(){
+					@Override
+					public void run(){
+						ResourceTree.getInstance().remove(uri);
+						SearchStringIndex.getInstance().remove(uri);
+						AccessDecisionCache.getInstance().invalidate(uri);
+					}
+				});
+			}
+
+			private void put(DescriptorEvent event){
+				Resource resource = (Resource) event.getObject();
+				final String uri = resource.getUri();
+				final String resourceType = resource.getResourceType();
+				final String accessRightID = resource.getAccessRightID();
+				final boolean indexed = ResourceTree.isIndexed(resource);
+				final SearchStrings searchStrings = new SearchStrings();
+				if (resource.getSearchStrings() != null){
+					searchStrings.getSearchString().addAll(resource.getSearchStrings().getSearchString());
+				}
+				afterCommit(event.getSession(), new Runnable(){
+					@Override
+					public void run(){
+						if (indexed){
+							ResourceTree.getInstance().put(uri, resourceType, accessRightID);
+							AccessDecisionCache.getInstance().invalidate(uri);
+						}
+						SearchStringIndex.getInstance().put(uri, searchStrings);
+					}
+				});
+			}
+		};
+		for (String entityName : DBEntities.ENTITY_LIST){
+			session.getDescriptorForAlias(entityName).getEventManager().addListener(resourceListener);
+		}
+		session.getEventManager().addListener(new SessionEventAdapter(){
+			@Override
+			public void postCommitUnitOfWork(SessionEvent event){
+				List<Runnable> actions = commitActions.remove(event.getSession());
+				if (actions != null){
+					for (Runnable action : actions){
+						action.run();
+					}
+				}
+			}
+
+			@Override
+			public void postReleaseUnitOfWork(SessionEvent event){
+				commitActions.remove(event.getSession());
+			}
+		});
+	}
+
+	@Override
+	public void afterCommit(DBEntityManager em, Runnable action){
+		afterCommit(JpaHelper.getEntityManager(jpa(em)).getUnitOfWork(), action);
+	}
+
+	/**
+	 * Runs an action once a unit of work is committed, nothing is done if it is released 
+	 * without commit.
+	 * @param unitOfWork unit of work of an EntityManager
+	 * @param action action to run
+	 */
+	private void afterCommit(Session unitOfWork, Runnable action){
+		List<Runnable> actions = commitActions.get(unitOfWork);
+		if (actions == null){
+			actions = new ArrayList<Runnable>();
+			commitActions.put(unitOfWork, actions);
+		}
+		actions.add(action);
+	}
+
+	/**
+	 * Invalidates the descendants of a resource held in the shared cache, so that 
+	 * they are read again from the DB.
+	 * @param uri uri of the root of the subtree
+	 */
+	private void invalidateCachedDescendants(String uri){
+		Server session = JpaHelper.getServerSession(emf);
+		String prefix = uri + "/";
+		for (String entityName : DBEntities.CACHED_ENTITY_LIST){
+			Class<?> entityClass = session.getDescriptorForAlias(entityName).getJavaClass();
+			for (Object cached : session.getIdentityMapAccessor().getAllFromIdentityMap(null, entityClass, null, new InMemoryQueryIndirectionPolicy())){
+				if (cached instanceof Resource && ((Resource) cached).getUri() != null 
+						&& ((Resource) cached).getUri().startsWith(prefix)){
+					session.getIdentityMapAccessor().invalidateObject(cached);
+				}
+			}
+		}
+	}
+
+	@Override
+	public int deleteByUri(DBEntityManager em, String tableName, List<String> uris){
+		if (uris.isEmpty()){
+			return 0;
+		}
+		final List<String> deletedUris = new ArrayList<String>(uris);
+		afterCommit(JpaHelper.getEntityManager(jpa(em)).getUnitOfWork(), new Runnable(){
+			@Override
+			public void run(){
+				for (String uri : deletedUris){
+					ResourceTree.getInstance().remove(uri);
+					SearchStringIndex.getInstance().remove(uri);
+					AccessDecisionCache.getInstance().invalidate(uri);
+				}
+			}
+		});
+		Query query = jpa(em).createNamedQuery(DBEntities.getQueryName(tableName, DBEntities.DELETE_BY_URI_QUERY));
+		query.setParameter("uris", uris);
+		return query.executeUpdate();
+	}
+
+	/**
+	 * Returns the JPA entity manager of a unit of work of the engine.
+	 * @param em unit of work created by {@link #createEntityManager()}
+	 * @return JPA entity manager
+	 */
+	private static EntityManager jpa(DBEntityManager em){
+		return em.unwrap(EntityManager.class);
+	}
+
+	/**
+	 * Escapes the LIKE wildcards of a value with '!' ('_' is a valid id character).
+	 * @param value value to escape
+	 * @return escaped value
+	 */
+	private static String escapeLike(String value){
+		return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+	}
+
+	/**
+	 * Returns the statistics of the JDBC connection pools (write and read pools),
+	 * indexed by "pool.statistic" (total, available, inUse, min and max connections).
+	 */
+	@Override
+	public Map<String, Integer> getStatistics(){
+		Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+		if (emf != null && emf.isOpen()){
+			Server session = JpaHelper.getServerSession(emf);
+			addConnectionPoolStatistics(statistics, "write", session.getDefaultConnectionPool());
+			addConnectionPoolStatistics(statistics, "read", session.getReadConnectionPool());
+			statistics.put("cache.hits", cacheHits.get());
+			statistics.put("cache.misses", cacheMisses.get());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Adds the statistics of a connection pool.
+	 * @param statistics map of statistics to fill
+	 * @param name name of the pool in the statistics
+	 * @param pool connection pool
+	 */
+	private static void addConnectionPoolStatistics(Map<String, Integer> statistics, String name, ConnectionPool pool){
+		if (pool == null){
+			return;
+		}
+		int total = pool.getTotalNumberOfConnections();
+		int available = pool.getConnectionsAvailable().size();
+		statistics.put(name + ".total", total);
+		statistics.put(name + ".available", available);
+		statistics.put(name + ".inUse", total - available);
+		statistics.put(name + ".min", pool.getMinNumberOfConnections());
+		statistics.put(name + ".max", pool.getMaxNumberOfConnections());
+	}
+
+}
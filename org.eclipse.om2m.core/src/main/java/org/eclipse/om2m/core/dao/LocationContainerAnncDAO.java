@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.LocationContainerAnnc;
 
 /**
@@ -41,7 +39,7 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
      * @param uri - uri of the {@link LocationContainerAnnc} resource to retrieve
      * @return The requested {@link LocationContainerAnnc} resource otherwise null
      */
-    public LocationContainerAnnc find(String uri, EntityManager em) {
+    public LocationContainerAnnc find(String uri, DBEntityManager em) {
     	// Retrieve the object from DB
     	return em.find(LocationContainerAnnc.class, uri);
     }
@@ -50,7 +48,7 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
      * Deletes the {@link LocationContainerAnnc} resource from the DataBase without validating the transaction
      * @param resource - The {@link LocationContainerAnnc} resource to delete
      */
-    public void delete(LocationContainerAnnc resource, EntityManager em) {
+    public void delete(LocationContainerAnnc resource, DBEntityManager em) {
         // Delete the resource
     	em.remove(resource);
     }
@@ -21,12 +21,11 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.LocationContainer;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
 
 /**
  * Implements CRUD Methods for {@link LocationContainer} resource persistence.
@@ -48,7 +47,7 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
 	 * @param resource
 	 *            - The {@link LocationContainer} resource to create
 	 */
-	public void create(LocationContainer resource, EntityManager em) {
+	public void create(LocationContainer resource, DBEntityManager em) {
 		// Store the created resource
 		em.persist(resource);
 		// ContentInstances
@@ -67,9 +66,9 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
 	 *            - uri of the {@link LocationContainer} resource to retrieve
 	 * @return The requested {@link LocationContainer} resource otherwise null
 	 */
-	public LocationContainer find(String uri, EntityManager em) {
+	public LocationContainer find(String uri, DBEntityManager em) {
 		// Create the query based on the uri constraint
-		LocationContainer result = em.find(LocationContainer.class, uri);
+		LocationContainer result = DBUtil.find(em, LocationContainer.class, uri);
 		// Return null if the resource is not found
 		return result;
 	}
@@ -81,15 +80,20 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
 	 * @param resource
 	 *            - The {@link LocationContainer} resource to delete
 	 */
-	public void delete(LocationContainer resource, EntityManager em) {
-		// Delete subscriptions
-		Subscriptions subscriptions = new Subscriptions();
-		subscriptions.setUri(resource.getSubscriptionsReference());
-		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
-		// delete contentInstances
-		DAOFactory.getContentInstancesDAO().delete(
-				DAOFactory.getContentInstancesDAO().find(
-						resource.getContentInstancesReference(), em), em);
+	public void delete(LocationContainer resource, DBEntityManager em) {
+		if (Constants.DB_BULK_DELETE) {
+			// Delete all the sub-resources with one statement per table
+			DBUtil.deleteDescendants(em, resource.getUri());
+		} else {
+			// Delete subscriptions
+			Subscriptions subscriptions = new Subscriptions();
+			subscriptions.setUri(resource.getSubscriptionsReference());
+			DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
+			// delete contentInstances
+			DAOFactory.getContentInstancesDAO().delete(
+					DAOFactory.getContentInstancesDAO().find(
+							resource.getContentInstancesReference(), true, em), em);
+		}
 		// delete the locationContainer
 		em.remove(resource);
 	}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.M2MPoc;
 
 /**
@@ -41,7 +39,7 @@ public class M2MPocDAO extends DAO<M2MPoc> {
      * @param uri - uri of the {@link M2MPoc} resource to retrieve
      * @return The requested {@link M2MPoc} resource otherwise null
      */
-    public M2MPoc find(String uri, EntityManager em) {
+    public M2MPoc find(String uri, DBEntityManager em) {
     	// Retrieve the object from DB
     	return em.find(M2MPoc.class,uri);
     }
@@ -50,7 +48,7 @@ public class M2MPocDAO extends DAO<M2MPoc> {
      * Deletes the {@link M2MPoc} resource from the DataBase without validating the transaction
      * @param resource - The {@link M2MPoc} resource to delete
      */
-    public void delete(M2MPoc resource, EntityManager em) {
+    public void delete(M2MPoc resource, DBEntityManager em) {
         // Delete the resource
     	em.remove(resource);
     }
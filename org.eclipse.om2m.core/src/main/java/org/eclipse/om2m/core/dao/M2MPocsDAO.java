@@ -23,12 +23,9 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.M2MPoc;
 import org.eclipse.om2m.commons.resource.M2MPocs;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 
 /**
  * Implements CRUD Methods for {@link M2mPocs} collection resource persistence.
@@ -46,7 +43,7 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      * @param resource - The {@link M2MPocs} collection resource to create
      */
 	@Override
-    public void create(M2MPocs resource, EntityManager em) {
+    public void create(M2MPocs resource, DBEntityManager em) {
 		// NOT ALLOWED
     }
 
@@ -55,23 +52,13 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      * @param uri - uri of the {@link M2MPocs} collection resource
      * @return The requested {@link M2MPocs} collection resource otherwise null
      */
-    public M2MPocs find(String uri, EntityManager em) {
+    public M2MPocs find(String uri, DBEntityManager em) {
         M2MPocs m2mPocs = new M2MPocs();
         m2mPocs.setUri(uri);
         m2mPocs.getM2MPocCollection().getNamedReference().clear();
 
         //Find M2MPoc sub-resources and add their references
-        String q = DBUtil.generateLikeRequest(DBEntities.M2MPOC_ENTITY, uri);
-        javax.persistence.Query query = em.createQuery(q);
-        @SuppressWarnings("unchecked")
-        List<M2MPoc> result = query.getResultList();
-
-        for (int i = 0; i < result.size(); i++) {
-        	ReferenceToNamedResource reference = new ReferenceToNamedResource();
-        	reference.setId(result.get(i).getId());
-        	reference.setValue(result.get(i).getUri());
-        	m2mPocs.getM2MPocCollection().getNamedReference().add(reference);
-        }
+        m2mPocs.getM2MPocCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.M2MPOC_ENTITY, uri));
         return m2mPocs;
     }
 
@@ -80,7 +67,7 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      * @param resource - The {@link M2MPocs} the updated resource
      */
     @Override
-    public void update(M2MPocs resource, EntityManager em) {
+    public void update(M2MPocs resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -88,12 +75,9 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      * Deletes the {@link M2MPocs} collection resource from the DataBase without validating the transaction
      * @Param the {@link M2MPocs} collection resource to delete
      */
-    public void delete(M2MPocs resource, EntityManager em) {
+    public void delete(M2MPocs resource, DBEntityManager em) {
         // Delete m2mPocs sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.M2MPOC_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<M2MPoc> result = query.getResultList();
+    	List<M2MPoc> result = DBUtil.findByParent(em, DBEntities.M2MPOC_ENTITY, resource.getUri());
 
         for (M2MPoc m2mPoc : result) {
             DAOFactory.getM2MPocDAO().delete(m2mPoc, em);
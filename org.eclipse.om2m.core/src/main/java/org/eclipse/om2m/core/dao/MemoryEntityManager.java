@@ -0,0 +1,408 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.persistence.RollbackException;
+
+import org.eclipse.om2m.commons.resource.ContentInstancePayload;
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * Unit of work of the {@link MemoryStorageEngine}.
+ * <p>
+ * Like a JPA persistence context, it hands out one instance per uri, copied from the
+ * stored resource so that the controllers may modify it freely. Persisted, removed
+ * and modified resources are written in the storage when the transaction is committed:
+ * a loaded resource is written back only if its persisted state has changed, and only if
+ * no other transaction has replaced or removed it since it was loaded, otherwise the 
+ * transaction is rolled back.
+ * There is no query language, the queries are made with the {@link MemoryStorageEngine} methods.
+ * The {@link ContentInstancePayload}s, which are not resources and are never modified, are 
+ * kept apart: only the new payloads are held until the commit.
+ */
+class MemoryEntityManager implements DBEntityManager {
+
+	/** Storage of the resources */
+	private final MemoryStorageEngine engine;
+
+	/** Resources handed out by this entity manager, indexed by uri */
+	private final Map<String, Resource> managed = new HashMap<String, Resource>();
+
+	/** Stored state of the managed resources when they were loaded, absent for the new resources */
+	private final Map<String, Resource> originals = new HashMap<String, Resource>();
+
+	/** Payloads persisted by this entity manager and not yet committed, indexed by uri */
+	private final Map<String, ContentInstancePayload> payloads = new HashMap<String, ContentInstancePayload>();
+
+	/** Uris of the removed resources */
+	private final Set<String> removed = new HashSet<String>();
+
+	/** Uris of the resources whose descendants are deleted */
+	private final List<String> deletedSubtrees = new ArrayList<String>();
+
+	/** Actions to run once the transaction is committed */
+	private final List<Runnable> commitActions = new ArrayList<Runnable>();
+
+	/** Transaction of the entity manager */
+	private final MemoryTransaction transaction = new MemoryTransaction();
+
+	/** False once the entity manager is closed */
+	private boolean open = true;
+
+	/**
+	 * Creates an entity manager on a memory storage.
+	 * @param engine storage of the resources
+	 */
+	MemoryEntityManager(MemoryStorageEngine engine){
+		this.engine = engine;
+	}
+
+	/**
+	 * Returns the instance of a stored resource managed by this entity manager,
+	 * copying the stored resource the first time.
+	 * @param stored resource of the storage
+	 * @return the managed resource
+	 */
+	Resource manage(Resource stored){
+		Resource resource = managed.get(stored.getUri());
+		if (resource == null){
+			resource = EntityCopier.copy(stored);
+			managed.put(stored.getUri(), resource);
+			originals.put(stored.getUri(), stored);
+		}
+		return resource;
+	}
+
+	/**
+	 * Runs an action once the transaction is committed, nothing is done if it is rolled back.
+	 * @param action action to run after the commit
+	 */
+	void afterCommit(Runnable action){
+		commitActions.add(action);
+	}
+
+	/**
+	 * Returns the managed instance of a resource if it is loaded or created by this entity manager.
+	 * @param uri uri of the resource
+	 * @return the managed resource otherwise null
+	 */
+	Resource getManaged(String uri){
+		return managed.get(uri);
+	}
+
+	/**
+	 * Returns the resources persisted by this entity manager and not yet committed.
+	 * @return the new resources
+	 */
+	List<Resource> getNewResources(){
+		List<Resource> resources = new ArrayList<Resource>();
+		for (Map.Entry<String, Resource> entry : managed.entrySet()){
+			if (!originals.containsKey(entry.getKey())){
+				resources.add(entry.getValue());
+			}
+		}
+		return resources;
+	}
+
+	/**
+	 * Returns the payloads persisted by this entity manager and not yet committed.
+	 * @return the new payloads
+	 */
+	List<ContentInstancePayload> getNewPayloads(){
+		return new ArrayList<ContentInstancePayload>(payloads.values());
+	}
+
+	/**
+	 * Checks if a stored resource is removed by this entity manager.
+	 * @param uri uri of the resource
+	 * @return true if the resource or one of its ancestors is removed
+	 */
+	boolean isDeleted(String uri){
+		if (managed.containsKey(uri) || payloads.containsKey(uri)){
+			return false;
+		}
+		if (removed.contains(uri)){
+			return true;
+		}
+		for (String root : deletedSubtrees){
+			if (uri.startsWith(root + "/")){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Deletes the descendants of a resource when the transaction is committed.
+	 * @param uri uri of the root of the subtree
+	 */
+	void deleteSubtree(String uri){
+		String prefix = uri + "/";
+		for (String key : new ArrayList<String>(managed.keySet())){
+			if (key.startsWith(prefix)){
+				managed.remove(key);
+				originals.remove(key);
+			}
+		}
+		for (String key : new ArrayList<String>(payloads.keySet())){
+			if (key.startsWith(prefix)){
+				payloads.remove(key);
+			}
+		}
+		deletedSubtrees.add(uri);
+	}
+
+	/**
+	 * Checks that the entity manager is open.
+	 */
+	private void checkOpen(){
+		if (!open){
+			throw new IllegalStateException("EntityManager is closed");
+		}
+	}
+
+	/**
+	 * Casts a persisted object to a resource.
+	 * @param entity entity to cast
+	 * @return the resource
+	 */
+	private static Resource toResource(Object entity){
+		if (!(entity instanceof Resource)){
+			throw new IllegalArgumentException("Not a resource entity: " + entity);
+		}
+		return (Resource) entity;
+	}
+
+	@Override
+	public void persist(Object entity) {
+		checkOpen();
+		if (entity instanceof ContentInstancePayload){
+			ContentInstancePayload payload = (ContentInstancePayload) entity;
+			payloads.put(payload.getUri(), payload);
+			return;
+		}
+		Resource resource = toResource(entity);
+		resource.updateIndexedAttributes();
+		managed.put(resource.getUri(), resource);
+		originals.remove(resource.getUri());
+	}
+
+	@Override
+	public void remove(Object entity) {
+		if (entity instanceof ContentInstancePayload){
+			remove(((ContentInstancePayload) entity).getUri());
+			return;
+		}
+		remove(toResource(entity).getUri());
+	}
+
+	/**
+	 * Removes a resource when the transaction is committed.
+	 * @param uri uri of the resource
+	 */
+	void remove(String uri) {
+		checkOpen();
+		managed.remove(uri);
+		originals.remove(uri);
+		payloads.remove(uri);
+		removed.add(uri);
+	}
+
+	@Override
+	public <T> T find(Class<T> entityClass, Object primaryKey) {
+		checkOpen();
+		String uri = (String) primaryKey;
+		if (entityClass == ContentInstancePayload.class){
+			return entityClass.cast(findPayload(uri));
+		}
+		Resource resource = managed.get(uri);
+		if (resource == null){
+			if (isDeleted(uri)){
+				return null;
+			}
+			Resource stored = engine.get(uri);
+			if (stored == null){
+				return null;
+			}
+			resource = manage(stored);
+		}
+		return entityClass.isInstance(resource) ? entityClass.cast(resource) : null;
+	}
+
+	/**
+	 * Returns a copy of a payload, the new payloads are returned as they were persisted.
+	 * @param uri uri of the payload
+	 * @return the payload otherwise null
+	 */
+	private ContentInstancePayload findPayload(String uri){
+		ContentInstancePayload payload = payloads.get(uri);
+		if (payload != null){
+			return payload;
+		}
+		if (isDeleted(uri)){
+			return null;
+		}
+		ContentInstancePayload stored = engine.getPayload(uri);
+		return stored == null ? null : EntityCopier.copy(stored);
+	}
+
+	/**
+	 * Changes are written when the transaction is committed.
+	 */
+	@Override
+	public void flush() {
+		checkOpen();
+	}
+
+	@Override
+	public void clear() {
+		managed.clear();
+		originals.clear();
+		payloads.clear();
+		removed.clear();
+		deletedSubtrees.clear();
+	}
+
+	@Override
+	public void close() {
+		clear();
+		open = false;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public EntityTransaction getTransaction() {
+		return transaction;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> cls) {
+		if (cls.isInstance(this)){
+			return cls.cast(this);
+		}
+		throw new PersistenceException("Cannot unwrap " + cls.getName());
+	}
+
+	/**
+	 * Resource-local transaction writing the changes of the entity manager in the storage.
+	 */
+	private class MemoryTransaction implements EntityTransaction {
+
+		/** True between begin and commit/rollback */
+		private boolean active;
+
+		/** True if the transaction can only be rolled back */
+		private boolean rollbackOnly;
+
+		@Override
+		public void begin() {
+			checkOpen();
+			if (active){
+				throw new IllegalStateException("Transaction is already active");
+			}
+			active = true;
+			rollbackOnly = false;
+		}
+
+		@Override
+		public void commit() {
+			if (!active){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			active = false;
+			if (rollbackOnly){
+				clear();
+				commitActions.clear();
+				throw new RollbackException("Transaction marked as rollbackOnly");
+			}
+			Map<String, Resource> written = new HashMap<String, Resource>();
+			Map<String, Resource> expected = new HashMap<String, Resource>();
+			for (Map.Entry<String, Resource> entry : managed.entrySet()){
+				Resource resource = entry.getValue();
+				Resource original = originals.get(entry.getKey());
+				if (original == null || !EntityCopier.equals(original, resource)){
+					resource.updateIndexedAttributes();
+					written.put(entry.getKey(), EntityCopier.copy(resource));
+					expected.put(entry.getKey(), original);
+				}
+			}
+			try {
+				engine.write(deletedSubtrees, removed, written, expected, payloads);
+			} catch (RollbackException e){
+				clear();
+				commitActions.clear();
+				throw e;
+			}
+			originals.putAll(written);
+			payloads.clear();
+			removed.clear();
+			deletedSubtrees.clear();
+			List<Runnable> actions = new ArrayList<Runnable>(commitActions);
+			commitActions.clear();
+			for (Runnable action : actions){
+				action.run();
+			}
+		}
+
+		@Override
+		public void rollback() {
+			if (!active){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			active = false;
+			clear();
+			commitActions.clear();
+		}
+
+		@Override
+		public void setRollbackOnly() {
+			if (!active){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			rollbackOnly = true;
+		}
+
+		@Override
+		public boolean getRollbackOnly() {
+			return rollbackOnly;
+		}
+
+		@Override
+		public boolean isActive() {
+			return active;
+		}
+
+	}
+
+}
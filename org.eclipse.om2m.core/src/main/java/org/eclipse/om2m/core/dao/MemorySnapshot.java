@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * Snapshot file of the {@link MemoryStorageEngine}.
+ * <p>
+ * The resources are written with the Java serialization. Since the resource classes 
+ * are not serializable, each non serializable object is replaced in the stream by its 
+ * class name and the values of its persisted fields (see {@link EntityCopier}), and 
+ * rebuilt when the file is read.
+ */
+final class MemorySnapshot {
+
+	/** Version of the snapshot file format */
+	private static final int VERSION = 1;
+
+	private MemorySnapshot(){
+		//UTILITY CLASS
+	}
+
+	/**
+	 * Writes resources and payloads in a snapshot file. The resources are written in a temporary 
+	 * file which then replaces the previous snapshot, so that a snapshot is either 
+	 * complete or absent.
+	 * @param file snapshot file
+	 * @param resources resources and payloads to write
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(File file, List<?> resources) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null){
+			parent.mkdirs();
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		ObjectOutputStream out = new SnapshotOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+		try {
+			out.writeInt(VERSION);
+			out.writeInt(resources.size());
+			for (Object resource : resources){
+				out.writeObject(resource);
+				// Resources do not share objects, do not keep them in the stream handles
+				out.reset();
+			}
+		} finally {
+			out.close();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the resources and payloads of a snapshot file.
+	 * @param file snapshot file
+	 * @return the resources and payloads
+	 * @throws IOException if the file cannot be read
+	 */
+	static List<Object> read(File file) throws IOException {
+		ObjectInputStream in = new SnapshotInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+		try {
+			int version = in.readInt();
+			if (version != VERSION){
+				throw new IOException("Unsupported snapshot version " + version);
+			}
+			int size = in.readInt();
+			List<Object> resources = new ArrayList<Object>(size);
+			for (int i = 0; i < size; i++){
+				resources.add(in.readObject());
+			}
+			return resources;
+		} catch (ClassNotFoundException e){
+			throw new IOException(e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Serializable state of a non serializable object: its class and its persisted fields.
+	 */
+	private static class ObjectState implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Name of the class of the object */
+		private final String className;
+
+		/** Names of the persisted fields */
+		private final String[] names;
+
+		/** Values of the persisted fields */
+		private final Object[] values;
+
+		/**
+		 * Captures the state of an object.
+		 * @param object object to capture
+		 */
+		ObjectState(Object object) throws IllegalAccessException {
+			Field[] fields = EntityCopier.getFields(object.getClass());
+			className = object.getClass().getName();
+			names = new String[fields.length];
+			values = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++){
+				names[i] = fields[i].getName();
+				values[i] = fields[i].get(object);
+			}
+		}
+
+		/**
+		 * Rebuilds the object. Fields that no longer exist are ignored.
+		 * @return the object
+		 */
+		Object toObject() throws ReflectiveOperationException {
+			Class<?> clazz = Class.forName(className, false, Resource.class.getClassLoader());
+			Object object = clazz.newInstance();
+			for (Field field : EntityCopier.getFields(clazz)){
+				for (int i = 0; i < names.length; i++){
+					if (names[i].equals(field.getName())){
+						field.set(object, values[i]);
+						break;
+					}
+				}
+			}
+			return object;
+		}
+	}
+
+	/**
+	 * Stream replacing the non serializable objects by their state.
+	 */
+	private static class SnapshotOutputStream extends ObjectOutputStream {
+
+		SnapshotOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj == null || obj instanceof Serializable){
+				return obj;
+			}
+			try {
+				return new ObjectState(obj);
+			} catch (IllegalAccessException e){
+				throw new IOException("Cannot write " + obj.getClass(), e);
+			}
+		}
+	}
+
+	/**
+	 * Stream rebuilding the objects from their state.
+	 */
+	private static class SnapshotInputStream extends ObjectInputStream {
+
+		SnapshotInputStream(InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return super.resolveClass(desc);
+			} catch (ClassNotFoundException e){
+				// Serializable classes of the resources
+				return Class.forName(desc.getName(), false, Resource.class.getClassLoader());
+			}
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof ObjectState){
+				try {
+					return ((ObjectState) obj).toObject();
+				} catch (ReflectiveOperationException e){
+					throw new IOException("Cannot read " + ((ObjectState) obj).className, e);
+				}
+			}
+			return obj;
+		}
+	}
+
+}
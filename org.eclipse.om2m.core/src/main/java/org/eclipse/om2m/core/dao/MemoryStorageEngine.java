@@ -0,0 +1,706 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.persistence.Entity;
+import javax.persistence.RollbackException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.AccessRight;
+import org.eclipse.om2m.commons.resource.AccessRightAnnc;
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.ApplicationAnnc;
+import org.eclipse.om2m.commons.resource.AttachedDevice;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContainerAnnc;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstancePayload;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.ExecInstance;
+import org.eclipse.om2m.commons.resource.Group;
+import org.eclipse.om2m.commons.resource.GroupAnnc;
+import org.eclipse.om2m.commons.resource.LocationContainer;
+import org.eclipse.om2m.commons.resource.LocationContainerAnnc;
+import org.eclipse.om2m.commons.resource.M2MPoc;
+import org.eclipse.om2m.commons.resource.MgmtCmd;
+import org.eclipse.om2m.commons.resource.MgmtObj;
+import org.eclipse.om2m.commons.resource.NotificationChannel;
+import org.eclipse.om2m.commons.resource.Parameters;
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.resource.Scl;
+import org.eclipse.om2m.commons.resource.SclBase;
+import org.eclipse.om2m.commons.resource.Subscription;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * {@link StorageEngine} keeping all the resources in memory, in a concurrent sorted
+ * map indexed by uri, for gateways where durability requirements are relaxed.
+ * <p>
+ * The uri order keeps each subtree in a contiguous range of keys (the descendants of
+ * a uri are between uri + "/" and uri + "0"), so children, subtree queries and subtree
+ * deletions are range scans. The stored resources are never modified: the
+ * {@link MemoryEntityManager} works on copies and replaces them at commit. Commits are
+ * serialized, reads are lock-free and see the committed resources. The 
+ * {@link ContentInstancePayload}s are kept in a second map with the same order.
+ * <p>
+ * If {@link Constants#DB_SNAPSHOT_PERIOD} is positive, the resources are periodically
+ * written to {@link Constants#DB_SNAPSHOT_FILE} (and when the engine is closed), and
+ * the last snapshot is loaded at startup unless the database is reset. The resources
+ * committed after the last snapshot are lost on a crash.
+ */
+public class MemoryStorageEngine implements StorageEngine {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(MemoryStorageEngine.class);
+
+	/** Persisted resource classes */
+	private static final Class<?>[] ENTITY_CLASSES = {
+		AccessRight.class, AccessRightAnnc.class, Application.class, ApplicationAnnc.class,
+		AttachedDevice.class, Container.class, ContainerAnnc.class, ContentInstance.class,
+		ContentInstancePayload.class, ContentInstances.class, ExecInstance.class, Group.class, GroupAnnc.class,
+		LocationContainer.class, LocationContainerAnnc.class, M2MPoc.class, MgmtObj.class,
+		MgmtCmd.class, NotificationChannel.class, Parameters.class, Scl.class,
+		SclBase.class, Subscription.class
+	};
+
+	/** Orders the contentInstances by creation time, then by uri */
+	private static final Comparator<Resource> CREATION_TIME_ORDER = new Comparator<Resource>() {
+		@Override
+		public int compare(Resource r1, Resource r2) {
+			Long t1 = r1.getCreationTimeMillis();
+			Long t2 = r2.getCreationTimeMillis();
+			int c = (t1 == null ? Long.valueOf(Long.MIN_VALUE) : t1).compareTo(t2 == null ? Long.MIN_VALUE : t2);
+			return c != 0 ? c : r1.getUri().compareTo(r2.getUri());
+		}
+	};
+
+	/** Resource classes indexed by entity name */
+	private final Map<String, Class<?>> entityClasses = new HashMap<String, Class<?>>();
+
+	/** Identifier attribute of the referenced resource classes */
+	private final Map<Class<?>, Field> idFields = new HashMap<Class<?>, Field>();
+
+	/** Stored resources indexed by uri */
+	private final ConcurrentSkipListMap<String, Resource> resources = new ConcurrentSkipListMap<String, Resource>();
+
+	/** Stored contentInstance payloads indexed by uri, in the same order as the resources */
+	private final ConcurrentSkipListMap<String, ContentInstancePayload> payloads = new ConcurrentSkipListMap<String, ContentInstancePayload>();
+
+	/** Lock serializing the commits and the snapshots */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/** Number of commits */
+	private final AtomicInteger commits = new AtomicInteger();
+
+	/** Number of snapshots written */
+	private final AtomicInteger snapshots = new AtomicInteger();
+
+	/** Scheduler of the snapshots, null if they are disabled */
+	private ScheduledExecutorService snapshotScheduler;
+
+	@Override
+	public void init(){
+		for (Class<?> entityClass : ENTITY_CLASSES){
+			entityClasses.put(entityClass.getAnnotation(Entity.class).name(), entityClass);
+		}
+		for (String entityName : DBEntities.REFERENCED_ENTITY_LIST){
+			idFields.put(entityClasses.get(entityName), getField(entityClasses.get(entityName), DBEntities.getIdAttribute(entityName)));
+		}
+		if (Constants.DB_SNAPSHOT_PERIOD > 0){
+			if (!Constants.DB_RESET){
+				loadSnapshot();
+			}
+			snapshotScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "MemoryStorageSnapshot");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			snapshotScheduler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					writeSnapshot();
+				}
+			}, Constants.DB_SNAPSHOT_PERIOD, Constants.DB_SNAPSHOT_PERIOD, TimeUnit.SECONDS);
+		}
+		LOGGER.info("Memory storage initialized with " + resources.size() + " resources");
+	}
+
+	@Override
+	public void close(){
+		if (snapshotScheduler != null){
+			snapshotScheduler.shutdown();
+			try {
+				snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			writeSnapshot();
+			snapshotScheduler = null;
+		}
+	}
+
+	@Override
+	public DBEntityManager createEntityManager(){
+		return new MemoryEntityManager(this);
+	}
+
+	/**
+	 * Returns a stored resource. It must not be modified.
+	 * @param uri uri of the resource
+	 * @return the stored resource otherwise null
+	 */
+	Resource get(String uri){
+		return resources.get(uri);
+	}
+
+	/**
+	 * Returns a stored payload. It must not be modified.
+	 * @param uri uri of the payload
+	 * @return the stored payload otherwise null
+	 */
+	ContentInstancePayload getPayload(String uri){
+		return payloads.get(uri);
+	}
+
+	/**
+	 * Writes the changes of a committed transaction.
+	 * @param deletedSubtrees uris of the resources whose descendants are deleted
+	 * @param removed uris of the removed resources and payloads
+	 * @param written new states of the created and modified resources, indexed by uri
+	 * @param expected stored instances from which the written resources were loaded, 
+	 * indexed by uri, null for the created resources
+	 * @param writtenPayloads created payloads, indexed by uri
+	 * @throws RollbackException if a written resource was replaced or removed by another 
+	 * transaction since it was loaded, or if a created resource already exists. Nothing is written.
+	 */
+	void write(Collection<String> deletedSubtrees, Collection<String> removed, Map<String, Resource> written,
+			Map<String, Resource> expected, Map<String, ContentInstancePayload> writtenPayloads){
+		writeLock.lock();
+		try {
+			for (String uri : written.keySet()){
+				Resource original = expected.get(uri);
+				Resource stored = resources.get(uri);
+				if (original != null && stored != original){
+					throw new RollbackException("Resource " + uri + " was modified by another transaction");
+				}
+				if (original == null && stored != null && !removed.contains(uri) && !isDescendant(uri, deletedSubtrees)){
+					throw new RollbackException("Resource " + uri + " already exists");
+				}
+			}
+			for (String uri : deletedSubtrees){
+				descendants(uri).clear();
+				payloads.subMap(uri + "/", uri + "0").clear();
+			}
+			for (String uri : removed){
+				resources.remove(uri);
+				payloads.remove(uri);
+			}
+			resources.putAll(written);
+			payloads.putAll(writtenPayloads);
+			commits.incrementAndGet();
+			ResourceTree tree = ResourceTree.getInstance();
+			SearchStringIndex index = SearchStringIndex.getInstance();
+			AccessDecisionCache decisions = AccessDecisionCache.getInstance();
+			for (String uri : deletedSubtrees){
+				tree.removeDescendants(uri);
+				index.removeDescendants(uri);
+				decisions.invalidateDescendants(uri);
+			}
+			for (String uri : removed){
+				tree.remove(uri);
+				index.remove(uri);
+				decisions.invalidate(uri);
+			}
+			for (Resource resource : written.values()){
+				if (ResourceTree.isIndexed(resource)){
+					tree.put(resource.getUri(), resource.getResourceType(), resource.getAccessRightID());
+					decisions.invalidate(resource.getUri());
+				}
+				index.put(resource.getUri(), resource.getSearchStrings());
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if a uri is below one of the roots of subtrees.
+	 * @param uri uri to check
+	 * @param roots uris of the roots
+	 * @return true if the uri is a descendant of a root
+	 */
+	private static boolean isDescendant(String uri, Collection<String> roots){
+		for (String root : roots){
+			if (uri.startsWith(root + "/")){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the stored descendants of a uri.
+	 * @param uri uri of the root of the subtree
+	 * @return view of the descendants
+	 */
+	private ConcurrentNavigableMap<String, Resource> descendants(String uri){
+		return resources.subMap(uri + "/", uri + "0");
+	}
+
+	/**
+	 * Returns the stored direct children of a uri. The range of the descendants is
+	 * scanned by skipping the subtree of each child.
+	 * @param parentUri uri of the parent
+	 * @return the children
+	 */
+	private List<Resource> children(String parentUri){
+		String from = parentUri + "/";
+		String to = parentUri + "0";
+		List<Resource> children = new ArrayList<Resource>();
+		Map.Entry<String, Resource> entry = resources.ceilingEntry(from);
+		while (entry != null && entry.getKey().compareTo(to) < 0){
+			int slash = entry.getKey().indexOf('/', from.length());
+			if (slash < 0){
+				children.add(entry.getValue());
+				entry = resources.higherEntry(entry.getKey());
+			} else {
+				entry = resources.ceilingEntry(entry.getKey().substring(0, slash) + "0");
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Selects the visible resources of an entity manager among the stored candidates
+	 * and the resources it has created.
+	 * @param em entity manager of the transaction
+	 * @param candidates stored resources matching the location criteria
+	 * @param tableName table to select
+	 * @param resourceType simple class name of the resources to select, null for all
+	 * @param parentUri parent of the new resources to select, null to use subtreeUri
+	 * @param subtreeUri root of the new resources to select, empty for all
+	 * @param manage false to return the stored resources not loaded by the entity manager 
+	 * instead of managed copies, when they are only read
+	 * @return the selected resources
+	 */
+	private List<Resource> select(DBEntityManager em, Collection<Resource> candidates, String tableName, String resourceType,
+			String parentUri, String subtreeUri, boolean manage){
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		Class<?> entityClass = getEntityClass(tableName);
+		List<Resource> result = new ArrayList<Resource>();
+		Set<String> uris = new HashSet<String>();
+		for (Resource stored : candidates){
+			if (matches(stored, entityClass, resourceType) && !mem.isDeleted(stored.getUri())){
+				Resource resource = mem.getManaged(stored.getUri());
+				if (resource == null){
+					resource = manage ? mem.manage(stored) : stored;
+				}
+				if (matches(resource, entityClass, resourceType)){
+					result.add(resource);
+					uris.add(resource.getUri());
+				}
+			}
+		}
+		for (Resource resource : mem.getNewResources()){
+			String uri = resource.getUri();
+			boolean located = parentUri != null ? parentUri.equals(resource.getParentUri())
+					: subtreeUri.isEmpty() || uri.equals(subtreeUri) || uri.startsWith(subtreeUri + "/");
+			if (located && matches(resource, entityClass, resourceType) && !uris.contains(uri)){
+				result.add(resource);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the type of a resource.
+	 * @param resource resource to check
+	 * @param entityClass class of the table
+	 * @param resourceType simple class name, null for any subclass of the table
+	 * @return true if the resource is of the type
+	 */
+	private static boolean matches(Resource resource, Class<?> entityClass, String resourceType){
+		return entityClass.isInstance(resource)
+				&& (resourceType == null || resourceType.equals(resource.getClass().getSimpleName()));
+	}
+
+	/**
+	 * Returns the resource class of an entity name.
+	 * @param tableName entity name
+	 * @return the resource class
+	 */
+	private Class<?> getEntityClass(String tableName){
+		Class<?> entityClass = entityClasses.get(tableName);
+		if (entityClass == null){
+			throw new IllegalArgumentException("Unknown entity " + tableName);
+		}
+		return entityClass;
+	}
+
+	/**
+	 * Casts a list of resources.
+	 * @param resources resources to cast
+	 * @return the list
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> cast(List<?> resources){
+		return (List<T>) resources;
+	}
+
+	@Override
+	public <T> T find(DBEntityManager em, Class<T> entityClass, String uri){
+		return em.find(entityClass, uri);
+	}
+
+	@Override
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri){
+		return cast(select(em, children(parentUri), tableName, null, parentUri, null, true));
+	}
+
+	@Override
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		return cast(select(em, children(parentUri), tableName, resourceType, parentUri, null, true));
+	}
+
+	@Override
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, boolean descending, int maxResults){
+		// Only the returned contentInstances are copied in the entity manager
+		List<Resource> result = select(em, children(parentUri), tableName, null, parentUri, null, false);
+		Collections.sort(result, descending ? Collections.reverseOrder(CREATION_TIME_ORDER) : CREATION_TIME_ORDER);
+		if (maxResults > 0 && result.size() > maxResults){
+			result = new ArrayList<Resource>(result.subList(0, maxResults));
+		}
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		for (int i = 0; i < result.size(); i++){
+			result.set(i, mem.manage(result.get(i)));
+		}
+		return cast(result);
+	}
+
+	@Override
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, ContentInstanceFilter filter, int firstResult, int maxResults){
+		// Only the selected page is copied in the entity manager
+		List<Resource> result = select(em, children(parentUri), tableName, null, parentUri, null, false);
+		Collections.sort(result, CREATION_TIME_ORDER);
+		result = filter.select(result, firstResult, maxResults);
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		for (int i = 0; i < result.size(); i++){
+			result.set(i, mem.manage(result.get(i)));
+		}
+		return cast(result);
+	}
+
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri){
+		return toReferences(select(em, children(parentUri), tableName, null, parentUri, null, false));
+	}
+
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		return toReferences(select(em, children(parentUri), tableName, resourceType, parentUri, null, false));
+	}
+
+	/**
+	 * Builds the references (id and uri) of resources.
+	 * @param resources referenced resources
+	 * @return the references
+	 */
+	private List<ReferenceToNamedResource> toReferences(List<Resource> resources){
+		List<ReferenceToNamedResource> references = new ArrayList<ReferenceToNamedResource>(resources.size());
+		for (Resource resource : resources){
+			ReferenceToNamedResource reference = new ReferenceToNamedResource();
+			try {
+				reference.setId((String) idFields.get(getIdClass(resource.getClass())).get(resource));
+			} catch (IllegalAccessException e){
+				throw new IllegalStateException(e);
+			}
+			reference.setValue(resource.getUri());
+			references.add(reference);
+		}
+		return references;
+	}
+
+	/**
+	 * Returns the referenced class declaring the id of a resource class.
+	 * @param resourceClass class of the resource
+	 * @return the referenced class
+	 */
+	private Class<?> getIdClass(Class<?> resourceClass){
+		Class<?> c = resourceClass;
+		while (!idFields.containsKey(c)){
+			c = c.getSuperclass();
+		}
+		return c;
+	}
+
+	@Override
+	public <T> List<T> findSubtree(DBEntityManager em, String tableName, String uri){
+		if (getEntityClass(tableName) == ContentInstancePayload.class){
+			return cast(findPayloads(em, uri));
+		}
+		Collection<Resource> candidates;
+		if (uri == null || uri.isEmpty()){
+			candidates = resources.values();
+			uri = "";
+		} else {
+			candidates = new ArrayList<Resource>();
+			Resource root = resources.get(uri);
+			if (root != null){
+				candidates.add(root);
+			}
+			candidates.addAll(descendants(uri).values());
+		}
+		return cast(select(em, candidates, tableName, null, null, uri, true));
+	}
+
+	/**
+	 * Selects the visible payloads of an entity manager in a subtree, the stored ones are copied.
+	 * @param em entity manager of the transaction
+	 * @param uri root of the subtree, empty or null for all
+	 * @return the payloads
+	 */
+	private List<ContentInstancePayload> findPayloads(DBEntityManager em, String uri){
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		Map<String, ContentInstancePayload> candidates = payloads;
+		if (uri != null && !uri.isEmpty()){
+			candidates = payloads.subMap(uri + "/", uri + "0");
+		}
+		List<ContentInstancePayload> result = new ArrayList<ContentInstancePayload>();
+		for (ContentInstancePayload stored : candidates.values()){
+			if (!mem.isDeleted(stored.getUri())){
+				result.add(EntityCopier.copy(stored));
+			}
+		}
+		for (ContentInstancePayload payload : mem.getNewPayloads()){
+			if ((uri == null || uri.isEmpty() || payload.getUri().startsWith(uri + "/")) && !candidates.containsKey(payload.getUri())){
+				result.add(payload);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Iterates the sorted stored resources from the uri after which they are retrieved, 
+	 * the resources created by the transaction are not listed.
+	 */
+	@Override
+	public List<String> findSubtreeUris(DBEntityManager em, String tableName, String uri, String after, int maxResults){
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		Class<?> entityClass = getEntityClass(tableName);
+		ConcurrentNavigableMap<String, Resource> candidates = resources;
+		if (uri != null && !uri.isEmpty()){
+			candidates = candidates.subMap(uri, true, uri + "0", false);
+		}
+		if (after != null){
+			candidates = candidates.tailMap(after, false);
+		}
+		List<String> result = new ArrayList<String>();
+		for (Resource stored : candidates.values()){
+			if (result.size() >= maxResults){
+				break;
+			}
+			String storedUri = stored.getUri();
+			if ((uri == null || uri.isEmpty() || storedUri.equals(uri) || storedUri.startsWith(uri + "/")) 
+					&& matches(stored, entityClass, null) && !mem.isDeleted(storedUri)){
+				result.add(storedUri);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Iterates the sorted stored resources from the uri after which they are retrieved, 
+	 * the resources created by the transaction are not listed.
+	 */
+	@Override
+	public List<Object[]> findAttributes(DBEntityManager em, String tableName, String after, int maxResults, String... attributes){
+		MemoryEntityManager mem = em.unwrap(MemoryEntityManager.class);
+		Class<?> entityClass = getEntityClass(tableName);
+		Map<Class<?>, Field[]> fields = new HashMap<Class<?>, Field[]>();
+		List<Object[]> result = new ArrayList<Object[]>();
+		for (Resource stored : resources.tailMap(after == null ? "" : after, false).values()){
+			if (result.size() >= maxResults){
+				break;
+			}
+			if (matches(stored, entityClass, null) && !mem.isDeleted(stored.getUri())){
+				Field[] attributeFields = fields.get(stored.getClass());
+				if (attributeFields == null){
+					attributeFields = new Field[attributes.length];
+					for (int i = 0; i < attributes.length; i++){
+						attributeFields[i] = getField(stored.getClass(), attributes[i]);
+					}
+					fields.put(stored.getClass(), attributeFields);
+				}
+				Object[] row = new Object[attributes.length + 1];
+				row[0] = stored.getUri();
+				try {
+					for (int i = 0; i < attributes.length; i++){
+						row[i + 1] = attributeFields[i].get(stored);
+					}
+				} catch (IllegalAccessException e){
+					throw new IllegalStateException(e);
+				}
+				result.add(row);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The stored descendants are removed when the transaction is committed.
+	 */
+	@Override
+	public int deleteDescendants(DBEntityManager em, String uri){
+		int deleted = descendants(uri).size();
+		em.unwrap(MemoryEntityManager.class).deleteSubtree(uri);
+		return deleted;
+	}
+
+	/**
+	 * The stored resources are removed when the transaction is committed.
+	 */
+	@Override
+	public int deleteByUri(DBEntityManager em, String tableName, List<String> uris){
+		int deleted = 0;
+		for (String uri : uris){
+			if (resources.containsKey(uri) || payloads.containsKey(uri)){
+				deleted++;
+			}
+			em.unwrap(MemoryEntityManager.class).remove(uri);
+		}
+		return deleted;
+	}
+
+	@Override
+	public void afterCommit(DBEntityManager em, Runnable action){
+		em.unwrap(MemoryEntityManager.class).afterCommit(action);
+	}
+
+	@Override
+	public Map<String, Integer> getStatistics(){
+		Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+		statistics.put("resources", resources.size());
+		statistics.put("payloads", payloads.size());
+		statistics.put("commits", commits.get());
+		statistics.put("snapshots", snapshots.get());
+		return statistics;
+	}
+
+	/**
+	 * Returns the accessible field of a class or of its superclasses.
+	 * @param clazz class declaring the field
+	 * @param name name of the field
+	 * @return the field
+	 */
+	private static Field getField(Class<?> clazz, String name){
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()){
+			try {
+				Field field = c.getDeclaredField(name);
+				field.setAccessible(true);
+				return field;
+			} catch (NoSuchFieldException e){
+				// Look in the superclass
+			}
+		}
+		throw new IllegalArgumentException("No field " + name + " in " + clazz);
+	}
+
+	/**
+	 * Writes all the resources and payloads in the snapshot file. The resources of the committed
+	 * transactions are collected under the write lock, then written without blocking
+	 * the commits.
+	 */
+	void writeSnapshot(){
+		List<Object> snapshot;
+		writeLock.lock();
+		try {
+			snapshot = new ArrayList<Object>(resources.values());
+			snapshot.addAll(payloads.values());
+		} finally {
+			writeLock.unlock();
+		}
+		File file = new File(Constants.DB_SNAPSHOT_FILE);
+		long start = System.currentTimeMillis();
+		try {
+			MemorySnapshot.write(file, snapshot);
+			snapshots.incrementAndGet();
+			LOGGER.debug("Snapshot of " + snapshot.size() + " resources written in " + (System.currentTimeMillis() - start) + " ms");
+		} catch (IOException e){
+			LOGGER.error("Error writing the snapshot " + file, e);
+		} catch (RuntimeException e){
+			LOGGER.error("Error writing the snapshot " + file, e);
+		}
+	}
+
+	/**
+	 * Loads the resources of the snapshot file, if it exists.
+	 */
+	private void loadSnapshot(){
+		File file = new File(Constants.DB_SNAPSHOT_FILE);
+		if (!file.exists()){
+			LOGGER.info("No snapshot to load in " + file);
+			return;
+		}
+		try {
+			for (Object entity : MemorySnapshot.read(file)){
+				if (entity instanceof ContentInstancePayload){
+					ContentInstancePayload payload = (ContentInstancePayload) entity;
+					payloads.put(payload.getUri(), payload);
+				} else {
+					Resource resource = (Resource) entity;
+					resources.put(resource.getUri(), resource);
+				}
+			}
+			LOGGER.info("Snapshot of " + resources.size() + " resources and " + payloads.size() + " payloads loaded from " + file);
+		} catch (IOException e){
+			LOGGER.error("Error loading the snapshot " + file, e);
+		}
+	}
+
+}
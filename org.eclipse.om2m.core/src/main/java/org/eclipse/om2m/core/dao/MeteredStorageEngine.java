@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
+
+/**
+ * Storage engine recording the latency of the queries of another engine in the
+ * phase.db histogram of the {@link Metrics}. The units of work are not timed, their
+ * commits are recorded by the {@link UnitOfWork}.
+ */
+final class MeteredStorageEngine implements StorageEngine {
+
+	/** Latencies of the queries */
+	private static final LatencyHistogram LATENCY = Metrics.getInstance().getHistogram("phase.db");
+
+	/** Timed storage engine */
+	private final StorageEngine engine;
+
+	/**
+	 * Creates a metered storage engine.
+	 * @param engine timed storage engine
+	 */
+	MeteredStorageEngine(StorageEngine engine){
+		this.engine = engine;
+	}
+
+	@Override
+	public void init(){
+		engine.init();
+	}
+
+	@Override
+	public void close(){
+		engine.close();
+	}
+
+	@Override
+	public DBEntityManager createEntityManager(){
+		return engine.createEntityManager();
+	}
+
+	@Override
+	public <T> T find(DBEntityManager em, Class<T> entityClass, String uri){
+		long start = System.nanoTime();
+		try {
+			return engine.find(em, entityClass, uri);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri){
+		long start = System.nanoTime();
+		try {
+			return engine.findByParent(em, tableName, parentUri);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public <T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		long start = System.nanoTime();
+		try {
+			return engine.findByParent(em, tableName, parentUri, resourceType);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, boolean descending, int maxResults){
+		long start = System.nanoTime();
+		try {
+			return engine.findByParentOrderByCreationTime(em, tableName, parentUri, descending, maxResults);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public <T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, ContentInstanceFilter filter, int firstResult, int maxResults){
+		long start = System.nanoTime();
+		try {
+			return engine.findByParentOrderByCreationTime(em, tableName, parentUri, filter, firstResult, maxResults);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri){
+		long start = System.nanoTime();
+		try {
+			return engine.findReferences(em, tableName, parentUri);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri, String resourceType){
+		long start = System.nanoTime();
+		try {
+			return engine.findReferences(em, tableName, parentUri, resourceType);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public <T> List<T> findSubtree(DBEntityManager em, String tableName, String uri){
+		long start = System.nanoTime();
+		try {
+			return engine.findSubtree(em, tableName, uri);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<String> findSubtreeUris(DBEntityManager em, String tableName, String uri, String after, int maxResults){
+		long start = System.nanoTime();
+		try {
+			return engine.findSubtreeUris(em, tableName, uri, after, maxResults);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<Object[]> findAttributes(DBEntityManager em, String tableName, String after, int maxResults, String... attributes){
+		long start = System.nanoTime();
+		try {
+			return engine.findAttributes(em, tableName, after, maxResults, attributes);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int deleteDescendants(DBEntityManager em, String uri){
+		long start = System.nanoTime();
+		try {
+			return engine.deleteDescendants(em, uri);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int deleteByUri(DBEntityManager em, String tableName, List<String> uris){
+		long start = System.nanoTime();
+		try {
+			return engine.deleteByUri(em, tableName, uris);
+		} finally {
+			LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void afterCommit(DBEntityManager em, Runnable action){
+		engine.afterCommit(em, action);
+	}
+
+	@Override
+	public Map<String, Integer> getStatistics(){
+		return engine.getStatistics();
+	}
+
+}
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ExecInstances;
 import org.eclipse.om2m.commons.resource.MgmtCmd;
 import org.eclipse.om2m.commons.resource.Subscriptions;
@@ -43,7 +41,7 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
      * @param uri - uri of the {@link MgmtCmd} resource to retrieve
      * @return The requested {@link MgmtCmd} resource otherwise null
      */
-    public MgmtCmd find(String uri, EntityManager em) {
+    public MgmtCmd find(String uri, DBEntityManager em) {
         // Create the query based on the uri constraint
     	MgmtCmd result = em.find(MgmtCmd.class, uri);
         // Return null if the resource is not found
@@ -54,7 +52,7 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
      * Deletes the {@link MgmtCmd} resource from the DataBase without validating the transaction
      * @param resource - The {@link MgmtCmd} resource to delete
      */
-    public void delete(MgmtCmd resource, EntityManager em) {
+    public void delete(MgmtCmd resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
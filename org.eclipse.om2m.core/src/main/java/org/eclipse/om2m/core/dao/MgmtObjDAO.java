@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.MgmtObj;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
@@ -42,7 +40,7 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
      * @param uri - uri of the {@link MgmtObj} resource to retrieve
      * @return The requested {@link MgmtObj} resource otherwise null
      */
-    public MgmtObj find(String uri, EntityManager em) {
+    public MgmtObj find(String uri, DBEntityManager em) {
     	if (uri == null){
     		return null;
     	}
@@ -54,7 +52,7 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
      * Deletes the {@link MgmtObj} resource from the DataBase without validating the transaction
      * @param resource - The {@link MgmtObj} resource to delete
      */
-    public void delete(MgmtObj resource, EntityManager em) {
+    public void delete(MgmtObj resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
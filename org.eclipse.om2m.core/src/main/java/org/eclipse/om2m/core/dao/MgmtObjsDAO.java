@@ -23,13 +23,10 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.MgmtCmd;
 import org.eclipse.om2m.commons.resource.MgmtObj;
 import org.eclipse.om2m.commons.resource.MgmtObjs;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 
@@ -49,7 +46,7 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
      * @param resource - The {@link MgmtObjs} collection resource to create
      */
 	@Override
-    public void create(MgmtObjs resource, EntityManager em) {
+    public void create(MgmtObjs resource, DBEntityManager em) {
 		// NOT ALLOWED
     }
 
@@ -58,7 +55,7 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
      * @param uri - uri of the {@link MgmtObjs} collection resource
      * @return The requested {@link MgmtObjs} collection resource otherwise null
      */
-    public MgmtObjs find(String uri, EntityManager em) {
+    public MgmtObjs find(String uri, DBEntityManager em) {
         MgmtObjs mgmtObjs = new MgmtObjs();
         mgmtObjs.setUri(uri);
         
@@ -67,30 +64,10 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
             mgmtObjs.getMgmtCmdCollection().getNamedReference().clear();
 
             // Find mgmtObj sub-resources and add their references
-            String q = DBUtil.generateLikeRequest(DBEntities.MGMTOBJ_ENTITY, uri);
-        	javax.persistence.Query query = em.createQuery(q);
-        	@SuppressWarnings("unchecked")
-			List<MgmtObj> result = query.getResultList();
-            
-            for (MgmtObj obj : result) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(obj.getId());
-                reference.setValue(obj.getUri());
-                mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
-            }
+            mgmtObjs.getMgmtObjCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.MGMTOBJ_ENTITY, uri));
 
             // Find mgmtCmd sub-resources and add their references
-        	String q2 = DBUtil.generateLikeRequest(DBEntities.MGMTCMD_ENTITY, uri);
-        	javax.persistence.Query query2 = em.createQuery(q2);
-        	@SuppressWarnings("unchecked")
-			List<MgmtCmd> result2 = query2.getResultList();
-
-            for (MgmtCmd cmd : result2) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(cmd.getId());
-                reference.setValue(cmd.getUri());
-                mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
-            }
+            mgmtObjs.getMgmtObjCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.MGMTCMD_ENTITY, uri));
         }
         return mgmtObjs;
     }
@@ -100,7 +77,7 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
      * @param resource - The {@link MgmtObjs} the updated resource
      */
     @Override
-    public void update(MgmtObjs resource, EntityManager em) {
+    public void update(MgmtObjs resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -108,17 +85,14 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
      * Deletes the {@link MgmtObjs} collection resource from the DataBase without validating the transaction
      * @Param the {@link MgmtObjs} collection resource to delete
      */
-    public void delete(MgmtObjs resource, EntityManager em) {
+    public void delete(MgmtObjs resource, DBEntityManager em) {
     	Subscriptions subscriptions = new Subscriptions();
     	subscriptions.setUri(resource.getSubscriptionsReference());
     	
         // Delete subscriptions
         DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
         // Delete mgmtObj sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.MGMTOBJ_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<MgmtObj> result = query.getResultList();
+    	List<MgmtObj> result = DBUtil.findByParent(em, DBEntities.MGMTOBJ_ENTITY, resource.getUri());
 
         for (MgmtObj obj : result) {
         	obj.setSubscriptionsReference(obj.getUri() + Refs.SUBSCRIPTIONS_REF);
@@ -126,10 +100,7 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
         }
 
         // Delete mgmtCmd sub-resource
-    	String q2 = DBUtil.generateLikeRequest(DBEntities.MGMTCMD_ENTITY, resource.getUri());
-    	javax.persistence.Query query2 = em.createQuery(q2);
-    	@SuppressWarnings("unchecked")
-		List<MgmtCmd> result2 = query2.getResultList();
+    	List<MgmtCmd> result2 = DBUtil.findByParent(em, DBEntities.MGMTCMD_ENTITY, resource.getUri());
 
         for (MgmtCmd cmd : result2) {
         	cmd.setExecInstancesReference(cmd.getUri() + Refs.EXECINSTANCES_REF);
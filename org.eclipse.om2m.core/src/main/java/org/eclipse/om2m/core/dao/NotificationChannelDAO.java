@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.NotificationChannel;
 
 /**
@@ -41,7 +39,7 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
      * @param uri - uri of the {@link NotificationChannel} resource to retrieve
      * @return The requested {@link NotificationChannel} resource otherwise null
      */
-    public NotificationChannel find(String uri, EntityManager em) {
+    public NotificationChannel find(String uri, DBEntityManager em) {
     	if (uri == null){
     		return null;
     	}
@@ -52,7 +50,7 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
      * Deletes the {@link NotificationChannel} resource from the DataBase without validating the transaction
      * @param resource - The {@link NotificationChannel} resource to delete
      */
-    public void delete(NotificationChannel resource, EntityManager em) {
+    public void delete(NotificationChannel resource, DBEntityManager em) {
         // Delete the resource
         em.remove(resource);
     }
@@ -23,12 +23,9 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.NotificationChannel;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 
 /**
  * Implements CRUD Methods for {@link NotificationChannels} collection resource persistence.
@@ -46,7 +43,7 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      * @param resource - The {@link NotificationChannels} collection resource to create
      */
 	@Override
-    public void create(NotificationChannels resource, EntityManager em) {
+    public void create(NotificationChannels resource, DBEntityManager em) {
 		// NOT ALLOWED
     }
 
@@ -55,7 +52,7 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      * @param uri - uri of the {@link NotificationChannels} collection resource
      * @return The requested {@link NotificationChannels} collection resource otherwise null
      */
-    public NotificationChannels find(String uri, EntityManager em) {
+    public NotificationChannels find(String uri, DBEntityManager em) {
         NotificationChannels notificationChannels = new NotificationChannels();
         notificationChannels.setUri(uri);
         
@@ -63,17 +60,7 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
         	// Find NotificationChannel sub-resources and add their references
         	notificationChannels.getNotificationChannelCollection().getNamedReference().clear();
 
-        	String q = DBUtil.generateLikeRequest(DBEntities.NOTIFICATION_CHANNEL_ENTITY, uri);
-        	javax.persistence.Query query = em.createQuery(q);
-        	@SuppressWarnings("unchecked")
-    		List<NotificationChannel> result = query.getResultList();
-        	
-            for (NotificationChannel notificationChannel : result) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(notificationChannel.getId());
-                reference.setValue(notificationChannel.getUri());
-                notificationChannels.getNotificationChannelCollection().getNamedReference().add(reference);
-            }
+        	notificationChannels.getNotificationChannelCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.NOTIFICATION_CHANNEL_ENTITY, uri));
         }
         return notificationChannels;
     }
@@ -83,7 +70,7 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      * @param resource - The {@link NotificationChannels} the updated resource
      */
     @Override
-    public void update(NotificationChannels resource, EntityManager em) {
+    public void update(NotificationChannels resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -91,12 +78,9 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      * Deletes the {@link NotificationChannels} collection resource from the DataBase without validating the transaction
      * @param the {@link NotificationChannels} collection resource to delete
      */
-    public void delete(NotificationChannels resource, EntityManager em) {
+    public void delete(NotificationChannels resource, DBEntityManager em) {
     	// Delete sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.NOTIFICATION_CHANNEL_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<NotificationChannel> result = query.getResultList();
+    	List<NotificationChannel> result = DBUtil.findByParent(em, DBEntities.NOTIFICATION_CHANNEL_ENTITY, resource.getUri());
     	
         for (NotificationChannel notificationChannel : result) {
             DAOFactory.getNotificationChannelDAO().delete(notificationChannel, em);
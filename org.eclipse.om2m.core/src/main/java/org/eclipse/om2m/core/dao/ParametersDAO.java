@@ -23,8 +23,6 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.Date;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.MgmtObj;
 import org.eclipse.om2m.commons.resource.Parameters;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
@@ -48,7 +46,7 @@ public class ParametersDAO extends DAO<Parameters> {
      * @param resource - The {@link Parameters} collection resource to create
      */
 	@Override
-    public void create(Parameters resource, EntityManager em) {
+    public void create(Parameters resource, DBEntityManager em) {
         //Set subscriptions
         resource.setSubscriptionsReference(resource.getUri()+ Refs.SUBSCRIPTIONS_REF);
         // Store the created resource
@@ -79,7 +77,7 @@ public class ParametersDAO extends DAO<Parameters> {
      * @param uri - uri of the {@link Parameters} collection resource
      * @return The requested {@link Parameters} collection resource otherwise null
      */
-    public Parameters find(String uri, EntityManager em) {
+    public Parameters find(String uri, DBEntityManager em) {
     	return em.find(Parameters.class,uri);
     }
 
@@ -87,7 +85,7 @@ public class ParametersDAO extends DAO<Parameters> {
      * Deletes the {@link Parameters} collection resource from the DataBase without validating the transaction
      * @Param the {@link Parameters} collection resource to delete
      */
-    public void delete(Parameters resource, EntityManager em) {
+    public void delete(Parameters resource, DBEntityManager em) {
 		// Delete subscriptions
 		Subscriptions subscriptions = new Subscriptions();
 		subscriptions.setUri(resource.getSubscriptionsReference());
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import javax.persistence.EntityTransaction;
+
+/**
+ * Entity manager handed out by a {@link UnitOfWork} to the code running in a request.
+ * <p>
+ * All the handles of a request delegate to the single entity manager of the unit of work,
+ * so they share its persistence context and its transaction. Closing a handle only 
+ * releases it: the persistence context is cleared when the last handle is closed, and the
+ * entity manager is closed at the end of the request. Beginning the transaction while it
+ * is active joins it, a joined handle leaves the commit and the rollback to the handle that
+ * began it.
+ */
+class RequestEntityManager implements DBEntityManager {
+
+	/** Unit of work of the request */
+	private final UnitOfWork unitOfWork;
+
+	/** Entity manager of the unit of work */
+	private final DBEntityManager entityManager;
+
+	/** Transaction seen by this handle */
+	private final RequestTransaction transaction = new RequestTransaction();
+
+	/** False once the handle is closed */
+	private boolean open = true;
+
+	RequestEntityManager(UnitOfWork unitOfWork, DBEntityManager entityManager){
+		this.unitOfWork = unitOfWork;
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Throws an IllegalStateException if the handle is closed.
+	 */
+	private void checkOpen(){
+		if (!open){
+			throw new IllegalStateException("Entity manager is closed");
+		}
+	}
+
+	/**
+	 * Releases the handle, the uncommitted transaction it began is rolled back.
+	 */
+	@Override
+	public void close() {
+		checkOpen();
+		open = false;
+		if (transaction.isActive() && !transaction.joined){
+			transaction.rollback();
+		}
+		unitOfWork.release();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public EntityTransaction getTransaction() {
+		return transaction;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> cls) {
+		if (cls.isInstance(this)){
+			return cls.cast(this);
+		}
+		return entityManager.unwrap(cls);
+	}
+
+	@Override
+	public void persist(Object entity) {
+		checkOpen();
+		entityManager.persist(entity);
+	}
+
+	@Override
+	public void remove(Object entity) {
+		checkOpen();
+		entityManager.remove(entity);
+	}
+
+	@Override
+	public <T> T find(Class<T> entityClass, Object primaryKey) {
+		checkOpen();
+		return entityManager.find(entityClass, primaryKey);
+	}
+
+	@Override
+	public void flush() {
+		checkOpen();
+		entityManager.flush();
+	}
+
+	@Override
+	public void clear() {
+		checkOpen();
+		entityManager.clear();
+	}
+
+	/**
+	 * View of the transaction of the unit of work from one handle.
+	 */
+	private class RequestTransaction implements EntityTransaction {
+
+		/** True between begin and commit/rollback */
+		private boolean begun;
+
+		/** True if the transaction was already active when this handle began it */
+		private boolean joined;
+
+		@Override
+		public void begin() {
+			checkOpen();
+			if (isActive()){
+				throw new IllegalStateException("Transaction is already active");
+			}
+			joined = unitOfWork.isTransactionActive();
+			if (!joined){
+				unitOfWork.beginTransaction();
+			}
+			begun = true;
+		}
+
+		@Override
+		public void commit() {
+			if (!isActive()){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			begun = false;
+			if (!joined){
+				unitOfWork.commitTransaction();
+			}
+		}
+
+		@Override
+		public void rollback() {
+			if (!isActive()){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			begun = false;
+			if (!joined){
+				unitOfWork.rollbackTransaction();
+			}
+		}
+
+		@Override
+		public void setRollbackOnly() {
+			if (!isActive()){
+				throw new IllegalStateException("Transaction is not active");
+			}
+			unitOfWork.setRollbackOnly();
+		}
+
+		@Override
+		public boolean getRollbackOnly() {
+			return isActive() && unitOfWork.getRollbackOnly();
+		}
+
+		@Override
+		public boolean isActive() {
+			return begun && unitOfWork.isTransactionActive();
+		}
+
+	}
+
+}
@@ -21,10 +21,7 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Resource;
-import org.eclipse.om2m.core.router.Patterns;
 
 /**
  * Implements CRUD Methods for resource persistence.
@@ -38,7 +35,7 @@ import org.eclipse.om2m.core.router.Patterns;
 public class ResourceDAO extends DAO<Resource>{
 
     @Override
-    public void create(Resource resource, EntityManager em) {
+    public void create(Resource resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -47,9 +44,9 @@ public class ResourceDAO extends DAO<Resource>{
      * @param uri - uri of the {@link Resource}
      * @return The requested {@link Resource} otherwise null
      */
-    public Resource find(String uri, EntityManager em) {
+    public Resource find(String uri, DBEntityManager em) {
     	@SuppressWarnings("rawtypes")
-		DAO dao = Patterns.getDAO(uri);
+		DAO dao = ResourceTree.getInstance().getDAO(uri);
     	if (dao == null){
     		return null ; 
     	}
@@ -57,12 +54,12 @@ public class ResourceDAO extends DAO<Resource>{
     }
 
     @Override
-    public void update(Resource resource, EntityManager em) {
+    public void update(Resource resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
     @Override
-    public void delete(Resource resource, EntityManager em) {
+    public void delete(Resource resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 }
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Striped locks of the resource subtrees. A uri is mapped to one of
+ * {@link Constants#RESOURCE_LOCK_STRIPES} locks by its hash, so the writers of
+ * unrelated collections mostly take different locks and run concurrently, while
+ * the writers of the same collection are serialized. 
+ * The updates of the {@link org.eclipse.om2m.commons.resource.ContentInstances} counters
+ * are made under the lock of their collection uri. The deletion of a subtree holding
+ * several collections (an application, an scl) cannot take all their locks: it takes
+ * the subtrees lock exclusively instead, which the lockers of the collections share.
+ * It satisfies the singleton pattern.
+ */
+public final class ResourceLocks {
+
+	/** Local instance of the object */
+	private static ResourceLocks locks = new ResourceLocks(Constants.RESOURCE_LOCK_STRIPES);
+
+	/** Locks, the number of stripes is a power of two */
+	private final Lock[] stripes;
+
+	/** Lock shared by the lockers of the collections, held exclusively by the deletions of subtrees */
+	private final ReadWriteLock subtreesLock = new ReentrantReadWriteLock();
+
+	private ResourceLocks(int stripes){
+		int size = 1;
+		while (size < stripes && size < (1 << 16)){
+			size <<= 1;
+		}
+		this.stripes = new Lock[size];
+		for (int i = 0; i < size; i++){
+			this.stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Gets the instance of the locks.
+	 * @return instance of ResourceLocks
+	 */
+	public static ResourceLocks getInstance(){
+		return locks;
+	}
+
+	/**
+	 * Acquires the lock of a uri, the same lock may be shared with other uris.
+	 * The locks must be released with {@link #unlock(List)}.
+	 * @param uri uri of the locked subtree
+	 * @return the acquired locks
+	 */
+	public List<Lock> lock(String uri){
+		return lock(Collections.singletonList(uri));
+	}
+
+	/**
+	 * Acquires the locks of several uris, in the stripe order so that concurrent callers 
+	 * cannot deadlock. The locks must be released with {@link #unlock(List)}.
+	 * @param uris uris of the locked subtrees
+	 * @return the acquired locks
+	 */
+	public List<Lock> lock(Collection<String> uris){
+		TreeSet<Integer> indexes = new TreeSet<Integer>();
+		for (String uri : uris){
+			indexes.add(index(uri));
+		}
+		List<Lock> acquired = new ArrayList<Lock>(indexes.size() + 1);
+		try {
+			subtreesLock.readLock().lock();
+			acquired.add(subtreesLock.readLock());
+			for (int index : indexes){
+				stripes[index].lock();
+				acquired.add(stripes[index]);
+			}
+		} catch (RuntimeException e) {
+			unlock(acquired);
+			throw e;
+		}
+		return acquired;
+	}
+
+	/**
+	 * Acquires the lock of the deletion of a subtree holding several collections: it waits
+	 * until the locks of all the uris are released, and the other lockers wait until it 
+	 * is released with {@link #unlock(List)}.
+	 * @return the acquired locks
+	 */
+	public List<Lock> lockSubtrees(){
+		Lock lock = subtreesLock.writeLock();
+		lock.lock();
+		return Collections.singletonList(lock);
+	}
+
+	/**
+	 * Releases locks acquired by {@link #lock(Collection)} or {@link #lockSubtrees()}, in the reverse order.
+	 * @param acquired the acquired locks
+	 */
+	public void unlock(List<Lock> acquired){
+		for (int i = acquired.size() - 1; i >= 0; i--){
+			acquired.get(i).unlock();
+		}
+	}
+
+	/**
+	 * Returns the stripe of a uri, spreading the high bits of its hash.
+	 */
+	private int index(String uri){
+		int hash = uri.hashCode();
+		hash ^= (hash >>> 16);
+		return hash & (stripes.length - 1);
+	}
+
+}
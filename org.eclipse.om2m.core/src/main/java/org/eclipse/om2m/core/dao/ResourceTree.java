@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.persistence.Entity;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.router.Patterns;
+
+/**
+ * In-memory trie of the uris of the stored resources, one node per uri segment.
+ * The node of a resource holds its type and its accessRightID, the other nodes are
+ * the collections between the resources. The tree is loaded from the storage engine
+ * at startup, then updated by the engine when a transaction is committed, so it only
+ * holds committed resources.
+ * The contentInstances are not indexed: they are numerous, short-lived and reached
+ * through their collection.
+ * The lookups take no lock: the children of the nodes are concurrent maps and their
+ * attributes are volatile, while the updates are serialized by the lock of the tree.
+ * It satisfies the singleton pattern.
+ */
+public final class ResourceTree {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(ResourceTree.class);
+
+	/** Local instance of the object */
+	private static ResourceTree tree = new ResourceTree();
+
+	/** Entities indexed in the tree */
+	private static final Set<String> INDEXED_ENTITIES = new HashSet<String>(Arrays.asList(DBEntities.ENTITY_LIST));
+	static {
+		INDEXED_ENTITIES.removeAll(Arrays.asList(DBEntities.TIME_ORDERED_ENTITY_LIST));
+	}
+
+	/** Number of resources read at once when the tree is loaded */
+	private static final int LOAD_PAGE_SIZE = 1000;
+
+	/** Root node, parent of the sclBase */
+	private final Node root = new Node(null, "");
+
+	/** Lock of the updates, the lookups do not take it */
+	private final Lock lock = new ReentrantLock();
+
+	/** Number of indexed resources */
+	private volatile int resources;
+
+	/** Number of nodes, including the collections */
+	private volatile int nodes;
+
+	private ResourceTree(){
+	}
+
+	/**
+	 * Gets the instance of the tree.
+	 * @return instance of ResourceTree
+	 */
+	public static ResourceTree getInstance(){
+		return tree;
+	}
+
+	/**
+	 * Loads the uris of the stored resources. Only the uris, the types and the accessRightIDs
+	 * are read, by pages of uris.
+	 * @param engine storage engine of the resources
+	 */
+	void load(StorageEngine engine){
+		lock.lock();
+		try {
+			root.children = null;
+			resources = 0;
+			nodes = 0;
+			for (String entityName : INDEXED_ENTITIES){
+				DBEntityManager em = engine.createEntityManager();
+				try {
+					String after = null;
+					List<Object[]> rows;
+					do {
+						rows = engine.findAttributes(em, entityName, after, LOAD_PAGE_SIZE, "resourceType", "accessRightID");
+						for (Object[] row : rows){
+							after = (String) row[0];
+							insert(after, (String) row[1], (String) row[2]);
+						}
+					} while (rows.size() == LOAD_PAGE_SIZE);
+				} finally {
+					em.close();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		LOGGER.info("Resource tree loaded: " + getStatistics());
+	}
+
+	/**
+	 * Checks if an entity is indexed in the tree.
+	 * @param entity persisted entity
+	 * @return true for the resources of the indexed entities
+	 */
+	static boolean isIndexed(Object entity){
+		Entity annotation = entity.getClass().getAnnotation(Entity.class);
+		return entity instanceof Resource && annotation != null && INDEXED_ENTITIES.contains(annotation.name());
+	}
+
+	/**
+	 * Adds a resource or updates its indexed attributes.
+	 * @param uri uri of the committed resource
+	 * @param resourceType simple class name of the resource
+	 * @param accessRightID accessRightID of the resource
+	 */
+	void put(String uri, String resourceType, String accessRightID){
+		lock.lock();
+		try {
+			insert(uri, resourceType, accessRightID);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a resource, its sub-resources are kept.
+	 * @param uri uri of the removed resource
+	 */
+	void remove(String uri){
+		lock.lock();
+		try {
+			Node node = getNode(uri);
+			if (node != null && node.resourceType != null){
+				node.resourceType = null;
+				node.accessRightID = null;
+				node.dao = null;
+				resources--;
+				prune(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all the descendants of a resource, not the resource itself.
+	 * @param uri uri of the root of the removed subtree
+	 */
+	void removeDescendants(String uri){
+		lock.lock();
+		try {
+			Node node = getNode(uri);
+			if (node != null && node.children != null){
+				for (Node child : node.children.values()){
+					detach(child);
+				}
+				node.children = null;
+				prune(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if a resource is stored at a uri.
+	 * @param uri uri of the resource
+	 * @return true if an indexed resource is stored at this uri
+	 */
+	public boolean exists(String uri){
+		Node node = getNode(uri);
+		return node != null && node.resourceType != null;
+	}
+
+	/**
+	 * Returns the type of a stored resource.
+	 * @param uri uri of the resource
+	 * @return simple class name of the resource, null if it is not indexed
+	 */
+	public String getResourceType(String uri){
+		Node node = getNode(uri);
+		return node == null ? null : node.resourceType;
+	}
+
+	/**
+	 * Returns the accessRightID of a stored resource.
+	 * @param uri uri of the resource
+	 * @return accessRightID of the resource, null if it has none or if it is not indexed
+	 */
+	public String getAccessRightID(String uri){
+		Node node = getNode(uri);
+		return node == null ? null : node.accessRightID;
+	}
+
+	/**
+	 * Returns the uri of the nearest resource containing a uri.
+	 * @param uri uri of a resource or of a collection
+	 * @return uri of the nearest indexed ancestor resource, null if there is none
+	 */
+	public String getParentResource(String uri){
+		Node node = getNode(uri);
+		if (node == null){
+			return null;
+		}
+		for (node = node.parent; node != null; node = node.parent){
+			if (node.resourceType != null){
+				return node.getUri();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the direct children of a uri.
+	 * @param uri uri of a resource or of a collection
+	 * @return uris of the child nodes, resources or collections
+	 */
+	public List<String> getChildren(String uri){
+		Node node = getNode(uri);
+		List<String> children = new ArrayList<String>();
+		Map<String, Node> nodeChildren = node == null ? null : node.children;
+		if (nodeChildren != null){
+			for (Node child : nodeChildren.values()){
+				children.add(child.getUri());
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Returns the DAO of a uri. The DAO of an indexed resource is resolved once
+	 * with {@link Patterns#getDAO(String)}, then kept in its node.
+	 * @param uri uri of the resource
+	 * @return the DAO of the resource, null for a collection
+	 */
+	@SuppressWarnings("rawtypes")
+	DAO getDAO(String uri){
+		Node node = getNode(uri);
+		if (node != null && node.resourceType != null){
+			if (node.dao == null){
+				node.dao = Patterns.getDAO(uri);
+			}
+			return node.dao;
+		}
+		return Patterns.getDAO(uri);
+	}
+
+	/**
+	 * Returns the statistics of the tree.
+	 * @return numbers of indexed resources and of nodes
+	 */
+	public Map<String, Integer> getStatistics(){
+		Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+		statistics.put("resources", resources);
+		statistics.put("nodes", nodes);
+		return statistics;
+	}
+
+	/**
+	 * Adds or updates a resource node, the missing ancestors are created as collection nodes.
+	 * Must be called with the lock.
+	 */
+	private void insert(String uri, String resourceType, String accessRightID){
+		if (uri == null){
+			return;
+		}
+		Node node = root;
+		int start = 0;
+		while (start <= uri.length()){
+			int end = uri.indexOf('/', start);
+			if (end < 0){
+				end = uri.length();
+			}
+			if (end > start){
+				String name = uri.substring(start, end);
+				Node child = node.children == null ? null : node.children.get(name);
+				if (child == null){
+					child = new Node(node, name);
+					if (node.children == null){
+						// The updates are serialized, one segment is enough
+						node.children = new ConcurrentHashMap<String, Node>(4, 0.75f, 1);
+					}
+					node.children.put(name, child);
+					nodes++;
+				}
+				node = child;
+			}
+			start = end + 1;
+		}
+		if (node.resourceType == null){
+			resources++;
+		}
+		// The accessRightID is set first, the lookups see a resource with its accessRightID
+		node.accessRightID = accessRightID;
+		node.resourceType = resourceType == null ? "" : resourceType;
+	}
+
+	/**
+	 * Returns the node of a uri.
+	 * @param uri uri of the node
+	 * @return the node otherwise null
+	 */
+	private Node getNode(String uri){
+		if (uri == null){
+			return null;
+		}
+		Node node = root;
+		int start = 0;
+		while (node != null && start <= uri.length()){
+			int end = uri.indexOf('/', start);
+			if (end < 0){
+				end = uri.length();
+			}
+			if (end > start){
+				Map<String, Node> children = node.children;
+				node = children == null ? null : children.get(uri.substring(start, end));
+			}
+			start = end + 1;
+		}
+		return node == root ? null : node;
+	}
+
+	/**
+	 * Updates the counters for a removed subtree. Must be called with the lock.
+	 * @param node root of the removed subtree
+	 */
+	private void detach(Node node){
+		nodes--;
+		if (node.resourceType != null){
+			resources--;
+		}
+		if (node.children != null){
+			for (Node child : node.children.values()){
+				detach(child);
+			}
+		}
+	}
+
+	/**
+	 * Removes a node and its ancestors while they are neither resources nor parents.
+	 * Must be called with the lock.
+	 * @param node node to prune
+	 */
+	private void prune(Node node){
+		while (node != root && node.resourceType == null && (node.children == null || node.children.isEmpty())){
+			node.parent.children.remove(node.name);
+			nodes--;
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Node of the tree, for one uri segment.
+	 */
+	private static final class Node {
+
+		/** Parent node, null for the root */
+		private final Node parent;
+
+		/** Uri segment of the node */
+		private final String name;
+
+		/** Child nodes indexed by segment, null if there is none */
+		private volatile Map<String, Node> children;
+
+		/** Simple class name of the resource, null for a collection */
+		private volatile String resourceType;
+
+		/** AccessRightID of the resource */
+		private volatile String accessRightID;
+
+		/** DAO of the resource, resolved on the first lookup */
+		@SuppressWarnings("rawtypes")
+		private volatile DAO dao;
+
+		private Node(Node parent, String name){
+			this.parent = parent;
+			this.name = name;
+		}
+
+		/**
+		 * Rebuilds the uri of the node from its ancestors.
+		 * @return the uri
+		 */
+		private String getUri(){
+			if (parent == null || parent.parent == null){
+				return name;
+			}
+			return parent.getUri() + "/" + name;
+		}
+	}
+
+}
@@ -23,9 +23,6 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.Resources;
@@ -42,7 +39,7 @@ import org.eclipse.om2m.commons.resource.Resources;
 public class ResourcesDAO extends DAO<Resources>{
 
     @Override
-    public void create(Resources resource, EntityManager em) {
+    public void create(Resources resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -51,29 +48,35 @@ public class ResourcesDAO extends DAO<Resources>{
      * @param uri - uri of the {@link Resource} or beginning with
      * @return The requested {@link Resources} otherwise null
      */
-    public Resources find(String uri, EntityManager em) {
+    public Resources find(String uri, DBEntityManager em) {
     	Resources resources = new Resources();
-    	long begFindAll = System.currentTimeMillis();
     	for (String entityName : DBEntities.ENTITY_LIST){
-    		String query = DBUtil.generateLikeRequest(entityName, uri);
-    		Query q = em.createQuery(query);
-    		@SuppressWarnings("unchecked")
-			List<Resource> result = q.getResultList() ;
+    		List<Resource> result = DBUtil.findSubtree(em, entityName, uri);
     		resources.getResources().addAll(result);
     	}
-    	long endFindAll = System.currentTimeMillis();
-    	LOGGER.debug("***************** Time FindAll JPA: " + (endFindAll-begFindAll));
-    	
         return resources;
     }
 
+    /**
+     * Retrieves in uri order the uris of the resources of an entity that are a uri or 
+     * one of its descendants, without loading the resources.
+     * @param uri - uri of the {@link Resource} or beginning with
+     * @param entityName - name of the persisted entity
+     * @param after - uri after which the uris are retrieved, null to start from the first one
+     * @param maxResults - maximum number of uris to retrieve
+     * @return The sorted uris
+     */
+    public List<String> findUris(String uri, String entityName, String after, int maxResults, DBEntityManager em) {
+        return DBUtil.findSubtreeUris(em, entityName, uri, after, maxResults);
+    }
+
     @Override
-    public void update(Resources resource, EntityManager em) {
+    public void update(Resources resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
     @Override
-    public void delete(Resources resource, EntityManager em) {
+    public void delete(Resources resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 }
@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.Applications;
 import org.eclipse.om2m.commons.resource.Containers;
@@ -30,6 +28,7 @@ import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.Scls;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
 
 /**
  * Implements CRUD Methods for {@link SclBase} resource persistence.
@@ -51,9 +50,9 @@ public class SclBaseDAO extends DAO<SclBase> {
 	 *            - uri of the {@link SclBase} resource to retrieve
 	 * @return The requested {@link SclBase} resource otherwise null
 	 */
-	public SclBase find(String uri, EntityManager em) {
+	public SclBase find(String uri, DBEntityManager em) {
 		// Retrieve the resource from the DB
-		return em.find(SclBase.class, uri);
+		return DBUtil.find(em, SclBase.class, uri);
 	}
 
 	/**
@@ -63,32 +62,36 @@ public class SclBaseDAO extends DAO<SclBase> {
 	 * @param resource
 	 *            - The {@link SclBase} resource to delete
 	 */
-	public void delete(SclBase resource, EntityManager em) {		
-		// Delete scls
-		Scls scls = new Scls();
-		scls.setUri(resource.getSclsReference());
-		DAOFactory.getSclsDAO().delete(scls, em);
-		// Delete applications
-		Applications applications = new Applications();
-		applications.setUri(resource.getApplicationsReference());
-		DAOFactory.getApplicationsDAO().delete(applications, em);
-		// Delete accessRights
-		AccessRights accessRights = new AccessRights();
-		accessRights.setUri(resource.getAccessRightsReference());
-		DAOFactory.getAccessRightsDAO().delete(accessRights, em);
-		// Delete groups
-		Groups groups = new Groups();
-		groups.setUri(resource.getGroupsReference());
-		DAOFactory.getGroupsDAO().delete(groups, em);
-		// Delete containers
-		Containers containers = new Containers();
-		containers.setUri(resource.getContainersReference());
-		DAOFactory.getContainersDAO().delete(containers, em);
-		// Delete subscriptions
-		Subscriptions subscriptions = new Subscriptions();
-		subscriptions.setUri(resource.getSubscriptionsReference());
-		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
-		 
+	public void delete(SclBase resource, DBEntityManager em) {		
+		if (Constants.DB_BULK_DELETE) {
+			// Delete all the sub-resources with one statement per table
+			DBUtil.deleteDescendants(em, resource.getUri());
+		} else {
+			// Delete scls
+			Scls scls = new Scls();
+			scls.setUri(resource.getSclsReference());
+			DAOFactory.getSclsDAO().delete(scls, em);
+			// Delete applications
+			Applications applications = new Applications();
+			applications.setUri(resource.getApplicationsReference());
+			DAOFactory.getApplicationsDAO().delete(applications, em);
+			// Delete accessRights
+			AccessRights accessRights = new AccessRights();
+			accessRights.setUri(resource.getAccessRightsReference());
+			DAOFactory.getAccessRightsDAO().delete(accessRights, em);
+			// Delete groups
+			Groups groups = new Groups();
+			groups.setUri(resource.getGroupsReference());
+			DAOFactory.getGroupsDAO().delete(groups, em);
+			// Delete containers
+			Containers containers = new Containers();
+			containers.setUri(resource.getContainersReference());
+			DAOFactory.getContainersDAO().delete(containers, em);
+			// Delete subscriptions
+			Subscriptions subscriptions = new Subscriptions();
+			subscriptions.setUri(resource.getSubscriptionsReference());
+			DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
+		}
 		// Delete the resource
 		em.remove(resource);
 	}
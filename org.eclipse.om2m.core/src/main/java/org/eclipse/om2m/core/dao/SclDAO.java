@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.Applications;
 import org.eclipse.om2m.commons.resource.AttachedDevices;
@@ -31,6 +29,7 @@ import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.resource.Scl;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
 
 /**
  * Implements CRUD Methods for {@link Scl} resource persistence.
@@ -48,7 +47,7 @@ public class SclDAO extends DAO<Scl> {
      * @param uri - uri of the {@link Scl} resource to retrieve
      * @return The requested {@link Scl} resource otherwise null
      */
-    public Scl find(String uri, EntityManager em) {
+    public Scl find(String uri, DBEntityManager em) {
     	// Return the resource from DB
         return em.find(Scl.class,uri);
     }
@@ -57,36 +56,40 @@ public class SclDAO extends DAO<Scl> {
      * Deletes the {@link Scl} resource from the DataBase without validating the transaction
      * @param resource - The {@link Scl} resource to delete
      */
-    public void delete(Scl resource, EntityManager em) {
-		// Delete notificationsChannels
-		NotificationChannels notificationChannels = new NotificationChannels();
-		notificationChannels.setUri(resource.getNotificationChannelsReference());
-		DAOFactory.getNotificationChannelsDAO().delete(notificationChannels, em);
-		// Delete accessRights
-		AccessRights accessRights = new AccessRights();
-		accessRights.setUri(resource.getAccessRightsReference());
-		DAOFactory.getAccessRightsDAO().delete(accessRights, em);
-		// Delete containers
-		Containers containers = new Containers();
-		containers.setUri(resource.getContainersReference());
-		DAOFactory.getContainersDAO().delete(containers, em);
-		// Delete groups
-		Groups groups = new Groups();
-		groups.setUri(resource.getGroupsReference());
-		DAOFactory.getGroupsDAO().delete(groups, em);
-		// Delete subscriptions
-		Subscriptions subscriptions = new Subscriptions();
-		subscriptions.setUri(resource.getSubscriptionsReference());
-		DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
-        // Delete attachedDevices
-        AttachedDevices attachedDevices = new AttachedDevices();
-        attachedDevices.setUri(resource.getAttachedDevicesReference());
-        DAOFactory.getAttachedDevicesDAO().delete(attachedDevices, em);
-        // Delete applications
-        Applications applications = new Applications();
-        applications.setUri(resource.getApplicationsReference());
-        DAOFactory.getApplicationsDAO().delete(applications, em);
-
+    public void delete(Scl resource, DBEntityManager em) {
+        if (Constants.DB_BULK_DELETE) {
+            // Delete all the sub-resources with one statement per table
+            DBUtil.deleteDescendants(em, resource.getUri());
+        } else {
+            // Delete notificationsChannels
+            NotificationChannels notificationChannels = new NotificationChannels();
+            notificationChannels.setUri(resource.getNotificationChannelsReference());
+            DAOFactory.getNotificationChannelsDAO().delete(notificationChannels, em);
+            // Delete accessRights
+            AccessRights accessRights = new AccessRights();
+            accessRights.setUri(resource.getAccessRightsReference());
+            DAOFactory.getAccessRightsDAO().delete(accessRights, em);
+            // Delete containers
+            Containers containers = new Containers();
+            containers.setUri(resource.getContainersReference());
+            DAOFactory.getContainersDAO().delete(containers, em);
+            // Delete groups
+            Groups groups = new Groups();
+            groups.setUri(resource.getGroupsReference());
+            DAOFactory.getGroupsDAO().delete(groups, em);
+            // Delete subscriptions
+            Subscriptions subscriptions = new Subscriptions();
+            subscriptions.setUri(resource.getSubscriptionsReference());
+            DAOFactory.getSubscriptionsDAO().delete(subscriptions, em);
+            // Delete attachedDevices
+            AttachedDevices attachedDevices = new AttachedDevices();
+            attachedDevices.setUri(resource.getAttachedDevicesReference());
+            DAOFactory.getAttachedDevicesDAO().delete(attachedDevices, em);
+            // Delete applications
+            Applications applications = new Applications();
+            applications.setUri(resource.getApplicationsReference());
+            DAOFactory.getApplicationsDAO().delete(applications, em);
+        }
         // Delete the resource
     	em.remove(resource);
     }
@@ -23,11 +23,8 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
 import org.eclipse.om2m.commons.resource.MgmtObjs;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.resource.Scl;
 import org.eclipse.om2m.commons.resource.Scls;
@@ -49,7 +46,7 @@ public class SclsDAO extends DAO<Scls>{
      * @param resource - The {@link Scls} collection resource to create
      */
 	@Override
-    public void create(Scls resource, EntityManager em) {
+    public void create(Scls resource, DBEntityManager em) {
 		// NOT ALLOWED
     }
 
@@ -58,22 +55,13 @@ public class SclsDAO extends DAO<Scls>{
      * @param uri - uri of the {@link Scls} collection resource
      * @return The requested {@link Scls} collection resource otherwise null
      */
-    public Scls find(String uri, EntityManager em){
+    public Scls find(String uri, DBEntityManager em){
     	Scls scls = new Scls();
     	scls.setUri(uri);
 
     	scls.getSclCollection().getNamedReference().clear();
 
-    	String q = DBUtil.generateLikeRequest(DBEntities.SCL_ENTITY, uri);
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-    	List<Scl> result = query.getResultList();
-    	for (Scl s : result){
-    		ReferenceToNamedResource ref = new ReferenceToNamedResource();
-    		ref.setId(s.getSclId());
-    		ref.setValue(s.getUri());
-    		scls.getSclCollection().getNamedReference().add(ref);
-    	}
+    	scls.getSclCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.SCL_ENTITY, uri));
 
         return scls;
     }
@@ -83,7 +71,7 @@ public class SclsDAO extends DAO<Scls>{
      * @param resource - The {@link Scls} the updated resource
      */
     @Override
-    public void update(Scls resource, EntityManager em) {
+    public void update(Scls resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -91,7 +79,7 @@ public class SclsDAO extends DAO<Scls>{
      * Deletes the {@link Scls} collection resource from the DataBase without validating the transaction
      * @Param the {@link Scls} collection resource to delete
      */
-    public void delete(Scls resource, EntityManager em) {
+    public void delete(Scls resource, DBEntityManager em) {
     	Subscriptions subscriptions = new Subscriptions();
     	subscriptions.setUri(resource.getSubscriptionsReference());
     	
@@ -105,10 +93,7 @@ public class SclsDAO extends DAO<Scls>{
         DAOFactory.getMgmtObjsDAO().delete(mgmtObjs, em);
 
         // Delete scl sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.SCL_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<Scl> result = query.getResultList();
+    	List<Scl> result = DBUtil.findByParent(em, DBEntities.SCL_ENTITY, resource.getUri());
     	for (Scl s : result){
     		s.setContainersReference(s.getUri()+Refs.CONTAINERS_REF);
     		s.setGroupsReference(s.getUri()+Refs.GROUPS_REF);
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+
+/**
+ * In-memory inverted index of the searchStrings of the stored resources: each
+ * lower-cased searchString is mapped to the sorted uris of the resources holding it.
+ * It is loaded at startup, then updated by the storage engines when a transaction
+ * is committed and by the {@link ContentInstanceStore} when it writes, so a discovery
+ * intersects the uri lists of its searchStrings instead of loading every resource.
+ * Only the resources having searchStrings are indexed.
+ * It satisfies the singleton pattern.
+ */
+public final class SearchStringIndex {
+
+	/** Logger */
+	private static final Log LOGGER = LogFactory.getLog(SearchStringIndex.class);
+
+	/** Local instance of the object */
+	private static SearchStringIndex index = new SearchStringIndex();
+
+	/** Number of resources read at once when the index is loaded */
+	private static final int LOAD_PAGE_SIZE = 1000;
+
+	/** Lower-cased searchStrings of the indexed resources, indexed by uri */
+	private final NavigableMap<String, List<String>> searchStringsByUri = new TreeMap<String, List<String>>();
+
+	/** Sorted uris of the resources, indexed by lower-cased searchString */
+	private final Map<String, NavigableSet<String>> urisBySearchString = new HashMap<String, NavigableSet<String>>();
+
+	/** Lock of the index: many readers or one writer */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private SearchStringIndex(){
+	}
+
+	/**
+	 * Gets the instance of the index.
+	 * @return instance of SearchStringIndex
+	 */
+	public static SearchStringIndex getInstance(){
+		return index;
+	}
+
+	/**
+	 * Loads the searchStrings of the stored resources, the {@link ContentInstanceStore}
+	 * must be initialized first. Only the uris and the searchStrings are read, by pages
+	 * of uris, and the contentInstances of the store one collection at a time.
+	 * @param engine storage engine of the resources
+	 */
+	void load(StorageEngine engine){
+		lock.writeLock().lock();
+		try {
+			searchStringsByUri.clear();
+			urisBySearchString.clear();
+			for (String entityName : DBEntities.ENTITY_LIST){
+				if (DBUtil.isSegmentStored(entityName)){
+					ContentInstanceStore store = ContentInstanceStore.getInstance();
+					for (String collectionUri : store.getCollectionUris()){
+						for (ContentInstance contentInstance : store.findAll(collectionUri)){
+							insert(contentInstance.getUri(), normalize(contentInstance.getSearchStrings()));
+						}
+					}
+					continue;
+				}
+				DBEntityManager em = engine.createEntityManager();
+				try {
+					String after = null;
+					List<Object[]> rows;
+					do {
+						rows = engine.findAttributes(em, entityName, after, LOAD_PAGE_SIZE, "searchStrings");
+						for (Object[] row : rows){
+							after = (String) row[0];
+							insert(after, normalize((SearchStrings) row[1]));
+						}
+					} while (rows.size() == LOAD_PAGE_SIZE);
+				} finally {
+					em.close();
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		LOGGER.info("SearchString index loaded: " + getStatistics());
+	}
+
+	/**
+	 * Indexes the searchStrings of a resource, replacing the previous ones.
+	 * @param uri uri of the resource
+	 * @param searchStrings searchStrings of the resource, null if it has none
+	 */
+	void put(String uri, SearchStrings searchStrings){
+		List<String> normalized = normalize(searchStrings);
+		lock.writeLock().lock();
+		try {
+			delete(uri);
+			insert(uri, normalized);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a resource from the index.
+	 * @param uri uri of the resource
+	 */
+	void remove(String uri){
+		lock.writeLock().lock();
+		try {
+			delete(uri);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes all the descendants of a resource from the index, not the resource itself.
+	 * @param uri uri of the root of the removed subtree
+	 */
+	void removeDescendants(String uri){
+		lock.writeLock().lock();
+		try {
+			List<String> descendants = new ArrayList<String>(searchStringsByUri.subMap(uri + "/", uri + "0").keySet());
+			for (String descendant : descendants){
+				delete(descendant);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the resources holding all the searchStrings, case insensitive.
+	 * @param uriPrefix uri of the root of the searched subtree, empty for all the resources
+	 * @param searchStrings searchStrings to match, must not be empty
+	 * @return sorted uris of the matching resources
+	 */
+	public List<String> find(String uriPrefix, Collection<String> searchStrings){
+		return find(uriPrefix, searchStrings, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Finds the first resources holding all the searchStrings after a uri, case insensitive.
+	 * @param uriPrefix uri of the root of the searched subtree, empty for all the resources
+	 * @param searchStrings searchStrings to match, must not be empty
+	 * @param after uri after which the resources are searched, null to start from the first one
+	 * @param maxResults maximum number of uris to retrieve
+	 * @return sorted uris of the matching resources
+	 */
+	public List<String> find(String uriPrefix, Collection<String> searchStrings, String after, int maxResults){
+		Set<String> required = new LinkedHashSet<String>();
+		for (String searchString : searchStrings){
+			required.add(searchString.toLowerCase());
+		}
+		List<String> result = new ArrayList<String>();
+		lock.readLock().lock();
+		try {
+			// Scans the shortest uri list and checks the other ones
+			List<NavigableSet<String>> postings = new ArrayList<NavigableSet<String>>();
+			NavigableSet<String> shortest = null;
+			for (String searchString : required){
+				NavigableSet<String> uris = urisBySearchString.get(searchString);
+				if (uris == null){
+					return result;
+				}
+				postings.add(uris);
+				if (shortest == null || uris.size() < shortest.size()){
+					shortest = uris;
+				}
+			}
+			if (shortest == null){
+				return result;
+			}
+			List<NavigableSet<String>> candidates = new ArrayList<NavigableSet<String>>();
+			if (uriPrefix.isEmpty()){
+				candidates.add(after == null ? shortest : shortest.tailSet(after, false));
+			} else {
+				candidates.add(range(shortest, uriPrefix, uriPrefix, true, after));
+				candidates.add(range(shortest, uriPrefix + "/", uriPrefix + "0", false, after));
+			}
+			for (NavigableSet<String> range : candidates){
+				for (String uri : range){
+					if (result.size() >= maxResults){
+						return result;
+					}
+					boolean matches = true;
+					for (NavigableSet<String> posting : postings){
+						if (posting != shortest && !posting.contains(uri)){
+							matches = false;
+							break;
+						}
+					}
+					if (matches){
+						result.add(uri);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statistics of the index.
+	 * @return numbers of indexed resources and of distinct searchStrings
+	 */
+	public Map<String, Integer> getStatistics(){
+		lock.readLock().lock();
+		try {
+			Map<String, Integer> statistics = new LinkedHashMap<String, Integer>();
+			statistics.put("resources", searchStringsByUri.size());
+			statistics.put("searchStrings", urisBySearchString.size());
+			return statistics;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the uris of a sorted set between two bounds and after a uri.
+	 * @param uris sorted uris
+	 * @param from lowest uri, inclusive
+	 * @param to highest uri
+	 * @param toInclusive true if the highest uri is included
+	 * @param after uri after which the uris are returned, null for no lower bound
+	 * @return view of the uris in the range
+	 */
+	private static NavigableSet<String> range(NavigableSet<String> uris, String from, String to, boolean toInclusive, String after){
+		boolean fromInclusive = true;
+		if (after != null && after.compareTo(from) >= 0){
+			from = after;
+			fromInclusive = false;
+		}
+		int comparison = from.compareTo(to);
+		if (comparison > 0 || (comparison == 0 && !(fromInclusive && toInclusive))){
+			return new TreeSet<String>();
+		}
+		return uris.subSet(from, fromInclusive, to, toInclusive);
+	}
+
+	/**
+	 * Lower-cases and deduplicates searchStrings.
+	 * @param searchStrings searchStrings of a resource
+	 * @return the normalized searchStrings, empty if there is none
+	 */
+	private static List<String> normalize(SearchStrings searchStrings){
+		Set<String> normalized = new TreeSet<String>();
+		if (searchStrings != null){
+			for (String searchString : searchStrings.getSearchString()){
+				if (searchString != null){
+					normalized.add(searchString.toLowerCase());
+				}
+			}
+		}
+		return new ArrayList<String>(normalized);
+	}
+
+	/**
+	 * Indexes normalized searchStrings. Must be called with the write lock.
+	 */
+	private void insert(String uri, List<String> searchStrings){
+		if (uri == null || searchStrings.isEmpty()){
+			return;
+		}
+		searchStringsByUri.put(uri, searchStrings);
+		for (String searchString : searchStrings){
+			NavigableSet<String> uris = urisBySearchString.get(searchString);
+			if (uris == null){
+				uris = new TreeSet<String>();
+				urisBySearchString.put(searchString, uris);
+			}
+			uris.add(uri);
+		}
+	}
+
+	/**
+	 * Removes a resource from the uri lists. Must be called with the write lock.
+	 */
+	private void delete(String uri){
+		List<String> searchStrings = uri == null ? null : searchStringsByUri.remove(uri);
+		if (searchStrings == null){
+			return;
+		}
+		for (String searchString : searchStrings){
+			NavigableSet<String> uris = urisBySearchString.get(searchString);
+			if (uris != null){
+				uris.remove(uri);
+				if (uris.isEmpty()){
+					urisBySearchString.remove(searchString);
+				}
+			}
+		}
+	}
+
+}
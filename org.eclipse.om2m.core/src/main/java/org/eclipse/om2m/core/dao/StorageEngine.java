@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.om2m.commons.resource.DBEntities;
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+
+/**
+ * Storage engine SPI used by the DAOs to persist the resources.
+ * <p>
+ * The {@link DBEntityManager} created by the engine is the unit of work of the
+ * controllers (find, persist, remove and transaction), the other methods are the
+ * queries on the resource tree needed by the DAOs. Tables are identified by the
+ * entity names of {@link DBEntities} and queries are polymorphic, as with JPA.
+ * The engine is selected at startup by {@link DBAccess} from the
+ * org.eclipse.om2m.dbEngine property.
+ *
+ * @author <ul>
+ *         <li>Francois Aissaoui < aissaoui@laas.fr > </li>
+ *         <li>Guillaume Garzone < garzone@laas.fr > </li>
+ *         </ul>
+ */
+public interface StorageEngine {
+
+	/**
+	 * Initializes the storage (database connection, loading of the stored data).
+	 */
+	void init();
+
+	/**
+	 * Closes the storage and releases its resources.
+	 */
+	void close();
+
+	/**
+	 * Creates a new unit of work on the storage.
+	 * @return Entity Manager
+	 */
+	DBEntityManager createEntityManager();
+
+	/**
+	 * Retrieves a resource by its uri, from the shared cache of the engine when it holds it.
+	 * @param em DBEntityManager used for the transaction
+	 * @param entityClass class of the resource
+	 * @param uri uri of the resource
+	 * @return the resource otherwise null
+	 */
+	<T> T find(DBEntityManager em, Class<T> entityClass, String uri);
+
+	/**
+	 * Retrieves the direct children of the specified URI from a specified table.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param parentUri uri of the parent (collection) resource
+	 * @return the children
+	 */
+	<T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri);
+
+	/**
+	 * Retrieves the direct children of the specified URI from a specified table,
+	 * restricted to one resource type.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param resourceType simple class name of the resources to retrieve
+	 * @return the children
+	 */
+	<T> List<T> findByParent(DBEntityManager em, String tableName, String parentUri, String resourceType);
+
+	/**
+	 * Retrieves the direct children of the specified URI from a specified table,
+	 * ordered by creation time.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param descending true to get the newest first
+	 * @param maxResults maximum number of children to retrieve, no limit if lower than 1
+	 * @return the ordered children
+	 */
+	<T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, boolean descending, int maxResults);
+
+	/**
+	 * Retrieves a page of the direct children of the specified URI from a specified table
+	 * matching a filter, ordered by creation time then by uri. The indexed predicates of
+	 * the filter and the page bounds are evaluated by the storage.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#TIME_ORDERED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param filter filter of the children
+	 * @param firstResult number of matching children to skip
+	 * @param maxResults maximum number of children to retrieve, no limit if lower than 1
+	 * @return the ordered children, oldest first
+	 */
+	<T> List<T> findByParentOrderByCreationTime(DBEntityManager em, String tableName, String parentUri, ContentInstanceFilter filter, int firstResult, int maxResults);
+
+	/**
+	 * Retrieves the references (id and uri) of the direct children of the specified URI
+	 * from a specified table, without materializing the children.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#REFERENCED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @return the references of the children
+	 */
+	List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri);
+
+	/**
+	 * Retrieves the references (id and uri) of the direct children of the specified URI
+	 * from a specified table, restricted to one resource type.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select (one of {@link DBEntities#REFERENCED_ENTITY_LIST})
+	 * @param parentUri uri of the parent (collection) resource
+	 * @param resourceType simple class name of the resources to retrieve
+	 * @return the references of the children
+	 */
+	List<ReferenceToNamedResource> findReferences(DBEntityManager em, String tableName, String parentUri, String resourceType);
+
+	/**
+	 * Retrieves the resources of a specified table that are the specified URI or
+	 * one of its descendants. An empty URI selects the whole table.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param uri root uri of the subtree
+	 * @return the resources of the subtree
+	 */
+	<T> List<T> findSubtree(DBEntityManager em, String tableName, String uri);
+
+	/**
+	 * Retrieves in uri order the uris of the resources of a specified table that are the 
+	 * specified URI or one of its descendants, without materializing the resources. 
+	 * An empty URI selects the whole table.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param uri root uri of the subtree
+	 * @param after uri after which the uris are retrieved, null to start from the first one
+	 * @param maxResults maximum number of uris to retrieve
+	 * @return the sorted uris
+	 */
+	List<String> findSubtreeUris(DBEntityManager em, String tableName, String uri, String after, int maxResults);
+
+	/**
+	 * Retrieves in uri order the uris and some persisted attributes of the resources of a 
+	 * specified table, without materializing the resources. The values must not be modified.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table to select
+	 * @param after uri after which the resources are retrieved, null to start from the first one
+	 * @param maxResults maximum number of resources to retrieve
+	 * @param attributes names of the attributes to retrieve, at least one
+	 * @return one row per resource: its uri followed by the values of the attributes
+	 */
+	List<Object[]> findAttributes(DBEntityManager em, String tableName, String after, int maxResults, String... attributes);
+
+	/**
+	 * Deletes all the descendants of the specified URI (not the resource itself) in
+	 * all the tables. The removed sub-resources must not be used afterwards by the caller.
+	 * @param em DBEntityManager used for the transaction
+	 * @param uri uri of the root of the subtree
+	 * @return the number of deleted resources
+	 */
+	int deleteDescendants(DBEntityManager em, String uri);
+
+	/**
+	 * Deletes a list of resources of a table with one statement, without loading them.
+	 * The deleted resources must not be used afterwards by the caller.
+	 * @param em DBEntityManager used for the transaction
+	 * @param tableName table of the resources
+	 * @param uris uris of the resources to delete
+	 * @return the number of deleted resources
+	 */
+	int deleteByUri(DBEntityManager em, String tableName, List<String> uris);
+
+	/**
+	 * Runs an action once the transaction of a unit of work is committed, nothing is done
+	 * if it is rolled back. The actions run in the order they are registered.
+	 * @param em DBEntityManager of the active transaction
+	 * @param action action to run after the commit
+	 */
+	void afterCommit(DBEntityManager em, Runnable action);
+
+	/**
+	 * Returns the statistics of the engine, indexed by statistic name.
+	 * @return statistics of the engine, empty if it is not initialized
+	 */
+	Map<String, Integer> getStatistics();
+
+}
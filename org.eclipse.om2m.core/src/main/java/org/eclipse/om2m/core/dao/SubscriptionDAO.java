@@ -21,8 +21,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.Subscription;
 
 /**
@@ -41,7 +39,7 @@ public class SubscriptionDAO extends DAO<Subscription>{
      * @param uri - uri of the {@link Subscription} resource to retrieve
      * @return The requested {@link Subscription} resource otherwise null
      */
-    public Subscription find(String uri, EntityManager em) {
+    public Subscription find(String uri, DBEntityManager em) {
     	if (uri == null){
     		return null;
     	}
@@ -52,7 +50,7 @@ public class SubscriptionDAO extends DAO<Subscription>{
      * Deletes the {@link Subscription} resource from the DataBase without validating the transaction
      * @param resource - The {@link Subscription} resource to delete
      */
-    public void delete(Subscription resource, EntityManager em) {
+    public void delete(Subscription resource, DBEntityManager em) {
         // Delete the resource
         em.remove(resource);
     }
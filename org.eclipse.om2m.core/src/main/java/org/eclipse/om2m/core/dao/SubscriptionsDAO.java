@@ -23,10 +23,7 @@ package org.eclipse.om2m.core.dao;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.DBEntities;
-import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscription;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
@@ -46,7 +43,7 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      * @param resource - The {@link Subscriptions} collection resource to create
      */
 	@Override
-    public void create(Subscriptions resource, EntityManager em) {
+    public void create(Subscriptions resource, DBEntityManager em) {
 		// NOT ALLOWED
     }
 
@@ -55,23 +52,13 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      * @param uri - uri of the {@link Subscriptions} collection resource
      * @return The requested {@link Subscriptions} collection resource otherwise null
      */
-    public Subscriptions find(String uri, EntityManager em) {
+    public Subscriptions find(String uri, DBEntityManager em) {
     	Subscriptions subscriptions = new Subscriptions();
     	subscriptions.setUri(uri);
     	subscriptions.getSubscriptionCollection().getNamedReference().clear();
 
     	// Find subscription sub-resources and add their references
-    	String q = DBUtil.generateLikeRequest(DBEntities.SUBSCRIPTION_ENTITY, uri);
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-    	List<Subscription> result = query.getResultList();
-
-    	for(Subscription s : result){
-    		ReferenceToNamedResource ref = new ReferenceToNamedResource();
-    		ref.setId(s.getId());
-    		ref.setValue(s.getUri());
-    		subscriptions.getSubscriptionCollection().getNamedReference().add(ref);
-    	}
+    	subscriptions.getSubscriptionCollection().getNamedReference().addAll(DBUtil.findReferences(em, DBEntities.SUBSCRIPTION_ENTITY, uri));
 
     	return subscriptions;
     }
@@ -81,7 +68,7 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      * @param resource - The {@link Subscriptions} the updated resource
      */
     @Override
-    public void update(Subscriptions resource, EntityManager em) {
+    public void update(Subscriptions resource, DBEntityManager em) {
     	// NOT ALLOWED
     }
 
@@ -89,12 +76,9 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      * Deletes the {@link Subscriptions} collection resource from the DataBase without validating the transaction
      * @Param the {@link Subscriptions} collection resource to delete
      */
-    public void delete(Subscriptions resource, EntityManager em){
+    public void delete(Subscriptions resource, DBEntityManager em){
     	// Delete subscription sub-resources
-    	String q = DBUtil.generateLikeRequest(DBEntities.SUBSCRIPTION_ENTITY, resource.getUri());
-    	javax.persistence.Query query = em.createQuery(q);
-    	@SuppressWarnings("unchecked")
-		List<Subscription> result = query.getResultList();
+    	List<Subscription> result = DBUtil.findByParent(em, DBEntities.SUBSCRIPTION_ENTITY, resource.getUri());
     	
     	for (Subscription s : result){
     		DAOFactory.getSubscriptionDAO().delete(s,em);
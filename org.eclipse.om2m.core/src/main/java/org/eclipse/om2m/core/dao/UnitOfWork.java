@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
+
+/**
+ * Request-scoped unit of work: the controllers, the access right checks and the notifier
+ * running in a request share one entity manager, so one persistence context and one 
+ * transaction, instead of creating an entity manager and a transaction each.
+ * <p>
+ * It is bound to the current thread by the router for the duration of a request, and
+ * {@link DBAccess#createEntityManager()} hands out handles on its entity manager while it
+ * is bound. The entity manager is only created when the request uses the storage. 
+ * A read-only request does not begin any transaction: the transaction begun by a handle
+ * is only started in the storage if a handle commits it. The unit of work of a request
+ * made while handling another one is the one of the outer request.
+ * The threads started by a request do not share its unit of work.
+ */
+public final class UnitOfWork {
+
+	/** Unit of work bound to the current thread */
+	private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<UnitOfWork>();
+
+	/** Latencies of the commits */
+	private static final LatencyHistogram COMMIT_LATENCY = Metrics.getInstance().getHistogram("phase.db.commit");
+
+	/** Storage engine creating the entity manager */
+	private final StorageEngine engine;
+
+	/** True if no transaction is started in the storage before a commit */
+	private boolean readOnly;
+
+	/** Number of nested requests sharing the unit of work */
+	private int depth = 1;
+
+	/** Entity manager of the request, null until a handle is needed */
+	private DBEntityManager entityManager;
+
+	/** Number of handles not closed yet */
+	private int handles;
+
+	/** True if a handle began the transaction of a read-only request */
+	private boolean transactionPending;
+
+	private UnitOfWork(StorageEngine engine, boolean readOnly){
+		this.engine = engine;
+		this.readOnly = readOnly;
+	}
+
+	/**
+	 * Binds a unit of work to the current thread, or joins the one already bound.
+	 * Each call must be followed by a call to {@link #end()}.
+	 * @param readOnly true if the request does not write in the storage
+	 * @return the unit of work of the request
+	 */
+	public static UnitOfWork begin(boolean readOnly){
+		UnitOfWork current = CURRENT.get();
+		if (current != null){
+			current.depth++;
+			if (!readOnly && current.readOnly){
+				current.readOnly = false;
+				if (current.transactionPending){
+					current.transactionPending = false;
+					current.entityManager.getTransaction().begin();
+				}
+			}
+			return current;
+		}
+		current = new UnitOfWork(DBAccess.getStorageEngine(), readOnly);
+		CURRENT.set(current);
+		return current;
+	}
+
+	/**
+	 * Ends the unit of work: the uncommitted changes are discarded and the entity manager 
+	 * is closed, then the unit of work is unbound from the current thread. Nothing is done
+	 * at the end of a nested request.
+	 */
+	public void end(){
+		if (--depth > 0){
+			return;
+		}
+		CURRENT.remove();
+		if (entityManager != null){
+			try {
+				if (entityManager.getTransaction().isActive()){
+					entityManager.getTransaction().rollback();
+				}
+			} finally {
+				entityManager.close();
+				entityManager = null;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the unit of work bound to the current thread has an active transaction,
+	 * the entities read through it may then hold uncommitted changes.
+	 * @return true if a transaction is active, false if there is none or no unit of work is bound
+	 */
+	static boolean isCurrentTransactionActive(){
+		UnitOfWork current = CURRENT.get();
+		return current != null && current.entityManager != null && current.isTransactionActive();
+	}
+
+	/**
+	 * Returns a new handle on the entity manager of the unit of work bound to the current thread.
+	 * @return the handle, null if no unit of work is bound
+	 */
+	static DBEntityManager createEntityManager(){
+		UnitOfWork current = CURRENT.get();
+		if (current == null){
+			return null;
+		}
+		if (current.entityManager == null){
+			current.entityManager = current.engine.createEntityManager();
+		}
+		current.handles++;
+		return new RequestEntityManager(current, current.entityManager);
+	}
+
+	/**
+	 * Releases a closed handle. When no handle is left, the uncommitted changes are
+	 * discarded and the persistence context is cleared, as if the entity manager was closed.
+	 */
+	void release(){
+		if (--handles > 0){
+			return;
+		}
+		if (isTransactionActive()){
+			rollbackTransaction();
+		}
+		entityManager.clear();
+	}
+
+	/**
+	 * Checks whether the transaction of the unit of work is active.
+	 * @return true if the transaction is begun and not committed or rolled back
+	 */
+	boolean isTransactionActive(){
+		return transactionPending || entityManager.getTransaction().isActive();
+	}
+
+	/**
+	 * Begins the transaction, only in the storage if the request is not read-only.
+	 */
+	void beginTransaction(){
+		if (readOnly){
+			transactionPending = true;
+		} else {
+			entityManager.getTransaction().begin();
+		}
+	}
+
+	/**
+	 * Commits the transaction, the changes made before it is started in the storage are
+	 * written too.
+	 */
+	void commitTransaction(){
+		transactionPending = false;
+		if (!entityManager.getTransaction().isActive()){
+			entityManager.getTransaction().begin();
+		}
+		long start = System.nanoTime();
+		try {
+			entityManager.getTransaction().commit();
+		} finally {
+			COMMIT_LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Rolls back the transaction, the changes are discarded.
+	 */
+	void rollbackTransaction(){
+		if (transactionPending){
+			transactionPending = false;
+			entityManager.clear();
+		} else {
+			entityManager.getTransaction().rollback();
+		}
+	}
+
+	/**
+	 * Marks the transaction so that it can only be rolled back.
+	 */
+	void setRollbackOnly(){
+		if (!entityManager.getTransaction().isActive()){
+			entityManager.getTransaction().begin();
+			transactionPending = false;
+		}
+		entityManager.getTransaction().setRollbackOnly();
+	}
+
+	/**
+	 * Checks whether the transaction can only be rolled back.
+	 * @return true if the transaction is marked for rollback
+	 */
+	boolean getRollbackOnly(){
+		return entityManager.getTransaction().isActive() && entityManager.getTransaction().getRollbackOnly();
+	}
+
+}
@@ -21,8 +21,6 @@ package org.eclipse.om2m.core.notifier;
 
 import java.util.ArrayList;
 
-import javax.persistence.EntityManager;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.ContentInstance;
@@ -34,10 +32,13 @@ import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.Refs;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.LatencyHistogram;
+import org.eclipse.om2m.commons.utils.Metrics;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 import org.eclipse.om2m.core.redirector.Redirector;
 import org.eclipse.om2m.core.router.Router;
 
@@ -52,6 +53,10 @@ import org.eclipse.om2m.core.router.Router;
 public class Notifier {
     /** Logger */
     private static Log LOGGER = LogFactory.getLog(Notifier.class);
+    /** Latencies of the lookups of the subscribers, the notifications are sent asynchronously */
+    private static final LatencyHistogram LATENCY = Metrics.getInstance().getHistogram("phase.notify");
+    /** Latencies of the notifications sent to the subscribers */
+    private static final LatencyHistogram DELIVERY_LATENCY = Metrics.getInstance().getHistogram("notify.delivery");
 
     /**
      * Finds all resource subscribers and notifies them.
@@ -59,12 +64,12 @@ public class Notifier {
      * @param resource - Notification resource
      */
     public static void notify(StatusCode statusCode, Resource resource) {
+        long start = System.nanoTime();
 
         // Get the subscriptions uri
         String subscriptionsUri = resource.getUri().substring(0, resource.getUri().lastIndexOf("/"))+Refs.SUBSCRIPTIONS_REF;
         // Get the subscriptions collection from data base
-        EntityManager em = DBAccess.createEntityManager();
-        em.getTransaction().begin();
+        DBEntityManager em = DBAccess.createEntityManager();
         Subscriptions subscriptions = DAOFactory.getSubscriptionsDAO().find(subscriptionsUri, em);
 
         if(subscriptions != null) {
@@ -115,13 +120,16 @@ public class Notifier {
                 new Thread() {
                     public void run() {
                         LOGGER.info("Notification Request:\n"+requestIndication);
+                        long start = System.nanoTime();
                         ResponseConfirm responseConfirm = Notifier.notify(requestIndication,contact);
+                        DELIVERY_LATENCY.record(System.nanoTime() - start);
                         LOGGER.info("Notification Response:\n"+responseConfirm);
                     }
                 }.start();
             }
         }
         em.close();
+        LATENCY.record(System.nanoTime() - start);
     }
 
     public static ResponseConfirm notify(RequestIndication requestIndication, String contact){
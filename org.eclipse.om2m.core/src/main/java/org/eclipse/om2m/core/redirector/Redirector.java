@@ -21,8 +21,6 @@ package org.eclipse.om2m.core.redirector;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Refs;
@@ -35,6 +33,7 @@ import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.dao.DBAccess;
+import org.eclipse.om2m.core.dao.DBEntityManager;
 
 /**
  * Re-target the REST request to the Distant SCL registered in the {@link Scls} Collection.
@@ -53,8 +52,7 @@ public class Redirector {
      */
     public ResponseConfirm retarget(RequestIndication requestIndication) {
         // Get scls collection from db
-    	EntityManager em = DBAccess.createEntityManager();
-    	em.getTransaction().begin();
+    	DBEntityManager em = DBAccess.createEntityManager();
         Scls scls = DAOFactory.getSclsDAO().find(Constants.SCL_ID+Refs.SCLS_REF, em);
         
         boolean found = false;
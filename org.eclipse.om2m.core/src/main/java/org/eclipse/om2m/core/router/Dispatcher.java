@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2015 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ *     Guillaume Garzone - Conception, implementation, test and documentation.
+ *     Francois Aissaoui - Conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.controller.APocController;
+import org.eclipse.om2m.core.controller.AccessRightAnncController;
+import org.eclipse.om2m.core.controller.AccessRightController;
+import org.eclipse.om2m.core.controller.AccessRightsController;
+import org.eclipse.om2m.core.controller.ApplicationAnncController;
+import org.eclipse.om2m.core.controller.ApplicationController;
+import org.eclipse.om2m.core.controller.ApplicationsController;
+import org.eclipse.om2m.core.controller.AttachedDeviceController;
+import org.eclipse.om2m.core.controller.AttachedDevicesController;
+import org.eclipse.om2m.core.controller.ContainerAnncController;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ContainersController;
+import org.eclipse.om2m.core.controller.ContentController;
+import org.eclipse.om2m.core.controller.ContentInstanceController;
+import org.eclipse.om2m.core.controller.ContentInstancesController;
+import org.eclipse.om2m.core.controller.Controller;
+import org.eclipse.om2m.core.controller.DiscoveryController;
+import org.eclipse.om2m.core.controller.GroupAnncController;
+import org.eclipse.om2m.core.controller.GroupController;
+import org.eclipse.om2m.core.controller.GroupsController;
+import org.eclipse.om2m.core.controller.M2MPocController;
+import org.eclipse.om2m.core.controller.M2MPocsController;
+import org.eclipse.om2m.core.controller.MembersContentController;
+import org.eclipse.om2m.core.controller.MetricsController;
+import org.eclipse.om2m.core.controller.MgmtObjsController;
+import org.eclipse.om2m.core.controller.NotificationChannelController;
+import org.eclipse.om2m.core.controller.NotificationChannelsController;
+import org.eclipse.om2m.core.controller.SclBaseController;
+import org.eclipse.om2m.core.controller.SclController;
+import org.eclipse.om2m.core.controller.SclsController;
+import org.eclipse.om2m.core.controller.SubscriptionController;
+import org.eclipse.om2m.core.controller.SubscriptionsController;
+import org.eclipse.om2m.core.dao.DAO;
+import org.eclipse.om2m.core.dao.DAOFactory;
+
+/**
+ * Resolves the resource type of a uri in one pass, then its controller and its DAO.
+ * <p>
+ * The uri is split once into segments which walk a static state machine of the
+ * resource types, from the sclBase: a segment is either the name of a child collection,
+ * or an id of a child resource, so the cost is linear in the length of the uri whatever
+ * the number of resource types. It gives the same results as the cascade of {@link Patterns}:
+ * the ids are word characters which do not start with a reserved word of {@link Patterns#idPattern},
+ * the segments are separated by one or more slashes and the uri may end with slashes.
+ * Like these patterns, it does not route the locationContainers, mgmtObjs, mgmtCmds and their
+ * sub-resources: their patterns need a word boundary inside the id and never match.
+ * <p>
+ * The controllers are stateless, one instance of each is shared by all the requests.
+ */
+public final class Dispatcher {
+
+    /** Resource types of the routed uris */
+    enum ResourceType {
+        SCL_BASE, SCLS, SCL, APPLICATIONS, APPLICATION, APPLICATION_ANNC, IPU, CONTAINERS, CONTAINER, CONTAINER_ANNC,
+        CONTENT_INSTANCES, CONTENT_INSTANCE, CONTENT, ACCESS_RIGHTS, ACCESS_RIGHT, ACCESS_RIGHT_ANNC, GROUPS, GROUP,
+        GROUP_ANNC, MEMBERS_CONTENT, DISCOVERY, ATTACHED_DEVICES, ATTACHED_DEVICE, MGMT_OBJS, NOTIFICATION_CHANNELS,
+        NOTIFICATION_CHANNEL, M2M_POCS, M2M_POC, SUBSCRIPTIONS, SUBSCRIPTION, METRICS
+    }
+
+    /** Reserved words of {@link Patterns#idPattern}, an id must not start with one of them */
+    private static final String[] RESERVED_WORDS = {"sclBase", "scls", "scl", "applications", "application", "applicationAnnc",
+        "containers", "container", "content", "subscriptions", "subscription", "groups", "group", "accessRights", "accessRight",
+        "discovery", "mgmtObjs", "mgmtObj", "mgmtCmd", "attahchedDevices", "attachedDevice", "notificationChannels",
+        "notificationChannel", "execInstances", "execInstance", "parameters", "parameter", "m2mPocs", "m2mPoc"};
+
+    /** Suffix of the announced resource ids */
+    private static final String ANNC = "Annc";
+
+    /** Suffixes excluded from the announced ids by the container patterns */
+    private static final String[] LOCATION_SUFFIXES = {"Loc", "LocAnnc"};
+
+    /** Suffixes excluded from the resource ids by the container patterns */
+    private static final String[] CONTAINER_SUFFIXES = {"Annc", "Loc", "LocAnnc"};
+
+    /** Suffixes excluded from the ids of the resources which can be announced */
+    private static final String[] ANNC_SUFFIXES = {"Annc"};
+
+    /** Transitions of each resource type */
+    private static final Map<ResourceType, State> STATES = new EnumMap<ResourceType, State>(ResourceType.class);
+
+    static {
+        for (ResourceType type : ResourceType.values()) {
+            STATES.put(type, new State());
+        }
+        state(ResourceType.SCL_BASE).prefix("discovery", ResourceType.DISCOVERY)
+            .literal("scls", ResourceType.SCLS).literal("applications", ResourceType.APPLICATIONS).literal("containers", ResourceType.CONTAINERS)
+            .literal("accessRights", ResourceType.ACCESS_RIGHTS).literal("groups", ResourceType.GROUPS).literal("subscriptions", ResourceType.SUBSCRIPTIONS)
+            .literal("metrics", ResourceType.METRICS);
+        state(ResourceType.SCLS).id(ResourceType.SCL, null)
+            .literal("mgmtObjs", ResourceType.MGMT_OBJS).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.SCL).literal("applications", ResourceType.APPLICATIONS).literal("containers", ResourceType.CONTAINERS)
+            .literal("accessRights", ResourceType.ACCESS_RIGHTS).literal("groups", ResourceType.GROUPS)
+            .literal("attachedDevices", ResourceType.ATTACHED_DEVICES).literal("mgmtObjs", ResourceType.MGMT_OBJS)
+            .literal("notificationChannels", ResourceType.NOTIFICATION_CHANNELS).literal("m2mPocs", ResourceType.M2M_POCS)
+            .literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.APPLICATIONS).id(ResourceType.APPLICATION, ANNC_SUFFIXES).annc(ResourceType.APPLICATION_ANNC, null)
+            .literal("mgmtObjs", ResourceType.MGMT_OBJS).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.APPLICATION).proxy(ResourceType.IPU).literal("containers", ResourceType.CONTAINERS)
+            .literal("accessRights", ResourceType.ACCESS_RIGHTS).literal("groups", ResourceType.GROUPS)
+            .literal("notificationChannels", ResourceType.NOTIFICATION_CHANNELS).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.APPLICATION_ANNC).literal("containers", ResourceType.CONTAINERS)
+            .literal("accessRights", ResourceType.ACCESS_RIGHTS).literal("groups", ResourceType.GROUPS);
+        state(ResourceType.CONTAINERS).id(ResourceType.CONTAINER, CONTAINER_SUFFIXES).annc(ResourceType.CONTAINER_ANNC, LOCATION_SUFFIXES)
+            .literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.CONTAINER).literal("contentInstances", ResourceType.CONTENT_INSTANCES).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.CONTENT_INSTANCES).id(ResourceType.CONTENT_INSTANCE, null).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.CONTENT_INSTANCE).literal("content", ResourceType.CONTENT);
+        state(ResourceType.ACCESS_RIGHTS).id(ResourceType.ACCESS_RIGHT, ANNC_SUFFIXES).annc(ResourceType.ACCESS_RIGHT_ANNC, null)
+            .literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.ACCESS_RIGHT).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.GROUPS).id(ResourceType.GROUP, ANNC_SUFFIXES).annc(ResourceType.GROUP_ANNC, null)
+            .literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.GROUP).id(ResourceType.MEMBERS_CONTENT, null).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.ATTACHED_DEVICES).id(ResourceType.ATTACHED_DEVICE, null).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.ATTACHED_DEVICE).literal("mgmtObjs", ResourceType.MGMT_OBJS).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.MGMT_OBJS).literal("subscriptions", ResourceType.SUBSCRIPTIONS);
+        state(ResourceType.NOTIFICATION_CHANNELS).id(ResourceType.NOTIFICATION_CHANNEL, null);
+        state(ResourceType.M2M_POCS).id(ResourceType.M2M_POC, null);
+        state(ResourceType.SUBSCRIPTIONS).id(ResourceType.SUBSCRIPTION, null);
+    }
+
+    /** Shared controllers */
+    private static final Controller SCL_BASE_CONTROLLER = new SclBaseController();
+    private static final Controller SCLS_CONTROLLER = new SclsController();
+    private static final Controller SCL_CONTROLLER = new SclController();
+    private static final Controller APPLICATIONS_CONTROLLER = new ApplicationsController();
+    private static final Controller APPLICATION_CONTROLLER = new ApplicationController();
+    private static final Controller APPLICATION_ANNC_CONTROLLER = new ApplicationAnncController();
+    private static final Controller APOC_CONTROLLER = new APocController();
+    private static final Controller CONTAINERS_CONTROLLER = new ContainersController();
+    private static final Controller CONTAINER_CONTROLLER = new ContainerController();
+    private static final Controller CONTAINER_ANNC_CONTROLLER = new ContainerAnncController();
+    private static final Controller CONTENT_INSTANCES_CONTROLLER = new ContentInstancesController();
+    private static final Controller CONTENT_INSTANCE_CONTROLLER = new ContentInstanceController();
+    private static final Controller CONTENT_CONTROLLER = new ContentController();
+    private static final Controller SUBSCRIPTIONS_CONTROLLER = new SubscriptionsController();
+    private static final Controller SUBSCRIPTION_CONTROLLER = new SubscriptionController();
+    private static final Controller ACCESS_RIGHTS_CONTROLLER = new AccessRightsController();
+    private static final Controller ACCESS_RIGHT_CONTROLLER = new AccessRightController();
+    private static final Controller ACCESS_RIGHT_ANNC_CONTROLLER = new AccessRightAnncController();
+    private static final Controller GROUPS_CONTROLLER = new GroupsController();
+    private static final Controller GROUP_CONTROLLER = new GroupController();
+    private static final Controller GROUP_ANNC_CONTROLLER = new GroupAnncController();
+    private static final Controller MEMBERS_CONTENT_CONTROLLER = new MembersContentController();
+    private static final Controller DISCOVERY_CONTROLLER = new DiscoveryController();
+    private static final Controller METRICS_CONTROLLER = new MetricsController();
+    private static final Controller MGMT_OBJS_CONTROLLER = new MgmtObjsController();
+    private static final Controller ATTACHED_DEVICES_CONTROLLER = new AttachedDevicesController();
+    private static final Controller ATTACHED_DEVICE_CONTROLLER = new AttachedDeviceController();
+    private static final Controller NOTIFICATION_CHANNELS_CONTROLLER = new NotificationChannelsController();
+    private static final Controller NOTIFICATION_CHANNEL_CONTROLLER = new NotificationChannelController();
+    private static final Controller M2M_POCS_CONTROLLER = new M2MPocsController();
+    private static final Controller M2M_POC_CONTROLLER = new M2MPocController();
+
+    private Dispatcher() {
+        // UTILITY CLASS
+    }
+
+    /**
+     * Checks if a uri targets another SCL, as {@link Patterns#RETARGETING_PATTERN}.
+     * @param uri - Generic request uri
+     * @return true if the request must be retargeted
+     */
+    public static boolean isRetargeting(String uri) {
+        return !uri.isEmpty() && isWordChar(uri.charAt(0)) && !uri.startsWith(Constants.SCL_ID) && !hasLineTerminator(uri, 0);
+    }
+
+    /**
+     * Finds the resource controller of a request.
+     * @param uri - Generic request uri
+     * @param method - Generic request method
+     * @param requestIndication - The generic request, the root element of its representation
+     * tells whether the created resource is announced
+     * @return The shared resource controller otherwise null
+     */
+    public static Controller getController(String uri, String method, RequestIndication requestIndication) {
+        ResourceType type = resolve(uri);
+        if (type == null) {
+            return null;
+        }
+        boolean create = Constants.METHOD_CREATE.equals(method);
+        switch (type) {
+        case SCL_BASE: return SCL_BASE_CONTROLLER;
+        case SCLS: return create ? SCL_CONTROLLER : SCLS_CONTROLLER;
+        case SCL: return create ? null : SCL_CONTROLLER;
+        case APPLICATIONS:
+            if (!create) {
+                return APPLICATIONS_CONTROLLER;
+            }
+            return isAnnounced(requestIndication, "applicationAnnc") ? APPLICATION_ANNC_CONTROLLER : APPLICATION_CONTROLLER;
+        case APPLICATION: return create ? null : APPLICATION_CONTROLLER;
+        case APPLICATION_ANNC: return create ? null : APPLICATION_ANNC_CONTROLLER;
+        case IPU: return APOC_CONTROLLER;
+        case CONTAINERS:
+            if (!create) {
+                return CONTAINERS_CONTROLLER;
+            }
+            return isAnnounced(requestIndication, "containerAnnc") ? CONTAINER_ANNC_CONTROLLER : CONTAINER_CONTROLLER;
+        case CONTAINER: return create ? null : CONTAINER_CONTROLLER;
+        case CONTAINER_ANNC: return create ? null : CONTAINER_ANNC_CONTROLLER;
+        case CONTENT_INSTANCES: return create ? CONTENT_INSTANCE_CONTROLLER : CONTENT_INSTANCES_CONTROLLER;
+        case CONTENT_INSTANCE: return create ? null : CONTENT_INSTANCE_CONTROLLER;
+        case CONTENT: return CONTENT_CONTROLLER;
+        case SUBSCRIPTIONS: return create ? SUBSCRIPTION_CONTROLLER : SUBSCRIPTIONS_CONTROLLER;
+        case SUBSCRIPTION: return create ? null : SUBSCRIPTION_CONTROLLER;
+        case ACCESS_RIGHTS:
+            if (!create) {
+                return ACCESS_RIGHTS_CONTROLLER;
+            }
+            return isAnnounced(requestIndication, "accessRightAnnc") ? ACCESS_RIGHT_ANNC_CONTROLLER : ACCESS_RIGHT_CONTROLLER;
+        case ACCESS_RIGHT: return create ? null : ACCESS_RIGHT_CONTROLLER;
+        case ACCESS_RIGHT_ANNC: return create ? null : ACCESS_RIGHT_ANNC_CONTROLLER;
+        case GROUPS:
+            if (!create) {
+                return GROUPS_CONTROLLER;
+            }
+            return isAnnounced(requestIndication, "groupAnnc") ? GROUP_ANNC_CONTROLLER : GROUP_CONTROLLER;
+        case GROUP: return create ? null : GROUP_CONTROLLER;
+        case GROUP_ANNC: return create ? null : GROUP_ANNC_CONTROLLER;
+        case MEMBERS_CONTENT: return MEMBERS_CONTENT_CONTROLLER;
+        case DISCOVERY: return DISCOVERY_CONTROLLER;
+        case METRICS: return METRICS_CONTROLLER;
+        case MGMT_OBJS: return MGMT_OBJS_CONTROLLER;
+        case ATTACHED_DEVICES: return ATTACHED_DEVICES_CONTROLLER;
+        case ATTACHED_DEVICE: return ATTACHED_DEVICE_CONTROLLER;
+        case NOTIFICATION_CHANNELS: return NOTIFICATION_CHANNELS_CONTROLLER;
+        case NOTIFICATION_CHANNEL: return NOTIFICATION_CHANNEL_CONTROLLER;
+        case M2M_POCS: return M2M_POCS_CONTROLLER;
+        case M2M_POC: return M2M_POC_CONTROLLER;
+        default: return null;
+        }
+    }
+
+    /**
+     * Finds the DAO of the resource of a uri.
+     * @param uri - Resource uri
+     * @return The DAO of the resource, null for a collection or an unknown uri
+     */
+    @SuppressWarnings("rawtypes")
+    public static DAO getDAO(String uri) {
+        ResourceType type = resolve(uri);
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+        case SCL_BASE: return DAOFactory.getSclBaseDAO();
+        case SCL: return DAOFactory.getSclDAO();
+        case APPLICATION: return DAOFactory.getApplicationDAO();
+        case APPLICATION_ANNC: return DAOFactory.getApplicationAnncDAO();
+        case CONTAINER: return DAOFactory.getContainerDAO();
+        case CONTAINER_ANNC: return DAOFactory.getContainerAnncDAO();
+        case CONTENT_INSTANCE: return DAOFactory.getContentInstanceDAO();
+        case SUBSCRIPTION: return DAOFactory.getSubscriptionDAO();
+        case ACCESS_RIGHT: return DAOFactory.getAccessRightDAO();
+        case ACCESS_RIGHT_ANNC: return DAOFactory.getAccessRightAnncDAO();
+        case GROUP: return DAOFactory.getGroupDAO();
+        case GROUP_ANNC: return DAOFactory.getGroupAnncDAO();
+        case ATTACHED_DEVICE: return DAOFactory.getAttachedDeviceDAO();
+        case NOTIFICATION_CHANNEL: return DAOFactory.getNotificationChannelDAO();
+        case M2M_POC: return DAOFactory.getM2MPocDAO();
+        default: return null;
+        }
+    }
+
+    /**
+     * Finds the nearest parent of a uri having a DAO, as the walk of {@link #getDAO(String)}
+     * over the ancestors of the uri.
+     * @param uri - Resource or collection uri
+     * @return The uri of the nearest parent resource otherwise null
+     */
+    public static String getParentResource(String uri) {
+        int end = uri.length();
+        while (true) {
+            while (end > 0 && uri.charAt(end - 1) == '/') {
+                end--;
+            }
+            end = uri.lastIndexOf('/', end - 1);
+            if (end <= 0) {
+                return null;
+            }
+            String ancestor = uri.substring(0, end);
+            if (getDAO(ancestor) != null) {
+                return ancestor;
+            }
+        }
+    }
+
+    /**
+     * Resolves the resource type of a uri with one walk of its segments.
+     * @param uri - Resource uri, without leading slash
+     * @return The resource type otherwise null
+     */
+    static ResourceType resolve(String uri) {
+        int length = uri.length();
+        int end = uri.indexOf('/');
+        if (end < 0) {
+            end = length;
+        }
+        if (end != Constants.SCL_ID.length() || !uri.startsWith(Constants.SCL_ID)) {
+            return null;
+        }
+        ResourceType type = ResourceType.SCL_BASE;
+        int start = end;
+        while (true) {
+            while (start < length && uri.charAt(start) == '/') {
+                start++;
+            }
+            if (start == length) {
+                return type;
+            }
+            State state = STATES.get(type);
+            if (state.prefix != null && uri.startsWith(state.prefix, start)) {
+                return hasLineTerminator(uri, start) ? null : state.prefixType;
+            }
+            end = uri.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            ResourceType next = state.next(uri.substring(start, end));
+            if (next == null) {
+                return state.proxyType != null && isProxyPath(uri, start) ? state.proxyType : null;
+            }
+            type = next;
+            start = end;
+        }
+    }
+
+    /**
+     * Checks if the path after an application starts with the id of an interworking proxy unit.
+     * @param uri - Resource uri
+     * @param start - Start of the path after the application
+     * @return true if the path is routed to the interworking proxy unit
+     */
+    private static boolean isProxyPath(String uri, int start) {
+        int end = start;
+        while (end < uri.length() && isWordChar(uri.charAt(end))) {
+            end++;
+        }
+        return end > start && !isReserved(uri.substring(start, end)) && !hasLineTerminator(uri, end);
+    }
+
+    /**
+     * Checks if an id starts with a reserved word.
+     */
+    private static boolean isReserved(String id) {
+        for (String word : RESERVED_WORDS) {
+            if (id.startsWith(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a segment only has word characters ([a-zA-Z_0-9]).
+     */
+    private static boolean isWord(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!isWordChar(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return !segment.isEmpty();
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Checks if the end of a uri has a line terminator, which is not matched by the patterns.
+     */
+    private static boolean hasLineTerminator(String uri, int start) {
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the part of an id before a suffix ends with an excluded suffix.
+     */
+    private static boolean endsWithAny(String id, int end, String[] suffixes) {
+        if (suffixes != null) {
+            for (String suffix : suffixes) {
+                if (end >= suffix.length() && id.startsWith(suffix, end - suffix.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a created resource is an announced one, from the root element of its representation.
+     * @param requestIndication - The generic request
+     * @param annc - Local name of the announced resource element
+     * @return true if the representation root element is the announced resource
+     */
+    private static boolean isAnnounced(RequestIndication requestIndication, String annc) {
+        return requestIndication != null && requestIndication.hasRootElement(Constants.M2M_NAMESPACE, annc);
+    }
+
+    private static State state(ResourceType type) {
+        return STATES.get(type);
+    }
+
+    /**
+     * Transitions of a resource type to the types of its children.
+     */
+    private static final class State {
+
+        /** Types of the children indexed by collection name */
+        private final Map<String, ResourceType> literals = new HashMap<String, ResourceType>();
+
+        /** Type of the child resources, null if there is none */
+        private ResourceType idType;
+
+        /** Suffixes the id of a child resource must not end with */
+        private String[] idExcludedSuffixes;
+
+        /** Type of the announced child resources, their id ends with Annc, null if there is none */
+        private ResourceType anncType;
+
+        /** Suffixes the id of an announced child resource must not end with, before Annc */
+        private String[] anncExcludedSuffixes;
+
+        /** Prefix of the segment starting any path of another type, null if there is none */
+        private String prefix;
+
+        /** Type of the paths starting with the prefix */
+        private ResourceType prefixType;
+
+        /** Type of the paths starting with an id which is not a child, null if there is none */
+        private ResourceType proxyType;
+
+        private State literal(String name, ResourceType type) {
+            literals.put(name, type);
+            return this;
+        }
+
+        private State id(ResourceType type, String[] excludedSuffixes) {
+            idType = type;
+            idExcludedSuffixes = excludedSuffixes;
+            return this;
+        }
+
+        private State annc(ResourceType type, String[] excludedSuffixes) {
+            anncType = type;
+            anncExcludedSuffixes = excludedSuffixes;
+            return this;
+        }
+
+        private State prefix(String prefix, ResourceType type) {
+            this.prefix = prefix;
+            prefixType = type;
+            return this;
+        }
+
+        private State proxy(ResourceType type) {
+            proxyType = type;
+            return this;
+        }
+
+        /**
+         * Returns the type of a child segment.
+         * @param segment - Segment of the uri, without slash
+         * @return The type of the child otherwise null
+         */
+        private ResourceType next(String segment) {
+            ResourceType type = literals.get(segment);
+            if (type != null || !isWord(segment)) {
+                return type;
+            }
+            int anncEnd = segment.length() - ANNC.length();
+            if (anncType != null && anncEnd > 0 && segment.endsWith(ANNC) && !endsWithAny(segment, anncEnd, anncExcludedSuffixes)) {
+                return anncType;
+            }
+            if (idType != null && !isReserved(segment) && !endsWithAny(segment, segment.length(), idExcludedSuffixes)) {
+                return idType;
+            }
+            return null;
+        }
+    }
+}
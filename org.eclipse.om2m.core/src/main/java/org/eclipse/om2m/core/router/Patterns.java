@@ -27,7 +27,6 @@ import java.util.regex.Pattern;
 
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAO;
-import org.eclipse.om2m.core.dao.DAOFactory;
 
 public class Patterns {
 	
@@ -111,6 +110,9 @@ public class Patterns {
     /** Discovery resource uri pattern. */
     public static final Pattern DISCOVERY_PATTERN = Pattern.compile(SCL_BASE_PATTERN+"/+discovery/*.*");
 
+    /** Metrics resource uri pattern. */
+    public static final Pattern METRICS_PATTERN = Pattern.compile(SCL_BASE_PATTERN+"/+metrics/*");
+
     /** AttachedDevices resource uri pattern. */
     public static final Pattern ATTACHED_DEVICES_PATTERN = Pattern.compile(SCL_PATTERN+"/+attachedDevices/*");
 
@@ -176,91 +178,21 @@ public class Patterns {
 	}
 
 	/**
-	 * Get the DAO corresponding to the resource described in the URI. 
+	 * Get the DAO corresponding to the resource described in the URI, resolved by the {@link Dispatcher}.
 	 * @param uri
 	 * @return DAO
 	 */
 	public static DAO getDAO(String uri){
+		return Dispatcher.getDAO(uri);
+	}
 
-        // Match the resource DAO with an uri pattern and return it, otherwise return null*
-        if(Patterns.match(Patterns.SCL_BASE_PATTERN,uri)){
-            return DAOFactory.getSclBaseDAO();
-        }
-        
-        if(Patterns.match(Patterns.SCL_PATTERN,uri)){
-            return DAOFactory.getSclDAO();
-        }
-        
-        if(Patterns.match(Patterns.APPLICATION_PATTERN,uri)){
-            return DAOFactory.getApplicationDAO();
-        }
-        if(Patterns.match(Patterns.APPLICATION_ANNC_PATTERN,uri)){
-            return DAOFactory.getApplicationAnncDAO();
-        }
-        
-        if(Patterns.match(Patterns.CONTAINER_PATTERN,uri)){
-            return DAOFactory.getContainerDAO();
-        }
-        if(Patterns.match(Patterns.CONTAINER_ANNC_PATTERN,uri)){
-            return DAOFactory.getContainerAnncDAO();
-        }
-        if(Patterns.match(Patterns.LOCATION_CONTAINER_PATTERN,uri)){
-            return DAOFactory.getLocationContainerDAO();
-        }
-        if(Patterns.match(Patterns.LOCATION_CONTAINER_ANNC_PATTERN,uri)){
-            return DAOFactory.getLocationContainerAnncDAO();
-        }
-        
-        if(Patterns.match(Patterns.CONTENT_INSTANCE_PATTERN,uri) ){
-            return DAOFactory.getContentInstanceDAO();
-        }
-        
-        if(Patterns.match(Patterns.SUBSCRIPTION_PATTERN,uri)){
-            return DAOFactory.getSubscriptionDAO();
-        }
-        
-        if(Patterns.match(Patterns.ACCESS_RIGHT_PATTERN,uri) ){
-            return DAOFactory.getAccessRightDAO();
-        }
-        if(Patterns.match(Patterns.ACCESS_RIGHT_ANNC_PATTERN,uri)){
-            return DAOFactory.getAccessRightAnncDAO();
-        }
-        
-        if(Patterns.match(Patterns.GROUP_PATTERN,uri)){
-            return DAOFactory.getGroupDAO();
-        }
-        if(Patterns.match(Patterns.GROUP_ANNC_PATTERN,uri)){
-            return DAOFactory.getGroupAnncDAO();
-        }
-       
-        if(Patterns.match(Patterns.MGMT_OBJ_PATTERN,uri)){
-            return DAOFactory.getMgmtObjDAO();
-        }
-        
-        if(Patterns.match(Patterns.PARAMETER_PATTERN,uri)){
-            return null;
-        }
-        if(Patterns.match(Patterns.MGMT_CMD_PATTERN,uri)){
-            return DAOFactory.getMgmtCmdDAO();
-        }
-        
-        if(Patterns.match(Patterns.EXEC_INSTANCE_PATTERN,uri)){
-            return DAOFactory.getExecInstanceDAO();
-        }
-       
-        if(Patterns.match(Patterns.ATTACHED_DEVICE_PATTERN,uri)){
-            return DAOFactory.getAttachedDeviceDAO();
-        }
-        
-        if(Patterns.match(Patterns.NOTIFICATION_CHANNEL_PATTERN,uri)){
-            return DAOFactory.getNotificationChannelDAO();
-        }
-       
-        if(Patterns.match(Patterns.M2M_POC_PATTERN,uri)){
-            return DAOFactory.getM2MPocDAO();
-        }
-
-        return null;    
+	/**
+	 * Get the uri of the nearest parent resource of the URI, resolved by the {@link Dispatcher}.
+	 * @param uri
+	 * @return uri of the parent resource otherwise null
+	 */
+	public static String getParentResource(String uri){
+		return Dispatcher.getParentResource(uri);
 	}
 	
 }